@@ -0,0 +1,86 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * 基准测试公共工具
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 读取 classpath 下的 User-Agent 语料
+     *
+     * @return User-Agent 数组
+     */
+    static String[] loadUserAgents() {
+        try (InputStream in = BenchmarkSupport.class.getResourceAsStream("/user-agents.txt")) {
+            if (in == null) {
+                throw new IllegalStateException("user-agents.txt not found on classpath");
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            List<String> userAgents = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    userAgents.add(line);
+                }
+            }
+            return userAgents.toArray(new String[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 构造指定数量的请求 Cookie，模拟共享域名下其他应用写入的 Cookie
+     *
+     * @param size Cookie 数量
+     * @return Cookie 数组
+     */
+    static Cookie[] cookies(int size) {
+        Cookie[] cookies = new Cookie[size];
+        for (int i = 0; i < size; i++) {
+            cookies[i] = new Cookie("app_cookie_" + i, "v" + Integer.toHexString(i * 0x9E3779B1));
+        }
+        return cookies;
+    }
+
+    /**
+     * 只记录最后一个响应头的 Response，避免 Mock 对象在迭代中无限积累 Header
+     */
+    static final class SinkResponse extends HttpServletResponseWrapper {
+
+        String lastHeader;
+
+        Cookie lastCookie;
+
+        SinkResponse() {
+            super(new MockHttpServletResponse());
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            lastHeader = value;
+        }
+
+        @Override
+        public void addCookie(Cookie cookie) {
+            lastCookie = cookie;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * isToken、quote 与原实现（toCharArray 后逐字符查表）的对比，值为 JWT 风格的 token 字符
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CookieTokenScannerBenchmark {
+
+    private static final boolean[] LEGACY_FLAGS = new boolean[127];
+
+    static {
+        for (int i = 0; i < CookieTokenScanner.SEPARATORS.length(); i++) {
+            LEGACY_FLAGS[CookieTokenScanner.SEPARATORS.charAt(i)] = true;
+        }
+    }
+
+    /**
+     * Cookie 值长度
+     */
+    @Param({"16", "512", "2048"})
+    public int length;
+
+    private String value;
+
+    @Setup
+    public void setup() {
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_.";
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt((i * 31 + 7) % alphabet.length()));
+        }
+        value = sb.toString();
+    }
+
+    @Benchmark
+    public boolean isToken() {
+        return CookieTokenScanner.isToken(value);
+    }
+
+    @Benchmark
+    public boolean isTokenLegacy() {
+        for (char c : value.toCharArray()) {
+            if (c < 0x20 || c >= 0x7f || LEGACY_FLAGS[c]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Benchmark
+    public String quote() {
+        return CookieUtil.quote(value);
+    }
+
+    @Benchmark
+    public String quoteLegacy() {
+        for (char ch : value.toCharArray()) {
+            if (ch < 127 && LEGACY_FLAGS[ch]) {
+                return '"' + value + '"';
+            }
+        }
+        return value;
+    }
+}
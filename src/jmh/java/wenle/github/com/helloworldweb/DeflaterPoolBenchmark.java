@@ -0,0 +1,77 @@
+package wenle.github.com.helloworldweb;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 每个响应新建 Deflater 与从 {@link DeflaterPool} 借用的对比，压缩一个动态文本响应体
+ * <pre>
+ * mvn -Pbenchmark compile exec:exec -Djmh.args="DeflaterPoolBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DeflaterPoolBenchmark {
+
+    @Param({"4096", "65536"})
+    public int size;
+
+    @Param({"1", "6"})
+    public int level;
+
+    private final DeflaterPool pool = new DeflaterPool(true, 4);
+
+    private byte[] body;
+
+    private final byte[] output = new byte[8192];
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; sb.length() < size; i++) {
+            sb.append("Set-Cookie: key=value; Path=/; Secure; SameSite=None; request=").append(i * 7919L).append('\n');
+        }
+        body = sb.substring(0, size).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public long newDeflater() {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            return compress(deflater);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Benchmark
+    public long pooledDeflater() {
+        Deflater deflater = pool.acquire(level);
+        try {
+            return compress(deflater);
+        } finally {
+            pool.release(deflater);
+        }
+    }
+
+    private long compress(Deflater deflater) {
+        deflater.setInput(body);
+        deflater.finish();
+        long total = 0;
+        while (!deflater.finished()) {
+            total += deflater.deflate(output);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,206 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+/**
+ * Servlet（Tomcat）与 WebFlux（Reactor Netty）版本的对比压测：固定并发的 keep-alive 客户端轮流请求 /、/home、/test，
+ * 输出吞吐量和 p50/p99 延迟。
+ * <p>
+ * 在同一个进程中分别以两种模式启动应用，两种模式使用相同的客户端和参数：
+ * <pre>
+ * mvn -Pbenchmark,reactive compile exec:exec -Dbenchmark.main=wenle.github.com.helloworldweb.EndpointLoadTest \
+ *     -Djmh.args="--mode servlet --concurrency 64 --duration 20"
+ * mvn -Pbenchmark,reactive compile exec:exec -Dbenchmark.main=wenle.github.com.helloworldweb.EndpointLoadTest \
+ *     -Djmh.args="--mode reactive --concurrency 64 --duration 20"
+ * </pre>
+ * Servlet 模式额外注册 /load/text?size=N，用 PrintWriter 写出 N 字节的动态文本，用于比较动态响应的压缩方式：
+ * {@code --compression filter} 使用 {@link CompressionFilter}，{@code tomcat} 使用 Tomcat 自带的 server.compression，
+ * {@code none} 都不开启，例如 {@code --paths /load/text?size=16384 --compression tomcat}。
+ * <p>
+ * {@code --protocol h2c} 开启 server.http2.enabled，客户端通过 Upgrade: h2c 在一个连接上复用所有并发请求，
+ * 与默认的 HTTP/1.1 keep-alive（每个并发一个连接）对比，例如 {@code --paths /test,/ --protocol h2c}。
+ */
+public final class EndpointLoadTest {
+
+    private static final String[] PATHS = {"/", "/home", "/test"};
+
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) "
+        + "Chrome/116.0.0.0 Safari/537.36";
+
+    private EndpointLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of(
+            "mode", "servlet",
+            "port", "18080",
+            "concurrency", "64",
+            "duration", "20",
+            "warmup", "10",
+            "paths", String.join(",", PATHS),
+            "compression", "filter",
+            "protocol", "http1"));
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        String mode = options.get("mode");
+        int port = Integer.parseInt(options.get("port"));
+        int concurrency = Integer.parseInt(options.get("concurrency"));
+        WebApplicationType type = "reactive".equals(mode) ? WebApplicationType.REACTIVE : WebApplicationType.SERVLET;
+
+        String compression = options.get("compression");
+        boolean h2c = "h2c".equals(options.get("protocol"));
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(HelloworldWebApplication.class).web(type);
+        if (type == WebApplicationType.SERVLET) {
+            builder.initializers(ctx -> ((GenericApplicationContext) ctx).registerBean("loadTestTextServlet", ServletRegistrationBean.class,
+                () -> new ServletRegistrationBean<>(new TextServlet(), "/load/text")));
+        }
+        ConfigurableApplicationContext context = builder.run("--server.port=" + port, "--logging.level.root=WARN",
+            "--compression.enabled=" + "filter".equals(compression),
+            "--server.compression.enabled=" + "tomcat".equals(compression),
+            "--server.compression.mime-types=text/plain,text/html,application/json",
+            "--server.http2.enabled=" + h2c);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                .version(h2c ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+            String[] paths = options.get("paths").split(",");
+            HttpRequest[] requests = new HttpRequest[paths.length];
+            for (int i = 0; i < paths.length; i++) {
+                requests[i] = HttpRequest.newBuilder(URI.create("http://localhost:" + port + paths[i]))
+                    .header("User-Agent", USER_AGENT)
+                    .header("Cookie", "USER_COOKIE=DE719787")
+                    .header("Accept-Encoding", "gzip, deflate")
+                    .build();
+            }
+            System.out.printf("mode=%s protocol=%s compression=%s paths=%s concurrency=%d java=%s%n",
+                mode, options.get("protocol"), compression, options.get("paths"), concurrency, Runtime.version());
+            // 第一个请求完成 h2c 升级，之后的请求都在同一个 HTTP/2 连接上
+            System.out.printf("negotiated=%s%n", client.send(requests[0], HttpResponse.BodyHandlers.discarding()).version());
+            run(client, requests, concurrency, Long.parseLong(options.get("warmup")), false);
+            run(client, requests, concurrency, Long.parseLong(options.get("duration")), true);
+        } finally {
+            executor.shutdownNow();
+            context.close();
+        }
+    }
+
+    static void run(HttpClient client, HttpRequest[] requests, int concurrency, long seconds, boolean report)
+        throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long[][] latencies = new long[concurrency][65536];
+        int[] counts = new int[concurrency];
+        AtomicLong errors = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            int worker = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    long[] samples = latencies[worker];
+                    for (int n = worker; System.nanoTime() < deadline; n++) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<byte[]> response = client.send(requests[n % requests.length], HttpResponse.BodyHandlers.ofByteArray());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                            bytes.addAndGet(response.body().length);
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (counts[worker] < samples.length) {
+                            samples[counts[worker]] = System.nanoTime() - start;
+                        }
+                        counts[worker]++;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "endpoint-client-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        if (!report) {
+            return;
+        }
+        int total = 0;
+        int sampled = 0;
+        for (int count : counts) {
+            total += count;
+            sampled += Math.min(count, latencies[0].length);
+        }
+        long[] all = new long[sampled];
+        int offset = 0;
+        for (int i = 0; i < concurrency; i++) {
+            int n = Math.min(counts[i], latencies[i].length);
+            System.arraycopy(latencies[i], 0, all, offset, n);
+            offset += n;
+        }
+        Arrays.sort(all);
+        System.out.printf("requests=%d errors=%d throughput=%.1f req/s p50=%.2f ms p99=%.2f ms max=%.2f ms bytes/response=%.0f%n",
+            total, errors.get(), total / (double) seconds, percentile(all, 0.50), percentile(all, 0.99),
+            all.length == 0 ? 0.0 : all[all.length - 1] / 1e6, total == 0 ? 0.0 : bytes.get() / (double) total);
+    }
+
+    /**
+     * 与 HelloController.home 一样用 PrintWriter 写出响应头列表，重复到指定大小
+     */
+    static final class TextServlet extends HttpServlet {
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            int size = Integer.parseInt(request.getParameter("size"));
+            CookieUtil.addCookie("key", "value", response);
+            response.setContentType("text/plain");
+            response.setCharacterEncoding("UTF-8");
+            PrintWriter writer = response.getWriter();
+            String line = "Set-Cookie: " + response.getHeader("Set-Cookie") + "; request=";
+            long id = System.nanoTime();
+            for (int written = 0; written < size; ) {
+                String text = line + id++ + "\n";
+                writer.write(text);
+                written += text.length();
+            }
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
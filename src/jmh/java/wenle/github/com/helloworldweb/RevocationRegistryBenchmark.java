@@ -0,0 +1,75 @@
+package wenle.github.com.helloworldweb;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link RevocationRegistry#isRevoked} 未撤销（几乎所有请求）和已撤销两种情况的耗时。
+ * miss 使用已缓存哈希值的字符串；missFreshString 每次复制出新字符串，包含计算 String 哈希值的开销，
+ * 与请求中新解析出的 Cookie 值一致；concurrentHashMapMiss 为同样条件下直接查询精确集合的基准
+ * <pre>
+ * mvn -Pbenchmark compile exec:exec -Djmh.args="RevocationRegistryBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RevocationRegistryBenchmark {
+
+    @Param({"0", "100000"})
+    public int revoked;
+
+    private final RevocationRegistry registry = new RevocationRegistry(100_000, null);
+
+    private final ConcurrentHashMap<String, Long> map = new ConcurrentHashMap<>();
+
+    private String[] live;
+
+    private String revokedValue;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < revoked; i++) {
+            String value = "s1.k1.tn38ny.dXNlcj0" + i + ".revoked" + Integer.toHexString(i * 7919);
+            registry.revoke(value, Duration.ofHours(1));
+            map.put(value, Long.MAX_VALUE);
+            revokedValue = value;
+        }
+        live = new String[1024];
+        for (int i = 0; i < live.length; i++) {
+            live[i] = new String("s1.k1.tn38ny.dXNlcj00Mg.Vn0eNN8xaR5ugOM7i" + Integer.toHexString(i * 31 + 17));
+        }
+    }
+
+    @Benchmark
+    public boolean miss() {
+        return registry.isRevoked(live[next++ & 1023]);
+    }
+
+    @Benchmark
+    public boolean missFreshString() {
+        return registry.isRevoked(new String(live[next++ & 1023]));
+    }
+
+    @Benchmark
+    public boolean hit() {
+        return revokedValue != null && registry.isRevoked(revokedValue);
+    }
+
+    @Benchmark
+    public boolean concurrentHashMapMiss() {
+        return map.containsKey(new String(live[next++ & 1023]));
+    }
+}
@@ -0,0 +1,209 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.Manager;
+import org.apache.catalina.Session;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+/**
+ * {@link OffHeapSessionStore} 与 Tomcat {@link HttpSession} 的对比压测。
+ * <p>
+ * 先在进程内创建 --sessions 个会话，每个保存 --size 字节的数据，Full GC 后输出堆占用；
+ * 然后固定并发的 keep-alive 客户端随机携带其中一个会话的 Cookie 请求 /load/session，
+ * 每个请求读取会话数据并写回一份新数据，输出吞吐量、延迟和压测期间的 GC 次数与耗时。两种存储分别启动：
+ * <pre>
+ * mvn -Pbenchmark compile exec:exec -Dbenchmark.main=wenle.github.com.helloworldweb.SessionStoreLoadTest \
+ *     -Dbenchmark.jvm.args="-Xms2g -Xmx2g" -Djmh.args="--store container --sessions 500000 --size 1024"
+ * mvn -Pbenchmark compile exec:exec -Dbenchmark.main=wenle.github.com.helloworldweb.SessionStoreLoadTest \
+ *     -Dbenchmark.jvm.args="-Xms2g -Xmx2g" -Djmh.args="--store offheap --sessions 500000 --size 1024"
+ * </pre>
+ * 堆外存储默认映射到 target/session-store.bin，{@code --file ""} 时使用直接内存（受 -XX:MaxDirectMemorySize 限制，默认等于 -Xmx）。
+ */
+public final class SessionStoreLoadTest {
+
+    private static final String COOKIE = "SID";
+
+    private static final String ATTRIBUTE = "data";
+
+    private SessionStoreLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of(
+            "store", "offheap",
+            "port", "18081",
+            "sessions", "200000",
+            "size", "512",
+            "concurrency", "16",
+            "duration", "20",
+            "warmup", "10",
+            "file", "target/session-store.bin"));
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        boolean offHeap = "offheap".equals(options.get("store"));
+        int port = Integer.parseInt(options.get("port"));
+        int sessions = Integer.parseInt(options.get("sessions"));
+        int size = Integer.parseInt(options.get("size"));
+        int concurrency = Integer.parseInt(options.get("concurrency"));
+        int segments = 64;
+        // 最多使用每段 7/8 的槽位，再留出余量给哈希分布不均的段
+        int slotsPerSegment = (int) Math.ceil(sessions * 1.25 / segments);
+        // 槽位头 28 字节加 22 个字符的 id，按 64 字节对齐
+        int slotSize = (size + 50 + 63) & -64;
+        if (!options.get("file").isEmpty()) {
+            // 每次从空存储开始，不恢复上次压测留下的会话
+            Files.deleteIfExists(Path.of(options.get("file")));
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(HelloworldWebApplication.class)
+            .web(WebApplicationType.SERVLET)
+            .initializers(ctx -> ((GenericApplicationContext) ctx).registerBean("loadTestSessionServlet", ServletRegistrationBean.class,
+                () -> new ServletRegistrationBean<>(new SessionServlet(offHeap ? ctx.getBean(OffHeapSessionStore.class) : null, size),
+                    "/load/session")))
+            .run("--server.port=" + port, "--logging.level.root=WARN", "--warmup.enabled=false",
+                "--server.servlet.session.cookie.name=" + COOKIE,
+                "--cookie.session-store.enabled=" + offHeap,
+                "--cookie.session-store.file=" + options.get("file"),
+                "--cookie.session-store.segments=" + segments,
+                "--cookie.session-store.slots-per-segment=" + slotsPerSegment,
+                "--cookie.session-store.slot-size=" + slotSize);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            String[] ids = offHeap ? populate(context.getBean(OffHeapSessionStore.class), sessions, size)
+                : populate(context, sessions, size);
+            System.gc();
+            System.gc();
+            Runtime runtime = Runtime.getRuntime();
+            System.out.printf("store=%s sessions=%d size=%d concurrency=%d java=%s%n",
+                options.get("store"), sessions, size, concurrency, Runtime.version());
+            System.out.printf("heapUsedAfterGc=%d MB%n", (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+
+            HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+            HttpRequest[] requests = new HttpRequest[65536];
+            URI uri = URI.create("http://localhost:" + port + "/load/session");
+            for (int i = 0; i < requests.length; i++) {
+                String id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+                requests[i] = HttpRequest.newBuilder(uri).header("Cookie", COOKIE + "=" + id).build();
+            }
+            EndpointLoadTest.run(client, requests, concurrency, Long.parseLong(options.get("warmup")), false);
+            long gcCount = gcCount();
+            long gcMillis = gcMillis();
+            EndpointLoadTest.run(client, requests, concurrency, Long.parseLong(options.get("duration")), true);
+            System.out.printf("gcCount=%d gcTime=%d ms%n", gcCount() - gcCount, gcMillis() - gcMillis);
+        } finally {
+            executor.shutdownNow();
+            context.close();
+        }
+    }
+
+    private static String[] populate(OffHeapSessionStore store, int sessions, int size) {
+        String[] ids = new String[sessions];
+        for (int i = 0; i < sessions; i++) {
+            ids[i] = OffHeapSessionStore.newId();
+            if (!store.put(ids[i], payload(size, i))) {
+                throw new IllegalStateException("Session store is full after " + i + " sessions");
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 直接通过 Tomcat 的 Manager 创建会话，与请求中 request.getSession(true) 创建的会话相同
+     */
+    private static String[] populate(ConfigurableApplicationContext context, int sessions, int size) {
+        TomcatWebServer server = (TomcatWebServer) ((ServletWebServerApplicationContext) context).getWebServer();
+        Manager manager = ((Context) server.getTomcat().getHost().findChildren()[0]).getManager();
+        String[] ids = new String[sessions];
+        for (int i = 0; i < sessions; i++) {
+            Session session = manager.createSession(null);
+            session.getSession().setAttribute(ATTRIBUTE, payload(size, i));
+            ids[i] = session.getIdInternal();
+        }
+        return ids;
+    }
+
+    private static byte[] payload(int size, int seed) {
+        byte[] data = new byte[size];
+        ThreadLocalRandom.current().nextBytes(data);
+        data[0] = (byte) seed;
+        return data;
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    /**
+     * 读取会话数据，修改后写回；会话不存在时返回 404
+     */
+    static final class SessionServlet extends HttpServlet {
+
+        private final OffHeapSessionStore store;
+
+        private final int size;
+
+        SessionServlet(OffHeapSessionStore store, int size) {
+            this.store = store;
+            this.size = size;
+        }
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            byte[] data;
+            if (store != null) {
+                data = CookieUtil.getSession(COOKIE, request, store);
+            } else {
+                HttpSession session = request.getSession(false);
+                data = session != null ? (byte[]) session.getAttribute(ATTRIBUTE) : null;
+            }
+            if (data == null) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            byte[] next = data.clone();
+            next[size - 1]++;
+            if (store != null) {
+                CookieUtil.addSession(COOKIE, next, store, request, response);
+            } else {
+                request.getSession(false).setAttribute(ATTRIBUTE, next);
+            }
+            response.setContentType("text/plain");
+            response.getWriter().write(Integer.toString(next[size - 1]));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package wenle.github.com.helloworldweb;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link SignedCookieCodec} 签名（sign）和校验（verify）的耗时，encrypt=true 时为 AES-GCM 加密和解密；
+ * perCallGetInstance* 为每次调用 Mac.getInstance 和 init 的基准
+ * <pre>
+ * mvn -Pbenchmark compile exec:exec -Djmh.args="SignedCookieBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SignedCookieBenchmark {
+
+    @Param({"false", "true"})
+    public boolean encrypt;
+
+    @Param({"64", "512"})
+    public int payloadSize;
+
+    private SignedCookieCodec<String> codec;
+
+    private String payload;
+
+    private String cookie;
+
+    private byte[] secret;
+
+    @Setup
+    public void setUp() {
+        secret = new byte[32];
+        Arrays.fill(secret, (byte) 7);
+        codec = new SignedCookieCodec<>(new CookieKeyRing("k1", Map.of("k1", secret)), CookiePayloadSerializer.UTF8,
+            Duration.ofHours(1), encrypt);
+        payload = "uid=1234567890;roles=user,admin;".repeat(payloadSize / 32 + 1).substring(0, payloadSize);
+        cookie = codec.encode("SESSION", payload);
+    }
+
+    @Benchmark
+    public String sign() {
+        return codec.encode("SESSION", payload);
+    }
+
+    @Benchmark
+    public SignedCookieCodec.SignedCookie<String> verify() {
+        return codec.decode("SESSION", cookie);
+    }
+
+    @Benchmark
+    public String perCallGetInstanceSign() throws GeneralSecurityException {
+        String body = "s1.k1.t85s00." + Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return body + '.' + Base64.getUrlEncoder().withoutPadding().encodeToString(perCallMac(body));
+    }
+
+    @Benchmark
+    public boolean perCallGetInstanceVerify() throws GeneralSecurityException {
+        String body = cookie.substring(0, cookie.lastIndexOf('.'));
+        return MessageDigest.isEqual(perCallMac(body), Base64.getUrlDecoder().decode(cookie.substring(cookie.lastIndexOf('.') + 1)));
+    }
+
+    private byte[] perCallMac(String body) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+        mac.update("SESSION=".getBytes(StandardCharsets.US_ASCII));
+        return Arrays.copyOf(mac.doFinal(body.getBytes(StandardCharsets.US_ASCII)), SignedCookieCodec.TAG_LENGTH);
+    }
+}
@@ -0,0 +1,232 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.tomcat.TomcatConnectorCustomizer;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+/**
+ * 慢读客户端压测：比较平台线程池与虚拟线程在大量慢速读取连接下的吞吐量和 p99 延迟。
+ * <p>
+ * 在同一个进程中启动应用，额外注册 /load/home：与 HelloController.home 一样读写 Cookie，再写出 size 字节的响应体。
+ * 响应体大于 socket 发送缓冲区，客户端每次只读一小块并等待，Tomcat 的处理线程因此阻塞在写响应上。
+ * <pre>
+ * mvn -Pbenchmark compile exec:exec -Dbenchmark.main=wenle.github.com.helloworldweb.SlowReaderLoadTest \
+ *     -Djmh.args="--virtual false --concurrency 2000 --duration 20"
+ * </pre>
+ * 虚拟线程需要 JDK 21：使用 {@code -Pbenchmark,virtual-threads} 并传入 {@code --virtual true}。
+ */
+public final class SlowReaderLoadTest {
+
+    private SlowReaderLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of(
+            "virtual", "false",
+            "port", "18080",
+            "threads", "200",
+            "concurrency", "2000",
+            "duration", "20",
+            "warmup", "5",
+            "size", "131072",
+            "chunk", "8192",
+            "read-delay-ms", "10"));
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        boolean virtual = Boolean.parseBoolean(options.get("virtual"));
+        int port = Integer.parseInt(options.get("port"));
+        int concurrency = Integer.parseInt(options.get("concurrency"));
+        int size = Integer.parseInt(options.get("size"));
+        int chunk = Integer.parseInt(options.get("chunk"));
+        long readDelayMillis = Long.parseLong(options.get("read-delay-ms"));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(HelloworldWebApplication.class)
+            .initializers(ctx -> registerLoadTestBeans((GenericApplicationContext) ctx))
+            .run("--server.port=" + port,
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--server.tomcat.threads.max=" + options.get("threads"),
+                "--server.tomcat.max-connections=" + (concurrency * 2),
+                "--server.tomcat.accept-count=" + concurrency,
+                "--logging.level.root=WARN");
+        try {
+            Client client = new Client(port, "/load/home?size=" + size, size, chunk, readDelayMillis);
+            System.out.printf("virtual=%s threads=%s concurrency=%d size=%d chunk=%d readDelay=%dms java=%s%n",
+                virtual, options.get("threads"), concurrency, size, chunk, readDelayMillis, Runtime.version());
+            client.run(concurrency, Long.parseLong(options.get("warmup")), false);
+            client.run(concurrency, Long.parseLong(options.get("duration")), true);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void registerLoadTestBeans(GenericApplicationContext context) {
+        context.registerBean("loadTestServlet", ServletRegistrationBean.class,
+            () -> new ServletRegistrationBean<>(new PayloadServlet(), "/load/home"));
+        // 缩小发送缓冲区，使响应体一定无法一次写入内核缓冲区
+        context.registerBean("loadTestConnectorCustomizer", TomcatConnectorCustomizer.class,
+            () -> connector -> connector.setProperty("socket.txBufSize", "16384"));
+    }
+
+    /**
+     * 与 HelloController.home 相同的 Cookie 处理，再写出指定大小的响应体
+     */
+    static final class PayloadServlet extends HttpServlet {
+
+        private static final byte[] CHUNK = new byte[8192];
+
+        static {
+            Arrays.fill(CHUNK, (byte) 'x');
+        }
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            CookieUtil.getCookieValue("USER_COOKIE", request);
+            CookieUtil.addCookie("key", "value", response);
+            int size = Integer.parseInt(request.getParameter("size"));
+            response.setContentType("text/plain");
+            response.setContentLength(size);
+            ServletOutputStream out = response.getOutputStream();
+            for (int written = 0; written < size; written += CHUNK.length) {
+                out.write(CHUNK, 0, Math.min(CHUNK.length, size - written));
+            }
+        }
+    }
+
+    /**
+     * 固定并发的慢读客户端，每个连接发送一个请求后分块读取响应并在每块之间等待
+     */
+    static final class Client {
+
+        private final int port;
+
+        private final byte[] request;
+
+        private final int size;
+
+        private final int chunk;
+
+        private final long readDelayMillis;
+
+        Client(int port, String path, int size, int chunk, long readDelayMillis) {
+            this.port = port;
+            this.request = ("GET " + path + " HTTP/1.1\r\nHost: localhost\r\nCookie: USER_COOKIE=DE719787\r\n"
+                + "User-Agent: SlowReaderLoadTest\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+            this.size = size;
+            this.chunk = chunk;
+            this.readDelayMillis = readDelayMillis;
+        }
+
+        void run(int concurrency, long seconds, boolean report) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            List<long[]> latencies = new ArrayList<>();
+            int[] counts = new int[concurrency];
+            AtomicLong errors = new AtomicLong();
+            CountDownLatch done = new CountDownLatch(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                long[] samples = new long[4096];
+                latencies.add(samples);
+                int worker = i;
+                Thread thread = new Thread(() -> {
+                    try {
+                        while (System.nanoTime() < deadline) {
+                            long start = System.nanoTime();
+                            if (fetch()) {
+                                if (counts[worker] < samples.length) {
+                                    samples[counts[worker]] = System.nanoTime() - start;
+                                }
+                                counts[worker]++;
+                            } else {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }, "slow-reader-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            done.await();
+            if (!report) {
+                return;
+            }
+            int total = 0;
+            int sampled = 0;
+            for (int count : counts) {
+                total += count;
+                sampled += Math.min(count, 4096);
+            }
+            long[] all = new long[sampled];
+            int offset = 0;
+            for (int i = 0; i < concurrency; i++) {
+                int n = Math.min(counts[i], 4096);
+                System.arraycopy(latencies.get(i), 0, all, offset, n);
+                offset += n;
+            }
+            Arrays.sort(all);
+            System.out.printf("requests=%d errors=%d throughput=%.1f req/s p50=%.1f ms p99=%.1f ms max=%.1f ms%n",
+                total, errors.get(), total / (double) seconds, percentile(all, 0.50), percentile(all, 0.99),
+                all.length == 0 ? 0.0 : all[all.length - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+        }
+
+        /**
+         * 发送一个请求并慢速读完响应
+         *
+         * @return 是否读到了完整的响应体
+         */
+        private boolean fetch() {
+            try (Socket socket = new Socket()) {
+                socket.setReceiveBufferSize(chunk);
+                socket.connect(new InetSocketAddress("localhost", port), 10_000);
+                socket.setSoTimeout(60_000);
+                OutputStream out = socket.getOutputStream();
+                out.write(request);
+                out.flush();
+                InputStream in = socket.getInputStream();
+                byte[] buffer = new byte[chunk];
+                long received = 0;
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    received += n;
+                    Thread.sleep(readDelayMillis);
+                }
+                return received >= size;
+            } catch (IOException e) {
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
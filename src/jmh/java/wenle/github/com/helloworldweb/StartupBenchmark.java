@@ -0,0 +1,237 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * 启动耗时对比：默认方式（java -jar）与快速启动方式（解压后的 classpath + Spring AOT + AppCDS 归档）
+ * 从启动进程到 /test 第一次返回 200 的耗时，以及此时进程的 RSS。
+ * <p>
+ * 快速启动方式先把 jar 展开到 target/startup：BOOT-INF/classes 打成 app.jar，BOOT-INF/lib 中的 jar 直接放在 classpath 上，
+ * 因为 CDS 不能归档 Spring Boot 嵌套 jar 中的类；然后以 -XX:ArchiveClassesAtExit 做一次训练运行，
+ * 请求 /test、/、/home 后正常退出生成 app.jsa，之后的测量运行使用 -XX:SharedArchiveFile。
+ * jar 使用 -Pfast-startup 构建时包含 AOT 生成的类，自动加上 -Dspring.aot.enabled=true。
+ * 这样构建的 jar 中 spring.main.lazy-initialization=true，默认方式用 --spring.main.lazy-initialization=false 覆盖回默认值；
+ * 两种方式都关闭启动预热，否则预热与等待 /test 的测量争用 CPU。
+ * <pre>
+ * mvn -Pfast-startup -DskipTests package
+ * mvn -Pbenchmark compile exec:exec -Dbenchmark.main=wenle.github.com.helloworldweb.StartupBenchmark \
+ *     -Djmh.args="target/helloworld-web-0.0.1-SNAPSHOT.jar --runs 5"
+ * </pre>
+ * 部署时使用输出的快速启动命令行和 target/startup 目录即可，归档与 JDK 版本和 classpath 绑定，升级任一方需要重新训练。
+ */
+public final class StartupBenchmark {
+
+    private static final String AOT_INITIALIZER = "BOOT-INF/classes/wenle/github/com/helloworldweb/"
+        + "HelloworldWebApplication__ApplicationContextInitializer.class";
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of(
+            "jar", "target/helloworld-web-0.0.1-SNAPSHOT.jar",
+            "port", "18090",
+            "runs", "5",
+            "work-dir", "target/startup"));
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--") && i + 1 < args.length) {
+                options.put(args[i].substring(2), args[++i]);
+            } else {
+                options.put("jar", args[i]);
+            }
+        }
+        Path jar = Path.of(options.get("jar"));
+        int port = Integer.parseInt(options.get("port"));
+        int runs = Integer.parseInt(options.get("runs"));
+        Path workDir = Path.of(options.get("work-dir"));
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+        String mainClass;
+        boolean aot;
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            mainClass = jarFile.getManifest().getMainAttributes().getValue("Start-Class");
+            aot = jarFile.getEntry(AOT_INITIALIZER) != null;
+        }
+        String classpath = extract(jar, workDir);
+        Path archive = workDir.resolve("app.jsa").toAbsolutePath();
+
+        List<String> fast = new ArrayList<>(List.of(java, "-XX:SharedArchiveFile=" + archive, "-Xlog:cds=off", "-Xlog:cds+dynamic=off"));
+        List<String> training = new ArrayList<>(List.of(java, "-XX:ArchiveClassesAtExit=" + archive));
+        if (aot) {
+            fast.add("-Dspring.aot.enabled=true");
+            training.add("-Dspring.aot.enabled=true");
+        }
+        for (List<String> command : List.of(fast, training)) {
+            command.addAll(List.of("-cp", classpath, mainClass, "--server.port=" + port, "--warmup.enabled=false"));
+        }
+
+        System.out.printf("jar=%s aot=%s java=%s runs=%d%n", jar, aot, Runtime.version(), runs);
+        Files.deleteIfExists(archive);
+        Sample trainingRun = launch(training, port, true);
+        System.out.printf("training run: %d ms, archive %d KB%n", trainingRun.millis, Files.size(archive) / 1024);
+
+        List<String> standard = List.of(java, "-jar", jar.toAbsolutePath().toString(), "--server.port=" + port,
+            "--spring.main.lazy-initialization=false", "--warmup.enabled=false");
+        report("default", standard, port, runs);
+        report("fast", fast, port, runs);
+        System.out.println("fast command: " + String.join(" ", fast));
+    }
+
+    private static void report(String mode, List<String> command, int port, int runs) throws Exception {
+        long[] millis = new long[runs];
+        long[] rss = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            Sample sample = launch(command, port, false);
+            millis[i] = sample.millis;
+            rss[i] = sample.rssKb;
+        }
+        Arrays.sort(millis);
+        Arrays.sort(rss);
+        System.out.printf("%-8s first /test: median=%d ms min=%d ms max=%d ms  rss: median=%d MB%n",
+            mode, millis[runs / 2], millis[0], millis[runs - 1], rss[runs / 2] / 1024);
+    }
+
+    /**
+     * 启动应用，测量到 /test 第一次返回 200 的耗时和当时的 RSS，然后正常关闭
+     *
+     * @param exercise 是否再请求其他接口，训练运行时让归档包含请求路径上的类
+     */
+    private static Sample launch(List<String> command, int port, boolean exercise) throws Exception {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        try {
+            long deadline = start + TimeUnit.SECONDS.toNanos(120);
+            while (!ok(port, "/test")) {
+                if (!process.isAlive() || System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Application did not start: " + String.join(" ", command));
+                }
+                Thread.sleep(5);
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            long rssKb = rssKb(process.pid());
+            if (exercise) {
+                for (int i = 0; i < 100; i++) {
+                    ok(port, "/");
+                    ok(port, "/home");
+                    ok(port, "/test");
+                }
+            }
+            return new Sample(millis, rssKb);
+        } finally {
+            // SIGTERM 使 JVM 正常退出，训练运行在退出时写出归档
+            process.destroy();
+            if (!process.waitFor(60, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static boolean ok(int port, String path) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+            connection.setConnectTimeout(100);
+            connection.setReadTimeout(5000);
+            try (InputStream in = connection.getInputStream()) {
+                in.readAllBytes();
+            }
+            return connection.getResponseCode() == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long rssKb(long pid) {
+        Path status = Path.of("/proc", String.valueOf(pid), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        try (Stream<String> lines = Files.lines(status)) {
+            return lines.filter(line -> line.startsWith("VmRSS:"))
+                .map(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                .findFirst()
+                .orElse(-1L);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 把 BOOT-INF/classes 重新打成普通 jar，BOOT-INF/lib 解压到工作目录；
+     * CDS 只接受 jar 和空目录作为 classpath 条目
+     *
+     * @return 按固定顺序排列的 classpath，训练运行和测量运行必须一致
+     */
+    private static String extract(Path jar, Path workDir) throws IOException {
+        Path app = workDir.resolve("app.jar").toAbsolutePath();
+        Path lib = workDir.resolve("lib").toAbsolutePath();
+        deleteRecursively(workDir);
+        Files.createDirectories(lib);
+        List<String> jars = new ArrayList<>();
+        try (JarFile jarFile = new JarFile(jar.toFile());
+             JarOutputStream appJar = new JarOutputStream(Files.newOutputStream(app))) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (name.startsWith("BOOT-INF/classes/") && name.length() > "BOOT-INF/classes/".length()) {
+                    appJar.putNextEntry(new JarEntry(name.substring("BOOT-INF/classes/".length())));
+                    if (!entry.isDirectory()) {
+                        try (InputStream in = jarFile.getInputStream(entry)) {
+                            in.transferTo(appJar);
+                        }
+                    }
+                    appJar.closeEntry();
+                } else if (name.startsWith("BOOT-INF/lib/") && !entry.isDirectory()) {
+                    Path target = lib.resolve(name.substring("BOOT-INF/lib/".length()));
+                    try (InputStream in = jarFile.getInputStream(entry)) {
+                        Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    jars.add(target.toString());
+                }
+            }
+        }
+        jars.sort(null);
+        jars.add(0, app.toString());
+        return String.join(File.pathSeparator, jars);
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private record Sample(long millis, long rssKb) {
+    }
+}
@@ -0,0 +1,60 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * User-Agent SameSite 兼容性判断的基准测试，每次调用轮换使用语料中的下一个 User-Agent。
+ * 语料较小，isSameSiteNoneIncompatible 与 isChromium80AtLeast 在稳定状态下全部命中缓存
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserAgentBenchmark {
+
+    private String[] userAgents;
+
+    private int index;
+
+    @Setup
+    public void setup() {
+        userAgents = BenchmarkSupport.loadUserAgents();
+    }
+
+    private String nextUserAgent() {
+        String userAgent = userAgents[index];
+        index = index + 1 == userAgents.length ? 0 : index + 1;
+        return userAgent;
+    }
+
+    @Benchmark
+    public boolean isSameSiteNoneIncompatible() {
+        return CookieUtil.isSameSiteNoneIncompatible(nextUserAgent());
+    }
+
+    /**
+     * 不经过缓存的单遍扫描
+     */
+    @Benchmark
+    public UserAgentProfile scan() {
+        return UserAgentScanner.scan(nextUserAgent());
+    }
+
+    @Benchmark
+    public boolean isChromium80AtLeast() {
+        return CookieUtil.isChromium80AtLeast(nextUserAgent());
+    }
+}
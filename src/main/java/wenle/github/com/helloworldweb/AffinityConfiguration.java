@@ -0,0 +1,29 @@
+package wenle.github.com.helloworldweb;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * 实例亲和的装配，{@code affinity.enabled=true} 时开启；只用于 Servlet 版本
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(AffinityProperties.class)
+@ConditionalOnProperty(prefix = "affinity", name = "enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AffinityConfiguration {
+
+    /**
+     * 放在压缩过滤器之后：转发回来的响应已经由归属实例压缩过，带着 Content-Encoding 不会被再次压缩
+     */
+    @Bean
+    public FilterRegistrationBean<AffinityFilter> affinityFilter(AffinityProperties properties) {
+        FilterRegistrationBean<AffinityFilter> registration = new FilterRegistrationBean<>(new AffinityFilter(properties));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
@@ -0,0 +1,305 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * 实例亲和：让同一个客户端的请求尽量落在同一个实例上，提高本地缓存的命中率。
+ * <p>
+ * 没有路由 Cookie（或格式不对）的请求由本实例处理，同时通过 {@link CookieUtil} 签发一个随机的路由键，
+ * 键在 {@link AffinityRing} 上归属本实例；之后携带该 Cookie 的请求如果被前置的四层负载均衡分到其他实例，
+ * 该实例按 {@link AffinityProperties.Mode} 转发到归属实例，或返回 307 让客户端直接访问归属实例。
+ * 实例增减后只有约 1/n 的路由键改变归属，这些客户端由新的归属实例接手，Cookie 不需要重新签发。
+ * <p>
+ * 转发的请求带上 {@value #FORWARDED_HEADER}，收到该请求头的实例总是本地处理，不会再次转发；
+ * 请求体边读边转发，不在本实例缓存；转发失败时在 failoverPeriod 内不再向该实例转发。
+ * 归属实例可能已经处理了请求，为避免同一个请求在两个实例上执行，只有连接失败或 GET/HEAD 请求改由本实例处理；
+ * 其余失败（包括有请求体的请求，请求体可能已被部分读取）在响应超时时返回 504，否则返回 502。
+ * 归属实例的 Server-Timing 响应头不复制，响应只带本实例的 Server-Timing，其中包含转发的耗时。
+ * 所有响应带有 {@value #INSTANCE_HEADER}，值为实际处理请求的实例 id。
+ */
+public class AffinityFilter extends OncePerRequestFilter {
+
+    public static final String INSTANCE_HEADER = "X-Affinity-Instance";
+
+    public static final String FORWARDED_HEADER = "X-Affinity-Forwarded";
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /**
+     * 路由键是 8 个随机字节的 base64url（无填充）
+     */
+    private static final int KEY_LENGTH = 11;
+
+    /**
+     * 生成归属本实例的路由键的最多尝试次数，每次命中的概率约为 1/n
+     */
+    private static final int MAX_KEY_ATTEMPTS = 1000;
+
+    private static final Base64.Encoder KEY_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    /**
+     * 不转发的请求头：逐跳请求头，以及由 HttpClient 自己生成的请求头
+     */
+    private static final Set<String> SKIPPED_REQUEST_HEADERS = Set.of("connection", "keep-alive", "proxy-authorization",
+        "proxy-connection", "te", "trailer", "transfer-encoding", "upgrade", "http2-settings", "host", "content-length", "expect",
+        FORWARDED_HEADER.toLowerCase(Locale.ROOT));
+
+    /**
+     * 不复制的响应头：逐跳响应头，以及由本实例重新生成的响应头
+     */
+    private static final Set<String> SKIPPED_RESPONSE_HEADERS = Set.of(":status", "connection", "keep-alive",
+        "proxy-authenticate", "proxy-connection", "trailer", "transfer-encoding", "upgrade", "content-length", "date",
+        ServerTimingFilter.HEADER.toLowerCase(Locale.ROOT));
+
+    private final String instanceId;
+
+    private final Map<String, String> instances;
+
+    private final AffinityRing ring;
+
+    private final String cookieName;
+
+    private final int maxAgeSeconds;
+
+    private final AffinityProperties.Mode mode;
+
+    private final long failoverMillis;
+
+    private final ExecutorService executor;
+
+    private final HttpClient client;
+
+    private final Duration forwardTimeout;
+
+    /**
+     * 转发失败的实例和恢复转发的时间
+     */
+    private final Map<String, Long> downUntil = new ConcurrentHashMap<>();
+
+    public AffinityFilter(AffinityProperties properties) {
+        if (!properties.getInstances().containsKey(properties.getInstanceId())) {
+            throw new IllegalArgumentException("affinity.instance-id '" + properties.getInstanceId() + "' is not one of affinity.instances "
+                + properties.getInstances().keySet());
+        }
+        this.instanceId = properties.getInstanceId();
+        this.instances = Map.copyOf(properties.getInstances());
+        this.ring = new AffinityRing(instances.keySet(), properties.getVirtualNodes());
+        this.cookieName = properties.getCookieName();
+        this.maxAgeSeconds = (int) properties.getMaxAge().toSeconds();
+        this.mode = properties.getMode();
+        this.failoverMillis = properties.getFailoverPeriod().toMillis();
+        this.forwardTimeout = properties.getForwardTimeout();
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "affinity-forward-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.client = HttpClient.newBuilder()
+            .executor(executor)
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(forwardTimeout)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String key = CookieUtil.getCookieValue(cookieName, request);
+        if (!isValidKey(key)) {
+            key = newKey();
+            if (key != null) {
+                CookieUtil.addCookie(cookieName, key, maxAgeSeconds, CookieUtil.ROOT_PATH, null, true, true, request, response, null, null, null);
+            }
+        } else if (request.getHeader(FORWARDED_HEADER) == null) {
+            String owner = ring.nodeFor(key);
+            if (!owner.equals(instanceId) && !isDown(owner)) {
+                if (mode == AffinityProperties.Mode.REDIRECT) {
+                    redirect(owner, request, response);
+                    return;
+                }
+                if (forward(owner, request, response)) {
+                    return;
+                }
+            }
+        }
+        response.setHeader(INSTANCE_HEADER, instanceId);
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * 应用关闭时停止 HttpClient 使用的线程，HttpClient 没有 close 方法
+     */
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return 一致性哈希环
+     */
+    public AffinityRing getRing() {
+        return ring;
+    }
+
+    /**
+     * @return 归属本实例的新路由键；实例很多时可能找不到，返回 null
+     */
+    String newKey() {
+        byte[] bytes = new byte[8];
+        for (int i = 0; i < MAX_KEY_ATTEMPTS; i++) {
+            ThreadLocalRandom.current().nextBytes(bytes);
+            String key = KEY_ENCODER.encodeToString(bytes);
+            if (ring.nodeFor(key).equals(instanceId)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    private void redirect(String owner, HttpServletRequest request, HttpServletResponse response) {
+        response.setStatus(HttpServletResponse.SC_TEMPORARY_REDIRECT);
+        response.setHeader("Location", targetUri(owner, request));
+        response.setHeader(INSTANCE_HEADER, instanceId);
+    }
+
+    /**
+     * 把请求转发给归属实例，复制响应的状态码、响应头和响应体
+     *
+     * @return 是否已经写出响应；转发失败且不能改由本实例处理时写出 502 或 504 并返回 true
+     */
+    private boolean forward(String owner, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean body = hasBody(request);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(targetUri(owner, request)))
+            .timeout(forwardTimeout)
+            .method(request.getMethod(), body ? bodyPublisher(request) : HttpRequest.BodyPublishers.noBody());
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!SKIPPED_REQUEST_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                for (String value : Collections.list(request.getHeaders(name))) {
+                    builder.header(name, value);
+                }
+            }
+        }
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        builder.setHeader("X-Forwarded-For", forwardedFor != null ? forwardedFor + ", " + request.getRemoteAddr() : request.getRemoteAddr());
+        if (request.getHeader("X-Forwarded-Host") == null && request.getHeader("Host") != null) {
+            builder.setHeader("X-Forwarded-Host", request.getHeader("Host"));
+        }
+        if (request.getHeader("X-Forwarded-Proto") == null) {
+            builder.setHeader("X-Forwarded-Proto", request.getScheme());
+        }
+        builder.header(FORWARDED_HEADER, instanceId);
+
+        HttpResponse<InputStream> forwarded;
+        try {
+            forwarded = client.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            downUntil.put(owner, System.currentTimeMillis() + failoverMillis);
+            logger.warn("Failed to forward {} {} to affinity instance {}, failing over for {} ms", request.getMethod(),
+                request.getRequestURI(), owner, failoverMillis, e);
+            boolean notSent = e instanceof ConnectException || e instanceof HttpConnectTimeoutException;
+            if (!body && (notSent || isIdempotent(request.getMethod()))) {
+                return false;
+            }
+            response.setHeader(INSTANCE_HEADER, instanceId);
+            response.sendError(e instanceof HttpTimeoutException && !notSent
+                ? HttpServletResponse.SC_GATEWAY_TIMEOUT : HttpServletResponse.SC_BAD_GATEWAY);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while forwarding to affinity instance " + owner, e);
+        }
+        downUntil.remove(owner);
+        response.setStatus(forwarded.statusCode());
+        for (Map.Entry<String, List<String>> header : forwarded.headers().map().entrySet()) {
+            if (!SKIPPED_RESPONSE_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+                for (String value : header.getValue()) {
+                    response.addHeader(header.getKey(), value);
+                }
+            }
+        }
+        try (InputStream in = forwarded.body()) {
+            in.transferTo(response.getOutputStream());
+        }
+        return true;
+    }
+
+    /**
+     * 从请求的输入流边读边发送请求体；知道长度时带 Content-Length，否则使用分块传输
+     */
+    private static HttpRequest.BodyPublisher bodyPublisher(HttpServletRequest request) {
+        HttpRequest.BodyPublisher stream = HttpRequest.BodyPublishers.ofInputStream(() -> {
+            try {
+                return request.getInputStream();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        long length = request.getContentLengthLong();
+        return length >= 0 ? HttpRequest.BodyPublishers.fromPublisher(stream, length) : stream;
+    }
+
+    private boolean isDown(String owner) {
+        Long until = downUntil.get(owner);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    private String targetUri(String owner, HttpServletRequest request) {
+        String base = instances.get(owner);
+        String query = request.getQueryString();
+        return (base.endsWith("/") ? base.substring(0, base.length() - 1) : base) + request.getRequestURI()
+            + (query != null ? "?" + query : "");
+    }
+
+    private static boolean isIdempotent(String method) {
+        return "GET".equals(method) || "HEAD".equals(method);
+    }
+
+    private static boolean hasBody(HttpServletRequest request) {
+        return request.getContentLengthLong() > 0 || request.getHeader("Transfer-Encoding") != null;
+    }
+
+    private static boolean isValidKey(String key) {
+        if (key == null || key.length() != KEY_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < KEY_LENGTH; i++) {
+            char c = key.charAt(i);
+            if (!(c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '-' || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,144 @@
+package wenle.github.com.helloworldweb;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 实例亲和配置，前缀 affinity
+ */
+@ConfigurationProperties(prefix = "affinity")
+public class AffinityProperties {
+
+    /**
+     * 是否开启实例亲和
+     */
+    private boolean enabled;
+
+    /**
+     * 本实例的 id，必须是 instances 中的一个
+     */
+    private String instanceId;
+
+    /**
+     * 所有实例的 id 和直连地址（如 http://10.0.0.1:8080），所有实例使用相同的配置
+     */
+    private Map<String, String> instances = new LinkedHashMap<>();
+
+    /**
+     * 每个实例在一致性哈希环上的虚拟节点数
+     */
+    private int virtualNodes = 160;
+
+    /**
+     * 路由 Cookie 的名字
+     */
+    private String cookieName = "ROUTE";
+
+    /**
+     * 路由 Cookie 的有效期
+     */
+    private Duration maxAge = Duration.ofDays(1);
+
+    /**
+     * 请求到达的实例不是路由 Cookie 的归属实例时的处理方式
+     */
+    private Mode mode = Mode.FORWARD;
+
+    /**
+     * 转发的连接和响应超时
+     */
+    private Duration forwardTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 转发失败后多久内不再向该实例转发，期间由本实例处理
+     */
+    private Duration failoverPeriod = Duration.ofSeconds(10);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public Map<String, String> getInstances() {
+        return instances;
+    }
+
+    public void setInstances(Map<String, String> instances) {
+        this.instances = instances;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    public void setVirtualNodes(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+
+    public String getCookieName() {
+        return cookieName;
+    }
+
+    public void setCookieName(String cookieName) {
+        this.cookieName = cookieName;
+    }
+
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(Duration maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public Duration getForwardTimeout() {
+        return forwardTimeout;
+    }
+
+    public void setForwardTimeout(Duration forwardTimeout) {
+        this.forwardTimeout = forwardTimeout;
+    }
+
+    public Duration getFailoverPeriod() {
+        return failoverPeriod;
+    }
+
+    public void setFailoverPeriod(Duration failoverPeriod) {
+        this.failoverPeriod = failoverPeriod;
+    }
+
+    public enum Mode {
+
+        /**
+         * 本实例代为请求归属实例，把响应原样返回给客户端
+         */
+        FORWARD,
+
+        /**
+         * 返回 307，让客户端直接请求归属实例的地址
+         */
+        REDIRECT
+    }
+}
@@ -0,0 +1,83 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 实例 id 组成的一致性哈希环，{@link AffinityFilter} 用它把路由 Cookie 的值映射到实例。
+ * <p>
+ * 每个实例在环上放 virtualNodes 个虚拟节点，位置是 {@code <实例 id>#<序号>} 的 64 位哈希；
+ * 键的哈希顺时针遇到的第一个虚拟节点所属的实例就是它的归属。增加或移除一个实例时，
+ * 只有落在该实例虚拟节点上的键（约 1/n）改变归属，其余键不动。
+ * 虚拟节点的位置只取决于实例 id，与配置顺序无关，所有实例用同样的配置得到同样的环。
+ */
+public final class AffinityRing {
+
+    private final List<String> nodes;
+
+    /**
+     * 虚拟节点的位置，升序
+     */
+    private final long[] points;
+
+    /**
+     * 虚拟节点所属实例在 nodes 中的下标
+     */
+    private final int[] owners;
+
+    /**
+     * @param nodes        实例 id，不能为空
+     * @param virtualNodes 每个实例的虚拟节点数
+     */
+    public AffinityRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("Affinity ring needs at least one node");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("Virtual nodes must be positive");
+        }
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(new TreeSet<>(nodes)));
+        int count = this.nodes.size() * virtualNodes;
+        long[] hashes = new long[count];
+        for (int i = 0, n = 0; i < this.nodes.size(); i++) {
+            for (int v = 0; v < virtualNodes; v++, n++) {
+                hashes[n] = BloomFilter.hash(this.nodes.get(i) + '#' + v);
+            }
+        }
+        // 按位置排序，位置相同时按实例 id 排序，保证所有实例得到同一个环
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> hashes[a] != hashes[b] ? Long.compare(hashes[a], hashes[b]) : Integer.compare(a, b));
+        this.points = new long[count];
+        this.owners = new int[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = order[i] / virtualNodes;
+        }
+    }
+
+    /**
+     * @param key 路由键
+     * @return 键归属的实例 id
+     */
+    public String nodeFor(String key) {
+        int index = Arrays.binarySearch(points, BloomFilter.hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return nodes.get(owners[index == points.length ? 0 : index]);
+    }
+
+    /**
+     * @return 实例 id，按字典序
+     */
+    public List<String> getNodes() {
+        return nodes;
+    }
+}
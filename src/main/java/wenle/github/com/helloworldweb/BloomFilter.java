@@ -0,0 +1,97 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 字符串的分块 Bloom 过滤器，读取不加锁，写入使用 CAS 置位，可以并发读写。
+ * <p>
+ * 每个值的 k 个位都落在同一个 512 位（一个 64 字节缓存行）的块内，查询最多访问一次缓存行；
+ * 同样的误判率下比普通 Bloom 过滤器多用约 20% 的位。
+ * 误判由调用方的精确集合处理。
+ */
+final class BloomFilter {
+
+    /**
+     * 每块的 long 数量，8 个 long 为 512 位
+     */
+    private static final int BLOCK_WORDS = 8;
+
+    /**
+     * 块内位下标占用的哈希位数
+     */
+    private static final int BITS_PER_PROBE = 9;
+
+    private final AtomicLongArray bits;
+
+    private final int blockMask;
+
+    private final int hashCount;
+
+    /**
+     * @param expectedEntries   预计元素数量
+     * @param falsePositiveRate 达到预计数量时的误判率
+     */
+    BloomFilter(int expectedEntries, double falsePositiveRate) {
+        int n = Math.max(1, expectedEntries);
+        double m = -n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)) * 1.2;
+        // 块数取 2 的幂，块下标用掩码计算
+        long blocks = Math.max(1, (long) Math.ceil(m / (BLOCK_WORDS * 64)));
+        int blockCount = (int) Math.min(1 << 24, Long.highestOneBit(blocks * 2 - 1));
+        this.bits = new AtomicLongArray(blockCount * BLOCK_WORDS);
+        this.blockMask = blockCount - 1;
+        // 哈希的低 24 位选块，高 36 位每 9 位给出一个块内下标，最多 4 个，两部分不重叠
+        this.hashCount = Math.max(1, Math.min(4, (int) Math.round((double) blockCount * BLOCK_WORDS * 64 / n * Math.log(2))));
+    }
+
+    void add(String value) {
+        long hash = hash(value);
+        int base = ((int) hash & blockMask) * BLOCK_WORDS;
+        long probes = hash >>> 64 - hashCount * BITS_PER_PROBE;
+        for (int i = 0; i < hashCount; i++, probes >>>= BITS_PER_PROBE) {
+            int word = base + (int) (probes >>> 6 & (BLOCK_WORDS - 1));
+            long bit = 1L << probes;
+            long current = bits.get(word);
+            while ((current & bit) == 0 && !bits.compareAndSet(word, current, current | bit)) {
+                current = bits.get(word);
+            }
+        }
+    }
+
+    /**
+     * @return false 表示一定不存在，true 表示可能存在
+     */
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        int base = ((int) hash & blockMask) * BLOCK_WORDS;
+        long probes = hash >>> 64 - hashCount * BITS_PER_PROBE;
+        for (int i = 0; i < hashCount; i++, probes >>>= BITS_PER_PROBE) {
+            if ((bits.get(base + (int) (probes >>> 6 & (BLOCK_WORDS - 1))) & (1L << probes)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    long bitCount() {
+        return (long) bits.length() << 6;
+    }
+
+    /**
+     * 在 {@link String#hashCode()} 的基础上扩展为 64 位。String 的哈希值直接遍历内部字节数组（JDK 21 上向量化），
+     * 并缓存在字符串对象中，命中过滤器后精确集合的查找不再重复计算；32 位哈希相同的值只会增加误判
+     */
+    static long hash(String value) {
+        long h = (value.hashCode() & 0xFFFFFFFFL | (long) value.length() << 32) * 0x9E3779B97F4A7C15L;
+        // MurmurHash3 fmix64
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
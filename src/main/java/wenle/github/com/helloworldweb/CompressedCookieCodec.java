@@ -0,0 +1,239 @@
+package wenle.github.com.helloworldweb;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.function.IntFunction;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 大 Cookie 值的压缩和分片编解码，通过 {@link CookieUtil#addCookie(String, String, int, CompressedCookieCodec, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse)}
+ * 和 {@link CookieUtil#getCookieValue(String, jakarta.servlet.http.HttpServletRequest, CompressedCookieCodec)} 使用。
+ * <p>
+ * 不短于 minLength 的值使用预置字典的 zlib 压缩后转为 base64url（无填充），写成 {@code z<分片数>.<数据>}；
+ * 压缩后仍超过单个 Cookie 的长度时拆到编号的分片 Cookie {@code name.1}、{@code name.2}……，读取时按主 Cookie 中的分片数拼接。
+ * 较短或压缩后没有变小的值原样写入；原值恰好以 {@code z<数字>.} 开头时总是压缩，保证解码没有歧义。
+ * zlib 尾部的 Adler-32 校验和可以发现分片缺失或混用了旧分片，这时按 Cookie 不存在处理。
+ * 每次编解码节省的字节数记录到 {@code cookie.compression.saved.bytes}。
+ */
+public final class CompressedCookieCodec {
+
+    /**
+     * 单个 Cookie 值的最大长度
+     */
+    static final int MAX_CHUNK_LENGTH = SignedCookieCodec.MAX_VALUE_LENGTH;
+
+    /**
+     * 分片数写在一个数字里
+     */
+    static final int MAX_CHUNKS = 9;
+
+    /**
+     * 解压后的最大字节数，防止压缩炸弹
+     */
+    static final int MAX_DECODED_LENGTH = 64 * 1024;
+
+    /**
+     * {@code z<n>.} 的长度
+     */
+    private static final int HEADER_LENGTH = 3;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final byte[] dictionary;
+
+    private final int minLength;
+
+    private final int chunkLength;
+
+    private final int maxChunks;
+
+    private final PerThreadCache<Deflater> deflaters = new PerThreadCache<>(() -> new Deflater(Deflater.BEST_COMPRESSION));
+
+    private final PerThreadCache<Inflater> inflaters = new PerThreadCache<>(Inflater::new);
+
+    /**
+     * @param dictionary  预置字典，放入负载中常见的片段，越常见越靠后；为空时不使用字典
+     * @param minLength   开始压缩的最小长度
+     * @param chunkLength 单个 Cookie 值的最大长度，不超过 3800
+     * @param maxChunks   最多拆分的 Cookie 数量，不超过 9
+     */
+    public CompressedCookieCodec(byte[] dictionary, int minLength, int chunkLength, int maxChunks) {
+        if (chunkLength <= HEADER_LENGTH * 2 || chunkLength > MAX_CHUNK_LENGTH) {
+            throw new IllegalArgumentException("Cookie chunk length must be between " + (HEADER_LENGTH * 2 + 1) + " and " + MAX_CHUNK_LENGTH);
+        }
+        if (maxChunks < 1 || maxChunks > MAX_CHUNKS) {
+            throw new IllegalArgumentException("Cookie chunk count must be between 1 and " + MAX_CHUNKS);
+        }
+        this.dictionary = dictionary.clone();
+        this.minLength = minLength;
+        this.chunkLength = chunkLength;
+        this.maxChunks = maxChunks;
+    }
+
+    /**
+     * @param name  cookie 名
+     * @param index 分片编号，从 1 开始
+     * @return 分片 Cookie 的名字
+     */
+    public static String chunkName(String name, int index) {
+        return name + '.' + index;
+    }
+
+    /**
+     * 编码，需要时压缩和分片
+     *
+     * @param name  cookie 名
+     * @param value cookie 值
+     * @return 各个 Cookie 的值，第一个写入 name，第 i 个写入 {@link #chunkName(String, int) name.i}
+     * @throws IllegalArgumentException 压缩后超过 maxChunks 个 Cookie
+     */
+    public String[] encode(String name, String value) {
+        boolean escape = isEncoded(value);
+        if (!escape && value.length() < minLength && value.length() <= chunkLength) {
+            return new String[] {value};
+        }
+        String compressed = ENCODER.encodeToString(deflate(value.getBytes(StandardCharsets.UTF_8)));
+        if (!escape && value.length() <= chunkLength && value.length() <= compressed.length() + HEADER_LENGTH) {
+            return new String[] {value};
+        }
+        int first = chunkLength - HEADER_LENGTH;
+        int count = 1 + (Math.max(0, compressed.length() - first) + chunkLength - 1) / chunkLength;
+        if (count > maxChunks) {
+            throw new IllegalArgumentException("Compressed cookie '" + name + "' needs " + count + " chunks, limit is " + maxChunks);
+        }
+        String[] parts = new String[count];
+        parts[0] = "z" + count + '.' + compressed.substring(0, Math.min(first, compressed.length()));
+        for (int i = 1, start = first; i < count; i++, start += chunkLength) {
+            parts[i] = compressed.substring(start, Math.min(start + chunkLength, compressed.length()));
+        }
+        CookieMetrics.recordCompressionSaved(true, saved(name, value, parts));
+        return parts;
+    }
+
+    /**
+     * 解码，需要时读取分片并解压
+     *
+     * @param name   cookie 名
+     * @param value  主 Cookie 的值，可以为 null
+     * @param chunks 按编号读取分片 Cookie 的值，不存在时返回 null
+     * @return 原值；主 Cookie 不存在、分片缺失或数据损坏时返回 null
+     */
+    public String decode(String name, String value, IntFunction<String> chunks) {
+        if (value == null || !isEncoded(value)) {
+            return value;
+        }
+        int count = value.charAt(1) - '0';
+        if (count > maxChunks) {
+            return null;
+        }
+        String[] parts = new String[count];
+        parts[0] = value;
+        StringBuilder compressed = new StringBuilder(value.length() + (count - 1) * chunkLength).append(value, HEADER_LENGTH, value.length());
+        for (int i = 1; i < count; i++) {
+            parts[i] = chunks.apply(i);
+            if (parts[i] == null) {
+                return null;
+            }
+            compressed.append(parts[i]);
+        }
+        byte[] decoded;
+        try {
+            decoded = inflate(DECODER.decode(compressed.toString()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (decoded == null) {
+            return null;
+        }
+        String result = new String(decoded, StandardCharsets.UTF_8);
+        CookieMetrics.recordCompressionSaved(false, saved(name, result, parts));
+        return result;
+    }
+
+    /**
+     * @return 最多拆分的 Cookie 数量
+     */
+    public int getMaxChunks() {
+        return maxChunks;
+    }
+
+    private byte[] deflate(byte[] input) {
+        Deflater deflater = deflaters.acquire();
+        try {
+            deflater.reset();
+            if (dictionary.length > 0) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(input);
+            deflater.finish();
+            byte[] output = new byte[input.length + 64];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                length += deflater.deflate(output, length, output.length - length);
+            }
+            return Arrays.copyOf(output, length);
+        } finally {
+            deflaters.release(deflater);
+        }
+    }
+
+    /**
+     * @return 解压结果；数据损坏、被截断、字典不匹配或超过 {@link #MAX_DECODED_LENGTH} 时返回 null
+     */
+    private byte[] inflate(byte[] input) {
+        Inflater inflater = inflaters.acquire();
+        try {
+            inflater.reset();
+            inflater.setInput(input);
+            byte[] output = new byte[Math.min(MAX_DECODED_LENGTH, input.length * 4 + 64)];
+            int length = 0;
+            while (!inflater.finished()) {
+                if (length == output.length) {
+                    if (length == MAX_DECODED_LENGTH) {
+                        return null;
+                    }
+                    output = Arrays.copyOf(output, Math.min(MAX_DECODED_LENGTH, output.length * 2));
+                }
+                int n = inflater.inflate(output, length, output.length - length);
+                if (n == 0 && !inflater.finished()) {
+                    if (!inflater.needsDictionary() || dictionary.length == 0) {
+                        // 输入不完整或格式错误
+                        return null;
+                    }
+                    inflater.setDictionary(dictionary);
+                }
+                length += n;
+            }
+            return inflater.getRemaining() == 0 ? Arrays.copyOf(output, length) : null;
+        } catch (DataFormatException | IllegalArgumentException e) {
+            // 数据损坏或字典的 Adler-32 不匹配
+            return null;
+        } finally {
+            inflaters.release(inflater);
+        }
+    }
+
+    /**
+     * 原值与编码后所有 name=value 的长度差，不含 Set-Cookie 属性和请求头中的分隔符
+     */
+    private static long saved(String name, String value, String[] parts) {
+        long encoded = 0;
+        for (int i = 0; i < parts.length; i++) {
+            encoded += (i == 0 ? name.length() : chunkName(name, i).length()) + 1 + parts[i].length();
+        }
+        return name.length() + 1 + value.length() - encoded;
+    }
+
+    private static boolean isEncoded(String value) {
+        return value.length() >= HEADER_LENGTH && value.charAt(0) == 'z' && value.charAt(1) >= '1' && value.charAt(1) <= '9'
+            && value.charAt(2) == '.';
+    }
+}
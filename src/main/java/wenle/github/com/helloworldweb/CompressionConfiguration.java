@@ -0,0 +1,32 @@
+package wenle.github.com.helloworldweb;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * 动态响应压缩的装配，{@code compression.enabled=true} 时开启；只用于 Servlet 版本。
+ * 不要同时开启 server.compression.enabled，否则 Tomcat 会跳过已经带 Content-Encoding 的响应，只有本过滤器生效。
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(CompressionProperties.class)
+@ConditionalOnProperty(prefix = "compression", name = "enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CompressionConfiguration {
+
+    /**
+     * 放在 Server-Timing 过滤器之后，压缩耗时计入 total
+     */
+    @Bean
+    public FilterRegistrationBean<CompressionFilter> compressionFilter(CompressionProperties properties, MeterRegistry registry) {
+        FilterRegistrationBean<CompressionFilter> registration = new FilterRegistrationBean<>(new CompressionFilter(properties, registry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,677 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * 动态响应的流式压缩。
+ * <p>
+ * 响应体的前 minResponseSize 字节先放在缓冲区中：响应在此之前结束时原样写出并带上 Content-Length；
+ * 超过后检查 Content-Type、Content-Encoding 和状态码，需要压缩时从 {@link DeflaterPool} 借用 Deflater，
+ * 之后每次写入直接压缩并交给容器，不缓冲整个响应体。压缩级别由 {@link CompressionLevel} 按 CPU 使用率选择。
+ * 缓冲期间调用 flush 时按不压缩处理，保证流式响应的延迟。异步请求在 AsyncContext 结束时才结束响应体。
+ * <ul>
+ *     <li>{@code compression.time}：压缩耗时，tag 为 encoding</li>
+ *     <li>{@code compression.ratio}：压缩后字节数与原始字节数之比</li>
+ *     <li>{@code compression.skipped}：超过阈值但没有压缩的响应数，tag 为 reason</li>
+ *     <li>{@code compression.level}：当前压缩级别</li>
+ * </ul>
+ */
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private static final int OUTPUT_BUFFER_SIZE = 8192;
+
+    private final int minResponseSize;
+
+    private final List<String> excludedMimeTypes;
+
+    private final CompressionLevel level;
+
+    private final DeflaterPool gzipPool;
+
+    private final DeflaterPool deflatePool;
+
+    private final Timer gzipTimer;
+
+    private final Timer deflateTimer;
+
+    private final DistributionSummary ratio;
+
+    private final Counter skippedByType;
+
+    private final Counter skippedByEncoding;
+
+    private final Counter skippedByStatus;
+
+    public CompressionFilter(CompressionProperties properties, MeterRegistry registry) {
+        this(properties, new CompressionLevel(properties.getMaxLevel(), properties.getMinLevel(),
+            properties.getLowLoad(), properties.getHighLoad()), registry);
+    }
+
+    CompressionFilter(CompressionProperties properties, CompressionLevel level, MeterRegistry registry) {
+        this.minResponseSize = Math.max(1, properties.getMinResponseSize());
+        this.excludedMimeTypes = properties.getExcludedMimeTypes().stream()
+            .map(type -> type.toLowerCase(Locale.ROOT))
+            .toList();
+        this.level = level;
+        int poolSize = properties.getPoolSize() > 0 ? properties.getPoolSize() : Runtime.getRuntime().availableProcessors() * 2;
+        this.gzipPool = new DeflaterPool(true, poolSize);
+        this.deflatePool = new DeflaterPool(false, poolSize);
+        this.gzipTimer = compressionTimer(registry, "gzip");
+        this.deflateTimer = compressionTimer(registry, "deflate");
+        this.ratio = DistributionSummary.builder("compression.ratio")
+            .description("压缩后字节数与原始字节数之比")
+            .register(registry);
+        this.skippedByType = skippedCounter(registry, "content-type");
+        this.skippedByEncoding = skippedCounter(registry, "content-encoding");
+        this.skippedByStatus = skippedCounter(registry, "status");
+        Gauge.builder("compression.level", level, CompressionLevel::current)
+            .description("当前压缩级别")
+            .register(registry);
+    }
+
+    private static Timer compressionTimer(MeterRegistry registry, String encoding) {
+        return Timer.builder("compression.time")
+            .description("压缩响应体的耗时")
+            .tag("encoding", encoding)
+            .register(registry);
+    }
+
+    private static Counter skippedCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("compression.skipped")
+            .description("超过阈值但没有压缩的响应数")
+            .tag("reason", reason)
+            .register(registry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String encoding = "HEAD".equals(request.getMethod()) ? null : selectEncoding(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        CompressingResponse compressingResponse = new CompressingResponse(response, encoding);
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, compressingResponse);
+            if (request.isAsyncStarted()) {
+                // 异步请求在这里还没有写完响应体，由 AsyncContext 结束时结束压缩
+                request.getAsyncContext().addListener(new FinishListener(compressingResponse));
+                async = true;
+            } else {
+                compressingResponse.finish();
+            }
+        } finally {
+            if (!async) {
+                compressingResponse.release();
+            }
+        }
+    }
+
+    /**
+     * 应用关闭时释放池中的 Deflater
+     */
+    @Override
+    public void destroy() {
+        gzipPool.clear();
+        deflatePool.clear();
+    }
+
+    static String selectEncoding(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        if (PrecompressedResponse.accepts(acceptEncoding, "gzip")) {
+            return "gzip";
+        }
+        if (PrecompressedResponse.accepts(acceptEncoding, "deflate")) {
+            return "deflate";
+        }
+        return null;
+    }
+
+    boolean isExcluded(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        for (String excluded : excludedMimeTypes) {
+            if (!type.startsWith(excluded)) {
+                continue;
+            }
+            if (excluded.endsWith("/") || type.length() == excluded.length()) {
+                return true;
+            }
+            char next = type.charAt(excluded.length());
+            if (next == ';' || next == ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 异步请求结束时写出剩余数据并归还 Deflater
+     */
+    private record FinishListener(CompressingResponse response) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {
+            try {
+                response.finish();
+            } finally {
+                response.release();
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    private enum State {
+        BUFFERING,
+        RAW,
+        COMPRESSING,
+        FINISHED
+    }
+
+    /**
+     * 压缩响应体的响应包装，Content-Length 在决定是否压缩之前不交给容器
+     */
+    private final class CompressingResponse extends HttpServletResponseWrapper {
+
+        private final String encoding;
+
+        private State state = State.BUFFERING;
+
+        private long contentLength = -1;
+
+        private byte[] buffer;
+
+        private int count;
+
+        private Deflater deflater;
+
+        private CRC32 crc;
+
+        private byte[] output;
+
+        private long bytesIn;
+
+        private long bytesOut;
+
+        private long deflateNanos;
+
+        private CompressingOutputStream stream;
+
+        private PrintWriter writer;
+
+        private boolean finishing;
+
+        /**
+         * 丢弃 PrintWriter 中尚未编码的字符
+         */
+        private boolean discarding;
+
+        /**
+         * 已经设置了 Content-Encoding 等响应头；resetBuffer 之后响应头还在，响应体仍然需要压缩
+         */
+        private boolean encodingSet;
+
+        CompressingResponse(HttpServletResponse response, String encoding) {
+            super(response);
+            this.encoding = encoding;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called for this response");
+            }
+            if (stream == null) {
+                stream = new CompressingOutputStream();
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (stream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called for this response");
+                }
+                stream = new CompressingOutputStream();
+                writer = new PrintWriter(new OutputStreamWriter(stream, getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            setContentLengthLong(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            if (state == State.BUFFERING) {
+                contentLength = len;
+                if (len >= 0 && len < minResponseSize && !encodingSet) {
+                    // 已知响应体小于阈值，不再缓冲
+                    startRaw();
+                }
+            } else if (state == State.RAW) {
+                super.setContentLengthLong(len);
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(value != null ? Long.parseLong(value.trim()) : -1);
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value.trim()));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(value);
+            } else {
+                super.setIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(value);
+            } else {
+                super.addIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            } else if (stream != null) {
+                stream.flush();
+            }
+            super.flushBuffer();
+        }
+
+        @Override
+        public void resetBuffer() {
+            checkNotCommitted();
+            discardWriter();
+            super.resetBuffer();
+            restart();
+        }
+
+        @Override
+        public void reset() {
+            checkNotCommitted();
+            discardWriter();
+            super.reset();
+            restart();
+            // 响应头已经清空，包括 RAW 时交给容器的 Content-Length
+            if (state == State.RAW) {
+                state = State.BUFFERING;
+            }
+            contentLength = -1;
+            encodingSet = false;
+        }
+
+        private void checkNotCommitted() {
+            if (isCommitted()) {
+                throw new IllegalStateException("Cannot reset buffer after response has been committed");
+            }
+        }
+
+        private void discardWriter() {
+            if (writer != null) {
+                discarding = true;
+                finishing = true;
+                writer.flush();
+                finishing = false;
+                discarding = false;
+            }
+        }
+
+        /**
+         * 丢弃已经写入的响应体；正在压缩时归还 Deflater，回到缓冲状态重新开始
+         */
+        private void restart() {
+            count = 0;
+            if (state == State.COMPRESSING) {
+                returnDeflater();
+                output = null;
+                crc = null;
+                bytesIn = 0;
+                bytesOut = 0;
+                deflateNanos = 0;
+                state = State.BUFFERING;
+            }
+        }
+
+        private void write(byte[] b, int off, int len) throws IOException {
+            if (discarding) {
+                return;
+            }
+            switch (state) {
+                case BUFFERING -> {
+                    if (count + len <= minResponseSize) {
+                        if (buffer == null) {
+                            buffer = new byte[minResponseSize];
+                        }
+                        System.arraycopy(b, off, buffer, count, len);
+                        count += len;
+                        return;
+                    }
+                    if (shouldCompress()) {
+                        startCompressing();
+                    } else {
+                        startRaw();
+                    }
+                    write(b, off, len);
+                }
+                case RAW -> getResponse().getOutputStream().write(b, off, len);
+                case COMPRESSING -> deflate(b, off, len);
+                case FINISHED -> throw new IOException("Response has already been finished");
+            }
+        }
+
+        private boolean shouldCompress() {
+            if (encodingSet) {
+                return true;
+            }
+            if (isCommitted()) {
+                return false;
+            }
+            int status = getStatus();
+            if (status == SC_NO_CONTENT || status == SC_NOT_MODIFIED || status == SC_PARTIAL_CONTENT) {
+                skippedByStatus.increment();
+                return false;
+            }
+            if (getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+                skippedByEncoding.increment();
+                return false;
+            }
+            if (isExcluded(getContentType())) {
+                skippedByType.increment();
+                return false;
+            }
+            return true;
+        }
+
+        private void startRaw() {
+            if (state != State.BUFFERING) {
+                return;
+            }
+            state = State.RAW;
+            if (contentLength >= 0) {
+                super.setContentLengthLong(contentLength);
+            }
+        }
+
+        private void startCompressing() throws IOException {
+            state = State.COMPRESSING;
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            if (!encodingSet) {
+                setEncodingHeaders(response);
+            }
+            boolean gzip = "gzip".equals(encoding);
+            deflater = (gzip ? gzipPool : deflatePool).acquire(level.current());
+            output = new byte[OUTPUT_BUFFER_SIZE];
+            if (gzip) {
+                crc = new CRC32();
+                response.getOutputStream().write(GZIP_HEADER);
+                bytesOut += GZIP_HEADER.length;
+            }
+            if (count > 0) {
+                int buffered = count;
+                count = 0;
+                deflate(buffer, 0, buffered);
+            }
+        }
+
+        private void setEncodingHeaders(HttpServletResponse response) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+            String vary = response.getHeader(HttpHeaders.VARY);
+            if (vary == null) {
+                response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            } else if (!vary.contains("*") && !vary.toLowerCase(Locale.ROOT).contains("accept-encoding")) {
+                response.setHeader(HttpHeaders.VARY, vary + ", " + HttpHeaders.ACCEPT_ENCODING);
+            }
+            // 压缩后的内容与原始的强 ETag 不再逐字节一致
+            String etag = response.getHeader(HttpHeaders.ETAG);
+            if (etag != null && !etag.startsWith("W/")) {
+                response.setHeader(HttpHeaders.ETAG, "W/" + etag);
+            }
+            encodingSet = true;
+        }
+
+        private void returnDeflater() {
+            if (deflater != null) {
+                ("gzip".equals(encoding) ? gzipPool : deflatePool).release(deflater);
+                deflater = null;
+            }
+        }
+
+        private void deflate(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            if (crc != null) {
+                crc.update(b, off, len);
+            }
+            bytesIn += len;
+            deflater.setInput(b, off, len);
+            while (!deflater.needsInput()) {
+                drain(Deflater.NO_FLUSH);
+            }
+        }
+
+        private int drain(int flush) throws IOException {
+            long start = System.nanoTime();
+            int n = deflater.deflate(output, 0, output.length, flush);
+            deflateNanos += System.nanoTime() - start;
+            if (n > 0) {
+                getResponse().getOutputStream().write(output, 0, n);
+                bytesOut += n;
+            }
+            return n;
+        }
+
+        private void flush() throws IOException {
+            if (finishing) {
+                return;
+            }
+            if (state == State.BUFFERING && encodingSet) {
+                startCompressing();
+            } else if (state == State.BUFFERING) {
+                startRaw();
+                writeBuffered();
+            }
+            if (state == State.COMPRESSING) {
+                while (drain(Deflater.SYNC_FLUSH) == output.length) {
+                    // 输出缓冲区写满时继续取出剩余数据
+                }
+            }
+            if (state != State.FINISHED) {
+                getResponse().getOutputStream().flush();
+            }
+        }
+
+        private void writeBuffered() throws IOException {
+            if (count > 0) {
+                int buffered = count;
+                count = 0;
+                getResponse().getOutputStream().write(buffer, 0, buffered);
+            }
+        }
+
+        /**
+         * 请求处理结束后调用，写出 PrintWriter 中的剩余字符后结束响应体
+         */
+        void finish() throws IOException {
+            if (writer != null) {
+                // 只把字符编码为字节，不按 flush 的语义提前决定是否压缩
+                finishing = true;
+                writer.flush();
+            }
+            complete();
+        }
+
+        /**
+         * 写出剩余数据，压缩时写出 gzip 尾部并记录指标；可以重复调用
+         */
+        private void complete() throws IOException {
+            if (state == State.BUFFERING && encodingSet) {
+                startCompressing();
+            }
+            switch (state) {
+                case BUFFERING -> {
+                    state = State.RAW;
+                    if (!isCommitted()) {
+                        super.setContentLengthLong(contentLength >= 0 ? contentLength : count);
+                    }
+                    writeBuffered();
+                }
+                case COMPRESSING -> {
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        drain(Deflater.NO_FLUSH);
+                    }
+                    if (crc != null) {
+                        byte[] trailer = new byte[8];
+                        writeIntLE(trailer, 0, (int) crc.getValue());
+                        writeIntLE(trailer, 4, (int) bytesIn);
+                        getResponse().getOutputStream().write(trailer);
+                        bytesOut += trailer.length;
+                    }
+                    ("gzip".equals(encoding) ? gzipTimer : deflateTimer).record(deflateNanos, TimeUnit.NANOSECONDS);
+                    if (bytesIn > 0) {
+                        ratio.record((double) bytesOut / bytesIn);
+                    }
+                    release();
+                }
+                default -> {
+                }
+            }
+            state = State.FINISHED;
+        }
+
+        /**
+         * 归还 Deflater，请求异常结束时也会调用
+         */
+        void release() {
+            if (deflater != null) {
+                returnDeflater();
+                state = State.FINISHED;
+            }
+        }
+
+        private static void writeIntLE(byte[] b, int off, int value) {
+            b[off] = (byte) value;
+            b[off + 1] = (byte) (value >>> 8);
+            b[off + 2] = (byte) (value >>> 16);
+            b[off + 3] = (byte) (value >>> 24);
+        }
+
+        private final class CompressingOutputStream extends ServletOutputStream {
+
+            private final byte[] single = new byte[1];
+
+            @Override
+            public void write(int b) throws IOException {
+                single[0] = (byte) b;
+                CompressingResponse.this.write(single, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                CompressingResponse.this.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                CompressingResponse.this.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (state != State.FINISHED) {
+                    complete();
+                    getResponse().getOutputStream().close();
+                }
+            }
+
+            @Override
+            public boolean isReady() {
+                try {
+                    return getResponse().getOutputStream().isReady();
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                try {
+                    getResponse().getOutputStream().setWriteListener(writeListener);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package wenle.github.com.helloworldweb;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * 按当前 CPU 使用率选择压缩级别。
+ * <p>
+ * 使用率低于 lowLoad 时使用 maxLevel，高于 highLoad 时使用 minLevel，两者之间线性降低；
+ * 使用率每秒最多采样一次，其余请求直接读取上一次的结果。
+ */
+final class CompressionLevel {
+
+    private static final long SAMPLE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final DoubleSupplier cpuLoad;
+
+    private final int maxLevel;
+
+    private final int minLevel;
+
+    private final double lowLoad;
+
+    private final double highLoad;
+
+    private volatile int level;
+
+    private volatile long sampledAt;
+
+    CompressionLevel(int maxLevel, int minLevel, double lowLoad, double highLoad) {
+        this(systemCpuLoad(), maxLevel, minLevel, lowLoad, highLoad);
+    }
+
+    CompressionLevel(DoubleSupplier cpuLoad, int maxLevel, int minLevel, double lowLoad, double highLoad) {
+        if (minLevel < 0 || maxLevel > 9 || minLevel > maxLevel) {
+            throw new IllegalArgumentException("Invalid compression levels: min=" + minLevel + ", max=" + maxLevel);
+        }
+        if (lowLoad > highLoad) {
+            throw new IllegalArgumentException("compression.low-load must not exceed compression.high-load");
+        }
+        this.cpuLoad = cpuLoad;
+        this.maxLevel = maxLevel;
+        this.minLevel = minLevel;
+        this.lowLoad = lowLoad;
+        this.highLoad = highLoad;
+        this.level = levelFor(cpuLoad.getAsDouble());
+        this.sampledAt = System.nanoTime();
+    }
+
+    /**
+     * 当前压缩级别
+     *
+     * @return 0-9
+     */
+    int current() {
+        long now = System.nanoTime();
+        if (now - sampledAt >= SAMPLE_INTERVAL_NANOS) {
+            sampledAt = now;
+            level = levelFor(cpuLoad.getAsDouble());
+        }
+        return level;
+    }
+
+    int levelFor(double load) {
+        if (!(load > lowLoad)) {
+            // 包含无法获取使用率时返回的负数和 NaN
+            return maxLevel;
+        }
+        if (load >= highLoad) {
+            return minLevel;
+        }
+        double fraction = (load - lowLoad) / (highLoad - lowLoad);
+        return maxLevel - (int) Math.round((maxLevel - minLevel) * fraction);
+    }
+
+    private static DoubleSupplier systemCpuLoad() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os::getCpuLoad;
+        }
+        return () -> -1;
+    }
+}
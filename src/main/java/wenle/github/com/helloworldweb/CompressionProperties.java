@@ -0,0 +1,119 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 动态响应压缩配置，前缀 compression
+ */
+@ConfigurationProperties(prefix = "compression")
+public class CompressionProperties {
+
+    /**
+     * 是否开启 {@link CompressionFilter}
+     */
+    private boolean enabled;
+
+    /**
+     * 小于该字节数的响应不压缩
+     */
+    private int minResponseSize = 2048;
+
+    /**
+     * 已压缩的内容类型，不再压缩；以 / 结尾时匹配整个主类型，例如 image/
+     */
+    private List<String> excludedMimeTypes = new ArrayList<>(List.of(
+        "image/", "video/", "audio/", "font/woff", "font/woff2",
+        "application/zip", "application/gzip", "application/x-gzip", "application/x-brotli", "application/pdf"));
+
+    /**
+     * CPU 空闲时使用的压缩级别
+     */
+    private int maxLevel = 6;
+
+    /**
+     * CPU 繁忙时使用的压缩级别
+     */
+    private int minLevel = 1;
+
+    /**
+     * CPU 使用率低于该值时使用 maxLevel
+     */
+    private double lowLoad = 0.5;
+
+    /**
+     * CPU 使用率高于该值时使用 minLevel，两者之间线性降低
+     */
+    private double highLoad = 0.9;
+
+    /**
+     * 空闲 Deflater 的最大数量，0 表示 CPU 核数的两倍
+     */
+    private int poolSize;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMinResponseSize() {
+        return minResponseSize;
+    }
+
+    public void setMinResponseSize(int minResponseSize) {
+        this.minResponseSize = minResponseSize;
+    }
+
+    public List<String> getExcludedMimeTypes() {
+        return excludedMimeTypes;
+    }
+
+    public void setExcludedMimeTypes(List<String> excludedMimeTypes) {
+        this.excludedMimeTypes = excludedMimeTypes;
+    }
+
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    public void setMaxLevel(int maxLevel) {
+        this.maxLevel = maxLevel;
+    }
+
+    public int getMinLevel() {
+        return minLevel;
+    }
+
+    public void setMinLevel(int minLevel) {
+        this.minLevel = minLevel;
+    }
+
+    public double getLowLoad() {
+        return lowLoad;
+    }
+
+    public void setLowLoad(double lowLoad) {
+        this.lowLoad = lowLoad;
+    }
+
+    public double getHighLoad() {
+        return highLoad;
+    }
+
+    public void setHighLoad(double highLoad) {
+        this.highLoad = highLoad;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+}
@@ -0,0 +1,182 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 一次响应内批量写多个 Cookie。
+ * <p>
+ * 同一批次内的 Cookie 共用一个 Expires 时间戳、一个 SameSite 判断结果和当前线程的 {@link SetCookieEncoder}，
+ * 调用 {@link #write()} 时按添加顺序一起写出所有 Set-Cookie 响应头。
+ * 每个 add 方法的输出与对应的 {@link CookieUtil#addCookie} 重载完全一致。
+ *
+ * <pre>
+ * CookieUtil.batch(request, response)
+ *     .add("USER_COOKIE", userId, 3600, null, ".example.com", true, true, "High")
+ *     .add("LOGIN_TIME", loginTime)
+ *     .remove("OLD_COOKIE", null, ".example.com")
+ *     .write();
+ * </pre>
+ */
+public final class CookieBatch {
+
+    private final HttpServletRequest request;
+
+    private final HttpServletResponse response;
+
+    private final long nowMillis;
+
+    /**
+     * 待写出的 Set-Cookie 值（String）或交给容器生成的 Cookie 对象
+     */
+    private final List<Object> pending = new ArrayList<>(8);
+
+    private SameSitePolicy lastPolicy;
+
+    private String lastSuffix;
+
+    /**
+     * @param request  请求，用于 SameSite 判断，可以为 null
+     * @param response 响应
+     */
+    public CookieBatch(HttpServletRequest request, HttpServletResponse response) {
+        this.request = request;
+        this.response = response;
+        this.nowMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * 同 {@link CookieUtil#addCookie(String, String, HttpServletResponse)}
+     *
+     * @param key   cookie 名
+     * @param value cookie 值
+     * @return this
+     */
+    public CookieBatch add(String key, String value) {
+        return add(key, value, -1, null, null, false, true, null);
+    }
+
+    /**
+     * 同 {@link CookieUtil#addCookie(String, String, int, boolean, boolean, String, HttpServletResponse)}，可同时指定路径和域名
+     *
+     * @param key        cookie 名
+     * @param value      cookie 值
+     * @param maxAge     最大存活时间
+     * @param path       路径，为空时使用 /
+     * @param domainName 域名
+     * @param httpOnly   是否仅http，禁止脚本访问Cookie
+     * @param secure     是否是SSL/HTTPS
+     * @param priority   优先级
+     * @return this
+     */
+    public CookieBatch add(String key, String value, int maxAge, String path, String domainName,
+        boolean httpOnly, boolean secure, String priority) {
+        // 不带请求参数的 addCookie 重载不读取 User-Agent
+        return add(key, value, maxAge, path, domainName, httpOnly, secure, priority, null, "None", null, null);
+    }
+
+    /**
+     * 同 {@link CookieUtil#addCookie(String, String, long, String, String, boolean, boolean, HttpServletRequest,
+     * HttpServletResponse, String, String, String)}，SameSite 判断使用批次的请求
+     *
+     * @param key                  cookie 名
+     * @param value                cookie 值
+     * @param maxAge               最大存活时间
+     * @param path                 路径，为空时使用 /
+     * @param domainName           域名
+     * @param httpOnly             是否仅http，禁止脚本访问Cookie
+     * @param secure               是否是SSL/HTTPS
+     * @param cookieSameSiteValue  Cookie的同站属性值
+     * @param checkSameSiteRegex   检测是否同站的正则表达式
+     * @param checkUnSameSiteRegex 检测是否不同站的正则表达式
+     * @return this
+     */
+    public CookieBatch add(String key, String value, int maxAge, String path, String domainName, boolean httpOnly,
+        boolean secure, String cookieSameSiteValue, String checkSameSiteRegex, String checkUnSameSiteRegex) {
+        return add(key, value, maxAge, path, domainName, httpOnly, secure, null, request, cookieSameSiteValue,
+            checkSameSiteRegex, checkUnSameSiteRegex);
+    }
+
+    /**
+     * 同 {@link CookieUtil#removeCookie(HttpServletRequest, HttpServletResponse, String, String, String)}
+     *
+     * @param key        cookie 名
+     * @param path       路径
+     * @param domainName 域名
+     * @return this
+     */
+    public CookieBatch remove(String key, String path, String domainName) {
+        return add(key, StringUtils.EMPTY, 0, path, domainName, true, false, null);
+    }
+
+    private CookieBatch add(String key, String value, int maxAge, String path, String domainName, boolean httpOnly,
+        boolean secure, String priority, HttpServletRequest sameSiteRequest, String cookieSameSiteValue,
+        String checkSameSiteRegex, String checkUnSameSiteRegex) {
+        CookieUtil.checkName(key);
+        long metricsStart = CookieMetrics.startSetCookie();
+        long start = ServerTiming.start();
+        String cookiePath = StringUtils.isNotBlank(path) ? path : CookieUtil.ROOT_PATH;
+        String cookieDomain = StringUtils.isNotBlank(domainName) ? domainName : null;
+        if (httpOnly || StringUtils.isNotBlank(priority) || secure) {
+            String suffix = sameSiteSuffix(sameSiteRequest, cookieSameSiteValue, checkSameSiteRegex, checkUnSameSiteRegex);
+            SetCookieEncoder encoder = SetCookieEncoder.acquire();
+            try {
+                pending.add(encoder
+                    .encode(0, key, value, null, cookieDomain, maxAge, nowMillis, cookiePath, secure, httpOnly, priority)
+                    .appendSameSite(suffix)
+                    .toString());
+            } finally {
+                SetCookieEncoder.release(encoder);
+            }
+        } else {
+            Cookie cookie = new Cookie(key, value);
+            cookie.setMaxAge(maxAge);
+            cookie.setPath(cookiePath);
+            if (cookieDomain != null) {
+                cookie.setDomain(cookieDomain);
+            }
+            pending.add(cookie);
+        }
+        ServerTiming.stop(ServerTiming.Stage.SET_COOKIE, start);
+        CookieMetrics.stopSetCookie(metricsStart);
+        return this;
+    }
+
+    private String sameSiteSuffix(HttpServletRequest sameSiteRequest, String cookieSameSiteValue,
+        String checkSameSiteRegex, String checkUnSameSiteRegex) {
+        SameSitePolicyEngine engine = SameSitePolicyEngine.getInstance();
+        SameSitePolicy policy = engine.resolve(cookieSameSiteValue, checkSameSiteRegex, checkUnSameSiteRegex);
+        if (sameSiteRequest == null) {
+            return policy.suffixFor(null);
+        }
+        if (policy != lastPolicy) {
+            lastSuffix = engine.suffixFor(sameSiteRequest, policy);
+            lastPolicy = policy;
+        }
+        return lastSuffix;
+    }
+
+    /**
+     * 写出所有待写的 Cookie，之后批次可以继续使用
+     */
+    public void write() {
+        if (response == null) {
+            pending.clear();
+            return;
+        }
+        for (Object cookie : pending) {
+            if (cookie instanceof String header) {
+                response.addHeader("Set-Cookie", header);
+            } else {
+                response.addCookie((Cookie) cookie);
+            }
+        }
+        pending.clear();
+    }
+}
@@ -0,0 +1,110 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.StringUtils;
+
+/**
+ * Cookie 相关组件的装配
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(CookieProperties.class)
+public class CookieConfiguration {
+
+    /**
+     * 启动时编译 SameSite 策略并安装到 CookieUtil 使用的引擎；CookieUtil 不通过容器获取引擎，开启延迟初始化时也必须立即创建
+     */
+    @Bean
+    @Lazy(false)
+    public SameSitePolicyEngine sameSitePolicyEngine(CookieProperties properties) {
+        CookieProperties.SameSite sameSite = properties.getSameSite();
+        SameSitePolicyEngine engine = new SameSitePolicyEngine(
+            new SameSitePolicy(sameSite.getValue(), sameSite.getCheckSameSiteRegex(), sameSite.getCheckUnSameSiteRegex()));
+        SameSitePolicyEngine.install(engine);
+        return engine;
+    }
+
+    /**
+     * 注册 cookie.templates.* 配置的模板和声明为 Bean 的模板，启动时校验 cookie 名
+     */
+    @Bean
+    @Lazy(false)
+    public CookieTemplateRegistry cookieTemplateRegistry(CookieProperties properties, ObjectProvider<CookieTemplate> beans) {
+        List<CookieTemplate> templates = new ArrayList<>();
+        properties.getTemplates().forEach((key, template) -> templates.add(template.toCookieTemplate(key)));
+        beans.orderedStream().forEach(templates::add);
+        return new CookieTemplateRegistry(templates);
+    }
+
+    /**
+     * 配置 cookie.session.primary-key 后创建，启动时校验密钥
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "cookie.session", name = "primary-key")
+    public CookieKeyRing cookieKeyRing(CookieProperties properties) {
+        CookieProperties.Session session = properties.getSession();
+        return CookieKeyRing.fromBase64(session.getPrimaryKey(), session.getKeys());
+    }
+
+    /**
+     * 字符串负载的会话 Cookie 编解码，其他负载类型用同一个密钥环创建 {@link SignedCookieCodec}
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "cookie.session", name = "primary-key")
+    public SignedCookieCodec<String> sessionCookieCodec(CookieKeyRing keyRing, CookieProperties properties) {
+        CookieProperties.Session session = properties.getSession();
+        return new SignedCookieCodec<>(keyRing, CookiePayloadSerializer.UTF8, session.getMaxAge(), session.isEncrypt());
+    }
+
+    /**
+     * 从快照恢复撤销记录并安装到 CookieUtil；与 SameSite 引擎一样不通过容器获取，开启延迟初始化时也必须立即创建
+     */
+    @Bean
+    @Lazy(false)
+    @ConditionalOnProperty(prefix = "cookie.revocation", name = "enabled", havingValue = "true")
+    public RevocationRegistry revocationRegistry(CookieProperties properties) {
+        CookieProperties.Revocation revocation = properties.getRevocation();
+        RevocationRegistry registry = new RevocationRegistry(revocation.getExpectedEntries(),
+            StringUtils.hasText(revocation.getSnapshotFile()) ? Path.of(revocation.getSnapshotFile()) : null);
+        registry.load();
+        registry.start(revocation.getSnapshotInterval(), revocation.getPurgeInterval());
+        RevocationRegistry.install(registry);
+        return registry;
+    }
+
+    /**
+     * 堆外会话存储，通过 {@link CookieUtil#addSession} 和 {@link CookieUtil#getSession} 使用；配置文件时启动时从文件恢复
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "cookie.session-store", name = "enabled", havingValue = "true")
+    public OffHeapSessionStore offHeapSessionStore(CookieProperties properties) throws IOException {
+        CookieProperties.SessionStore sessionStore = properties.getSessionStore();
+        OffHeapSessionStore store = new OffHeapSessionStore(
+            StringUtils.hasText(sessionStore.getFile()) ? Path.of(sessionStore.getFile()) : null,
+            sessionStore.getSegments(), sessionStore.getSlotsPerSegment(), sessionStore.getSlotSize(), sessionStore.getMaxAge());
+        store.start(sessionStore.getPurgeInterval());
+        return store;
+    }
+
+    /**
+     * 大 Cookie 值的压缩编解码，通过 {@link CookieUtil#addCookie(String, String, int, CompressedCookieCodec, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse)} 使用
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "cookie.compression", name = "enabled", havingValue = "true")
+    public CompressedCookieCodec compressedCookieCodec(CookieProperties properties, ResourceLoader resourceLoader) throws IOException {
+        CookieProperties.Compression compression = properties.getCompression();
+        byte[] dictionary = StringUtils.hasText(compression.getDictionary())
+            ? resourceLoader.getResource(compression.getDictionary()).getContentAsByteArray() : new byte[0];
+        return new CompressedCookieCodec(dictionary, compression.getMinLength(), compression.getChunkLength(), compression.getMaxChunks());
+    }
+}
@@ -0,0 +1,332 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * 请求 Cookie 的索引，首次按名称读取 Cookie 时解析原始 Cookie 请求头并保存为请求属性，之后按名称 O(1) 查找。
+ * <p>
+ * 只记录名称和值在请求头字符串中的位置，不创建 {@link Cookie} 对象，也不会触发容器解析全部 Cookie；
+ * 读取值时才截取字符串，调用 {@link #getCookie(String)} 时才为该 Cookie 创建对象，二者都会被缓存。
+ * <p>
+ * 快速路径只接受 RFC 6265 中明确的格式：名称是 token，值只包含 cookie-octet，Cookie 之间以分号分隔，分隔符两侧可以有空白。
+ * 遇到引号、逗号、不带等号的 Cookie、以 $ 开头的名称等容器解析规则比较特殊的情况时，退回到
+ * {@link HttpServletRequest#getCookies()}，保证与原来遍历 getCookies 的结果完全一致：同名 Cookie 取第一个。
+ */
+public final class CookieIndex {
+
+    /**
+     * 保存索引的请求属性名
+     */
+    public static final String ATTRIBUTE = CookieIndex.class.getName();
+
+    private static final CookieIndex EMPTY = new CookieIndex(null, 0);
+
+    /**
+     * RFC 2616 token 字符
+     */
+    private static final boolean[] TOKEN = new boolean[128];
+
+    /**
+     * RFC 6265 cookie-octet 字符
+     */
+    private static final boolean[] COOKIE_OCTET = new boolean[128];
+
+    static {
+        for (char c = 0x21; c < 0x7f; c++) {
+            TOKEN[c] = "()<>@,;:\\\"/[]?={}".indexOf(c) < 0;
+            COOKIE_OCTET[c] = c != '"' && c != ',' && c != ';' && c != '\\';
+        }
+    }
+
+    private final String[] headers;
+
+    private int count;
+
+    private byte[] headerOf;
+
+    private int[] nameStart;
+
+    private int[] nameEnd;
+
+    private int[] valueStart;
+
+    private int[] valueEnd;
+
+    private String[] values;
+
+    private Cookie[] cookies;
+
+    /**
+     * 开放寻址哈希表，保存条目下标 + 1，0 表示空槽
+     */
+    private int[] table;
+
+    /**
+     * 退回容器解析时使用
+     */
+    private Map<String, Cookie> fallback;
+
+    private CookieIndex(String[] headers, int capacity) {
+        this.headers = headers;
+        this.headerOf = new byte[capacity];
+        this.nameStart = new int[capacity];
+        this.nameEnd = new int[capacity];
+        this.valueStart = new int[capacity];
+        this.valueEnd = new int[capacity];
+    }
+
+    private CookieIndex(Map<String, Cookie> fallback) {
+        this(null, 0);
+        this.fallback = fallback;
+    }
+
+    /**
+     * 获取请求的 Cookie 索引，不存在时解析并保存到请求属性中
+     *
+     * @param request 请求
+     * @return 索引
+     */
+    public static CookieIndex of(HttpServletRequest request) {
+        Object attribute = request.getAttribute(ATTRIBUTE);
+        if (attribute instanceof CookieIndex index) {
+            return index;
+        }
+        CookieIndex index = build(request);
+        request.setAttribute(ATTRIBUTE, index);
+        return index;
+    }
+
+    private static CookieIndex build(HttpServletRequest request) {
+        Enumeration<String> values = request.getHeaders("Cookie");
+        if (values == null || !values.hasMoreElements()) {
+            return fromCookies(request.getCookies());
+        }
+        String first = values.nextElement();
+        String[] headers;
+        if (values.hasMoreElements()) {
+            // HTTP/2 可能把 Cookie 拆成多个请求头
+            List<String> list = new ArrayList<>();
+            list.add(first);
+            while (values.hasMoreElements()) {
+                list.add(values.nextElement());
+            }
+            headers = list.toArray(new String[0]);
+        } else {
+            headers = new String[] {first};
+        }
+        if (headers.length > Byte.MAX_VALUE) {
+            return fromCookies(request.getCookies());
+        }
+        int capacity = 0;
+        for (String header : headers) {
+            capacity += countSeparators(header) + 1;
+        }
+        CookieIndex index = new CookieIndex(headers, capacity);
+        for (int h = 0; h < headers.length; h++) {
+            if (!index.parse(h)) {
+                return fromCookies(request.getCookies());
+            }
+        }
+        index.buildTable();
+        return index;
+    }
+
+    private static CookieIndex fromCookies(Cookie[] cookies) {
+        if (cookies == null || cookies.length == 0) {
+            return EMPTY;
+        }
+        Map<String, Cookie> map = new HashMap<>(cookies.length * 2);
+        for (Cookie cookie : cookies) {
+            map.putIfAbsent(cookie.getName(), cookie);
+        }
+        return new CookieIndex(map);
+    }
+
+    private static int countSeparators(String header) {
+        int n = 0;
+        for (int i = header.indexOf(';'); i >= 0; i = header.indexOf(';', i + 1)) {
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * 解析一个 Cookie 请求头，遇到快速路径不支持的格式时返回 false
+     */
+    private boolean parse(int h) {
+        final String header = headers[h];
+        final int len = header.length();
+        int i = skipWhitespace(header, 0, len);
+        if (i == len) {
+            return true;
+        }
+        while (true) {
+            int start = i;
+            while (i < len && isToken(header.charAt(i))) {
+                i++;
+            }
+            if (i == start || header.charAt(start) == '$') {
+                return false;
+            }
+            int end = i;
+            i = skipWhitespace(header, i, len);
+            if (i == len || header.charAt(i) != '=') {
+                return false;
+            }
+            i = skipWhitespace(header, i + 1, len);
+            int vStart = i;
+            while (i < len && isCookieOctet(header.charAt(i))) {
+                i++;
+            }
+            int vEnd = i;
+            i = skipWhitespace(header, i, len);
+
+            headerOf[count] = (byte) h;
+            nameStart[count] = start;
+            nameEnd[count] = end;
+            valueStart[count] = vStart;
+            valueEnd[count] = vEnd;
+            count++;
+
+            if (i == len) {
+                return true;
+            }
+            if (header.charAt(i) != ';') {
+                return false;
+            }
+            i = skipWhitespace(header, i + 1, len);
+            if (i == len) {
+                // 末尾的分号
+                return true;
+            }
+        }
+    }
+
+    private void buildTable() {
+        int size = Integer.highestOneBit(Math.max(count, 1) * 2 - 1) << 1;
+        table = new int[size];
+        values = new String[count];
+        cookies = new Cookie[count];
+        for (int e = 0; e < count; e++) {
+            String header = headers[headerOf[e]];
+            int slot = hash(header, nameStart[e], nameEnd[e]) & (size - 1);
+            boolean duplicate = false;
+            while (table[slot] != 0) {
+                if (sameName(table[slot] - 1, header, nameStart[e], nameEnd[e] - nameStart[e])) {
+                    // 同名 Cookie 保留第一个
+                    duplicate = true;
+                    break;
+                }
+                slot = (slot + 1) & (size - 1);
+            }
+            if (!duplicate) {
+                table[slot] = e + 1;
+            }
+        }
+    }
+
+    private int find(String name) {
+        if (table == null) {
+            return -1;
+        }
+        int mask = table.length - 1;
+        int slot = hash(name, 0, name.length()) & mask;
+        int e;
+        while ((e = table[slot]) != 0) {
+            if (sameName(e - 1, name, 0, name.length())) {
+                return e - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean sameName(int e, String s, int offset, int length) {
+        return nameEnd[e] - nameStart[e] == length && headers[headerOf[e]].regionMatches(nameStart[e], s, offset, length);
+    }
+
+    /**
+     * 获取 Cookie 值
+     *
+     * @param name Cookie 名称
+     * @return Cookie 值，不存在时返回 null
+     */
+    public String getValue(String name) {
+        if (fallback != null) {
+            Cookie cookie = fallback.get(name);
+            return cookie == null ? null : cookie.getValue();
+        }
+        int e = find(name);
+        if (e < 0) {
+            return null;
+        }
+        String value = values[e];
+        if (value == null) {
+            value = headers[headerOf[e]].substring(valueStart[e], valueEnd[e]);
+            values[e] = value;
+        }
+        return value;
+    }
+
+    /**
+     * 获取 Cookie
+     *
+     * @param name Cookie 名称
+     * @return Cookie 对象，不存在时返回 null
+     */
+    public Cookie getCookie(String name) {
+        if (fallback != null) {
+            return fallback.get(name);
+        }
+        int e = find(name);
+        if (e < 0) {
+            return null;
+        }
+        Cookie cookie = cookies[e];
+        if (cookie == null) {
+            cookie = new Cookie(name, getValue(name));
+            cookies[e] = cookie;
+        }
+        return cookie;
+    }
+
+    /**
+     * 是否退回到容器解析的 Cookie
+     *
+     * @return true or false
+     */
+    boolean isFallback() {
+        return fallback != null;
+    }
+
+    private static int hash(String s, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static int skipWhitespace(String s, int from, int len) {
+        int i = from;
+        while (i < len && (s.charAt(i) == ' ' || s.charAt(i) == '\t')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isToken(char c) {
+        return c < 128 && TOKEN[c];
+    }
+
+    private static boolean isCookieOctet(char c) {
+        return c < 128 && COOKIE_OCTET[c];
+    }
+}
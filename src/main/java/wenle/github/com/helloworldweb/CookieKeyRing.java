@@ -0,0 +1,154 @@
+package wenle.github.com.helloworldweb;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * 签名 Cookie 使用的密钥环。
+ * <p>
+ * 每个密钥有一个短 id，写在 Cookie 值里；新 Cookie 总是使用主密钥，校验时按 id 查找，
+ * 轮换密钥时先把新密钥加入并设为主密钥，旧密钥保留到旧 Cookie 过期后再删除。
+ * 配置的密钥至少 32 字节，通过 HMAC-SHA256 分别派生出签名密钥和 AES 加密密钥，两种用途不共用同一个密钥。
+ */
+public final class CookieKeyRing {
+
+    static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final int MIN_SECRET_LENGTH = 32;
+
+    private final Key primary;
+
+    private final Map<String, Key> keys;
+
+    /**
+     * @param primaryId 主密钥 id
+     * @param secrets   密钥 id 到密钥字节，id 只能包含字母、数字、- 和 _，最长 8 个字符
+     */
+    public CookieKeyRing(String primaryId, Map<String, byte[]> secrets) {
+        Map<String, Key> keys = new LinkedHashMap<>();
+        secrets.forEach((id, secret) -> keys.put(id, new Key(id, secret)));
+        this.keys = Collections.unmodifiableMap(keys);
+        this.primary = keys.get(primaryId);
+        if (primary == null) {
+            throw new IllegalArgumentException("Primary cookie key '" + primaryId + "' is not configured");
+        }
+    }
+
+    /**
+     * 从配置创建，密钥为 base64 或 base64url 编码
+     *
+     * @param primaryId 主密钥 id
+     * @param secrets   密钥 id 到编码后的密钥
+     * @return 密钥环
+     */
+    public static CookieKeyRing fromBase64(String primaryId, Map<String, String> secrets) {
+        Map<String, byte[]> decoded = new LinkedHashMap<>();
+        secrets.forEach((id, secret) -> decoded.put(id, decode(id, secret)));
+        return new CookieKeyRing(primaryId, decoded);
+    }
+
+    /**
+     * @return 新 Cookie 使用的密钥
+     */
+    public Key primary() {
+        return primary;
+    }
+
+    /**
+     * @param id 密钥 id
+     * @return 密钥，不存在（已经删除或被篡改）时返回 null
+     */
+    public Key find(String id) {
+        return keys.get(id);
+    }
+
+    private static byte[] decode(String id, String secret) {
+        try {
+            return Base64.getDecoder().decode(secret.replace('-', '+').replace('_', '/'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cookie key '" + id + "' is not valid base64", e);
+        }
+    }
+
+    /**
+     * 一个密钥，Mac 按线程缓存并已用签名密钥初始化
+     */
+    public static final class Key {
+
+        private final String id;
+
+        private final SecretKeySpec macKey;
+
+        private final SecretKeySpec encryptionKey;
+
+        private final PerThreadCache<Mac> macs;
+
+        Key(String id, byte[] secret) {
+            if (id == null || id.isEmpty() || id.length() > 8 || !id.chars().allMatch(Key::isIdChar)) {
+                throw new IllegalArgumentException("Invalid cookie key id '" + id + "'");
+            }
+            if (secret.length < MIN_SECRET_LENGTH) {
+                throw new IllegalArgumentException("Cookie key '" + id + "' must be at least " + MIN_SECRET_LENGTH + " bytes");
+            }
+            this.id = id;
+            SecretKeySpec master = new SecretKeySpec(secret, MAC_ALGORITHM);
+            this.macKey = new SecretKeySpec(derive(master, "cookie-mac"), MAC_ALGORITHM);
+            this.encryptionKey = new SecretKeySpec(derive(master, "cookie-enc"), "AES");
+            this.macs = new PerThreadCache<>(this::newMac);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        SecretKeySpec encryptionKey() {
+            return encryptionKey;
+        }
+
+        /**
+         * 借用当前线程的 Mac，用完后必须 {@link #releaseMac(Mac)}
+         */
+        Mac acquireMac() {
+            Mac mac = macs.acquire();
+            mac.reset();
+            return mac;
+        }
+
+        void releaseMac(Mac mac) {
+            macs.release(mac);
+        }
+
+        private Mac newMac() {
+            try {
+                Mac mac = Mac.getInstance(MAC_ALGORITHM);
+                mac.init(macKey);
+                return mac;
+            } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static byte[] derive(SecretKeySpec master, String purpose) {
+            try {
+                Mac mac = Mac.getInstance(MAC_ALGORITHM);
+                mac.init(master);
+                return mac.doFinal(purpose.getBytes(StandardCharsets.US_ASCII));
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static boolean isIdChar(int c) {
+            return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '-' || c == '_';
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.noop.NoopCounter;
+import io.micrometer.core.instrument.noop.NoopDistributionSummary;
+import io.micrometer.core.instrument.noop.NoopTimer;
+
+/**
+ * Cookie 读写路径的 Micrometer 指标。
+ * <p>
+ * CookieUtil 是静态工具类，指标通过 {@link #install(CookieMetrics)} 安装后由静态方法记录。
+ * 没有安装或某个指标被 {@code management.metrics.enable.*} 关闭时，对应的记录方法只读取一个字段，
+ * 不调用 {@link System#nanoTime()}，也不访问 MeterRegistry。
+ * {@link #suppress()} 只对当前线程关闭指标，用于启动预热等合成流量，不影响同时处理的真实请求。
+ * <ul>
+ *     <li>{@code cookie.set}：写一个 Cookie 的耗时，包括 CookieUtil.addCookie、{@link CookieBatch} 和 {@link CookieTemplate}</li>
+ *     <li>{@code cookie.user.agent.classify}：写 Cookie 时 SameSitePolicy 解析 User-Agent 的耗时，同一请求内只解析一次</li>
+ *     <li>{@code cookie.same.site.none}：按浏览器分类统计 SameSite=None 是否兼容，tag 为 family 和 incompatible</li>
+ *     <li>{@code cookie.set.cookie.bytes}：每个响应的 Set-Cookie 响应头字节数</li>
+ *     <li>{@code cookie.compression.saved.bytes}：{@link CompressedCookieCodec} 每次编码（direction=response）和解码（direction=request）节省的字节数</li>
+ * </ul>
+ */
+public final class CookieMetrics {
+
+    /**
+     * 浏览器分类，用作 cookie.same.site.none 的 family tag
+     */
+    enum BrowserFamily {
+        CHROMIUM("chromium"),
+        UC_BROWSER("uc-browser"),
+        IOS("ios"),
+        MACOS_SAFARI("macos-safari"),
+        MACOS_EMBEDDED("macos-embedded"),
+        OTHER("other");
+
+        private final String tag;
+
+        BrowserFamily(String tag) {
+            this.tag = tag;
+        }
+
+        static BrowserFamily of(UserAgentProfile profile) {
+            if (profile.isUcBrowser()) {
+                return UC_BROWSER;
+            }
+            if (profile.isChromiumBased()) {
+                return CHROMIUM;
+            }
+            if (profile.getOsFamily() == UserAgentProfile.OsFamily.IOS) {
+                return IOS;
+            }
+            if (profile.isMacEmbeddedBrowser()) {
+                return MACOS_EMBEDDED;
+            }
+            if (profile.getOsFamily() == UserAgentProfile.OsFamily.MAC_OS_X && profile.isSafari()) {
+                return MACOS_SAFARI;
+            }
+            return OTHER;
+        }
+    }
+
+    private static volatile CookieMetrics instance;
+
+    private static final ThreadLocal<Boolean> SUPPRESSED = new ThreadLocal<>();
+
+    /**
+     * 关闭了指标的线程数，为 0 时不读取 ThreadLocal
+     */
+    private static final AtomicInteger SUPPRESSED_THREADS = new AtomicInteger();
+
+    private final Timer setCookieTimer;
+
+    private final boolean setCookieEnabled;
+
+    private final Timer classifyTimer;
+
+    private final boolean classifyEnabled;
+
+    /**
+     * 下标为 family.ordinal() * 2 + (incompatible ? 1 : 0)
+     */
+    private final Counter[] sameSiteNoneCounters;
+
+    private final boolean sameSiteNoneEnabled;
+
+    private final DistributionSummary setCookieBytes;
+
+    private final boolean setCookieBytesEnabled;
+
+    /**
+     * 下标 0 为 request，1 为 response
+     */
+    private final DistributionSummary[] compressionSaved;
+
+    private final boolean compressionSavedEnabled;
+
+    public CookieMetrics(MeterRegistry registry) {
+        this.setCookieTimer = Timer.builder("cookie.set")
+            .description("写一个 Cookie 的耗时")
+            .register(registry);
+        this.setCookieEnabled = !(setCookieTimer instanceof NoopTimer);
+        this.classifyTimer = Timer.builder("cookie.user.agent.classify")
+            .description("SameSitePolicy 解析 User-Agent 耗时")
+            .register(registry);
+        this.classifyEnabled = !(classifyTimer instanceof NoopTimer);
+
+        BrowserFamily[] families = BrowserFamily.values();
+        this.sameSiteNoneCounters = new Counter[families.length * 2];
+        boolean anyEnabled = false;
+        for (BrowserFamily family : families) {
+            for (int incompatible = 0; incompatible < 2; incompatible++) {
+                Counter counter = Counter.builder("cookie.same.site.none")
+                    .description("SameSite=None 兼容性判断次数")
+                    .tag("family", family.tag)
+                    .tag("incompatible", String.valueOf(incompatible == 1))
+                    .register(registry);
+                sameSiteNoneCounters[family.ordinal() * 2 + incompatible] = counter;
+                anyEnabled |= !(counter instanceof NoopCounter);
+            }
+        }
+        this.sameSiteNoneEnabled = anyEnabled;
+
+        this.setCookieBytes = DistributionSummary.builder("cookie.set.cookie.bytes")
+            .description("每个响应的 Set-Cookie 响应头字节数")
+            .baseUnit("bytes")
+            .publishPercentileHistogram()
+            .register(registry);
+        this.setCookieBytesEnabled = !(setCookieBytes instanceof NoopDistributionSummary);
+
+        this.compressionSaved = new DistributionSummary[2];
+        for (int response = 0; response < 2; response++) {
+            compressionSaved[response] = DistributionSummary.builder("cookie.compression.saved.bytes")
+                .description("压缩 Cookie 节省的 name=value 字节数")
+                .baseUnit("bytes")
+                .tag("direction", response == 1 ? "response" : "request")
+                .register(registry);
+        }
+        this.compressionSavedEnabled = !(compressionSaved[0] instanceof NoopDistributionSummary)
+            || !(compressionSaved[1] instanceof NoopDistributionSummary);
+    }
+
+    /**
+     * 安装指标，应用启动时调用；传入 null 时关闭所有指标
+     *
+     * @param metrics 指标
+     */
+    static void install(CookieMetrics metrics) {
+        instance = metrics;
+    }
+
+    /**
+     * @return 当前安装的指标，没有安装时为 null
+     */
+    static CookieMetrics getInstance() {
+        return instance;
+    }
+
+    /**
+     * 当前线程之后的 Cookie 操作不记录指标，直到调用 {@link #unsuppress()}
+     */
+    static void suppress() {
+        if (SUPPRESSED.get() == null) {
+            SUPPRESSED.set(Boolean.TRUE);
+            SUPPRESSED_THREADS.incrementAndGet();
+        }
+    }
+
+    /**
+     * 恢复当前线程的指标记录
+     */
+    static void unsuppress() {
+        if (SUPPRESSED.get() != null) {
+            SUPPRESSED.remove();
+            SUPPRESSED_THREADS.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return 当前线程使用的指标，没有安装或当前线程关闭了指标时为 null
+     */
+    private static CookieMetrics current() {
+        CookieMetrics metrics = instance;
+        if (metrics != null && SUPPRESSED_THREADS.get() > 0 && SUPPRESSED.get() != null) {
+            return null;
+        }
+        return metrics;
+    }
+
+    /**
+     * 开始记录 setCookie 耗时
+     *
+     * @return 开始时间，指标关闭时为 0
+     */
+    static long startSetCookie() {
+        CookieMetrics metrics = current();
+        return metrics != null && metrics.setCookieEnabled ? System.nanoTime() : 0L;
+    }
+
+    static void stopSetCookie(long start) {
+        CookieMetrics metrics = current();
+        if (start != 0L && metrics != null) {
+            metrics.setCookieTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 开始记录 User-Agent 分类耗时
+     *
+     * @return 开始时间，指标关闭时为 0
+     */
+    static long startClassify() {
+        CookieMetrics metrics = current();
+        return metrics != null && metrics.classifyEnabled ? System.nanoTime() : 0L;
+    }
+
+    static void stopClassify(long start) {
+        CookieMetrics metrics = current();
+        if (start != 0L && metrics != null) {
+            metrics.classifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 记录一次 SameSite=None 兼容性判断
+     *
+     * @param profile User-Agent 分析结果
+     */
+    static void recordSameSiteNone(UserAgentProfile profile) {
+        CookieMetrics metrics = current();
+        if (metrics != null && metrics.sameSiteNoneEnabled) {
+            int index = BrowserFamily.of(profile).ordinal() * 2 + (profile.isSameSiteNoneIncompatible() ? 1 : 0);
+            metrics.sameSiteNoneCounters[index].increment();
+        }
+    }
+
+    /**
+     * Set-Cookie 字节数指标是否开启
+     *
+     * @return true or false
+     */
+    static boolean isSetCookieBytesEnabled() {
+        CookieMetrics metrics = current();
+        return metrics != null && metrics.setCookieBytesEnabled;
+    }
+
+    /**
+     * 记录一个响应的 Set-Cookie 响应头字节数
+     *
+     * @param bytes 字节数
+     */
+    static void recordSetCookieBytes(long bytes) {
+        CookieMetrics metrics = current();
+        if (metrics != null && metrics.setCookieBytesEnabled) {
+            metrics.setCookieBytes.record(bytes);
+        }
+    }
+
+    /**
+     * 记录一次 Cookie 压缩节省的字节数
+     *
+     * @param response true 为写入响应，false 为读取请求
+     * @param bytes    节省的字节数，小于 0 时按 0 记录
+     */
+    static void recordCompressionSaved(boolean response, long bytes) {
+        CookieMetrics metrics = current();
+        if (metrics != null && metrics.compressionSavedEnabled) {
+            metrics.compressionSaved[response ? 1 : 0].record(Math.max(0, bytes));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package wenle.github.com.helloworldweb;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * Cookie 指标的装配，{@code cookie.metrics.enabled=false} 时不安装任何指标
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "cookie.metrics", name = "enabled", matchIfMissing = true)
+public class CookieMetricsConfiguration {
+
+    /**
+     * 注册指标并安装到 CookieUtil 使用的静态入口，开启延迟初始化时也立即安装
+     */
+    @Bean
+    @Lazy(false)
+    public CookieMetrics cookieMetrics(MeterRegistry registry) {
+        CookieMetrics metrics = new CookieMetrics(registry);
+        CookieMetrics.install(metrics);
+        return metrics;
+    }
+
+    /**
+     * 统计 Set-Cookie 响应头字节数，只用于 Servlet 版本
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<SetCookieMetricsFilter> setCookieMetricsFilter() {
+        return new FilterRegistrationBean<>(new SetCookieMetricsFilter());
+    }
+}
@@ -0,0 +1,36 @@
+package wenle.github.com.helloworldweb;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 签名 Cookie 的负载与字节之间的转换
+ *
+ * @param <T> 负载类型
+ */
+public interface CookiePayloadSerializer<T> {
+
+    /**
+     * UTF-8 字符串负载
+     */
+    CookiePayloadSerializer<String> UTF8 = new CookiePayloadSerializer<>() {
+
+        @Override
+        public byte[] serialize(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String deserialize(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    byte[] serialize(T value);
+
+    /**
+     * @param bytes 已通过签名校验的字节
+     * @return 负载
+     * @throws IllegalArgumentException 字节不是有效的负载
+     */
+    T deserialize(byte[] bytes);
+}
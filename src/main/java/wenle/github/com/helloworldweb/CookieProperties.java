@@ -0,0 +1,520 @@
+package wenle.github.com.helloworldweb;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Cookie 相关配置，前缀 cookie
+ */
+@ConfigurationProperties(prefix = "cookie")
+public class CookieProperties {
+
+    /**
+     * SameSite 配置
+     */
+    private final SameSite sameSite = new SameSite();
+
+    /**
+     * Cookie 模板，key 默认作为 cookie 名
+     */
+    private final Map<String, Template> templates = new LinkedHashMap<>();
+
+    /**
+     * 签名会话 Cookie 配置
+     */
+    private final Session session = new Session();
+
+    /**
+     * Cookie 撤销配置
+     */
+    private final Revocation revocation = new Revocation();
+
+    /**
+     * 堆外会话存储配置
+     */
+    private final SessionStore sessionStore = new SessionStore();
+
+    /**
+     * 大 Cookie 值的压缩配置
+     */
+    private final Compression compression = new Compression();
+
+    public SameSite getSameSite() {
+        return sameSite;
+    }
+
+    public Map<String, Template> getTemplates() {
+        return templates;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    public Revocation getRevocation() {
+        return revocation;
+    }
+
+    public SessionStore getSessionStore() {
+        return sessionStore;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public static class SameSite {
+
+        /**
+         * SameSite 值：None、Lax、Strict 或 useChrome80
+         */
+        private String value = "None";
+
+        /**
+         * 检测是否同站的正则表达式，配置后只有匹配的 User-Agent 才追加 SameSite
+         */
+        private String checkSameSiteRegex;
+
+        /**
+         * 检测是否不同站的正则表达式，匹配的 User-Agent 不追加 SameSite
+         */
+        private String checkUnSameSiteRegex;
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+
+        public String getCheckSameSiteRegex() {
+            return checkSameSiteRegex;
+        }
+
+        public void setCheckSameSiteRegex(String checkSameSiteRegex) {
+            this.checkSameSiteRegex = checkSameSiteRegex;
+        }
+
+        public String getCheckUnSameSiteRegex() {
+            return checkUnSameSiteRegex;
+        }
+
+        public void setCheckUnSameSiteRegex(String checkUnSameSiteRegex) {
+            this.checkUnSameSiteRegex = checkUnSameSiteRegex;
+        }
+    }
+
+    public static class Template {
+
+        /**
+         * cookie 名，为空时使用配置的 key
+         */
+        private String name;
+
+        /**
+         * 路径，为空时使用 /
+         */
+        private String path;
+
+        /**
+         * 域名
+         */
+        private String domain;
+
+        /**
+         * 默认最大存活时间秒数，小于 0 表示会话 Cookie
+         */
+        private int maxAge = -1;
+
+        /**
+         * 是否仅http，禁止脚本访问Cookie
+         */
+        private boolean httpOnly;
+
+        /**
+         * 是否是SSL/HTTPS
+         */
+        private boolean secure = true;
+
+        /**
+         * 优先级：Low、Medium 或 High
+         */
+        private String priority;
+
+        /**
+         * SameSite 配置，为空时使用 cookie.same-site.*
+         */
+        private final SameSite sameSite = new SameSite();
+
+        public Template() {
+            sameSite.setValue(null);
+        }
+
+        /**
+         * 生成模板
+         *
+         * @param key 配置的 key
+         * @return 模板
+         */
+        public CookieTemplate toCookieTemplate(String key) {
+            return CookieTemplate.builder(name != null ? name : key)
+                .path(path)
+                .domain(domain)
+                .maxAge(maxAge)
+                .httpOnly(httpOnly)
+                .secure(secure)
+                .priority(priority)
+                .sameSite(sameSite.getValue(), sameSite.getCheckSameSiteRegex(), sameSite.getCheckUnSameSiteRegex())
+                .build();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public String getDomain() {
+            return domain;
+        }
+
+        public void setDomain(String domain) {
+            this.domain = domain;
+        }
+
+        public int getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(int maxAge) {
+            this.maxAge = maxAge;
+        }
+
+        public boolean isHttpOnly() {
+            return httpOnly;
+        }
+
+        public void setHttpOnly(boolean httpOnly) {
+            this.httpOnly = httpOnly;
+        }
+
+        public boolean isSecure() {
+            return secure;
+        }
+
+        public void setSecure(boolean secure) {
+            this.secure = secure;
+        }
+
+        public String getPriority() {
+            return priority;
+        }
+
+        public void setPriority(String priority) {
+            this.priority = priority;
+        }
+
+        public SameSite getSameSite() {
+            return sameSite;
+        }
+    }
+
+    public static class Session {
+
+        /**
+         * 签发新 Cookie 使用的密钥 id
+         */
+        private String primaryKey;
+
+        /**
+         * 密钥 id 到 base64 编码的密钥（至少 32 字节），轮换时保留旧密钥直到旧 Cookie 过期
+         */
+        private Map<String, String> keys = new LinkedHashMap<>();
+
+        /**
+         * 签发后的有效时间
+         */
+        private Duration maxAge = Duration.ofHours(12);
+
+        /**
+         * 是否加密负载，否则只签名
+         */
+        private boolean encrypt;
+
+        public String getPrimaryKey() {
+            return primaryKey;
+        }
+
+        public void setPrimaryKey(String primaryKey) {
+            this.primaryKey = primaryKey;
+        }
+
+        public Map<String, String> getKeys() {
+            return keys;
+        }
+
+        public void setKeys(Map<String, String> keys) {
+            this.keys = keys;
+        }
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+
+        public boolean isEncrypt() {
+            return encrypt;
+        }
+
+        public void setEncrypt(boolean encrypt) {
+            this.encrypt = encrypt;
+        }
+    }
+
+    public static class Revocation {
+
+        /**
+         * 是否启用 {@link RevocationRegistry}
+         */
+        private boolean enabled;
+
+        /**
+         * 预计同时有效的撤销数量，超过后按两倍容量重建过滤器
+         */
+        private int expectedEntries = 100_000;
+
+        /**
+         * 快照文件路径，为空时不保存快照
+         */
+        private String snapshotFile;
+
+        /**
+         * 保存快照的间隔
+         */
+        private Duration snapshotInterval = Duration.ofSeconds(30);
+
+        /**
+         * 清理过期撤销的间隔
+         */
+        private Duration purgeInterval = Duration.ofMinutes(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getExpectedEntries() {
+            return expectedEntries;
+        }
+
+        public void setExpectedEntries(int expectedEntries) {
+            this.expectedEntries = expectedEntries;
+        }
+
+        public String getSnapshotFile() {
+            return snapshotFile;
+        }
+
+        public void setSnapshotFile(String snapshotFile) {
+            this.snapshotFile = snapshotFile;
+        }
+
+        public Duration getSnapshotInterval() {
+            return snapshotInterval;
+        }
+
+        public void setSnapshotInterval(Duration snapshotInterval) {
+            this.snapshotInterval = snapshotInterval;
+        }
+
+        public Duration getPurgeInterval() {
+            return purgeInterval;
+        }
+
+        public void setPurgeInterval(Duration purgeInterval) {
+            this.purgeInterval = purgeInterval;
+        }
+    }
+
+    public static class SessionStore {
+
+        /**
+         * 是否启用 {@link OffHeapSessionStore}
+         */
+        private boolean enabled;
+
+        /**
+         * 映射的文件路径，为空时使用直接内存，重启后清空
+         */
+        private String file;
+
+        /**
+         * 段数，即锁的数量
+         */
+        private int segments = 16;
+
+        /**
+         * 每段槽位数，最多使用 7/8
+         */
+        private int slotsPerSegment = 4096;
+
+        /**
+         * 槽位字节数，单个会话的数据不能超过槽位大小减去 50 字节
+         */
+        private int slotSize = 1024;
+
+        /**
+         * 会话 Cookie 的 Max-Age，也是存储中的过期时间
+         */
+        private Duration maxAge = Duration.ofMinutes(30);
+
+        /**
+         * 清理过期会话的间隔
+         */
+        private Duration purgeInterval = Duration.ofMinutes(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public int getSegments() {
+            return segments;
+        }
+
+        public void setSegments(int segments) {
+            this.segments = segments;
+        }
+
+        public int getSlotsPerSegment() {
+            return slotsPerSegment;
+        }
+
+        public void setSlotsPerSegment(int slotsPerSegment) {
+            this.slotsPerSegment = slotsPerSegment;
+        }
+
+        public int getSlotSize() {
+            return slotSize;
+        }
+
+        public void setSlotSize(int slotSize) {
+            this.slotSize = slotSize;
+        }
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+
+        public Duration getPurgeInterval() {
+            return purgeInterval;
+        }
+
+        public void setPurgeInterval(Duration purgeInterval) {
+            this.purgeInterval = purgeInterval;
+        }
+    }
+
+    public static class Compression {
+
+        /**
+         * 是否启用 {@link CompressedCookieCodec}
+         */
+        private boolean enabled;
+
+        /**
+         * 预置字典的资源位置，为空时不使用字典
+         */
+        private String dictionary = "classpath:cookie-dictionary.txt";
+
+        /**
+         * 开始压缩的最小长度
+         */
+        private int minLength = 256;
+
+        /**
+         * 单个 Cookie 值的最大长度，超过时拆分为多个 Cookie
+         */
+        private int chunkLength = CompressedCookieCodec.MAX_CHUNK_LENGTH;
+
+        /**
+         * 最多拆分的 Cookie 数量
+         */
+        private int maxChunks = 4;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDictionary() {
+            return dictionary;
+        }
+
+        public void setDictionary(String dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        public int getMinLength() {
+            return minLength;
+        }
+
+        public void setMinLength(int minLength) {
+            this.minLength = minLength;
+        }
+
+        public int getChunkLength() {
+            return chunkLength;
+        }
+
+        public void setChunkLength(int chunkLength) {
+            this.chunkLength = chunkLength;
+        }
+
+        public int getMaxChunks() {
+            return maxChunks;
+        }
+
+        public void setMaxChunks(int maxChunks) {
+            this.maxChunks = maxChunks;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package wenle.github.com.helloworldweb;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 预编译的 Cookie 模板。
+ * <p>
+ * 名字、路径、域名、HttpOnly、Secure、优先级和 SameSite 策略固定的 Cookie，启动时校验名字并预先拼好响应头中的固定片段，
+ * 请求时只写入值和 Expires。输出与参数相同的 {@link CookieUtil#addCookie} 调用完全一致。
+ * 模板可以声明为 Spring Bean，也可以在 {@code cookie.templates.*} 中配置，统一通过 {@link CookieTemplateRegistry} 获取。
+ *
+ * <pre>
+ * CookieTemplate userCookie = CookieTemplate.builder("USER_COOKIE")
+ *     .domain(".example.com").maxAge(3600).httpOnly(true).priority("High")
+ *     .build();
+ * userCookie.add(request, response, userId);
+ * </pre>
+ */
+public final class CookieTemplate {
+
+    private final String name;
+
+    private final String path;
+
+    private final String domain;
+
+    private final int maxAge;
+
+    private final boolean httpOnly;
+
+    private final boolean secure;
+
+    private final String priority;
+
+    private final String sameSiteValue;
+
+    private final String checkSameSiteRegex;
+
+    private final String checkUnSameSiteRegex;
+
+    /**
+     * 是否直接写 Set-Cookie 响应头，否则交给容器生成（与 CookieUtil.setCookie 的分支一致）
+     */
+    private final boolean headerMode;
+
+    private final String prefix;
+
+    private final String domainSegment;
+
+    private final String tail;
+
+    /**
+     * 固定片段中是否已经包含 SameSite，包含时不再追加
+     */
+    private final boolean constantSameSite;
+
+    /**
+     * 按当前引擎解析出的 SameSite 策略，引擎重新安装后重新解析
+     */
+    private volatile ResolvedPolicy resolved;
+
+    private CookieTemplate(Builder builder) {
+        CookieUtil.checkName(builder.name);
+        this.name = builder.name;
+        this.path = StringUtils.isNotBlank(builder.path) ? builder.path : CookieUtil.ROOT_PATH;
+        this.domain = StringUtils.isNotBlank(builder.domain) ? builder.domain : null;
+        this.maxAge = builder.maxAge;
+        this.httpOnly = builder.httpOnly;
+        this.secure = builder.secure;
+        this.priority = StringUtils.isNotBlank(builder.priority) ? builder.priority : null;
+        this.sameSiteValue = builder.sameSiteValue;
+        this.checkSameSiteRegex = builder.checkSameSiteRegex;
+        this.checkUnSameSiteRegex = builder.checkUnSameSiteRegex;
+        this.headerMode = httpOnly || secure || priority != null;
+
+        this.prefix = name + "=";
+        this.domainSegment = domain != null ? "; Domain=" + domain : "";
+        StringBuilder sb = new StringBuilder("; Path=").append(path);
+        if (secure) {
+            sb.append("; Secure");
+        }
+        if (httpOnly) {
+            sb.append("; HttpOnly");
+        }
+        if (priority != null) {
+            sb.append("; Priority=").append(priority);
+        }
+        this.tail = sb.toString();
+        this.constantSameSite = CookieUtil.containsSameSite(domainSegment + tail);
+    }
+
+    /**
+     * 创建模板
+     *
+     * @param name cookie 名，必须是 token
+     * @return Builder
+     */
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    /**
+     * 使用模板的默认存活时间写 Cookie
+     *
+     * @param request  请求，用于 SameSite 判断，可以为 null
+     * @param response 响应
+     * @param value    cookie 值
+     */
+    public void add(HttpServletRequest request, HttpServletResponse response, String value) {
+        add(request, response, value, maxAge);
+    }
+
+    /**
+     * 写 Cookie
+     *
+     * @param request  请求，用于 SameSite 判断，可以为 null
+     * @param response 响应
+     * @param value    cookie 值
+     * @param maxAge   最大存活时间秒数，小于 0 表示会话 Cookie
+     */
+    public void add(HttpServletRequest request, HttpServletResponse response, String value, int maxAge) {
+        if (response == null) {
+            return;
+        }
+        long metricsStart = CookieMetrics.startSetCookie();
+        long start = ServerTiming.start();
+        if (headerMode) {
+            response.addHeader("Set-Cookie", toHeaderValue(request, value, maxAge, System.currentTimeMillis()));
+        } else {
+            Cookie cookie = new Cookie(name, value);
+            cookie.setMaxAge(maxAge);
+            cookie.setPath(path);
+            if (domain != null) {
+                cookie.setDomain(domain);
+            }
+            response.addCookie(cookie);
+        }
+        ServerTiming.stop(ServerTiming.Stage.SET_COOKIE, start);
+        CookieMetrics.stopSetCookie(metricsStart);
+    }
+
+    /**
+     * 删除 Cookie：以相同的路径、域名和属性写一个空值、存活时间为 0 的 Cookie
+     *
+     * @param request  请求，用于 SameSite 判断，可以为 null
+     * @param response 响应
+     */
+    public void remove(HttpServletRequest request, HttpServletResponse response) {
+        add(request, response, StringUtils.EMPTY, 0);
+    }
+
+    /**
+     * 生成 Set-Cookie 响应头的值
+     *
+     * @param request   请求，用于 SameSite 判断，可以为 null
+     * @param value     cookie 值
+     * @param maxAge    最大存活时间秒数
+     * @param nowMillis 计算 Expires 使用的当前时间
+     * @return 响应头的值
+     */
+    String toHeaderValue(HttpServletRequest request, String value, int maxAge, long nowMillis) {
+        // 名字是 token、固定片段以 "; " 开头，只有值本身可能让 SameSite 判断结果不同，不必扫描整个响应头
+        String suffix = "";
+        if (!constantSameSite && !valueContainsSameSite(value)) {
+            SameSitePolicyEngine engine = SameSitePolicyEngine.getInstance();
+            suffix = engine.suffixFor(request, policy(engine));
+        }
+        SetCookieEncoder encoder = SetCookieEncoder.acquire();
+        try {
+            return encoder.encode(prefix, value, domainSegment, maxAge, nowMillis, tail)
+                .appendSameSiteUnchecked(suffix)
+                .toString();
+        } finally {
+            SetCookieEncoder.release(encoder);
+        }
+    }
+
+    /**
+     * 值中第一个分号之后是否出现 samesite（忽略大小写），与 {@link CookieUtil#containsSameSite(String)} 的判断一致
+     */
+    private static boolean valueContainsSameSite(String value) {
+        if (value == null) {
+            return false;
+        }
+        int from = value.indexOf(';');
+        if (from < 0) {
+            return false;
+        }
+        for (int i = from; i <= value.length() - 8; i++) {
+            if (value.regionMatches(true, i, "samesite", 0, 8)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private SameSitePolicy policy(SameSitePolicyEngine engine) {
+        ResolvedPolicy current = resolved;
+        if (current == null || current.engine != engine) {
+            current = new ResolvedPolicy(engine, engine.resolve(sameSiteValue, checkSameSiteRegex, checkUnSameSiteRegex));
+            resolved = current;
+        }
+        return current.policy;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    public boolean isHttpOnly() {
+        return httpOnly;
+    }
+
+    public boolean isSecure() {
+        return secure;
+    }
+
+    public String getPriority() {
+        return priority;
+    }
+
+    @Override
+    public String toString() {
+        return "CookieTemplate{" + prefix + "..." + domainSegment + tail + "}";
+    }
+
+    private record ResolvedPolicy(SameSitePolicyEngine engine, SameSitePolicy policy) {
+    }
+
+    /**
+     * 模板构建器，默认值与 {@link CookieUtil#addCookie(String, String, HttpServletResponse)} 一致：
+     * 会话 Cookie、路径 /、Secure、非 HttpOnly
+     */
+    public static final class Builder {
+
+        private final String name;
+
+        private String path;
+
+        private String domain;
+
+        private int maxAge = -1;
+
+        private boolean httpOnly;
+
+        private boolean secure = true;
+
+        private String priority;
+
+        private String sameSiteValue;
+
+        private String checkSameSiteRegex;
+
+        private String checkUnSameSiteRegex;
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        public Builder path(String path) {
+            this.path = path;
+            return this;
+        }
+
+        public Builder domain(String domain) {
+            this.domain = domain;
+            return this;
+        }
+
+        public Builder maxAge(int maxAge) {
+            this.maxAge = maxAge;
+            return this;
+        }
+
+        public Builder httpOnly(boolean httpOnly) {
+            this.httpOnly = httpOnly;
+            return this;
+        }
+
+        public Builder secure(boolean secure) {
+            this.secure = secure;
+            return this;
+        }
+
+        public Builder priority(String priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        /**
+         * SameSite 策略，参数为空时使用 cookie.same-site.* 配置
+         *
+         * @param value                SameSite 值
+         * @param checkSameSiteRegex   检测是否同站的正则表达式
+         * @param checkUnSameSiteRegex 检测是否不同站的正则表达式
+         * @return this
+         */
+        public Builder sameSite(String value, String checkSameSiteRegex, String checkUnSameSiteRegex) {
+            this.sameSiteValue = value;
+            this.checkSameSiteRegex = checkSameSiteRegex;
+            this.checkUnSameSiteRegex = checkUnSameSiteRegex;
+            return this;
+        }
+
+        /**
+         * @return 模板
+         * @throws IllegalArgumentException cookie 名为空或不是 token
+         */
+        public CookieTemplate build() {
+            return new CookieTemplate(this);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 启动时注册的 Cookie 模板，按 cookie 名获取
+ */
+public class CookieTemplateRegistry {
+
+    private final Map<String, CookieTemplate> templates;
+
+    public CookieTemplateRegistry(Collection<CookieTemplate> templates) {
+        Map<String, CookieTemplate> map = new LinkedHashMap<>();
+        for (CookieTemplate template : templates) {
+            if (map.putIfAbsent(template.getName(), template) != null) {
+                throw new IllegalStateException("Duplicate cookie template: " + template.getName());
+            }
+        }
+        this.templates = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * 获取模板
+     *
+     * @param name cookie 名
+     * @return 模板
+     * @throws IllegalArgumentException 没有注册该模板
+     */
+    public CookieTemplate get(String name) {
+        CookieTemplate template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("No cookie template registered for " + name);
+        }
+        return template;
+    }
+
+    /**
+     * 是否注册了模板
+     *
+     * @param name cookie 名
+     * @return true or false
+     */
+    public boolean contains(String name) {
+        return templates.containsKey(name);
+    }
+
+    /**
+     * @return 所有模板，按注册顺序
+     */
+    public Collection<CookieTemplate> getTemplates() {
+        return templates.values();
+    }
+}
@@ -1,12 +1,7 @@
 package wenle.github.com.helloworldweb;
 
-import java.text.FieldPosition;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.Locale;
-import java.util.TimeZone;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
@@ -41,19 +36,6 @@ private static Logger logger = LogManager.getLogger();
      */
     public final static String OLD_COOKIE_PATTERN = "EEE, dd-MMM-yyyy HH:mm:ss z";
 
-    //
-    // from RFC 2068, token special case characters
-    //
-    private static final String COOKIE_SPECIAL_CHARS = "()<>@,;:\\\"/[]?={} \t";
-
-    private static boolean characterCheckFlag[] = new boolean[127];
-
-    static {
-        for (int i = 0; i < COOKIE_SPECIAL_CHARS.length(); i++) {
-            characterCheckFlag[COOKIE_SPECIAL_CHARS.charAt(i)] = true;
-        }
-    }
-
     /**
      * 获取 Cookie值
      *
@@ -62,16 +44,50 @@ private static Logger logger = LogManager.getLogger();
      * @return cookie 值
      */
     public static String getCookieValue(String key, HttpServletRequest request) {
-        Cookie cookie = getCookie(key, request);
-        if (cookie == null) {
+        if (request == null || StringUtils.isBlank(key)) {
             return null;
         }
-        return cookie.getValue();
+        long start = ServerTiming.start();
+        String value = CookieIndex.of(request).getValue(key);
+        if (RevocationRegistry.isRevokedValue(value)) {
+            value = null;
+        }
+        ServerTiming.stop(ServerTiming.Stage.COOKIE_LOOKUP, start);
+        return value;
+    }
+
+
+    /**
+     * 获取签名 Cookie 的负载
+     *
+     * @param key     cookie 名称
+     * @param request 请求对象
+     * @param codec   签名 Cookie 编解码
+     * @param <T>     负载类型
+     * @return 负载；Cookie 不存在、签名无效或已过期时返回 null
+     */
+    public static <T> T getCookieValue(String key, HttpServletRequest request, SignedCookieCodec<T> codec) {
+        SignedCookieCodec.SignedCookie<T> cookie = codec.decode(key, getCookieValue(key, request));
+        return cookie != null ? cookie.value() : null;
     }
 
+    /**
+     * 获取压缩 Cookie 的原值，分片时读取 key.1、key.2…… 并拼接
+     *
+     * @param key     cookie 名称
+     * @param request 请求对象
+     * @param codec   压缩 Cookie 编解码
+     * @return 原值；Cookie 不存在、分片缺失或数据损坏时返回 null
+     */
+    public static String getCookieValue(String key, HttpServletRequest request, CompressedCookieCodec codec) {
+        return codec.decode(key, getCookieValue(key, request),
+            index -> getCookieValue(CompressedCookieCodec.chunkName(key, index), request));
+    }
 
     /**
      * 获取 Cookie
+     * <p>
+     * 通过 {@link CookieIndex} 按名称查找，整个请求只解析一次 Cookie 请求头；同名 Cookie 取第一个。
      *
      * @param key     cookie 名称
      * @param request 请求对象
@@ -81,20 +97,13 @@ private static Logger logger = LogManager.getLogger();
         if (request == null || StringUtils.isBlank(key)) {
             return null;
         }
-        Cookie[] cookies = request.getCookies();
-        if (cookies == null) {
-            return null;
-        }
-
-        Cookie value = null;
-
-        for (Cookie c : cookies) {
-            if (key.equals(c.getName())) {
-                value = c;
-                break;
-            }
+        long start = ServerTiming.start();
+        Cookie cookie = CookieIndex.of(request).getCookie(key);
+        if (cookie != null && RevocationRegistry.isRevokedValue(cookie.getValue())) {
+            cookie = null;
         }
-        return value;
+        ServerTiming.stop(ServerTiming.Stage.COOKIE_LOOKUP, start);
+        return cookie;
     }
 
     /**
@@ -329,6 +338,100 @@ private static Logger logger = LogManager.getLogger();
         );
     }
 
+    /**
+     * 增加签名 Cookie，Max-Age 为编解码器的有效期，SameSite 使用 cookie.same-site.* 配置
+     *
+     * @param key      cookie 名
+     * @param value    负载
+     * @param codec    签名 Cookie 编解码
+     * @param request  请求
+     * @param response 响应
+     * @param <T>      负载类型
+     */
+    public static <T> void addCookie(String key, T value, SignedCookieCodec<T> codec, HttpServletRequest request, HttpServletResponse response) {
+        addCookie(key, codec.encode(key, value), codec.getMaxAgeSeconds(), ROOT_PATH, null, true, true, request, response, null, null, null);
+    }
+
+    /**
+     * 获取会话 Cookie 对应的服务端会话数据
+     *
+     * @param key     cookie 名
+     * @param request 请求
+     * @param store   会话存储
+     * @return 会话数据；Cookie 不存在或会话已过期时返回 null
+     */
+    public static byte[] getSession(String key, HttpServletRequest request, OffHeapSessionStore store) {
+        String id = getCookieValue(key, request);
+        return id != null ? store.get(id) : null;
+    }
+
+    /**
+     * 保存会话数据并写入会话 Cookie：请求中的会话仍然有效时沿用它的 id，否则生成新的随机 id，不接受客户端指定的 id；
+     * Cookie 的 Max-Age 与存储中的过期时间相同，每次保存都会延长
+     *
+     * @param key      cookie 名
+     * @param data     会话数据
+     * @param store    会话存储
+     * @param request  请求
+     * @param response 响应
+     * @return 会话 id
+     * @throws IllegalStateException 会话存储已满
+     */
+    public static String addSession(String key, byte[] data, OffHeapSessionStore store, HttpServletRequest request, HttpServletResponse response) {
+        String id = getCookieValue(key, request);
+        if (!store.contains(id)) {
+            id = OffHeapSessionStore.newId();
+        }
+        if (!store.put(id, data)) {
+            throw new IllegalStateException("Session store is full");
+        }
+        addCookie(key, id, store.getMaxAgeSeconds(), ROOT_PATH, null, true, true, request, response, null, null, null);
+        return id;
+    }
+
+    /**
+     * 删除服务端会话并移除会话 Cookie
+     *
+     * @param key      cookie 名
+     * @param store    会话存储
+     * @param request  请求
+     * @param response 响应
+     */
+    public static void removeSession(String key, OffHeapSessionStore store, HttpServletRequest request, HttpServletResponse response) {
+        store.remove(getCookieValue(key, request));
+        removeCookie(request, response, key, ROOT_PATH, null);
+    }
+
+    /**
+     * 增加压缩 Cookie，超过单个 Cookie 长度时拆分为 key.1、key.2…… 多个 Cookie，并移除请求中多余的旧分片
+     *
+     * @param key      cookie 名
+     * @param value    cookie 值
+     * @param maxAge   最大存活时间秒数
+     * @param codec    压缩 Cookie 编解码
+     * @param request  请求
+     * @param response 响应
+     */
+    public static void addCookie(String key, String value, int maxAge, CompressedCookieCodec codec, HttpServletRequest request, HttpServletResponse response) {
+        String[] parts = codec.encode(key, value);
+        for (int i = 0; i < parts.length; i++) {
+            String name = i == 0 ? key : CompressedCookieCodec.chunkName(key, i);
+            addCookie(name, parts[i], maxAge, ROOT_PATH, null, true, true, request, response, null, null, null);
+        }
+        removeChunks(request, response, key, parts.length);
+    }
+
+    /**
+     * 创建一次响应内批量写 Cookie 的批次，多个 Cookie 共用 Expires 时间戳、SameSite 判断和缓冲区
+     *
+     * @param request  请求
+     * @param response 响应
+     * @return 批次，添加完 Cookie 后调用 {@link CookieBatch#write()}
+     */
+    public static CookieBatch batch(HttpServletRequest request, HttpServletResponse response) {
+        return new CookieBatch(request, response);
+    }
+
     /**
      * 移除 Cookie
      *
@@ -364,6 +467,32 @@ private static Logger logger = LogManager.getLogger();
         setCookie(key, StringUtils.EMPTY, 0, path, domainName, true, false, response);
     }
 
+    /**
+     * 移除压缩 Cookie 和请求中带上的所有分片
+     *
+     * @param key      cookie 名
+     * @param codec    压缩 Cookie 编解码
+     * @param request  请求
+     * @param response 响应
+     */
+    public static void removeCookie(String key, CompressedCookieCodec codec, HttpServletRequest request, HttpServletResponse response) {
+        removeCookie(request, response, key, ROOT_PATH, null);
+        removeChunks(request, response, key, 1);
+    }
+
+    /**
+     * 移除请求中编号不小于 from 的分片，分片数变少或不再分片时清理旧分片
+     */
+    private static void removeChunks(HttpServletRequest request, HttpServletResponse response, String key, int from) {
+        CookieIndex index = CookieIndex.of(request);
+        for (int i = from; i < CompressedCookieCodec.MAX_CHUNKS; i++) {
+            String name = CompressedCookieCodec.chunkName(key, i);
+            if (index.getValue(name) != null) {
+                removeCookie(request, response, name, ROOT_PATH, null);
+            }
+        }
+    }
+
     /**
      * 移除Cookie
      *
@@ -522,27 +651,30 @@ private static Logger logger = LogManager.getLogger();
         String checkUnSameSiteRegex
     ) {
         if (response != null) {
-            Cookie cookie = new Cookie(key, value);
-            cookie.setMaxAge((int) maxAgeSeconds);
-            if (StringUtils.isNotBlank(path)) {
-                cookie.setPath(path);
-            } else {
-                cookie.setPath(ROOT_PATH);
-            }
-            if (StringUtils.isNotBlank(domainName)) {
-                cookie.setDomain(domainName);
-            }
-
-            cookie.setVersion(0);
-            cookie.setSecure(secure);
-            if (httpOnly || StringUtils.isNotBlank(priority) || secure) {
-                final StringBuffer buf = new StringBuffer();
-                getCookieHeaderValue(cookie, buf, httpOnly, priority);
-                String cookieValue = buf.toString();
-                cookieValue = appendSameSite(request, cookieValue, cookieSameSiteValue, checkSameSiteRegex, checkUnSameSiteRegex);
-                response.addHeader(getCookieHeaderName(cookie), cookieValue);
-            } else {
-                response.addCookie(cookie);
+            long start = CookieMetrics.startSetCookie();
+            long timingStart = ServerTiming.start();
+            try {
+                checkName(key);
+                String cookiePath = StringUtils.isNotBlank(path) ? path : ROOT_PATH;
+                String cookieDomain = StringUtils.isNotBlank(domainName) ? domainName : null;
+                if (httpOnly || StringUtils.isNotBlank(priority) || secure) {
+                    // 直接编码为响应头，不创建 Cookie 对象
+                    SameSitePolicyEngine engine = SameSitePolicyEngine.getInstance();
+                    String suffix = engine.suffixFor(request, engine.resolve(cookieSameSiteValue, checkSameSiteRegex, checkUnSameSiteRegex));
+                    response.addHeader("Set-Cookie",
+                        encodeSetCookie(key, value, maxAgeSeconds, cookiePath, cookieDomain, httpOnly, secure, priority, suffix));
+                } else {
+                    Cookie cookie = new Cookie(key, value);
+                    cookie.setMaxAge((int) maxAgeSeconds);
+                    cookie.setPath(cookiePath);
+                    if (cookieDomain != null) {
+                        cookie.setDomain(cookieDomain);
+                    }
+                    response.addCookie(cookie);
+                }
+            } finally {
+                ServerTiming.stop(ServerTiming.Stage.SET_COOKIE, timingStart);
+                CookieMetrics.stopSetCookie(start);
             }
         }
     }
@@ -550,9 +682,42 @@ private static Logger logger = LogManager.getLogger();
 
 
     /**
-     * 判断是否需要添加 SameSite=None
+     * 编码 Set-Cookie 响应头的值，Servlet 和 WebFlux 版本共用，保证两边输出逐字节一致
      *
-     * @param cookieHeader 示例：USER_COOKIE=DE719787; Path=/; Secure; HttpOnly
+     * @param key           cookie 名
+     * @param value         cookie 值
+     * @param maxAgeSeconds 最大存活时间秒数
+     * @param cookiePath    路径
+     * @param cookieDomain  域名，可以为 null
+     * @param httpOnly      是否仅http，禁止脚本访问Cookie
+     * @param secure        是否是SSL/HTTPS
+     * @param priority      优先级
+     * @param suffix        SameSite 片段，例如 "; SameSite=None"
+     * @return Set-Cookie 响应头的值
+     */
+    static String encodeSetCookie(String key, String value, long maxAgeSeconds, String cookiePath, String cookieDomain,
+        boolean httpOnly, boolean secure, String priority, String suffix) {
+        SetCookieEncoder encoder = SetCookieEncoder.acquire();
+        try {
+            return encoder
+                .encode(0, key, value, null, cookieDomain, (int) maxAgeSeconds, System.currentTimeMillis(), cookiePath,
+                    secure, httpOnly, priority)
+                .appendSameSite(suffix)
+                .toString();
+        } finally {
+            SetCookieEncoder.release(encoder);
+        }
+    }
+
+    /**
+     * 按 SameSite 策略判断是否需要追加 SameSite 属性
+     *
+     * @param request              请求，用于读取 User-Agent，可以为 null
+     * @param cookieHeader         示例：USER_COOKIE=DE719787; Path=/; Secure; HttpOnly
+     * @param cookieSameSiteValue  Cookie的SameSite值，为空时使用 cookie.same-site.value 配置
+     * @param checkSameSiteRegex   检测是否同站的正则表达式，为空时使用 cookie.same-site.check-same-site-regex 配置
+     * @param checkUnSameSiteRegex 检测是否不同站的正则表达式，为空时使用 cookie.same-site.check-un-same-site-regex 配置
+     * @return 追加 SameSite 后的 cookie header
      */
     public static String appendSameSite(HttpServletRequest request, String cookieHeader, String cookieSameSiteValue, String checkSameSiteRegex, String checkUnSameSiteRegex) {
         // 如果已经存在SameSite属性，不添加
@@ -560,17 +725,10 @@ private static Logger logger = LogManager.getLogger();
             logger.debug("exist sameSite {}", cookieHeader);
             return cookieHeader;
         }
-            cookieHeader = String.format("%s; %s=%s", cookieHeader, "SameSite", "None");
-
-        return cookieHeader;
+        SameSitePolicyEngine engine = SameSitePolicyEngine.getInstance();
+        String suffix = engine.suffixFor(request, engine.resolve(cookieSameSiteValue, checkSameSiteRegex, checkUnSameSiteRegex));
+        return suffix.isEmpty() ? cookieHeader : cookieHeader.concat(suffix);
     }
-    private static Pattern isIosVersionPattern = Pattern.compile("\\(iP.+; CPU .*OS (\\d+)[_\\d]*.*\\) AppleWebKit/");
-    private static Pattern isMacosxVersionPattern = Pattern.compile("\\(Macintosh;.*Mac OS X (\\d+)_(\\d+)[_\\d]*.*\\) AppleWebKit/");
-    private static Pattern isSafariPattern = Pattern.compile("Version/.* Safari/");
-    private static Pattern isMacEmbeddedBrowserPattern = Pattern.compile("^Mozilla/[.\\d]+ \\(Macintosh;.*Mac OS X [_\\d]+\\) AppleWebKit/[.\\d]+ \\(KHTML, like Gecko\\)$");
-    private static Pattern isChromiumBasedPattern = Pattern.compile("Chrom(e|ium)");
-    private static Pattern isChromiumVersionAtLeastPattern = Pattern.compile("Chrom[^ /]+/(\\d+)[.\\d]* ");
-    private static Pattern isUcBrowserVersionAtLeastPattern = Pattern.compile("UBrowser/(\\d+)\\.(\\d+)\\.(\\d+)[.\\d]* ");
 
     public static boolean shouldSendSameSiteNone(String useragent) {
         if (StringUtils.isBlank(useragent)) {
@@ -584,7 +742,7 @@ private static Logger logger = LogManager.getLogger();
         if (StringUtils.isBlank(useragent)) {
             return false;
         } else {
-            return hasWebKitSameSiteBug(useragent) || dropsUnrecognizedSameSiteCookies(useragent);
+            return getUserAgentProfile(useragent).isSameSiteNoneIncompatible();
         }
     }
 
@@ -592,24 +750,19 @@ private static Logger logger = LogManager.getLogger();
         if (StringUtils.isBlank(useragent)) {
             return false;
         } else {
-            return isIosVersion(12, useragent) || isMacosxVersion(10, 14, useragent) && (isSafari(useragent) || isMacEmbeddedBrowser(useragent));
+            return getUserAgentProfile(useragent).hasWebKitSameSiteBug();
         }
     }
 
     public static boolean dropsUnrecognizedSameSiteCookies(String useragent) {
-        if (isUcBrowser(useragent)) {
-            return !isUcBrowserVersionAtLeast(12, 13, 2, useragent);
-        } else {
-            return isChromiumBased(useragent) && isChromiumVersionAtLeast(51, useragent) && !isChromiumVersionAtLeast(67, useragent);
-        }
+        return getUserAgentProfile(useragent).dropsUnrecognizedSameSiteCookies();
     }
 
     public static boolean isIosVersion(int major, String useragent) {
         if (StringUtils.isBlank(useragent)) {
             return false;
         } else {
-            Matcher m = isIosVersionPattern.matcher(useragent);
-            return !m.find() ? false : String.valueOf(major).equals(m.group(1));
+            return getUserAgentProfile(useragent).isIosVersion(major);
         }
     }
 
@@ -617,12 +770,7 @@ private static Logger logger = LogManager.getLogger();
         if (StringUtils.isBlank(useragent)) {
             return false;
         } else {
-            Matcher m = isMacosxVersionPattern.matcher(useragent);
-            if (!m.find()) {
-                return false;
-            } else {
-                return String.valueOf(major).equals(m.group(1)) && String.valueOf(minor).equals(m.group(2));
-            }
+            return getUserAgentProfile(useragent).isMacosxVersion(major, minor);
         }
     }
 
@@ -630,8 +778,7 @@ private static Logger logger = LogManager.getLogger();
         if (StringUtils.isBlank(useragent)) {
             return false;
         } else {
-            Matcher m = isSafariPattern.matcher(useragent);
-            return m.find();
+            return getUserAgentProfile(useragent).isSafari();
         }
     }
 
@@ -639,8 +786,7 @@ private static Logger logger = LogManager.getLogger();
         if (StringUtils.isBlank(useragent)) {
             return false;
         } else {
-            Matcher m = isMacEmbeddedBrowserPattern.matcher(useragent);
-            return m.find();
+            return getUserAgentProfile(useragent).isMacEmbeddedBrowser();
         }
     }
 
@@ -648,8 +794,7 @@ private static Logger logger = LogManager.getLogger();
         if (StringUtils.isBlank(useragent)) {
             return false;
         } else {
-            Matcher m = isChromiumBasedPattern.matcher(useragent);
-            return m.find();
+            return getUserAgentProfile(useragent).isChromiumBased();
         }
     }
 
@@ -657,8 +802,7 @@ private static Logger logger = LogManager.getLogger();
         if (StringUtils.isBlank(useragent)) {
             return false;
         } else {
-            String regex = "UBrowser/";
-            return useragent.contains(regex);
+            return getUserAgentProfile(useragent).isUcBrowser();
         }
     }
 
@@ -666,28 +810,13 @@ private static Logger logger = LogManager.getLogger();
         if (StringUtils.isBlank(useragent)) {
             return false;
         } else {
-            Matcher m = isUcBrowserVersionAtLeastPattern.matcher(useragent);
-            if (!m.find()) {
-                return false;
-            } else {
-                int major_version = Integer.valueOf(m.group(1));
-                int minor_version = Integer.valueOf(m.group(2));
-                int build_version = Integer.valueOf(m.group(3));
-                if (major_version != major) {
-                    return major_version > major;
-                } else if (minor_version != minor) {
-                    return minor_version > minor;
-                } else {
-                    return build_version >= build;
-                }
-            }
+            return getUserAgentProfile(useragent).isUcBrowserVersionAtLeast(major, minor, build);
         }
     }
 
     public static boolean isSameSiteByRegex(String userAgent, String regex) {
         if (!StringUtils.isBlank(userAgent) && !StringUtils.isBlank(regex)) {
-            Pattern r = Pattern.compile(regex);
-            Matcher m = r.matcher(userAgent);
+            Matcher m = SameSitePolicyEngine.pattern(regex).matcher(userAgent);
             return m.find();
         } else {
             return false;
@@ -702,16 +831,20 @@ private static Logger logger = LogManager.getLogger();
         if (StringUtils.isBlank(useragent)) {
             return false;
         } else {
-            Matcher m = isChromiumVersionAtLeastPattern.matcher(useragent);
-            if (!m.find()) {
-                return false;
-            } else {
-                int version = Integer.valueOf(m.group(1));
-                return version >= major;
-            }
+            return getUserAgentProfile(useragent).isChromiumVersionAtLeast(major);
         }
     }
 
+    /**
+     * 获取 User-Agent 的解析结果，结果按 User-Agent 缓存
+     *
+     * @param useragent User-Agent
+     * @return 解析结果
+     */
+    public static UserAgentProfile getUserAgentProfile(String useragent) {
+        return UserAgentDecisionCache.getInstance().get(useragent);
+    }
+
     /**
      * 是否包含Secure
      *
@@ -748,21 +881,6 @@ private static Logger logger = LogManager.getLogger();
         return cookieHeader.contains(attribute);
     }
 
-    /**
-     * 获取 Cookie Http 响应头的名字
-     *
-     * @param cookie
-     * @return
-     */
-    private static String getCookieHeaderName(final Cookie cookie) {
-        final int version = cookie.getVersion();
-        if (version == 1) {
-            return "Set-Cookie2";
-        } else {
-            return "Set-Cookie";
-        }
-    }
-
     /**
      * 获取CookieHeader字符串
      *
@@ -770,99 +888,14 @@ private static Logger logger = LogManager.getLogger();
      * @return CookieHeader字符串
      */
     public static String getCookieHeaderValue(final Cookie cookie) {
-        StringBuffer buffer = new StringBuffer();
-        getCookieHeaderValue(cookie, buffer, cookie.isHttpOnly(), null);
-        return buffer.toString();
-    }
-
-    /**
-     * 将 Cookie 对象写到 StringBuffer 中。
-     *
-     * @param cookie   Cookie对象
-     * @param buf      容器
-     * @param httpOnly 是否仅页面可以使用，禁止脚本使用
-     * @param priority 优先级
-     */
-    private static void getCookieHeaderValue(final Cookie cookie, final StringBuffer buf,
-        final boolean httpOnly, final String priority) {
-        final int version = cookie.getVersion();
-
-        // this part is the same for all cookies
-
-        String name = cookie.getName(); // Avoid NPE on malformed cookies
-        if (name == null) {
-            name = "";
-        }
-        String value = cookie.getValue();
-        if (value == null) {
-            value = "";
-        }
-
-        buf.append(name);
-        buf.append("=");
-
-        maybeQuote(version, buf, value);
-
-        // add version 1 specific information
-        if (version == 1) {
-            // Version=1 ... required
-            buf.append("; Version=1");
-
-            // Comment=comment
-            if (cookie.getComment() != null) {
-                buf.append("; Comment=");
-                maybeQuote(version, buf, cookie.getComment());
-            }
-        }
-
-        // add domain information, if present
-
-        if (cookie.getDomain() != null) {
-            buf.append("; Domain=");
-            maybeQuote(version, buf, cookie.getDomain());
-        }
-
-        // Max-Age=secs/Discard ... or use old "Expires" format
-        if (cookie.getMaxAge() >= 0) {
-            if (version == 0) {
-                buf.append("; Expires=");
-                SimpleDateFormat dateFormat = new SimpleDateFormat(OLD_COOKIE_PATTERN, LOCALE_US);
-                dateFormat.setTimeZone(TimeZone.getTimeZone("GMT")); //必须使用GMT模式
-                if (cookie.getMaxAge() == 0) {
-                    dateFormat.format(new Date(10_000),
-                        buf, new FieldPosition(0));
-                } else {
-                    dateFormat.format(new Date(System
-                        .currentTimeMillis()
-                        + cookie.getMaxAge() * 1000L), buf, new FieldPosition(0));
-                }
-            } else {
-                buf.append("; Max-Age=");
-                buf.append(cookie.getMaxAge());
-            }
-        } else if (version == 1) {
-            buf.append("; Discard");
-        }
-
-        // Path=path
-        if (cookie.getPath() != null) {
-            buf.append("; Path=");
-            maybeQuote(version, buf, cookie.getPath());
-        }
-
-        // Secure
-        if (cookie.getSecure()) {
-            buf.append("; Secure");
-        }
-
-        // HttpOnly
-        if (httpOnly) {
-            buf.append("; HttpOnly");
-        }
-
-        // Priority
-        if (StringUtils.isNotBlank(priority)) {
-            buf.append("; Priority=" + priority);
+        SetCookieEncoder encoder = SetCookieEncoder.acquire();
+        try {
+            return encoder
+                .encode(cookie.getVersion(), cookie.getName(), cookie.getValue(), cookie.getComment(), cookie.getDomain(),
+                    cookie.getMaxAge(), System.currentTimeMillis(), cookie.getPath(), cookie.getSecure(), cookie.isHttpOnly(), null)
+                .toString();
+        } finally {
+            SetCookieEncoder.release(encoder);
         }
     }
 
@@ -877,36 +910,22 @@ private static Logger logger = LogManager.getLogger();
             return value;
         }
 
-        boolean quote = false;
-        for (char ch : value.toCharArray()) {
-            if (ch < 127 && characterCheckFlag[ch]) {
-                quote = true;
-                break;
-            }
-        }
-
-        if (quote) {
+        if (CookieTokenScanner.containsSeparator(value)) {
             return '"' + value + '"';
         }
-
         return value;
 
     }
 
     /**
-     * 值是否需要引号引起来
+     * 校验 Cookie 名，规则与 {@link Cookie} 构造函数一致
      *
-     * @param version 版本
-     * @param buf     字符容器对象
-     * @param value   值
+     * @param name cookie 名
+     * @throws IllegalArgumentException 名字为空或不是 token
      */
-    private static void maybeQuote(final int version, final StringBuffer buf, final String value) {
-        if (version == 0 || isToken(value)) {
-            buf.append(value);
-        } else {
-            buf.append('"');
-            buf.append(value);
-            buf.append('"');
+    static void checkName(final String name) {
+        if (StringUtils.isEmpty(name) || !isToken(name)) {
+            throw new IllegalArgumentException("Cookie name \"" + name + "\" is not a valid token");
         }
     }
 
@@ -914,21 +933,8 @@ private static Logger logger = LogManager.getLogger();
      * 字符串是否是一个ASCII token
      * Return true if the string counts as an HTTP/1.1 "token".
      */
-    private static boolean isToken(final String value) {
-        final int len = value.length();
-        char c;
-        final char[] charArray = value.toCharArray();
-        for (int i = 0; i < len; i++) {
-            c = charArray[i];
-            if (c < 0x20 || c >= 0x7f) {
-                return false;
-            } else {
-                if (characterCheckFlag[c]) {
-                    return false;
-                }
-            }
-        }
-        return true;
+    static boolean isToken(final String value) {
+        return CookieTokenScanner.isToken(value);
     }
 
 
@@ -0,0 +1,67 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * 可复用的 Deflater 池。
+ * <p>
+ * 每个 Deflater 持有几百 KB 的本地内存，按响应新建和 end() 代价较高；这里归还时 reset() 后放回池中，
+ * 池满时直接 end() 释放。借出的 Deflater 只属于当前响应。
+ */
+final class DeflaterPool {
+
+    private final boolean nowrap;
+
+    private final ArrayBlockingQueue<Deflater> idle;
+
+    /**
+     * @param nowrap   true 时输出不带 zlib 头的原始 deflate 数据，用于 gzip
+     * @param capacity 空闲 Deflater 的最大数量
+     */
+    DeflaterPool(boolean nowrap, int capacity) {
+        this.nowrap = nowrap;
+        this.idle = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * 借用一个 Deflater
+     *
+     * @param level 压缩级别
+     * @return Deflater
+     */
+    Deflater acquire(int level) {
+        Deflater deflater = idle.poll();
+        if (deflater == null) {
+            return new Deflater(level, nowrap);
+        }
+        deflater.setLevel(level);
+        return deflater;
+    }
+
+    /**
+     * 归还 {@link #acquire(int)} 借出的 Deflater
+     *
+     * @param deflater Deflater
+     */
+    void release(Deflater deflater) {
+        deflater.reset();
+        if (!idle.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 释放所有空闲的 Deflater，应用关闭时调用
+     */
+    void clear() {
+        Deflater deflater;
+        while ((deflater = idle.poll()) != null) {
+            deflater.end();
+        }
+    }
+
+    int idleCount() {
+        return idle.size();
+    }
+}
@@ -0,0 +1,113 @@
+package wenle.github.com.helloworldweb;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Cookie Expires 属性的日期格式化器，输出与
+ * {@code new SimpleDateFormat(CookieUtil.OLD_COOKIE_PATTERN, Locale.US)} 在 GMT 时区下完全一致。
+ * <p>
+ * 按 (当前秒, maxAge) 缓存格式化结果，同一秒内相同 maxAge 的 Cookie 直接复用缓存的字符串，命中时不产生任何对象。
+ * 缓存槽位中的 {@link Entry} 为不可变对象，多线程竞争写入时最多导致一次多余的格式化，因此无需加锁。
+ */
+final class ExpiresFormatter {
+
+    /**
+     * maxAge 为 0 时使用的固定过期时间（1970-01-01 00:00:10 GMT），与原实现保持一致
+     */
+    static final String EXPIRED = "Thu, 01-Jan-1970 00:00:10 GMT";
+
+    private static final String[] DAYS = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"};
+
+    private static final String[] MONTHS = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+
+    /**
+     * 缓存槽位数，必须是 2 的幂
+     */
+    private static final int SLOTS = 16;
+
+    private static final Entry[] entries = new Entry[SLOTS];
+
+    private ExpiresFormatter() {
+    }
+
+    /**
+     * 格式化以当前时间为基准、maxAge 秒后过期的 Expires 值
+     *
+     * @param maxAge 最大存活时间秒数，必须大于等于 0
+     * @return Expires 值，例如 Thu, 01-Jan-1970 00:00:10 GMT
+     */
+    static String format(int maxAge) {
+        return format(System.currentTimeMillis(), maxAge);
+    }
+
+    /**
+     * 格式化以 nowMillis 为基准、maxAge 秒后过期的 Expires 值
+     *
+     * @param nowMillis 当前时间毫秒数
+     * @param maxAge    最大存活时间秒数，必须大于等于 0
+     * @return Expires 值
+     */
+    static String format(long nowMillis, int maxAge) {
+        if (maxAge == 0) {
+            return EXPIRED;
+        }
+        long nowSecond = Math.floorDiv(nowMillis, 1000L);
+        int slot = (maxAge ^ (maxAge >>> 16)) & (SLOTS - 1);
+        Entry entry = entries[slot];
+        if (entry != null && entry.second == nowSecond && entry.maxAge == maxAge) {
+            return entry.value;
+        }
+        String value = formatEpochSecond(nowSecond + maxAge);
+        entries[slot] = new Entry(nowSecond, maxAge, value);
+        return value;
+    }
+
+    /**
+     * 按 EEE, dd-MMM-yyyy HH:mm:ss z 格式输出 GMT 时间
+     *
+     * @param epochSecond 秒级时间戳
+     * @return 格式化后的字符串
+     */
+    static String formatEpochSecond(long epochSecond) {
+        LocalDateTime time = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+        StringBuilder sb = new StringBuilder(29);
+        sb.append(DAYS[time.getDayOfWeek().ordinal()]).append(", ");
+        appendTwoDigits(sb, time.getDayOfMonth());
+        sb.append('-').append(MONTHS[time.getMonthValue() - 1]).append('-');
+        int year = time.getYear();
+        if (year < 1000) {
+            sb.append(year < 10 ? "000" : year < 100 ? "00" : "0");
+        }
+        sb.append(year).append(' ');
+        appendTwoDigits(sb, time.getHour());
+        sb.append(':');
+        appendTwoDigits(sb, time.getMinute());
+        sb.append(':');
+        appendTwoDigits(sb, time.getSecond());
+        sb.append(" GMT");
+        return sb.toString();
+    }
+
+    private static void appendTwoDigits(StringBuilder sb, int value) {
+        sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static final class Entry {
+
+        final long second;
+
+        final int maxAge;
+
+        final String value;
+
+        Entry(long second, int maxAge, String value) {
+            this.second = second;
+            this.maxAge = maxAge;
+            this.value = value;
+        }
+    }
+}
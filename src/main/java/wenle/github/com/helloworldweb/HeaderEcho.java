@@ -0,0 +1,122 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * 把响应头或请求头逐行写成纯文本响应体，供健康检查和排查代理问题使用。
+ * <p>
+ * 每行格式为 {@code name: value}，多值的响应头（例如 Set-Cookie）每个值一行。
+ * 先计算出 Content-Length，再把名字和值的字符直接编码为 ASCII 字节写入输出流，中间不拼接字符串；
+ * 非 ASCII 字符写为 '?'，因此字节数等于字符数。
+ */
+final class HeaderEcho {
+
+    static final byte[] RESPONSE_TITLE = "headers:\n".getBytes(StandardCharsets.US_ASCII);
+
+    static final byte[] REQUEST_TITLE = "request headers:\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final PerThreadCache<byte[]> BUFFERS = new PerThreadCache<>(() -> new byte[1024]);
+
+    private HeaderEcho() {
+    }
+
+    /**
+     * 写出当前已设置的响应头，不包含本方法设置的 Content-Type 和 Content-Length
+     *
+     * @param response 响应
+     * @throws IOException 写响应体失败
+     */
+    static void writeResponseHeaders(HttpServletResponse response) throws IOException {
+        List<String> headers = new ArrayList<>();
+        for (String name : response.getHeaderNames()) {
+            for (String value : response.getHeaders(name)) {
+                headers.add(name);
+                headers.add(value);
+            }
+        }
+        write(response, RESPONSE_TITLE, headers);
+    }
+
+    /**
+     * 写出请求头，同名请求头每个值一行
+     *
+     * @param request  请求
+     * @param response 响应
+     * @throws IOException 写响应体失败
+     */
+    static void writeRequestHeaders(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        List<String> headers = new ArrayList<>();
+        Enumeration<String> names = request.getHeaderNames();
+        while (names.hasMoreElements()) {
+            String name = names.nextElement();
+            Enumeration<String> values = request.getHeaders(name);
+            while (values.hasMoreElements()) {
+                headers.add(name);
+                headers.add(values.nextElement());
+            }
+        }
+        write(response, REQUEST_TITLE, headers);
+    }
+
+    /**
+     * 响应体字节数
+     *
+     * @param title   标题行
+     * @param headers 交替存放的名字和值
+     * @return 字节数
+     */
+    static int contentLength(byte[] title, List<String> headers) {
+        int length = title.length;
+        for (int i = 0; i < headers.size(); i += 2) {
+            // "name: value\n"
+            length += headers.get(i).length() + 2 + headers.get(i + 1).length() + 1;
+        }
+        return length;
+    }
+
+    private static void write(HttpServletResponse response, byte[] title, List<String> headers) throws IOException {
+        response.setContentType("text/plain");
+        response.setCharacterEncoding("UTF-8");
+        response.setContentLength(contentLength(title, headers));
+        OutputStream out = response.getOutputStream();
+        out.write(title);
+        byte[] buffer = BUFFERS.acquire();
+        try {
+            int count = 0;
+            for (int i = 0; i < headers.size(); i += 2) {
+                count = append(out, buffer, count, headers.get(i));
+                count = append(out, buffer, count, ':');
+                count = append(out, buffer, count, ' ');
+                count = append(out, buffer, count, headers.get(i + 1));
+                count = append(out, buffer, count, '\n');
+            }
+            out.write(buffer, 0, count);
+        } finally {
+            BUFFERS.release(buffer);
+        }
+    }
+
+    private static int append(OutputStream out, byte[] buffer, int count, String value) throws IOException {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            count = append(out, buffer, count, value.charAt(i));
+        }
+        return count;
+    }
+
+    private static int append(OutputStream out, byte[] buffer, int count, char c) throws IOException {
+        if (count == buffer.length) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+        buffer[count] = c < 0x80 ? (byte) c : (byte) '?';
+        return count + 1;
+    }
+}
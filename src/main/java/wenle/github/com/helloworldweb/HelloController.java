@@ -1,79 +1,76 @@
 package wenle.github.com.helloworldweb;
 
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Locale;
 
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpServletResponseWrapper;
 import org.apache.catalina.connector.Response;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseCookie;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class HelloController {
 
     public static String printResponseHeaders(HttpServletResponse response) {
         // 获取所有的Header名称
         Collection<String> headerNames = response.getHeaderNames();
 
-        // 打印每个Header的名称和对应的值
+        // 打印每个Header的名称和对应的值，多值的Header每个值一行
         StringBuilder sb = new StringBuilder();
         for (String headerName : headerNames) {
-            String headerValue = response.getHeader(headerName);
-            sb.append(headerName + ": " + headerValue);
-            sb.append("\n");
+            for (String headerValue : response.getHeaders(headerName)) {
+                sb.append(headerName).append(": ").append(headerValue);
+                sb.append("\n");
+            }
         }
         return sb.toString();
     }
 
+    /**
+     * 输出响应头，{@code mode=request} 时输出请求头，用于排查代理改写的请求头
+     */
     @GetMapping("/home")
-    public void home(HttpServletResponse response) {
+    public void home(HttpServletRequest request, HttpServletResponse response,
+        @RequestParam(name = "mode", required = false) String mode) throws IOException {
         CookieUtil.addCookie("key", "value", response);
-        response.setContentType("text/plain");               // 设置内容类型为纯文本
-        response.setCharacterEncoding("UTF-8");             // 设置字符编码
-
-        String responseContent = String.format("headers:\n%s", printResponseHeaders(response));
-        try (PrintWriter writer = response.getWriter()) {
-            writer.write(responseContent);                  // 写入响应内容
-            writer.flush();                                 // 清空缓冲，完成响应内容的发送
-        } catch (IOException e) {
-            // 异常处理逻辑
+        if ("request".equals(mode)) {
+            HeaderEcho.writeRequestHeaders(request, response);
+        } else {
+            HeaderEcho.writeResponseHeaders(response);
         }
     }
 
+    /**
+     * 首页，启动时预先编码和压缩，请求时只写 Set-Cookie 并选择响应版本
+     */
+    static final PrecompressedResponse INDEX = new PrecompressedResponse(
+        "<html><head><script type=\"text/javascript\" src=\"./xxx.js\"></head></script><body><h1>Hello, HTML!</h1></body></html>",
+        MediaType.TEXT_HTML_VALUE, StandardCharsets.UTF_8);
+
+    static final String INDEX_COOKIE = ResponseCookie.from("cookiekey", "cookievalue")
+        .httpOnly(false)           // 设置为HttpOnly
+        .sameSite("Lax")       // 设置SameSite策略
+        .secure(true)          // 设置Secure标志
+        .path("/")
+        .build()
+        .toString();
+
     @GetMapping("/")
-    public ResponseEntity index(HttpServletResponse response) {
-        String htmlContent = "<html><head><script type=\"text/javascript\" src=\"./xxx.js\"></head></script><body><h1>Hello, HTML!</h1></body></html>";
-        ResponseCookie cookie = ResponseCookie.from("cookiekey", "cookievalue")
-            .httpOnly(false)           // 设置为HttpOnly
-            .sameSite("Lax")       // 设置SameSite策略
-            .secure(true)          // 设置Secure标志
-            .path("/")
-            .build();
-        ResponseEntity<String> responseEntity = ResponseEntity.ok()
-            .header(HttpHeaders.SET_COOKIE, cookie.toString())
-            .contentType(MediaType.TEXT_HTML)
-            .body(htmlContent);
-        return responseEntity;
-        //CookieUtil.addCookie("key", "value", response);
-        //response.setContentType("text/plain");               // 设置内容类型为纯文本
-        //response.setCharacterEncoding("UTF-8");             // 设置字符编码
-        //
-        //String responseContent = String.format("headers:\n%s", printResponseHeaders(response));
-        //try (PrintWriter writer = response.getWriter()) {
-        //    writer.write(responseContent);                  // 写入响应内容
-        //    writer.flush();                                 // 清空缓冲，完成响应内容的发送
-        //} catch (IOException e) {
-        //    // 异常处理逻辑
-        //}
+    public void index(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.addHeader(HttpHeaders.SET_COOKIE, INDEX_COOKIE);
+        INDEX.writeTo(request, response);
     }
 
     @GetMapping("/test")
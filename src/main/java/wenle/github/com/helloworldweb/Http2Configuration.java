@@ -0,0 +1,37 @@
+package wenle.github.com.helloworldweb;
+
+import org.apache.coyote.UpgradeProtocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatConnectorCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * HTTP/2 的连接参数，{@code server.http2.enabled=true} 时生效。
+ * <p>
+ * Spring Boot 开启 server.http2.enabled 后为 Tomcat 连接器加上 HTTP/2 升级协议：
+ * 明文端口支持 h2c（Upgrade: h2c 或 prior knowledge），配置 server.ssl.* 后通过 ALPN 协商 h2。
+ * 这里按 {@link Http2Properties} 调整每个连接的并发流数量，扇出客户端在一个连接上复用大量请求时不会排队。
+ * HTTP/2 下浏览器可能把 Cookie 拆成多个请求头，Tomcat 会合并，{@link CookieIndex} 也会按顺序索引多个 Cookie 请求头。
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(Http2Properties.class)
+@ConditionalOnProperty(name = "server.http2.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class Http2Configuration {
+
+    @Bean
+    public TomcatConnectorCustomizer http2ConnectorCustomizer(Http2Properties properties) {
+        return connector -> {
+            for (UpgradeProtocol protocol : connector.findUpgradeProtocols()) {
+                if (protocol instanceof Http2Protocol http2) {
+                    http2.setMaxConcurrentStreams(properties.getMaxConcurrentStreams());
+                    http2.setMaxConcurrentStreamExecution(properties.getMaxConcurrentStreamExecution());
+                }
+            }
+        };
+    }
+}
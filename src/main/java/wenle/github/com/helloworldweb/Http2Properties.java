@@ -0,0 +1,43 @@
+package wenle.github.com.helloworldweb;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * HTTP/2 连接参数，前缀 http2；是否开启 HTTP/2 仍由 server.http2.enabled 决定
+ */
+@ConfigurationProperties(prefix = "http2")
+public class Http2Properties {
+
+    /**
+     * 每个连接允许客户端同时打开的流数量
+     */
+    private int maxConcurrentStreams = 200;
+
+    /**
+     * 每个连接同时执行的流数量，超出的流排队等待
+     */
+    private int maxConcurrentStreamExecution = 200;
+
+    public int getMaxConcurrentStreams() {
+        return maxConcurrentStreams;
+    }
+
+    public void setMaxConcurrentStreams(int maxConcurrentStreams) {
+        this.maxConcurrentStreams = requirePositive("http2.max-concurrent-streams", maxConcurrentStreams);
+    }
+
+    public int getMaxConcurrentStreamExecution() {
+        return maxConcurrentStreamExecution;
+    }
+
+    public void setMaxConcurrentStreamExecution(int maxConcurrentStreamExecution) {
+        this.maxConcurrentStreamExecution = requirePositive("http2.max-concurrent-stream-execution", maxConcurrentStreamExecution);
+    }
+
+    private static int requirePositive(String name, int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException(name + " must be positive, was " + value);
+        }
+        return value;
+    }
+}
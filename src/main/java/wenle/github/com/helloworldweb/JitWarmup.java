@@ -0,0 +1,358 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.Environment;
+
+/**
+ * 启动预热：在上下文刷新之后、Spring Boot 发布 readiness（ACCEPTING_TRAFFIC）之前，
+ * 反复执行热点路径，使 JIT 在节点接入负载均衡前完成编译，避免新节点的 p99 尖刺。
+ * <p>
+ * 预热分两部分：进程内用一组合成的 User-Agent 和 Cookie 请求头调用 {@link CookieUtil} 的读写路径；
+ * 有内嵌 Web 服务器时再通过回环地址对 /、/home、/home?mode=request、/test 发 HTTP 请求，经过完整的过滤器链和 MVC。
+ * 预热前后各测量一组单次调用耗时，与总耗时一起写入日志。
+ * 合成流量不计入 cookie.* 指标（尤其是按浏览器分类的 cookie.same.site.none）：进程内调用期间对预热线程调用
+ * {@link CookieMetrics#suppress()}；回环请求在 {@value #HEADER} 请求头中带上每次启动随机生成的令牌，
+ * {@link SetCookieMetricsFilter} 只对令牌正确且来自回环地址的请求关闭处理线程的指标；
+ * 同时到达的真实请求照常记录。
+ * 回环请求仍会计入 http.server.requests 指标。负载均衡应使用 /actuator/health/readiness 判断节点是否可以接入。
+ */
+public class JitWarmup implements ApplicationRunner {
+
+    /**
+     * 回环预热请求携带的请求头，值为 {@link #TOKEN}
+     */
+    public static final String HEADER = "X-Warmup";
+
+    /**
+     * 每次启动随机生成的预热令牌，只有本进程发出的回环请求知道
+     */
+    static final String TOKEN = newToken();
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /**
+     * 覆盖 SameSite 兼容性判断各分支的 User-Agent
+     */
+    static final List<String> USER_AGENTS = List.of(
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36",
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/60.0.3112.113 Safari/537.36",
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/79.0.3945.88 Safari/537.36",
+        "Mozilla/5.0 (iPhone; CPU iPhone OS 12_4 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/12.1.2 Mobile/15E148 Safari/604.1",
+        "Mozilla/5.0 (iPhone; CPU iPhone OS 17_1 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.1 Mobile/15E148 Safari/604.1",
+        "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_14_6) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/12.1.2 Safari/605.1.15",
+        "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_14_6) AppleWebKit/605.1.15 (KHTML, like Gecko)",
+        "Mozilla/5.0 (Linux; U; Android 8.1.0; en-US; Nexus 6P Build/OPM7.181205.001) AppleWebKit/537.36 (KHTML, like Gecko) "
+            + "Version/4.0 Chrome/57.0.2987.108 UCBrowser/12.11.1.1197 Mobile Safari/537.36",
+        "Mozilla/5.0 (X11; Linux x86_64; rv:121.0) Gecko/20100101 Firefox/121.0",
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36 Edg/120.0.0.0",
+        "curl/8.4.0",
+        "");
+
+    /**
+     * Cookie 请求头，包含空值、带引号的值、重复名字和较长的请求头
+     */
+    static final List<String> COOKIE_HEADERS = List.of(
+        "session=3f2a9c; key=value",
+        "key=value",
+        "a=1; b=2; c=3; d=4; e=5; f=6; g=7; h=8; session=abc; theme=dark; lang=zh-CN",
+        "quoted=\"a b\"; empty=; session=x",
+        "key=first; key=second",
+        "_ga=GA1.2.1234567890.1234567890; _gid=GA1.2.987654321.1234567890; session=0123456789abcdef0123456789abcdef",
+        "");
+
+    private static final List<String> ACCEPT_ENCODINGS = List.of("gzip, deflate, br", "gzip", "deflate", "identity");
+
+    private static final List<String> PATHS = List.of("/", "/home", "/home?mode=request", "/test");
+
+    private final WarmupProperties properties;
+
+    private final ApplicationContext context;
+
+    /**
+     * @param properties 预热配置
+     * @param context    应用上下文，运行时从中获取内嵌 Web 服务器的端口；没有 Web 服务器时只做进程内预热
+     */
+    public JitWarmup(WarmupProperties properties, ApplicationContext context) {
+        this.properties = properties;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            Report report = warmUp();
+            logger.info("JIT warm-up finished in {} ms, {} iterations", report.millis(), report.iterations());
+            for (Probe probe : report.probes()) {
+                logger.info("  {}: before mean={} us p99={} us, after mean={} us p99={} us", probe.name(),
+                    micros(probe.before().mean()), micros(probe.before().p99()),
+                    micros(probe.after().mean()), micros(probe.after().p99()));
+            }
+        } catch (Exception e) {
+            // 预热失败不影响启动，节点只是以未预热状态接入
+            logger.warn("JIT warm-up failed", e);
+        }
+    }
+
+    /**
+     * 测量冷态耗时、预热、再测量预热后的耗时；期间当前线程不记录 Cookie 指标
+     *
+     * @return 预热结果
+     * @throws IOException          回环 HTTP 请求失败
+     * @throws InterruptedException 预热时线程被中断
+     */
+    Report warmUp() throws IOException, InterruptedException {
+        CookieMetrics.suppress();
+        try {
+            return run();
+        } finally {
+            CookieMetrics.unsuppress();
+        }
+    }
+
+    private Report run() throws IOException, InterruptedException {
+        List<Operation> operations = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        operations.add(JitWarmup::cookies);
+        names.add("cookie");
+        String baseUrl = baseUrl();
+        if (baseUrl != null) {
+            HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+            for (String path : PATHS) {
+                URI uri = URI.create(baseUrl + path);
+                operations.add(i -> get(client, uri, i));
+                names.add("GET " + path);
+            }
+        }
+
+        long start = System.nanoTime();
+        List<Sample> before = new ArrayList<>();
+        for (Operation operation : operations) {
+            before.add(sample(operation));
+        }
+        long deadline = start + properties.getTimeBudget().toNanos();
+        int iterations = 0;
+        while (iterations < properties.getIterations() && System.nanoTime() < deadline) {
+            for (Operation operation : operations) {
+                operation.run(iterations);
+            }
+            iterations++;
+        }
+        List<Probe> probes = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            probes.add(new Probe(names.get(i), before.get(i), sample(operations.get(i))));
+        }
+        return new Report(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), iterations, probes);
+    }
+
+    /**
+     * 内嵌 Web 服务器的地址；没有 Web 服务器或使用 TLS 时返回 null，回环请求无法校验证书，只做进程内预热
+     */
+    private String baseUrl() {
+        if (!(context instanceof WebServerApplicationContext webContext) || webContext.getWebServer() == null
+            || webContext.getWebServer().getPort() <= 0) {
+            return null;
+        }
+        Environment environment = context.getEnvironment();
+        if (environment.getProperty("server.ssl.enabled", Boolean.class, true)
+            && (environment.containsProperty("server.ssl.key-store") || environment.containsProperty("server.ssl.bundle")
+            || environment.containsProperty("server.ssl.certificate"))) {
+            logger.info("Skipping HTTP warm-up, server uses TLS");
+            return null;
+        }
+        String address = environment.getProperty("server.address", "127.0.0.1");
+        return "http://" + (address.contains(":") ? "[" + address + "]" : address) + ":" + webContext.getWebServer().getPort();
+    }
+
+    private Sample sample(Operation operation) throws IOException, InterruptedException {
+        int samples = Math.max(1, properties.getSamples());
+        long[] nanos = new long[samples];
+        long total = 0;
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            operation.run(i);
+            nanos[i] = System.nanoTime() - start;
+            total += nanos[i];
+        }
+        Arrays.sort(nanos);
+        return new Sample(total / samples, nanos[(int) Math.ceil(samples * 0.99) - 1]);
+    }
+
+    /**
+     * 一次请求中常见的 Cookie 操作：读取、按 User-Agent 写带 SameSite 的 Cookie、批量写入和删除
+     */
+    private static void cookies(int i) {
+        HttpServletRequest request = request(USER_AGENTS.get(i % USER_AGENTS.size()), COOKIE_HEADERS.get(i % COOKIE_HEADERS.size()));
+        HttpServletResponse response = response();
+        CookieUtil.getCookieValue("session", request);
+        CookieUtil.getCookie("key", request);
+        CookieUtil.addCookie("key", "value", response);
+        CookieUtil.addCookie("session", "v" + i, 3600, "/", null, true, true, request, response, null, null, null);
+        CookieUtil.addCookie("chrome80", "1", -1, null, null, false, true, request, response,
+            CookieUtil.USE_SAME_SITE_ONLY_AFTER_CHROME_80, null, null);
+        CookieUtil.batch(request, response)
+            .add("a", "1")
+            .add("b", "2", 600, "/", null, true, true, "High")
+            .remove("old", "/", null)
+            .write();
+        CookieUtil.removeCookie(request, response, "expired");
+    }
+
+    private static void get(HttpClient client, URI uri, int i) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+            .header(HEADER, TOKEN)
+            .header("Accept-Encoding", ACCEPT_ENCODINGS.get(i % ACCEPT_ENCODINGS.size()));
+        String userAgent = USER_AGENTS.get(i % USER_AGENTS.size());
+        if (!userAgent.isEmpty()) {
+            builder.header("User-Agent", userAgent);
+        }
+        String cookie = COOKIE_HEADERS.get(i % COOKIE_HEADERS.size());
+        if (!cookie.isEmpty()) {
+            builder.header("Cookie", cookie);
+        }
+        HttpResponse<Void> response = client.send(builder.build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 500) {
+            throw new IOException("Warm-up request " + uri + " failed with status " + response.statusCode());
+        }
+    }
+
+    /**
+     * 判断请求是否是本进程发出的预热请求：{@value #HEADER} 请求头等于本次启动的令牌，并且来自回环地址。
+     * 客户端伪造的请求头不会让请求跳过指标。
+     *
+     * @param request 请求
+     * @return 是否是预热请求
+     */
+    static boolean isWarmUpRequest(HttpServletRequest request) {
+        String token = request.getHeader(HEADER);
+        return token != null
+            && MessageDigest.isEqual(token.getBytes(StandardCharsets.US_ASCII), TOKEN.getBytes(StandardCharsets.US_ASCII))
+            && isLoopback(request.getRemoteAddr());
+    }
+
+    private static boolean isLoopback(String address) {
+        return address != null && (address.startsWith("127.") || "::1".equals(address) || "0:0:0:0:0:0:0:1".equals(address));
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * 只实现 Cookie 读写用到的方法的合成请求，其余方法返回默认值
+     */
+    private static HttpServletRequest request(String userAgent, String cookie) {
+        Map<String, Object> attributes = new HashMap<>();
+        return (HttpServletRequest) Proxy.newProxyInstance(JitWarmup.class.getClassLoader(), new Class<?>[] {HttpServletRequest.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getHeader" -> header((String) args[0], userAgent, cookie);
+                case "getHeaders" -> {
+                    String value = header((String) args[0], userAgent, cookie);
+                    yield value == null ? Collections.emptyEnumeration() : Collections.enumeration(List.of(value));
+                }
+                case "getCookies" -> new Cookie[0];
+                case "getAttribute" -> attributes.get((String) args[0]);
+                case "setAttribute" -> attributes.put((String) args[0], args[1]);
+                case "removeAttribute" -> attributes.remove((String) args[0]);
+                default -> defaultValue(method.getReturnType());
+            });
+    }
+
+    private static String header(String name, String userAgent, String cookie) {
+        if ("User-Agent".equalsIgnoreCase(name)) {
+            return userAgent.isEmpty() ? null : userAgent;
+        }
+        if ("Cookie".equalsIgnoreCase(name)) {
+            return cookie.isEmpty() ? null : cookie;
+        }
+        return null;
+    }
+
+    /**
+     * 丢弃写入内容的合成响应
+     */
+    private static HttpServletResponse response() {
+        return (HttpServletResponse) Proxy.newProxyInstance(JitWarmup.class.getClassLoader(), new Class<?>[] {HttpServletResponse.class},
+            (proxy, method, args) -> defaultValue(method.getReturnType()));
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+
+        void run(int iteration) throws IOException, InterruptedException;
+    }
+
+    /**
+     * 单次调用耗时
+     *
+     * @param mean 平均纳秒数
+     * @param p99  99 分位纳秒数
+     */
+    record Sample(long mean, long p99) {
+    }
+
+    /**
+     * 一项预热操作在预热前后的耗时
+     */
+    record Probe(String name, Sample before, Sample after) {
+    }
+
+    /**
+     * 预热结果
+     *
+     * @param millis     总耗时，包含前后两次测量
+     * @param iterations 实际执行的轮数
+     * @param probes     各项操作的耗时
+     */
+    record Report(long millis, int iterations, List<Probe> probes) {
+    }
+}
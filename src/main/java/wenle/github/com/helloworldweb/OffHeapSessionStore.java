@@ -0,0 +1,559 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntPredicate;
+import java.util.zip.CRC32C;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * 以会话 Cookie 中的 id 为键、数据保存在堆外的会话存储，用于放不进 Cookie 的会话数据。
+ * <p>
+ * 存储分为若干段，每段是一块固定大小槽位的开放寻址（线性探测）哈希表，键、数据和过期时间都写在槽位里，
+ * 堆上只有每段一个缓冲区对象，会话数量再多也不增加 GC 扫描的对象。每段一把 {@link StampedLock}，
+ * 读取共享、写入独占，不同段互不阻塞；删除时把探测链上后面的条目前移，不留墓碑。
+ * <p>
+ * 过期时间为写入时间加 Cookie 的 Max-Age，{@link CookieUtil#addSession} 每次保存会话时同时延长 Cookie 和存储中的过期时间；
+ * 读取时跳过已过期的条目，后台线程和写满时清理。
+ * 配置文件时各段映射到同一个文件，进程重启后直接从文件恢复，启动时丢弃校验和不匹配（写入中途退出）和已过期的条目；
+ * 不配置文件时使用直接内存，重启后清空。
+ */
+public final class OffHeapSessionStore implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /**
+     * 会话 id 的最大长度
+     */
+    static final int MAX_ID_LENGTH = 64;
+
+    private static final int FILE_MAGIC = 0x53455331;
+
+    /**
+     * 文件头大小，记录段数、每段槽位数和槽位大小，与配置不一致时重建文件
+     */
+    private static final int FILE_HEADER = 4096;
+
+    // 槽位布局：状态、哈希、过期时间（epoch 毫秒）、id 和数据的 CRC32C、id 长度、数据长度，之后是 id 和数据
+    private static final int STATE = 0;
+
+    private static final int HASH = 4;
+
+    private static final int EXPIRES = 8;
+
+    private static final int CRC = 16;
+
+    private static final int ID_LENGTH = 20;
+
+    private static final int DATA_LENGTH = 24;
+
+    private static final int ID = 28;
+
+    private static final int EMPTY = 0;
+
+    private static final int USED = 1;
+
+    private static final Base64.Encoder ID_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Segment[] segments;
+
+    private final int segmentMask;
+
+    private final int slotMask;
+
+    private final int slotSize;
+
+    /**
+     * 每段最多保存的条目数，保留 1/8 的空槽位，保证探测链有终点
+     */
+    private final int maxEntries;
+
+    private final long maxAgeMillis;
+
+    private final Path file;
+
+    private final FileChannel channel;
+
+    private final Clock clock;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param file            映射的文件，为 null 时使用直接内存
+     * @param segments        段数，即锁的数量，向上取 2 的幂
+     * @param slotsPerSegment 每段槽位数，向上取 2 的幂
+     * @param slotSize        槽位字节数，包括 28 字节的槽位头和会话 id
+     * @param maxAge          会话 Cookie 的 Max-Age
+     * @throws IOException 打开或映射文件失败
+     */
+    public OffHeapSessionStore(Path file, int segments, int slotsPerSegment, int slotSize, Duration maxAge) throws IOException {
+        this(file, segments, slotsPerSegment, slotSize, maxAge, Clock.systemUTC());
+    }
+
+    OffHeapSessionStore(Path file, int segments, int slotsPerSegment, int slotSize, Duration maxAge, Clock clock) throws IOException {
+        int segmentCount = powerOfTwo(segments);
+        int slotCount = powerOfTwo(slotsPerSegment);
+        if (slotSize < ID + MAX_ID_LENGTH) {
+            throw new IllegalArgumentException("Session slot size must be at least " + (ID + MAX_ID_LENGTH) + " bytes");
+        }
+        if ((long) slotCount * slotSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Session store segment exceeds 2 GB, use more segments");
+        }
+        this.segmentMask = segmentCount - 1;
+        this.slotMask = slotCount - 1;
+        this.slotSize = slotSize;
+        this.maxEntries = slotCount - Math.max(1, slotCount / 8);
+        this.maxAgeMillis = maxAge.toMillis();
+        this.file = file;
+        this.clock = clock;
+        this.segments = new Segment[segmentCount];
+        int segmentBytes = slotCount * slotSize;
+        if (file == null) {
+            this.channel = null;
+            for (int i = 0; i < segmentCount; i++) {
+                this.segments[i] = new Segment(ByteBuffer.allocateDirect(segmentBytes));
+            }
+            return;
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(16).putInt(FILE_MAGIC).putInt(segmentCount).putInt(slotCount).putInt(slotSize).flip();
+            long length = FILE_HEADER + (long) segmentCount * segmentBytes;
+            boolean reuse = channel.size() == length && header.equals(readHeader());
+            if (!reuse) {
+                if (channel.size() > 0) {
+                    logger.warn("Session store {} does not match the configured layout, starting empty", file);
+                }
+                // 截断后重新映射的区域全为 0，即所有槽位为空
+                channel.truncate(0);
+                channel.write(header, 0);
+            }
+            for (int i = 0; i < segmentCount; i++) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, FILE_HEADER + (long) i * segmentBytes, segmentBytes);
+                this.segments[i] = new Segment(buffer);
+            }
+            if (reuse) {
+                recover();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 生成新的会话 id：16 字节随机数的 base64url 编码
+     *
+     * @return 会话 id
+     */
+    public static String newId() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        return ID_ENCODER.encodeToString(bytes);
+    }
+
+    /**
+     * @return 会话 Cookie 的 Max-Age 秒数
+     */
+    public long getMaxAgeSeconds() {
+        return maxAgeMillis / 1000;
+    }
+
+    /**
+     * @return 单个会话数据的最大字节数，id 为 22 个字符（{@link #newId()}）时
+     */
+    public int getMaxDataLength() {
+        return slotSize - ID - 22;
+    }
+
+    /**
+     * 读取会话数据
+     *
+     * @param id 会话 id，可以为 null
+     * @return 数据的副本；不存在、已过期或 id 格式错误时返回 null
+     */
+    public byte[] get(String id) {
+        if (!isValidId(id)) {
+            return null;
+        }
+        long hash = BloomFilter.hash(id);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.readLock();
+        try {
+            ByteBuffer buffer = segment.buffer;
+            int slot = find(buffer, id, (int) hash);
+            if (slot < 0 || buffer.getLong(slot + EXPIRES) <= clock.millis()) {
+                return null;
+            }
+            byte[] data = new byte[buffer.getInt(slot + DATA_LENGTH)];
+            buffer.get(slot + ID + id.length(), data);
+            return data;
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @param id 会话 id，可以为 null
+     * @return 是否存在且未过期
+     */
+    public boolean contains(String id) {
+        if (!isValidId(id)) {
+            return false;
+        }
+        long hash = BloomFilter.hash(id);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.readLock();
+        try {
+            int slot = find(segment.buffer, id, (int) hash);
+            return slot >= 0 && segment.buffer.getLong(slot + EXPIRES) > clock.millis();
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 保存会话数据，过期时间为当前时间加 Max-Age
+     *
+     * @param id   会话 id，ASCII 可见字符，最长 64 个字符
+     * @param data 会话数据
+     * @return 是否保存成功，所在的段清理过期条目后仍然已满时返回 false
+     * @throws IllegalArgumentException id 格式错误或数据超过槽位大小
+     */
+    public boolean put(String id, byte[] data) {
+        if (!isValidId(id)) {
+            throw new IllegalArgumentException("Invalid session id");
+        }
+        if (ID + id.length() + data.length > slotSize) {
+            throw new IllegalArgumentException("Session data is " + data.length + " bytes, limit is " + (slotSize - ID - id.length()));
+        }
+        byte[] idBytes = id.getBytes(StandardCharsets.US_ASCII);
+        int crc = crc(idBytes, data);
+        long hash = BloomFilter.hash(id);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            ByteBuffer buffer = segment.buffer;
+            long now = clock.millis();
+            int slot = find(buffer, id, (int) hash);
+            if (slot < 0 && segment.size >= maxEntries) {
+                removeIf(segment, base -> buffer.getLong(base + EXPIRES) <= now);
+                slot = find(buffer, id, (int) hash);
+                if (segment.size >= maxEntries) {
+                    return false;
+                }
+            }
+            if (slot < 0) {
+                slot = (-1 - slot) * slotSize;
+                segment.size++;
+            }
+            // 先写数据再写槽位头，进程在中途退出时启动校验发现 CRC 不匹配
+            buffer.put(slot + ID, idBytes);
+            buffer.put(slot + ID + idBytes.length, data);
+            buffer.putInt(slot + HASH, (int) hash);
+            buffer.putLong(slot + EXPIRES, now + maxAgeMillis);
+            buffer.putInt(slot + CRC, crc);
+            buffer.putInt(slot + ID_LENGTH, idBytes.length);
+            buffer.putInt(slot + DATA_LENGTH, data.length);
+            buffer.putInt(slot + STATE, USED);
+            return true;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 删除会话
+     *
+     * @param id 会话 id，可以为 null
+     * @return 是否存在
+     */
+    public boolean remove(String id) {
+        if (!isValidId(id)) {
+            return false;
+        }
+        long hash = BloomFilter.hash(id);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            int slot = find(segment.buffer, id, (int) hash);
+            if (slot < 0) {
+                return false;
+            }
+            delete(segment, slot / slotSize);
+            return true;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return 条目数，包含已过期但未清理的条目
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                size += segment.size;
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 删除所有过期的条目，逐段加锁
+     *
+     * @return 删除的数量
+     */
+    public int purge() {
+        long now = clock.millis();
+        int removed = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.writeLock();
+            try {
+                ByteBuffer buffer = segment.buffer;
+                removed += removeIf(segment, base -> buffer.getLong(base + EXPIRES) <= now);
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 在后台线程定期清理过期的条目
+     *
+     * @param purgeInterval 清理的间隔
+     */
+    public synchronized void start(Duration purgeInterval) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = purgeInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::purge, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止后台线程，把映射的内容写回文件并关闭
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (channel == null || !channel.isOpen()) {
+            return;
+        }
+        try {
+            for (Segment segment : segments) {
+                long stamp = segment.lock.writeLock();
+                try {
+                    ((MappedByteBuffer) segment.buffer).force();
+                } finally {
+                    segment.lock.unlockWrite(stamp);
+                }
+            }
+            channel.close();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to flush session store {}", file, e);
+        }
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> 32) & segmentMask];
+    }
+
+    /**
+     * 从哈希值对应的槽位开始线性探测，调用方持有锁
+     *
+     * @return 找到时为槽位的字节偏移，否则为 {@code -1 - 探测到的空槽位下标}
+     */
+    private int find(ByteBuffer buffer, String id, int hash) {
+        for (int i = hash & slotMask; ; i = (i + 1) & slotMask) {
+            int base = i * slotSize;
+            if (buffer.getInt(base + STATE) != USED) {
+                return -1 - i;
+            }
+            if (buffer.getInt(base + HASH) == hash && matches(buffer, base, id)) {
+                return base;
+            }
+        }
+    }
+
+    private static boolean matches(ByteBuffer buffer, int base, String id) {
+        int length = id.length();
+        if (buffer.getInt(base + ID_LENGTH) != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(base + ID + i) != id.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 删除所有满足条件的条目，调用方持有写锁
+     *
+     * @param condition 参数为槽位的字节偏移
+     * @return 删除的数量
+     */
+    private int removeIf(Segment segment, IntPredicate condition) {
+        ByteBuffer buffer = segment.buffer;
+        int removed = 0;
+        for (int i = 0; i <= slotMask; ) {
+            int base = i * slotSize;
+            if (buffer.getInt(base + STATE) == USED && condition.test(base)) {
+                // 后面的条目可能前移到这个槽位，重新检查同一个下标
+                delete(segment, i);
+                removed++;
+            } else {
+                i++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 删除槽位并把探测链上后面的条目前移填补，不使用墓碑，调用方持有写锁
+     */
+    private void delete(Segment segment, int index) {
+        ByteBuffer buffer = segment.buffer;
+        int hole = index;
+        for (int i = (index + 1) & slotMask; buffer.getInt(i * slotSize + STATE) == USED; i = (i + 1) & slotMask) {
+            int base = i * slotSize;
+            int home = buffer.getInt(base + HASH) & slotMask;
+            // 起始槽位不在 (hole, i] 区间内的条目可以移到 hole，移动后仍能从起始槽位探测到
+            if (((i - home) & slotMask) >= ((i - hole) & slotMask)) {
+                buffer.put(hole * slotSize, buffer, base, slotSize);
+                hole = i;
+            }
+        }
+        buffer.putInt(hole * slotSize + STATE, EMPTY);
+        segment.size--;
+    }
+
+    /**
+     * 从文件恢复：统计条目数，删除格式错误、校验和不匹配或已过期的条目
+     */
+    private void recover() {
+        long now = clock.millis();
+        int total = 0;
+        int dropped = 0;
+        for (Segment segment : segments) {
+            ByteBuffer buffer = segment.buffer;
+            for (int i = 0; i <= slotMask; i++) {
+                int base = i * slotSize;
+                int state = buffer.getInt(base + STATE);
+                if (state == USED) {
+                    segment.size++;
+                } else if (state != EMPTY) {
+                    buffer.putInt(base + STATE, EMPTY);
+                }
+            }
+            dropped += removeIf(segment, base -> buffer.getLong(base + EXPIRES) <= now || !isIntact(buffer, base));
+            total += segment.size;
+        }
+        logger.info("Recovered {} sessions from {}, dropped {} expired or incomplete", total, file, dropped);
+    }
+
+    private boolean isIntact(ByteBuffer buffer, int base) {
+        int idLength = buffer.getInt(base + ID_LENGTH);
+        int dataLength = buffer.getInt(base + DATA_LENGTH);
+        if (idLength <= 0 || idLength > MAX_ID_LENGTH || dataLength < 0 || dataLength > slotSize - ID - idLength) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(base + ID, idLength + dataLength));
+        if ((int) crc.getValue() != buffer.getInt(base + CRC)) {
+            return false;
+        }
+        byte[] id = new byte[idLength];
+        buffer.get(base + ID, id);
+        return (int) BloomFilter.hash(new String(id, StandardCharsets.US_ASCII)) == buffer.getInt(base + HASH);
+    }
+
+    private ByteBuffer readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(16);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // 读满 16 字节
+        }
+        return header.flip();
+    }
+
+    private static int crc(byte[] id, byte[] data) {
+        CRC32C crc = new CRC32C();
+        crc.update(id);
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    private static boolean isValidId(String id) {
+        if (id == null || id.isEmpty() || id.length() > MAX_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c <= ' ' || c >= 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int powerOfTwo(int value) {
+        if (value < 1 || value > 1 << 30) {
+            throw new IllegalArgumentException("Invalid session store size " + value);
+        }
+        return value == 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * 一段槽位和保护它的锁
+     */
+    private static final class Segment {
+
+        private final ByteBuffer buffer;
+
+        private final StampedLock lock = new StampedLock();
+
+        /**
+         * 已使用的槽位数，持有写锁时修改
+         */
+        private int size;
+
+        Segment(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+}
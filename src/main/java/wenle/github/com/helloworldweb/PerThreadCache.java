@@ -0,0 +1,105 @@
+package wenle.github.com.helloworldweb;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * 按线程复用的可变对象，例如编码缓冲区。
+ * <p>
+ * 平台线程上使用 ThreadLocal，每个线程一个实例；虚拟线程通常每个请求一个，ThreadLocal 无法复用且会为每个线程建表，
+ * 因此虚拟线程从一个无锁的小对象池中借用，池空时新建，归还时池满则丢弃。
+ * 调用方必须在 finally 中 {@link #release(Object)}，借出期间对象只属于当前线程。
+ * 运行在 Java 17 上时所有线程都是平台线程。
+ *
+ * @param <T> 缓存的对象类型
+ */
+final class PerThreadCache<T> {
+
+    private static final MethodHandle IS_VIRTUAL = isVirtualHandle();
+
+    /**
+     * 借用和归还时最多尝试的槽位数
+     */
+    private static final int PROBES = 4;
+
+    private final Supplier<T> factory;
+
+    private final ThreadLocal<T> local;
+
+    private final AtomicReferenceArray<T> pool;
+
+    private final int mask;
+
+    PerThreadCache(Supplier<T> factory) {
+        this.factory = factory;
+        this.local = ThreadLocal.withInitial(factory);
+        int size = Integer.highestOneBit(Math.max(PROBES, Runtime.getRuntime().availableProcessors() * 2) - 1) << 1;
+        this.pool = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * 借用当前线程的对象
+     *
+     * @return 对象
+     */
+    T acquire() {
+        if (!isVirtual(Thread.currentThread())) {
+            return local.get();
+        }
+        int start = ThreadLocalRandom.current().nextInt();
+        for (int i = 0; i < PROBES; i++) {
+            T value = pool.getAndSet((start + i) & mask, null);
+            if (value != null) {
+                return value;
+            }
+        }
+        return factory.get();
+    }
+
+    /**
+     * 归还 {@link #acquire()} 借出的对象
+     *
+     * @param value 对象
+     */
+    void release(T value) {
+        if (!isVirtual(Thread.currentThread())) {
+            return;
+        }
+        int start = ThreadLocalRandom.current().nextInt();
+        for (int i = 0; i < PROBES; i++) {
+            if (pool.compareAndSet((start + i) & mask, null, value)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 是否是虚拟线程，Java 21 之前总是 false
+     *
+     * @param thread 线程
+     * @return true or false
+     */
+    static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(thread);
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    private static MethodHandle isVirtualHandle() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * 预先编码、预先压缩的不可变响应。
+ * <p>
+ * 构造时把响应体编码为字节，并生成 gzip 和 deflate 压缩版本（JDK 不带 brotli 编码器，不提供 br），
+ * 每个版本有自己的强 ETag 和 Content-Length。请求时只按 Accept-Encoding 选择版本、按 If-None-Match 决定是否返回 304，
+ * 不再重复构造响应体。
+ */
+public final class PrecompressedResponse {
+
+    /**
+     * 小于该字节数的响应体不压缩，压缩后的头部开销大于节省的字节
+     */
+    private static final int MIN_COMPRESS_SIZE = 64;
+
+    private final String contentType;
+
+    private final Variant identity;
+
+    private final Variant gzip;
+
+    private final Variant deflate;
+
+    public PrecompressedResponse(String body, String contentType, Charset charset) {
+        this.contentType = contentType;
+        byte[] bytes = body.getBytes(charset);
+        String tag = digest(bytes);
+        this.identity = new Variant(bytes, null, "\"" + tag + "\"");
+        this.gzip = smaller(compress(bytes, true), "gzip", tag);
+        this.deflate = smaller(compress(bytes, false), "deflate", tag);
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * 按 Accept-Encoding 选择响应版本，优先 gzip，其次 deflate，都不接受时返回未压缩版本
+     *
+     * @param acceptEncoding Accept-Encoding 请求头，可以为 null
+     * @return 响应版本
+     */
+    public Variant select(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return identity;
+        }
+        if (gzip != null && accepts(acceptEncoding, "gzip")) {
+            return gzip;
+        }
+        if (deflate != null && accepts(acceptEncoding, "deflate")) {
+            return deflate;
+        }
+        return identity;
+    }
+
+    /**
+     * 写出响应：If-None-Match 命中时返回只有响应头的 304，否则写出预先生成的字节
+     *
+     * @param request  请求
+     * @param response 响应
+     * @throws IOException 写响应体失败
+     */
+    public void writeTo(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Variant variant = select(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        response.setHeader(HttpHeaders.ETAG, variant.etag);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), variant.etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(contentType);
+        if (variant.contentEncoding != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, variant.contentEncoding);
+        }
+        response.setContentLength(variant.body.length);
+        response.getOutputStream().write(variant.body);
+    }
+
+    /**
+     * If-None-Match 是否命中，按 RFC 9110 使用弱比较
+     *
+     * @param ifNoneMatch If-None-Match 请求头，可以为 null
+     * @param etag       当前版本的强 ETag
+     * @return 是否命中
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        int length = ifNoneMatch.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && (ifNoneMatch.charAt(i) == ' ' || ifNoneMatch.charAt(i) == ',' || ifNoneMatch.charAt(i) == '\t')) {
+                i++;
+            }
+            if (i == length) {
+                return false;
+            }
+            if (ifNoneMatch.charAt(i) == '*') {
+                return true;
+            }
+            if (ifNoneMatch.startsWith("W/", i)) {
+                i += 2;
+            }
+            int end = ifNoneMatch.indexOf(',', i);
+            if (end < 0) {
+                end = length;
+            }
+            int tagEnd = end;
+            while (tagEnd > i && (ifNoneMatch.charAt(tagEnd - 1) == ' ' || ifNoneMatch.charAt(tagEnd - 1) == '\t')) {
+                tagEnd--;
+            }
+            if (tagEnd - i == etag.length() && ifNoneMatch.regionMatches(i, etag, 0, etag.length())) {
+                return true;
+            }
+            i = end;
+        }
+        return false;
+    }
+
+    /**
+     * Accept-Encoding 中是否以非零 q 值接受该编码，{@code *} 匹配未单独列出的编码
+     */
+    static boolean accepts(String acceptEncoding, String coding) {
+        boolean wildcard = false;
+        int length = acceptEncoding.length();
+        int i = 0;
+        while (i < length) {
+            int end = acceptEncoding.indexOf(',', i);
+            if (end < 0) {
+                end = length;
+            }
+            int semicolon = acceptEncoding.indexOf(';', i);
+            int nameEnd = semicolon >= 0 && semicolon < end ? semicolon : end;
+            String name = acceptEncoding.substring(i, nameEnd).trim();
+            boolean accepted = nameEnd == end || qualityAboveZero(acceptEncoding.substring(nameEnd + 1, end));
+            if (name.equalsIgnoreCase(coding)) {
+                return accepted;
+            }
+            if (name.equals("*")) {
+                wildcard = accepted;
+            }
+            i = end + 1;
+        }
+        return wildcard;
+    }
+
+    private static boolean qualityAboveZero(String parameters) {
+        String parameter = parameters.trim();
+        if (!parameter.regionMatches(true, 0, "q=", 0, 2)) {
+            return true;
+        }
+        try {
+            return Double.parseDouble(parameter.substring(2).trim()) > 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private Variant smaller(byte[] compressed, String contentEncoding, String tag) {
+        if (identity.body.length < MIN_COMPRESS_SIZE || compressed.length >= identity.body.length) {
+            return null;
+        }
+        return new Variant(compressed, contentEncoding, "\"" + tag + "-" + contentEncoding + "\"");
+    }
+
+    private static byte[] compress(byte[] bytes, boolean gzip) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, false);
+        try (DeflaterOutputStream stream = gzip ? new BestGzipOutputStream(out) : new DeflaterOutputStream(out, deflater)) {
+            stream.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    private static String digest(byte[] bytes) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 以最高压缩级别输出的 gzip 流，只在启动时压缩一次
+     */
+    private static final class BestGzipOutputStream extends GZIPOutputStream {
+
+        BestGzipOutputStream(ByteArrayOutputStream out) throws IOException {
+            super(out);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+
+    /**
+     * 一个内容编码的响应版本
+     *
+     * @param body            响应体字节，不要修改
+     * @param contentEncoding Content-Encoding，未压缩时为 null
+     * @param etag            强 ETag，包含引号
+     */
+    public record Variant(byte[] body, String contentEncoding, String etag) {
+    }
+}
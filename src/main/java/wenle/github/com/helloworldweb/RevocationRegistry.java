@@ -0,0 +1,316 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * 已撤销的 Cookie 值，例如退出登录后的无状态会话 Cookie。
+ * <p>
+ * 精确集合记录每个值的过期时间，前面是一个 {@link BloomFilter}：几乎所有请求的 Cookie 都没有被撤销，
+ * 这种情况只计算一次哈希、读几个位就返回，不加锁也不查询集合；过滤器命中时才查精确集合并判断是否过期。
+ * 撤销和清理很少发生，在同一把锁内执行；清理时删除过期的值并重建过滤器，元素超过容量时也会按两倍容量重建。
+ * 配置快照文件后定期（以及关闭时）把未过期的值写入本地文件，重启后先从文件恢复。
+ * 安装后 {@link CookieUtil#getCookie} 和 {@link CookieUtil#getCookieValue} 把已撤销的 Cookie 当作不存在。
+ */
+public final class RevocationRegistry implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int SNAPSHOT_MAGIC = 0x52564B31;
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    /**
+     * 可以撤销的最大值长度，快照中每个值最多 65535 字节
+     */
+    private static final int MAX_VALUE_LENGTH = 8192;
+
+    private static volatile RevocationRegistry instance;
+
+    /**
+     * 值到过期时间（epoch 毫秒）
+     */
+    private final ConcurrentMap<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private final Object writeLock = new Object();
+
+    private final int expectedEntries;
+
+    private final Path snapshotFile;
+
+    private final Clock clock;
+
+    /**
+     * 没有撤销任何值时为 null，读取直接返回
+     */
+    private volatile BloomFilter filter;
+
+    private int capacity;
+
+    private boolean dirty;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param expectedEntries 预计同时有效的撤销数量
+     * @param snapshotFile    快照文件，为 null 时不保存
+     */
+    public RevocationRegistry(int expectedEntries, Path snapshotFile) {
+        this(expectedEntries, snapshotFile, Clock.systemUTC());
+    }
+
+    RevocationRegistry(int expectedEntries, Path snapshotFile, Clock clock) {
+        this.expectedEntries = Math.max(16, expectedEntries);
+        this.capacity = this.expectedEntries;
+        this.snapshotFile = snapshotFile;
+        this.clock = clock;
+    }
+
+    /**
+     * @return CookieUtil 使用的实例，未安装时为 null
+     */
+    public static RevocationRegistry getInstance() {
+        return instance;
+    }
+
+    static void install(RevocationRegistry registry) {
+        instance = registry;
+    }
+
+    /**
+     * 已安装的实例中该值是否已撤销
+     *
+     * @param value cookie 值，可以为 null
+     * @return true or false
+     */
+    static boolean isRevokedValue(String value) {
+        RevocationRegistry registry = instance;
+        return registry != null && value != null && registry.isRevoked(value);
+    }
+
+    /**
+     * 撤销一个 Cookie 值，到期后自动移除；到期时间应不早于 Cookie 本身的过期时间
+     *
+     * @param value     cookie 值
+     * @param expiresAt 撤销记录的过期时间
+     * @throws IllegalArgumentException 值超过 8192 个字符
+     */
+    public void revoke(String value, Instant expiresAt) {
+        if (value.length() > MAX_VALUE_LENGTH) {
+            throw new IllegalArgumentException("Cookie value is too long to revoke: " + value.length());
+        }
+        long expires = expiresAt.toEpochMilli();
+        if (expires <= clock.millis()) {
+            return;
+        }
+        synchronized (writeLock) {
+            // 先写精确集合再置位，读到位的线程一定能读到集合中的值
+            revoked.merge(value, expires, Math::max);
+            BloomFilter current = filter;
+            if (current == null || revoked.size() > capacity) {
+                rebuild();
+            } else {
+                current.add(value);
+            }
+            dirty = true;
+        }
+    }
+
+    /**
+     * @param value cookie 值
+     * @param ttl   撤销记录的保留时间
+     */
+    public void revoke(String value, Duration ttl) {
+        revoke(value, clock.instant().plus(ttl));
+    }
+
+    /**
+     * 是否已撤销且未过期
+     *
+     * @param value cookie 值
+     * @return true or false
+     */
+    public boolean isRevoked(String value) {
+        BloomFilter current = filter;
+        if (current == null || !current.mightContain(value)) {
+            return false;
+        }
+        Long expires = revoked.get(value);
+        return expires != null && expires > clock.millis();
+    }
+
+    /**
+     * @return 精确集合中的数量，包含已过期但未清理的值
+     */
+    public int size() {
+        return revoked.size();
+    }
+
+    /**
+     * 删除过期的值并重建过滤器
+     */
+    public void purge() {
+        long now = clock.millis();
+        synchronized (writeLock) {
+            if (revoked.values().removeIf(expires -> expires <= now)) {
+                dirty = true;
+            }
+            rebuild();
+        }
+    }
+
+    /**
+     * 从快照文件恢复，忽略已过期的值；文件不存在或损坏时从空集合开始
+     */
+    public void load() {
+        if (snapshotFile == null) {
+            return;
+        }
+        long now = clock.millis();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Unknown snapshot format");
+            }
+            int count = in.readInt();
+            Map<String, Long> entries = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                long expires = in.readLong();
+                String value = in.readUTF();
+                if (expires > now) {
+                    entries.merge(value, expires, Math::max);
+                }
+            }
+            synchronized (writeLock) {
+                entries.forEach((value, expires) -> revoked.merge(value, expires, Math::max));
+                rebuild();
+            }
+            logger.info("Loaded {} cookie revocations from {}", entries.size(), snapshotFile);
+        } catch (NoSuchFileException e) {
+            logger.debug("No cookie revocation snapshot at {}", snapshotFile);
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable cookie revocation snapshot {}", snapshotFile, e);
+        }
+    }
+
+    /**
+     * 有变化时把未过期的值写入快照文件，先写临时文件再原子替换
+     *
+     * @throws IOException 写文件失败
+     */
+    public void save() throws IOException {
+        if (snapshotFile == null) {
+            return;
+        }
+        Map<String, Long> entries;
+        synchronized (writeLock) {
+            if (!dirty) {
+                return;
+            }
+            entries = new HashMap<>(revoked);
+            dirty = false;
+        }
+        long now = clock.millis();
+        entries.values().removeIf(expires -> expires <= now);
+        Path directory = snapshotFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, snapshotFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Long> entry : entries.entrySet()) {
+                    out.writeLong(entry.getValue());
+                    out.writeUTF(entry.getKey());
+                }
+            }
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            synchronized (writeLock) {
+                dirty = true;
+            }
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * 在后台线程定期保存快照和清理过期的值
+     *
+     * @param snapshotInterval 保存快照的间隔
+     * @param purgeInterval    清理的间隔
+     */
+    public synchronized void start(Duration snapshotInterval, Duration purgeInterval) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cookie-revocation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (snapshotFile != null) {
+            long millis = snapshotInterval.toMillis();
+            scheduler.scheduleWithFixedDelay(this::saveQuietly, millis, millis, TimeUnit.MILLISECONDS);
+        }
+        long millis = purgeInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::purge, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止后台线程并保存最后一次快照，已安装时同时卸载
+     */
+    @Override
+    public synchronized void close() {
+        if (instance == this) {
+            instance = null;
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        saveQuietly();
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to save cookie revocation snapshot {}", snapshotFile, e);
+        }
+    }
+
+    /**
+     * 调用方持有 writeLock
+     */
+    private void rebuild() {
+        if (revoked.isEmpty()) {
+            capacity = expectedEntries;
+            filter = null;
+            return;
+        }
+        capacity = Math.max(expectedEntries, revoked.size() * 2);
+        BloomFilter next = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+        revoked.keySet().forEach(next::add);
+        filter = next;
+    }
+}
@@ -0,0 +1,72 @@
+package wenle.github.com.helloworldweb;
+
+/**
+ * 某个 User-Agent 的 SameSite 兼容性判断结果，不可变。
+ * <p>
+ * 只有 8 种取值组合，全部预先创建，缓存中不会为每个 User-Agent 额外分配对象。
+ */
+public final class SameSiteCompatibility {
+
+    private static final int WEBKIT_SAME_SITE_BUG = 1;
+
+    private static final int DROPS_UNRECOGNIZED_SAME_SITE = 1 << 1;
+
+    private static final int CHROMIUM_80_AT_LEAST = 1 << 2;
+
+    private static final SameSiteCompatibility[] VALUES = new SameSiteCompatibility[8];
+
+    static {
+        for (int i = 0; i < VALUES.length; i++) {
+            VALUES[i] = new SameSiteCompatibility(i);
+        }
+    }
+
+    /**
+     * 空 User-Agent 对应的结果
+     */
+    public static final SameSiteCompatibility UNKNOWN = VALUES[0];
+
+    private final int flags;
+
+    private SameSiteCompatibility(int flags) {
+        this.flags = flags;
+    }
+
+    /**
+     * 获取对应标志位组合的实例
+     *
+     * @param webKitSameSiteBug               是否存在 WebKit SameSite 缺陷
+     * @param dropsUnrecognizedSameSiteCookies 是否丢弃无法识别 SameSite 值的 Cookie
+     * @param chromium80AtLeast               是否 Chromium 80 及以上
+     * @return 共享实例
+     */
+    public static SameSiteCompatibility of(boolean webKitSameSiteBug, boolean dropsUnrecognizedSameSiteCookies, boolean chromium80AtLeast) {
+        int flags = (webKitSameSiteBug ? WEBKIT_SAME_SITE_BUG : 0)
+            | (dropsUnrecognizedSameSiteCookies ? DROPS_UNRECOGNIZED_SAME_SITE : 0)
+            | (chromium80AtLeast ? CHROMIUM_80_AT_LEAST : 0);
+        return VALUES[flags];
+    }
+
+    public boolean hasWebKitSameSiteBug() {
+        return (flags & WEBKIT_SAME_SITE_BUG) != 0;
+    }
+
+    public boolean dropsUnrecognizedSameSiteCookies() {
+        return (flags & DROPS_UNRECOGNIZED_SAME_SITE) != 0;
+    }
+
+    public boolean isChromium80AtLeast() {
+        return (flags & CHROMIUM_80_AT_LEAST) != 0;
+    }
+
+    public boolean isSameSiteNoneIncompatible() {
+        return (flags & (WEBKIT_SAME_SITE_BUG | DROPS_UNRECOGNIZED_SAME_SITE)) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return "SameSiteCompatibility{webKitSameSiteBug=" + hasWebKitSameSiteBug()
+            + ", dropsUnrecognizedSameSiteCookies=" + dropsUnrecognizedSameSiteCookies()
+            + ", chromium80AtLeast=" + isChromium80AtLeast() + '}';
+    }
+}
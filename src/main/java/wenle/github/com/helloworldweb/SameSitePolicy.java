@@ -0,0 +1,140 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 编译后的 SameSite 策略，不可变。
+ * <p>
+ * 构造时把所有 User-Agent 分类组合的结果预先算成决策表，请求时只需对 User-Agent 分类并查表，
+ * 得到需要追加到 Set-Cookie 末尾的 {@code "; SameSite=xxx"} 片段（不追加时为空字符串）。
+ * <p>
+ * 判断顺序：
+ * <ol>
+ * <li>User-Agent 为空（例如没有请求对象）时直接追加，与历史行为保持一致；{@link CookieUtil#USE_SAME_SITE_ONLY_AFTER_CHROME_80} 模式下不追加</li>
+ * <li>匹配不同站正则的 User-Agent 不追加</li>
+ * <li>配置了同站正则但不匹配的 User-Agent 不追加</li>
+ * <li>{@link CookieUtil#USE_SAME_SITE_ONLY_AFTER_CHROME_80} 模式下仅 Chromium 80 及以上追加 SameSite=None</li>
+ * <li>SameSite=None 不发送给不兼容的浏览器</li>
+ * </ol>
+ */
+public final class SameSitePolicy {
+
+    private static final int UNKNOWN_USER_AGENT = 1;
+
+    private static final int UN_SAME_SITE_MATCHED = 1 << 1;
+
+    private static final int SAME_SITE_MATCHED = 1 << 2;
+
+    private static final int CHROMIUM_80_AT_LEAST = 1 << 3;
+
+    private static final int SAME_SITE_NONE_INCOMPATIBLE = 1 << 4;
+
+    private final String cookieSameSiteValue;
+
+    private final Pattern checkSameSitePattern;
+
+    private final Pattern checkUnSameSitePattern;
+
+    private final String[] decisionTable = new String[32];
+
+    /**
+     * @param cookieSameSiteValue  SameSite 值：None、Lax、Strict 或 {@link CookieUtil#USE_SAME_SITE_ONLY_AFTER_CHROME_80}
+     * @param checkSameSiteRegex   检测是否同站的正则表达式，可以为空
+     * @param checkUnSameSiteRegex 检测是否不同站的正则表达式，可以为空
+     */
+    public SameSitePolicy(String cookieSameSiteValue, String checkSameSiteRegex, String checkUnSameSiteRegex) {
+        this.cookieSameSiteValue = cookieSameSiteValue;
+        this.checkSameSitePattern = StringUtils.isBlank(checkSameSiteRegex) ? null : Pattern.compile(checkSameSiteRegex);
+        this.checkUnSameSitePattern = StringUtils.isBlank(checkUnSameSiteRegex) ? null : Pattern.compile(checkUnSameSiteRegex);
+
+        boolean chrome80Mode = CookieUtil.USE_SAME_SITE_ONLY_AFTER_CHROME_80.equals(cookieSameSiteValue);
+        String attributeValue = chrome80Mode ? "None" : normalize(cookieSameSiteValue);
+        String suffix = attributeValue == null ? StringUtils.EMPTY : "; SameSite=" + attributeValue;
+        boolean none = "None".equals(attributeValue);
+        for (int flags = 0; flags < decisionTable.length; flags++) {
+            String decision;
+            if (suffix.isEmpty()) {
+                decision = StringUtils.EMPTY;
+            } else if ((flags & UNKNOWN_USER_AGENT) != 0) {
+                decision = chrome80Mode ? StringUtils.EMPTY : suffix;
+            } else if ((flags & UN_SAME_SITE_MATCHED) != 0) {
+                decision = StringUtils.EMPTY;
+            } else if (checkSameSitePattern != null && (flags & SAME_SITE_MATCHED) == 0) {
+                decision = StringUtils.EMPTY;
+            } else if (chrome80Mode) {
+                decision = (flags & CHROMIUM_80_AT_LEAST) != 0 ? suffix : StringUtils.EMPTY;
+            } else if (none && (flags & SAME_SITE_NONE_INCOMPATIBLE) != 0) {
+                decision = StringUtils.EMPTY;
+            } else {
+                decision = suffix;
+            }
+            decisionTable[flags] = decision;
+        }
+    }
+
+    /**
+     * 统一 SameSite 值的大小写
+     */
+    private static String normalize(String value) {
+        if (StringUtils.isBlank(value)) {
+            return null;
+        }
+        for (String known : new String[] {"None", "Lax", "Strict"}) {
+            if (known.equalsIgnoreCase(value)) {
+                return known;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 计算需要追加到 Set-Cookie 末尾的 SameSite 片段
+     *
+     * @param userAgent User-Agent，可以为空
+     * @return 例如 "; SameSite=None"，不追加时为空字符串
+     */
+    public String suffixFor(String userAgent) {
+        return decisionTable[classify(userAgent)];
+    }
+
+    private int classify(String userAgent) {
+        if (StringUtils.isBlank(userAgent)) {
+            return UNKNOWN_USER_AGENT;
+        }
+        int flags = 0;
+        if (checkUnSameSitePattern != null && checkUnSameSitePattern.matcher(userAgent).find()) {
+            flags |= UN_SAME_SITE_MATCHED;
+        }
+        if (checkSameSitePattern != null && checkSameSitePattern.matcher(userAgent).find()) {
+            flags |= SAME_SITE_MATCHED;
+        }
+        long start = CookieMetrics.startClassify();
+        long timingStart = ServerTiming.start();
+        UserAgentProfile profile = CookieUtil.getUserAgentProfile(userAgent);
+        ServerTiming.stop(ServerTiming.Stage.USER_AGENT, timingStart);
+        CookieMetrics.stopClassify(start);
+        CookieMetrics.recordSameSiteNone(profile);
+        SameSiteCompatibility compatibility = profile.getSameSiteCompatibility();
+        if (compatibility.isChromium80AtLeast()) {
+            flags |= CHROMIUM_80_AT_LEAST;
+        }
+        if (compatibility.isSameSiteNoneIncompatible()) {
+            flags |= SAME_SITE_NONE_INCOMPATIBLE;
+        }
+        return flags;
+    }
+
+    public String getCookieSameSiteValue() {
+        return cookieSameSiteValue;
+    }
+
+    public String getCheckSameSiteRegex() {
+        return checkSameSitePattern == null ? null : checkSameSitePattern.pattern();
+    }
+
+    public String getCheckUnSameSiteRegex() {
+        return checkUnSameSitePattern == null ? null : checkUnSameSitePattern.pattern();
+    }
+}
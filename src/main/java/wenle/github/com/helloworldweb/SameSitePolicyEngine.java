@@ -0,0 +1,151 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * SameSite 策略引擎。
+ * <p>
+ * 默认策略在启动时由 {@link CookieConfiguration} 根据 application.properties 中的 {@code cookie.same-site.*} 编译并安装；
+ * 旧接口逐次传入的 SameSite 值和正则也只编译一次，之后从缓存中取已编译的策略。
+ * 同一个请求内写多个 Cookie 时，User-Agent 的判断结果保存在请求属性中复用。
+ */
+public final class SameSitePolicyEngine {
+
+    /**
+     * 保存本请求 SameSite 判断结果的请求属性名
+     */
+    public static final String DECISION_ATTRIBUTE = SameSitePolicyEngine.class.getName() + ".DECISION";
+
+    /**
+     * 缓存的策略和正则的最大数量，超过后不再缓存，避免调用方拼接动态正则导致内存增长
+     */
+    private static final int MAX_CACHED = 256;
+
+    private static final ConcurrentMap<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+    private static volatile SameSitePolicyEngine instance = new SameSitePolicyEngine(new SameSitePolicy("None", null, null));
+
+    private final SameSitePolicy defaultPolicy;
+
+    private final ConcurrentMap<PolicyKey, SameSitePolicy> policies = new ConcurrentHashMap<>();
+
+    public SameSitePolicyEngine(SameSitePolicy defaultPolicy) {
+        this.defaultPolicy = defaultPolicy;
+    }
+
+    /**
+     * 当前生效的引擎
+     *
+     * @return 引擎
+     */
+    public static SameSitePolicyEngine getInstance() {
+        return instance;
+    }
+
+    /**
+     * 安装引擎，应用启动时调用
+     *
+     * @param engine 引擎
+     */
+    static void install(SameSitePolicyEngine engine) {
+        instance = Objects.requireNonNull(engine);
+    }
+
+    public SameSitePolicy getDefaultPolicy() {
+        return defaultPolicy;
+    }
+
+    /**
+     * 获取调用方参数对应的已编译策略，空参数使用默认配置
+     *
+     * @param cookieSameSiteValue  SameSite 值
+     * @param checkSameSiteRegex   检测是否同站的正则表达式
+     * @param checkUnSameSiteRegex 检测是否不同站的正则表达式
+     * @return 策略
+     */
+    public SameSitePolicy resolve(String cookieSameSiteValue, String checkSameSiteRegex, String checkUnSameSiteRegex) {
+        String value = StringUtils.isBlank(cookieSameSiteValue) ? defaultPolicy.getCookieSameSiteValue() : cookieSameSiteValue;
+        String sameSiteRegex = StringUtils.isBlank(checkSameSiteRegex) ? defaultPolicy.getCheckSameSiteRegex() : checkSameSiteRegex;
+        String unSameSiteRegex = StringUtils.isBlank(checkUnSameSiteRegex) ? defaultPolicy.getCheckUnSameSiteRegex() : checkUnSameSiteRegex;
+        if (StringUtils.equals(value, defaultPolicy.getCookieSameSiteValue())
+            && StringUtils.equals(sameSiteRegex, defaultPolicy.getCheckSameSiteRegex())
+            && StringUtils.equals(unSameSiteRegex, defaultPolicy.getCheckUnSameSiteRegex())) {
+            return defaultPolicy;
+        }
+        PolicyKey key = new PolicyKey(value, sameSiteRegex, unSameSiteRegex);
+        SameSitePolicy policy = policies.get(key);
+        if (policy == null) {
+            policy = new SameSitePolicy(value, sameSiteRegex, unSameSiteRegex);
+            if (policies.size() < MAX_CACHED) {
+                policies.putIfAbsent(key, policy);
+            }
+        }
+        return policy;
+    }
+
+    /**
+     * 计算本请求需要追加的 SameSite 片段，同一请求内相同策略只判断一次
+     *
+     * @param request 请求，可以为 null
+     * @param policy  策略
+     * @return 例如 "; SameSite=None"，不追加时为空字符串
+     */
+    public String suffixFor(HttpServletRequest request, SameSitePolicy policy) {
+        if (request == null) {
+            return policy.suffixFor(null);
+        }
+        return suffixFor(request.getHeader("User-Agent"), policy, request::getAttribute, request::setAttribute);
+    }
+
+    /**
+     * 计算本请求需要追加的 SameSite 片段，判断结果保存在请求属性 {@link #DECISION_ATTRIBUTE} 中，同一请求内相同策略只判断一次；
+     * Servlet 请求和 WebFlux 的 exchange 共用这一实现
+     *
+     * @param userAgent    User-Agent，可以为 null
+     * @param policy       策略
+     * @param getAttribute 读取本请求的属性
+     * @param setAttribute 写入本请求的属性
+     * @return 例如 "; SameSite=None"，不追加时为空字符串
+     */
+    public String suffixFor(String userAgent, SameSitePolicy policy, Function<String, Object> getAttribute,
+        BiConsumer<String, Object> setAttribute) {
+        if (getAttribute.apply(DECISION_ATTRIBUTE) instanceof Decision decision && decision.policy == policy) {
+            return decision.suffix;
+        }
+        String suffix = policy.suffixFor(userAgent);
+        setAttribute.accept(DECISION_ATTRIBUTE, new Decision(policy, suffix));
+        return suffix;
+    }
+
+    /**
+     * 获取编译后的正则，结果被缓存
+     *
+     * @param regex 正则表达式
+     * @return Pattern
+     */
+    static Pattern pattern(String regex) {
+        Pattern pattern = patterns.get(regex);
+        if (pattern == null) {
+            pattern = Pattern.compile(regex);
+            if (patterns.size() < MAX_CACHED) {
+                patterns.putIfAbsent(regex, pattern);
+            }
+        }
+        return pattern;
+    }
+
+    private record PolicyKey(String value, String checkSameSiteRegex, String checkUnSameSiteRegex) {
+    }
+
+    private record Decision(SameSitePolicy policy, String suffix) {
+    }
+}
@@ -0,0 +1,169 @@
+package wenle.github.com.helloworldweb;
+
+/**
+ * 单个请求的分阶段耗时记录，结果由 {@link ServerTimingFilter} 写到 Server-Timing 响应头。
+ * <p>
+ * 只有开启了 Server-Timing 的请求才在当前线程上绑定 {@link Recorder}；
+ * 没有开启时 {@link #start()} 只读取一个静态字段（模式未配置）或一次 ThreadLocal（请求未开启），返回 0，
+ * 不调用 {@link System#nanoTime()}，也不产生任何对象。阶段可以嵌套，每个阶段记录的是包含子阶段的耗时。
+ */
+public final class ServerTiming {
+
+    /**
+     * 记录的阶段
+     */
+    public enum Stage {
+        COOKIE_LOOKUP("cookie", "cookie lookup"),
+        USER_AGENT("ua", "user-agent classification"),
+        SET_COOKIE("set-cookie", "set-cookie construction"),
+        BODY("body", "body writing");
+
+        private final String metricName;
+
+        private final String description;
+
+        Stage(String metricName, String description) {
+            this.metricName = metricName;
+            this.description = description;
+        }
+
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private static final ThreadLocal<Recorder> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 是否配置了 Server-Timing 模式，未配置时直接跳过 ThreadLocal
+     */
+    private static volatile boolean configured;
+
+    private ServerTiming() {
+    }
+
+    static void setConfigured(boolean value) {
+        configured = value;
+    }
+
+    /**
+     * 开始记录一个阶段
+     *
+     * @return 开始时间，当前请求没有开启时为 0
+     */
+    public static long start() {
+        if (!configured) {
+            return 0L;
+        }
+        return CURRENT.get() != null ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * 结束一个阶段
+     *
+     * @param stage 阶段
+     * @param start {@link #start()} 的返回值
+     */
+    public static void stop(Stage stage, long start) {
+        if (start != 0L) {
+            Recorder recorder = CURRENT.get();
+            if (recorder != null) {
+                recorder.add(stage, System.nanoTime() - start);
+            }
+        }
+    }
+
+    static Recorder begin() {
+        Recorder recorder = new Recorder(System.nanoTime());
+        CURRENT.set(recorder);
+        return recorder;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 一个请求的耗时累计
+     */
+    static final class Recorder {
+
+        private final long startNanos;
+
+        private final long[] nanos = new long[STAGES.length];
+
+        private final int[] counts = new int[STAGES.length];
+
+        private long bodyStartNanos;
+
+        Recorder(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        void add(Stage stage, long elapsed) {
+            nanos[stage.ordinal()] += elapsed;
+            counts[stage.ordinal()]++;
+        }
+
+        /**
+         * 第一次获取响应输出流时开始记录写响应体的耗时
+         */
+        void bodyStarted() {
+            if (bodyStartNanos == 0L) {
+                bodyStartNanos = System.nanoTime();
+            }
+        }
+
+        /**
+         * 放弃本次写响应体的计时：响应头必须在写响应体之前发出时，body 阶段无法测量
+         */
+        void bodySkipped() {
+            bodyStartNanos = 0L;
+        }
+
+        /**
+         * 到目前为止的 Server-Timing 响应头值，写响应体的耗时计算到当前时间
+         *
+         * @return 例如 cookie;dur=0.012;desc="cookie lookup x2", total;dur=1.250
+         */
+        String toHeaderValue() {
+            long now = System.nanoTime();
+            if (bodyStartNanos != 0L) {
+                add(Stage.BODY, now - bodyStartNanos);
+                bodyStartNanos = 0L;
+            }
+            StringBuilder sb = new StringBuilder(192);
+            for (Stage stage : STAGES) {
+                int count = counts[stage.ordinal()];
+                if (count == 0) {
+                    continue;
+                }
+                sb.append(stage.metricName).append(";dur=");
+                appendMillis(sb, nanos[stage.ordinal()]);
+                sb.append(";desc=\"").append(stage.description);
+                if (count > 1) {
+                    sb.append(" x").append(count);
+                }
+                sb.append("\", ");
+            }
+            sb.append("total;dur=");
+            appendMillis(sb, now - startNanos);
+            return sb.toString();
+        }
+
+        /**
+         * 毫秒数，保留 3 位小数
+         */
+        private static void appendMillis(StringBuilder sb, long nanos) {
+            long micros = Math.max(0L, nanos) / 1000L;
+            sb.append(micros / 1000L).append('.');
+            long fraction = micros % 1000L;
+            if (fraction < 100) {
+                sb.append(fraction < 10 ? "00" : "0");
+            }
+            sb.append(fraction);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package wenle.github.com.helloworldweb;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Server-Timing 过滤器的装配，放在过滤器链最前面，total 包含其他过滤器的耗时；只用于 Servlet 版本
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ServerTimingProperties.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ServerTimingConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(ServerTimingProperties properties) {
+        FilterRegistrationBean<ServerTimingFilter> registration = new FilterRegistrationBean<>(
+            new ServerTimingFilter(properties.isEnabled(), properties.getSecret(), properties.getMaxTokenTtl()));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
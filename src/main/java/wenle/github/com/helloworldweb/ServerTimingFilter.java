@@ -0,0 +1,358 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * 为开启了 Server-Timing 的请求记录各阶段耗时，并在响应提交前写出 Server-Timing 响应头。
+ * <p>
+ * 开启方式：{@code server-timing.enabled=true} 时所有请求开启；配置了 {@code server-timing.secret} 时，
+ * 携带有效签名请求头 {@value #TOKEN_HEADER} 的请求开启。签名格式为 {@code <过期时间秒>.<签名>}，
+ * 签名是以 secret 为密钥对过期时间秒数做 HmacSHA256 后的 base64url（无填充）编码。
+ * 过期时间晚于当前时间加 {@code server-timing.max-token-ttl} 的签名不被接受，泄露的签名最多在这段时间内有效。
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Server-Timing";
+
+    public static final String TOKEN_HEADER = "X-Server-Timing-Token";
+
+    /**
+     * 签名的默认最长有效期
+     */
+    public static final Duration DEFAULT_MAX_TOKEN_TTL = Duration.ofHours(1);
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder SIGNATURE_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final boolean enabled;
+
+    private final SecretKeySpec key;
+
+    private final long maxTokenTtlSeconds;
+
+    /**
+     * 已用签名密钥初始化的 Mac，按线程缓存
+     */
+    private final PerThreadCache<Mac> macs = new PerThreadCache<>(this::newMac);
+
+    /**
+     * @param enabled 是否对所有请求开启
+     * @param secret  签名请求头的密钥，为空时不接受签名请求头
+     */
+    public ServerTimingFilter(boolean enabled, String secret) {
+        this(enabled, secret, DEFAULT_MAX_TOKEN_TTL);
+    }
+
+    /**
+     * @param enabled     是否对所有请求开启
+     * @param secret      签名请求头的密钥，为空时不接受签名请求头
+     * @param maxTokenTtl 签名的过期时间最多比当前时间晚多久
+     */
+    public ServerTimingFilter(boolean enabled, String secret, Duration maxTokenTtl) {
+        this.enabled = enabled;
+        this.key = StringUtils.isNotEmpty(secret) ? new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM) : null;
+        if (maxTokenTtl.isNegative() || maxTokenTtl.isZero()) {
+            throw new IllegalArgumentException("Max token TTL must be positive, was " + maxTokenTtl);
+        }
+        this.maxTokenTtlSeconds = maxTokenTtl.toSeconds();
+        ServerTiming.setConfigured(enabled || key != null);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        if (!isRequested(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ServerTiming.Recorder recorder = ServerTiming.begin();
+        TimingResponse timingResponse = new TimingResponse(response, recorder);
+        try {
+            filterChain.doFilter(request, timingResponse);
+        } finally {
+            timingResponse.writeHeader();
+            ServerTiming.end();
+        }
+    }
+
+    private boolean isRequested(HttpServletRequest request) {
+        if (enabled) {
+            return true;
+        }
+        if (key == null) {
+            return false;
+        }
+        String token = request.getHeader(TOKEN_HEADER);
+        return token != null && verify(token, System.currentTimeMillis() / 1000L);
+    }
+
+    /**
+     * 校验签名请求头
+     *
+     * @param token      请求头的值
+     * @param nowSeconds 当前时间秒数
+     * @return 签名正确、没有过期且过期时间不超过 max-token-ttl
+     */
+    boolean verify(String token, long nowSeconds) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return false;
+        }
+        long expires;
+        try {
+            expires = Long.parseLong(token, 0, dot, 10);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (expires < nowSeconds || expires - nowSeconds > maxTokenTtlSeconds) {
+            return false;
+        }
+        byte[] expected = sign(token.substring(0, dot));
+        byte[] actual = token.substring(dot + 1).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    /**
+     * 生成签名
+     *
+     * @param expires 过期时间秒数
+     * @return base64url 编码的签名
+     */
+    byte[] sign(String expires) {
+        Mac mac = macs.acquire();
+        try {
+            mac.reset();
+            return SIGNATURE_ENCODER.encode(mac.doFinal(expires.getBytes(StandardCharsets.US_ASCII)));
+        } finally {
+            macs.release(mac);
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 在响应提交前写 Server-Timing 响应头；第一次获取输出流时开始记录写响应体的耗时。
+     * <p>
+     * 响应设置了 Content-Length 时，容器在写满指定长度后立即提交响应，因此在写第一个字节前写出响应头；
+     * 这时写响应体的耗时还无法测量，HTTP/1.1 定长响应也不能带 trailer，响应头中不包含 body 阶段，而不是报告一个接近 0 的值。
+     * 其余情况在 flush、close 或请求处理结束时写出，body 为从获取输出流到写出响应头的耗时。
+     */
+    static final class TimingResponse extends HttpServletResponseWrapper {
+
+        private final ServerTiming.Recorder recorder;
+
+        private boolean headerWritten;
+
+        private boolean contentLengthSet;
+
+        private ServletOutputStream outputStream;
+
+        private PrintWriter writer;
+
+        TimingResponse(HttpServletResponse response, ServerTiming.Recorder recorder) {
+            super(response);
+            this.recorder = recorder;
+        }
+
+        void writeHeader() {
+            if (!headerWritten) {
+                headerWritten = true;
+                if (!isCommitted()) {
+                    setHeader(HEADER, recorder.toHeaderValue());
+                }
+            }
+        }
+
+        /**
+         * 写响应体之前调用
+         */
+        void beforeWrite() {
+            if (contentLengthSet && !headerWritten) {
+                recorder.bodySkipped();
+                writeHeader();
+            }
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            contentLengthSet = true;
+            super.setContentLength(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            contentLengthSet = true;
+            super.setContentLengthLong(len);
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            contentLengthSet |= "Content-Length".equalsIgnoreCase(name);
+            super.setHeader(name, value);
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            contentLengthSet |= "Content-Length".equalsIgnoreCase(name);
+            super.addHeader(name, value);
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            contentLengthSet |= "Content-Length".equalsIgnoreCase(name);
+            super.setIntHeader(name, value);
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            contentLengthSet |= "Content-Length".equalsIgnoreCase(name);
+            super.addIntHeader(name, value);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                recorder.bodyStarted();
+                outputStream = new TimingOutputStream(super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                recorder.bodyStarted();
+                writer = new PrintWriter(super.getWriter()) {
+
+                    @Override
+                    public void write(int c) {
+                        beforeWrite();
+                        super.write(c);
+                    }
+
+                    @Override
+                    public void write(char[] buf, int off, int len) {
+                        beforeWrite();
+                        super.write(buf, off, len);
+                    }
+
+                    @Override
+                    public void write(String s, int off, int len) {
+                        beforeWrite();
+                        super.write(s, off, len);
+                    }
+
+                    @Override
+                    public void flush() {
+                        writeHeader();
+                        super.flush();
+                    }
+
+                    @Override
+                    public void close() {
+                        writeHeader();
+                        super.close();
+                    }
+                };
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeader();
+            super.sendRedirect(location);
+        }
+
+        private final class TimingOutputStream extends ServletOutputStream {
+
+            private final ServletOutputStream delegate;
+
+            TimingOutputStream(ServletOutputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                beforeWrite();
+                delegate.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                beforeWrite();
+                delegate.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                writeHeader();
+                delegate.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                writeHeader();
+                delegate.close();
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                delegate.setWriteListener(writeListener);
+            }
+        }
+    }
+}
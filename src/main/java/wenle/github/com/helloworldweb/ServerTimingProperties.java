@@ -0,0 +1,54 @@
+package wenle.github.com.helloworldweb;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Server-Timing 配置，前缀 server-timing
+ */
+@ConfigurationProperties(prefix = "server-timing")
+public class ServerTimingProperties {
+
+    /**
+     * 是否对所有请求返回 Server-Timing
+     */
+    private boolean enabled;
+
+    /**
+     * X-Server-Timing-Token 签名的密钥，为空时不接受签名请求头
+     */
+    private String secret;
+
+    /**
+     * 签名的过期时间最多比当前时间晚多久
+     */
+    private Duration maxTokenTtl = ServerTimingFilter.DEFAULT_MAX_TOKEN_TTL;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getSecret() {
+        return secret;
+    }
+
+    public void setSecret(String secret) {
+        this.secret = secret;
+    }
+
+    public Duration getMaxTokenTtl() {
+        return maxTokenTtl;
+    }
+
+    public void setMaxTokenTtl(Duration maxTokenTtl) {
+        if (maxTokenTtl == null || maxTokenTtl.isNegative() || maxTokenTtl.isZero()) {
+            throw new IllegalArgumentException("server-timing.max-token-ttl must be positive, was " + maxTokenTtl);
+        }
+        this.maxTokenTtl = maxTokenTtl;
+    }
+}
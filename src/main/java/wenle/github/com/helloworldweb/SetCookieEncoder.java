@@ -0,0 +1,284 @@
+package wenle.github.com.helloworldweb;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Set-Cookie 响应头值的编码器。
+ * <p>
+ * 一次顺序写入 name=value、Domain、Expires/Max-Age、Path、Secure、HttpOnly、Priority 和 SameSite，
+ * 写入可复用的 char 缓冲区，不产生中间字符串。通过 {@link #acquire()} 按线程复用实例，
+ * 稳态下编码一个 Cookie 不产生任何对象；只有最终调用 {@link #toString()} 交给 Servlet API 时生成一个 String。
+ * <p>
+ * 实例不是线程安全的。
+ */
+final class SetCookieEncoder implements CharSequence {
+
+    /**
+     * 初始缓冲区大小，能容纳绝大多数 Cookie
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * 线程复用时保留的最大缓冲区，超大 Cookie 编码后缓冲区会被缩回初始大小
+     */
+    private static final int MAX_RETAINED_CAPACITY = 8 * 1024;
+
+    private static final PerThreadCache<SetCookieEncoder> CACHE = new PerThreadCache<>(SetCookieEncoder::new);
+
+    private char[] buf = new char[INITIAL_CAPACITY];
+
+    private int length;
+
+    /**
+     * 借用当前线程复用的编码器，用完后必须调用 {@link #release(SetCookieEncoder)}
+     *
+     * @return 编码器
+     */
+    static SetCookieEncoder acquire() {
+        return CACHE.acquire();
+    }
+
+    /**
+     * 归还编码器
+     *
+     * @param encoder {@link #acquire()} 借出的编码器
+     */
+    static void release(SetCookieEncoder encoder) {
+        CACHE.release(encoder);
+    }
+
+    /**
+     * 清空缓冲区并编码一个 Cookie
+     *
+     * @param version   Cookie 版本
+     * @param name      cookie 名
+     * @param value     cookie 值
+     * @param comment   注释，仅 version 1 使用
+     * @param domain    域名
+     * @param maxAge    最大存活时间秒数，小于 0 表示会话 Cookie
+     * @param nowMillis 计算 Expires 使用的当前时间
+     * @param path      路径
+     * @param secure    是否是SSL/HTTPS
+     * @param httpOnly  是否仅页面可以使用，禁止脚本使用
+     * @param priority  优先级
+     * @return this
+     */
+    SetCookieEncoder encode(final int version, String name, String value, final String comment, final String domain,
+        final int maxAge, final long nowMillis, final String path, final boolean secure, final boolean httpOnly,
+        final String priority) {
+        if (buf.length > MAX_RETAINED_CAPACITY) {
+            buf = new char[INITIAL_CAPACITY];
+        }
+        length = 0;
+
+        if (name == null) { // Avoid NPE on malformed cookies
+            name = "";
+        }
+        if (value == null) {
+            value = "";
+        }
+
+        append(name);
+        append('=');
+        maybeQuote(version, value);
+
+        // add version 1 specific information
+        if (version == 1) {
+            append("; Version=1");
+            if (comment != null) {
+                append("; Comment=");
+                maybeQuote(version, comment);
+            }
+        }
+
+        if (domain != null) {
+            append("; Domain=");
+            maybeQuote(version, domain);
+        }
+
+        // Max-Age=secs/Discard ... or use old "Expires" format
+        if (maxAge >= 0) {
+            if (version == 0) {
+                append("; Expires=");
+                append(ExpiresFormatter.format(nowMillis, maxAge)); //必须使用GMT模式
+            } else {
+                append("; Max-Age=");
+                append(maxAge);
+            }
+        } else if (version == 1) {
+            append("; Discard");
+        }
+
+        if (path != null) {
+            append("; Path=");
+            maybeQuote(version, path);
+        }
+
+        if (secure) {
+            append("; Secure");
+        }
+
+        if (httpOnly) {
+            append("; HttpOnly");
+        }
+
+        if (StringUtils.isNotBlank(priority)) {
+            append("; Priority=");
+            append(priority);
+        }
+        return this;
+    }
+
+    /**
+     * 清空缓冲区，按预先计算好的片段编码一个 version 0 的 Cookie，输出与
+     * {@link #encode(int, String, String, String, String, int, long, String, boolean, boolean, String)} 一致
+     *
+     * @param prefix        "name="
+     * @param value         cookie 值
+     * @param domainSegment "; Domain=xxx"，没有域名时为空字符串
+     * @param maxAge        最大存活时间秒数，小于 0 表示会话 Cookie
+     * @param nowMillis     计算 Expires 使用的当前时间
+     * @param tail          Expires 之后的固定属性，例如 "; Path=/; Secure; HttpOnly"
+     * @return this
+     * @see CookieTemplate
+     */
+    SetCookieEncoder encode(final String prefix, final String value, final String domainSegment, final int maxAge,
+        final long nowMillis, final String tail) {
+        if (buf.length > MAX_RETAINED_CAPACITY) {
+            buf = new char[INITIAL_CAPACITY];
+        }
+        length = 0;
+        append(prefix);
+        if (value != null) {
+            append(value);
+        }
+        append(domainSegment);
+        if (maxAge >= 0) {
+            append("; Expires=");
+            append(ExpiresFormatter.format(nowMillis, maxAge));
+        }
+        append(tail);
+        return this;
+    }
+
+    /**
+     * 追加 SameSite 后缀，与 {@link CookieUtil#appendSameSite} 一致：已经包含 SameSite 时不追加
+     *
+     * @param suffix SameSite 后缀，例如 "; SameSite=None"，可以为空
+     * @return this
+     */
+    SetCookieEncoder appendSameSite(final String suffix) {
+        if (!suffix.isEmpty() && !containsSameSite()) {
+            append(suffix);
+        }
+        return this;
+    }
+
+    /**
+     * 直接追加 SameSite 后缀，调用方已经确认不包含 SameSite
+     *
+     * @param suffix SameSite 后缀，可以为空
+     * @return this
+     */
+    SetCookieEncoder appendSameSiteUnchecked(final String suffix) {
+        append(suffix);
+        return this;
+    }
+
+    /**
+     * 与 {@link CookieUtil#containsSameSite(String)} 相同的判断：第一个分号之后是否出现 samesite（忽略大小写）
+     *
+     * @return true or false
+     */
+    boolean containsSameSite() {
+        int from = 0;
+        while (from < length && buf[from] != ';') {
+            from++;
+        }
+        final String attribute = "samesite";
+        final int last = length - attribute.length();
+        for (int i = from; i <= last; i++) {
+            int j = 0;
+            while (j < attribute.length() && Character.toLowerCase(buf[i + j]) == attribute.charAt(j)) {
+                j++;
+            }
+            if (j == attribute.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return buf[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    /**
+     * 生成 Set-Cookie 响应头的值
+     */
+    @Override
+    public String toString() {
+        return new String(buf, 0, length);
+    }
+
+    /**
+     * 值是否需要引号引起来
+     */
+    private void maybeQuote(final int version, final String value) {
+        if (version == 0 || CookieUtil.isToken(value)) {
+            append(value);
+        } else {
+            append('"');
+            append(value);
+            append('"');
+        }
+    }
+
+    private void append(final String s) {
+        final int len = s.length();
+        ensureCapacity(length + len);
+        s.getChars(0, len, buf, length);
+        length += len;
+    }
+
+    private void append(final char c) {
+        ensureCapacity(length + 1);
+        buf[length++] = c;
+    }
+
+    private void append(int value) {
+        // maxAge >= 0，按十进制逐位写入
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        ensureCapacity(length + digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > buf.length) {
+            char[] grown = new char[Math.max(capacity, buf.length * 2)];
+            System.arraycopy(buf, 0, grown, 0, length);
+            buf = grown;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.IOException;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * 请求处理完成后统计响应中 Set-Cookie 响应头的字节数，记录到 {@code cookie.set.cookie.bytes}。
+ * 容器在 addCookie 时已生成 Set-Cookie 响应头，因此这里也能统计到交给容器写出的 Cookie。
+ * 启动预热请求（{@link JitWarmup#isWarmUpRequest}）不统计，处理该请求期间当前线程的其他 Cookie 指标也关闭；
+ * 只带有 {@value JitWarmup#HEADER} 请求头而没有正确令牌的请求照常统计。
+ */
+public class SetCookieMetricsFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        if (JitWarmup.isWarmUpRequest(request)) {
+            CookieMetrics.suppress();
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                CookieMetrics.unsuppress();
+            }
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (CookieMetrics.isSetCookieBytesEnabled()) {
+                long bytes = 0;
+                for (String header : response.getHeaders("Set-Cookie")) {
+                    // Cookie 响应头只包含 ASCII 字符
+                    bytes += header.length();
+                }
+                CookieMetrics.recordSetCookieBytes(bytes);
+            }
+        }
+    }
+}
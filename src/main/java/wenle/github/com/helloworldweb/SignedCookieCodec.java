@@ -0,0 +1,289 @@
+package wenle.github.com.helloworldweb;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * 无状态会话 Cookie 的编解码：签名或加密后的负载直接放在 Cookie 值里，校验时不需要查询服务端存储。
+ * <p>
+ * 值的格式，各段均为 base64url（无填充），时间戳为签发时的 epoch 秒（36 进制）：
+ * <pre>
+ * 签名：s1.&lt;密钥 id&gt;.&lt;时间戳&gt;.&lt;负载&gt;.&lt;HMAC-SHA256 前 16 字节&gt;
+ * 加密：e1.&lt;密钥 id&gt;.&lt;时间戳&gt;.&lt;12 字节 IV + AES-GCM 密文和 16 字节标签&gt;
+ * </pre>
+ * 签名覆盖 cookie 名和前面所有段，加密时 cookie 名和前三段作为附加认证数据，因此 Cookie 不能改名使用，时间戳也不能修改。
+ * 两种格式都可以解码，切换是否加密不会使已签发的 Cookie 失效。
+ * Mac 和 Cipher 按线程缓存，不在每个请求中调用 getInstance；标签使用常量时间比较，只接受规范的 base64url 编码。
+ *
+ * @param <T> 负载类型
+ */
+public final class SignedCookieCodec<T> {
+
+    static final String SIGNED = "s1.";
+
+    static final String ENCRYPTED = "e1.";
+
+    /**
+     * 签名截断后的字节数
+     */
+    static final int TAG_LENGTH = 16;
+
+    /**
+     * 浏览器对单个 Cookie 的限制约为 4096 字节，留出名字和属性的空间
+     */
+    static final int MAX_VALUE_LENGTH = 3800;
+
+    private static final int IV_LENGTH = 12;
+
+    private static final int GCM_TAG_BITS = 128;
+
+    /**
+     * 允许的时钟偏差，签发时间晚于当前时间超过该值时拒绝
+     */
+    private static final long CLOCK_SKEW_SECONDS = 60;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private static final PerThreadCache<Cipher> CIPHERS = new PerThreadCache<>(SignedCookieCodec::newCipher);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final CookieKeyRing keyRing;
+
+    private final CookiePayloadSerializer<T> serializer;
+
+    private final long maxAgeSeconds;
+
+    private final boolean encrypt;
+
+    private final Clock clock;
+
+    /**
+     * @param keyRing    密钥环
+     * @param serializer 负载序列化
+     * @param maxAge     签发后的有效时间
+     * @param encrypt    是否加密负载，否则只签名，负载可以被客户端读取
+     */
+    public SignedCookieCodec(CookieKeyRing keyRing, CookiePayloadSerializer<T> serializer, Duration maxAge, boolean encrypt) {
+        this(keyRing, serializer, maxAge, encrypt, Clock.systemUTC());
+    }
+
+    SignedCookieCodec(CookieKeyRing keyRing, CookiePayloadSerializer<T> serializer, Duration maxAge, boolean encrypt, Clock clock) {
+        this.keyRing = keyRing;
+        this.serializer = serializer;
+        this.maxAgeSeconds = maxAge.getSeconds();
+        this.encrypt = encrypt;
+        this.clock = clock;
+    }
+
+    /**
+     * @return 签发后的有效秒数，可以作为 Cookie 的 Max-Age
+     */
+    public long getMaxAgeSeconds() {
+        return maxAgeSeconds;
+    }
+
+    /**
+     * 用主密钥签名或加密负载
+     *
+     * @param name  cookie 名
+     * @param value 负载
+     * @return cookie 值
+     * @throws IllegalArgumentException 编码后超过 {@link #MAX_VALUE_LENGTH}
+     */
+    public String encode(String name, T value) {
+        CookieKeyRing.Key key = keyRing.primary();
+        byte[] payload = serializer.serialize(value);
+        String header = (encrypt ? ENCRYPTED : SIGNED) + key.getId() + '.' + Long.toString(clock.instant().getEpochSecond(), 36) + '.';
+        String cookie;
+        if (encrypt) {
+            cookie = header + ENCODER.encodeToString(seal(key, name, header, payload));
+        } else {
+            String body = header + ENCODER.encodeToString(payload);
+            cookie = body + '.' + ENCODER.encodeToString(tag(key, name, body.getBytes(StandardCharsets.US_ASCII), body.length()));
+        }
+        if (cookie.length() > MAX_VALUE_LENGTH) {
+            throw new IllegalArgumentException("Signed cookie '" + name + "' is " + cookie.length() + " bytes, limit is " + MAX_VALUE_LENGTH);
+        }
+        return cookie;
+    }
+
+    /**
+     * 校验并解码
+     *
+     * @param name  cookie 名
+     * @param value cookie 值，可以为 null
+     * @return 解码结果；值为空、格式错误、密钥未知、签名错误或已过期时返回 null
+     */
+    public SignedCookie<T> decode(String name, String value) {
+        if (value == null || value.length() > MAX_VALUE_LENGTH) {
+            return null;
+        }
+        boolean encrypted = value.startsWith(ENCRYPTED);
+        if (!encrypted && !value.startsWith(SIGNED)) {
+            return null;
+        }
+        int keyEnd = value.indexOf('.', SIGNED.length());
+        int timeEnd = keyEnd < 0 ? -1 : value.indexOf('.', keyEnd + 1);
+        if (timeEnd < 0) {
+            return null;
+        }
+        CookieKeyRing.Key key = keyRing.find(value.substring(SIGNED.length(), keyEnd));
+        if (key == null) {
+            return null;
+        }
+        try {
+            byte[] payload;
+            if (encrypted) {
+                payload = open(key, name, value.substring(0, timeEnd + 1), decode(value.substring(timeEnd + 1)));
+            } else {
+                int tagStart = value.lastIndexOf('.');
+                if (tagStart <= timeEnd) {
+                    return null;
+                }
+                byte[] ascii = value.getBytes(StandardCharsets.US_ASCII);
+                if (!MessageDigest.isEqual(tag(key, name, ascii, tagStart), decode(value.substring(tagStart + 1)))) {
+                    return null;
+                }
+                payload = decode(value.substring(timeEnd + 1, tagStart));
+            }
+            if (payload == null) {
+                return null;
+            }
+            long issuedAt = Long.parseLong(value, keyEnd + 1, timeEnd, 36);
+            long now = clock.instant().getEpochSecond();
+            if (now - issuedAt >= maxAgeSeconds || issuedAt - now > CLOCK_SKEW_SECONDS) {
+                return null;
+            }
+            return new SignedCookie<>(serializer.deserialize(payload), Instant.ofEpochSecond(issuedAt), key.getId());
+        } catch (IllegalArgumentException e) {
+            // base64、时间戳或负载格式错误
+            return null;
+        }
+    }
+
+    /**
+     * 是否应该重新签发：由旧密钥签名，或已经过了一半有效期（滑动过期）
+     *
+     * @param cookie 解码结果
+     * @return true or false
+     */
+    public boolean needsReissue(SignedCookie<T> cookie) {
+        return !cookie.keyId().equals(keyRing.primary().getId())
+            || clock.instant().getEpochSecond() - cookie.issuedAt().getEpochSecond() >= maxAgeSeconds / 2;
+    }
+
+    /**
+     * 解码 base64url，拒绝最后一个字符中未使用的位不为 0 的非规范编码，同一个 Cookie 只有一种合法写法
+     *
+     * @throws IllegalArgumentException 不是规范的 base64url
+     */
+    private static byte[] decode(String value) {
+        int unusedBits = switch (value.length() % 4) {
+            case 2 -> 4;
+            case 3 -> 2;
+            default -> 0;
+        };
+        if (unusedBits > 0) {
+            char last = value.charAt(value.length() - 1);
+            int sextet = last >= 'A' && last <= 'Z' ? last - 'A' : last >= 'a' && last <= 'z' ? last - 'a' + 26
+                : last >= '0' && last <= '9' ? last - '0' + 52 : last == '-' ? 62 : 63;
+            if ((sextet & ((1 << unusedBits) - 1)) != 0) {
+                throw new IllegalArgumentException("Non-canonical base64url");
+            }
+        }
+        return DECODER.decode(value);
+    }
+
+    /**
+     * @param ascii  Cookie 值的 ASCII 字节
+     * @param length 签名覆盖的字节数，即最后一个 '.' 之前的部分
+     */
+    private static byte[] tag(CookieKeyRing.Key key, String name, byte[] ascii, int length) {
+        Mac mac = key.acquireMac();
+        try {
+            mac.update(name.getBytes(StandardCharsets.US_ASCII));
+            mac.update((byte) '=');
+            mac.update(ascii, 0, length);
+            return Arrays.copyOf(mac.doFinal(), TAG_LENGTH);
+        } finally {
+            key.releaseMac(mac);
+        }
+    }
+
+    private static byte[] seal(CookieKeyRing.Key key, String name, String header, byte[] payload) {
+        byte[] iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        Cipher cipher = CIPHERS.acquire();
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, key.encryptionKey(), new GCMParameterSpec(GCM_TAG_BITS, iv));
+            cipher.updateAAD(aad(name, header));
+            byte[] sealed = new byte[IV_LENGTH + cipher.getOutputSize(payload.length)];
+            System.arraycopy(iv, 0, sealed, 0, IV_LENGTH);
+            cipher.doFinal(payload, 0, payload.length, sealed, IV_LENGTH);
+            return sealed;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            CIPHERS.release(cipher);
+        }
+    }
+
+    /**
+     * @return 明文，认证失败时返回 null
+     */
+    private static byte[] open(CookieKeyRing.Key key, String name, String header, byte[] sealed) {
+        if (sealed.length < IV_LENGTH + GCM_TAG_BITS / 8) {
+            return null;
+        }
+        Cipher cipher = CIPHERS.acquire();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key.encryptionKey(), new GCMParameterSpec(GCM_TAG_BITS, sealed, 0, IV_LENGTH));
+            cipher.updateAAD(aad(name, header));
+            return cipher.doFinal(sealed, IV_LENGTH, sealed.length - IV_LENGTH);
+        } catch (AEADBadTagException e) {
+            return null;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            CIPHERS.release(cipher);
+        }
+    }
+
+    private static byte[] aad(String name, String header) {
+        return (name + '=' + header).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance("AES/GCM/NoPadding");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 校验通过的 Cookie
+     *
+     * @param value    负载
+     * @param issuedAt 签发时间
+     * @param keyId    签名使用的密钥 id
+     * @param <T>      负载类型
+     */
+    public record SignedCookie<T>(T value, Instant issuedAt, String keyId) {
+    }
+}
@@ -0,0 +1,134 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * 以 User-Agent 为键缓存 {@link UserAgentProfile}（含 SameSite 兼容性判断结果）。
+ * <p>
+ * 线上不同的 User-Agent 只有几千个，同一请求写多个 Cookie 或者老访客再次访问时都可以跳过 User-Agent 解析。
+ * 底层使用 Caffeine 的 W-TinyLFU 淘汰策略，爬虫等一次性的 User-Agent 扫描不会把热点条目挤出缓存；
+ * 按 User-Agent 字符长度计算权重来限制内存占用，超长的 User-Agent 直接计算、不进入缓存。
+ */
+public final class UserAgentDecisionCache {
+
+    /**
+     * 默认最大权重，约等于缓存占用的字节数
+     */
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 4L * 1024 * 1024;
+
+    /**
+     * 默认可缓存的最大 User-Agent 长度
+     */
+    public static final int DEFAULT_MAX_USER_AGENT_LENGTH = 1024;
+
+    /**
+     * 每个条目除 User-Agent 字符之外的估算开销（节点、String 对象头等）
+     */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private static final UserAgentDecisionCache INSTANCE = new UserAgentDecisionCache(DEFAULT_MAXIMUM_WEIGHT, DEFAULT_MAX_USER_AGENT_LENGTH);
+
+    private final Cache<String, UserAgentProfile> cache;
+
+    private final int maxUserAgentLength;
+
+    private final LongAdder bypassCount = new LongAdder();
+
+    /**
+     * @param maximumWeight      最大权重，约等于缓存占用的字节数
+     * @param maxUserAgentLength 可缓存的最大 User-Agent 长度
+     */
+    public UserAgentDecisionCache(long maximumWeight, int maxUserAgentLength) {
+        this.maxUserAgentLength = maxUserAgentLength;
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(maximumWeight)
+            .weigher((String userAgent, UserAgentProfile value) -> ENTRY_OVERHEAD + userAgent.length() * 2)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * 全局共享实例
+     *
+     * @return 缓存实例
+     */
+    public static UserAgentDecisionCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 获取 User-Agent 的解析结果，未命中时解析并缓存
+     *
+     * @param userAgent User-Agent
+     * @return 解析结果
+     */
+    public UserAgentProfile get(String userAgent) {
+        if (userAgent == null || userAgent.isEmpty()) {
+            return UserAgentProfile.EMPTY;
+        }
+        if (userAgent.length() > maxUserAgentLength) {
+            bypassCount.increment();
+            return UserAgentScanner.scan(userAgent);
+        }
+        return cache.get(userAgent, UserAgentScanner::scan);
+    }
+
+    /**
+     * 命中、未命中、淘汰次数等统计
+     *
+     * @return 统计快照
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+
+    public long evictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    /**
+     * 因 User-Agent 超长而未进入缓存的次数
+     *
+     * @return 次数
+     */
+    public long bypassCount() {
+        return bypassCount.sum();
+    }
+
+    /**
+     * 当前缓存的条目数（估算值）
+     *
+     * @return 条目数
+     */
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 暴露底层缓存，供监控绑定
+     *
+     * @return Caffeine 缓存
+     */
+    Cache<String, UserAgentProfile> unwrap() {
+        return cache;
+    }
+}
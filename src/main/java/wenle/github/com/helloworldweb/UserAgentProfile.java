@@ -0,0 +1,203 @@
+package wenle.github.com.helloworldweb;
+
+/**
+ * User-Agent 解析结果，不可变，由 {@link UserAgentScanner} 一次遍历 User-Agent 生成。
+ * <p>
+ * 各字段的含义与 CookieUtil 原有正则的匹配结果一一对应，版本号不存在或无法与整数精确对应时为 {@link #UNKNOWN_VERSION}。
+ */
+public final class UserAgentProfile {
+
+    /**
+     * 版本号未知
+     */
+    public static final int UNKNOWN_VERSION = -1;
+
+    /**
+     * 空 User-Agent 对应的结果
+     */
+    public static final UserAgentProfile EMPTY = new UserAgentProfile(false, UNKNOWN_VERSION, false, UNKNOWN_VERSION, UNKNOWN_VERSION,
+        false, false, false, false, UNKNOWN_VERSION, false, UNKNOWN_VERSION, UNKNOWN_VERSION, UNKNOWN_VERSION);
+
+    /**
+     * 操作系统
+     */
+    public enum OsFamily {
+        IOS, MAC_OS_X, OTHER
+    }
+
+    /**
+     * 浏览器内核
+     */
+    public enum Engine {
+        CHROMIUM, WEBKIT, OTHER
+    }
+
+    private final boolean ios;
+
+    private final int iosMajor;
+
+    private final boolean macOsX;
+
+    private final int macOsXMajor;
+
+    private final int macOsXMinor;
+
+    private final boolean webKit;
+
+    private final boolean safari;
+
+    private final boolean macEmbeddedBrowser;
+
+    private final boolean chromiumBased;
+
+    private final int chromiumMajor;
+
+    private final boolean ucBrowser;
+
+    private final int ucMajor;
+
+    private final int ucMinor;
+
+    private final int ucBuild;
+
+    private final SameSiteCompatibility sameSiteCompatibility;
+
+    UserAgentProfile(boolean ios, int iosMajor, boolean macOsX, int macOsXMajor, int macOsXMinor, boolean webKit, boolean safari,
+        boolean macEmbeddedBrowser, boolean chromiumBased, int chromiumMajor, boolean ucBrowser, int ucMajor, int ucMinor, int ucBuild) {
+        this.ios = ios;
+        this.iosMajor = iosMajor;
+        this.macOsX = macOsX;
+        this.macOsXMajor = macOsXMajor;
+        this.macOsXMinor = macOsXMinor;
+        this.webKit = webKit;
+        this.safari = safari;
+        this.macEmbeddedBrowser = macEmbeddedBrowser;
+        this.chromiumBased = chromiumBased;
+        this.chromiumMajor = chromiumMajor;
+        this.ucBrowser = ucBrowser;
+        this.ucMajor = ucMajor;
+        this.ucMinor = ucMinor;
+        this.ucBuild = ucBuild;
+        this.sameSiteCompatibility = SameSiteCompatibility.of(hasWebKitSameSiteBug(), dropsUnrecognizedSameSiteCookies(), isChromiumVersionAtLeast(80));
+    }
+
+    public OsFamily getOsFamily() {
+        if (ios) {
+            return OsFamily.IOS;
+        }
+        return macOsX ? OsFamily.MAC_OS_X : OsFamily.OTHER;
+    }
+
+    public Engine getEngine() {
+        if (chromiumBased) {
+            return Engine.CHROMIUM;
+        }
+        return webKit ? Engine.WEBKIT : Engine.OTHER;
+    }
+
+    /**
+     * iOS 主版本号，版本号带前导 0 或超过 9 位时为 {@link #UNKNOWN_VERSION}
+     */
+    public int getIosMajor() {
+        return iosMajor;
+    }
+
+    public int getMacOsXMajor() {
+        return macOsXMajor;
+    }
+
+    public int getMacOsXMinor() {
+        return macOsXMinor;
+    }
+
+    /**
+     * Chromium 主版本号，超过 int 范围时取 {@link Integer#MAX_VALUE}
+     */
+    public int getChromiumMajor() {
+        return chromiumMajor;
+    }
+
+    public int getUcMajor() {
+        return ucMajor;
+    }
+
+    public int getUcMinor() {
+        return ucMinor;
+    }
+
+    public int getUcBuild() {
+        return ucBuild;
+    }
+
+    public boolean isSafari() {
+        return safari;
+    }
+
+    public boolean isMacEmbeddedBrowser() {
+        return macEmbeddedBrowser;
+    }
+
+    public boolean isChromiumBased() {
+        return chromiumBased;
+    }
+
+    public boolean isUcBrowser() {
+        return ucBrowser;
+    }
+
+    public boolean isIosVersion(int major) {
+        return ios && major >= 0 && iosMajor == major;
+    }
+
+    public boolean isMacosxVersion(int major, int minor) {
+        return macOsX && major >= 0 && minor >= 0 && macOsXMajor == major && macOsXMinor == minor;
+    }
+
+    public boolean isChromiumVersionAtLeast(int major) {
+        return chromiumMajor != UNKNOWN_VERSION && chromiumMajor >= major;
+    }
+
+    public boolean isUcBrowserVersionAtLeast(int major, int minor, int build) {
+        if (ucMajor == UNKNOWN_VERSION) {
+            return false;
+        } else if (ucMajor != major) {
+            return ucMajor > major;
+        } else if (ucMinor != minor) {
+            return ucMinor > minor;
+        } else {
+            return ucBuild >= build;
+        }
+    }
+
+    public boolean hasWebKitSameSiteBug() {
+        return isIosVersion(12) || isMacosxVersion(10, 14) && (safari || macEmbeddedBrowser);
+    }
+
+    public boolean dropsUnrecognizedSameSiteCookies() {
+        if (ucBrowser) {
+            return !isUcBrowserVersionAtLeast(12, 13, 2);
+        } else {
+            return chromiumBased && isChromiumVersionAtLeast(51) && !isChromiumVersionAtLeast(67);
+        }
+    }
+
+    public boolean isSameSiteNoneIncompatible() {
+        return sameSiteCompatibility.isSameSiteNoneIncompatible();
+    }
+
+    public SameSiteCompatibility getSameSiteCompatibility() {
+        return sameSiteCompatibility;
+    }
+
+    @Override
+    public String toString() {
+        return "UserAgentProfile{os=" + getOsFamily()
+            + ", iosMajor=" + iosMajor
+            + ", macOsX=" + macOsXMajor + '_' + macOsXMinor
+            + ", engine=" + getEngine()
+            + ", chromiumMajor=" + chromiumMajor
+            + ", uc=" + ucBrowser + '/' + ucMajor + '.' + ucMinor + '.' + ucBuild
+            + ", safari=" + safari
+            + ", macEmbeddedBrowser=" + macEmbeddedBrowser + '}';
+    }
+}
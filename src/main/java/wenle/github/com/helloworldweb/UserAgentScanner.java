@@ -0,0 +1,361 @@
+package wenle.github.com.helloworldweb;
+
+/**
+ * 手写的 User-Agent 单遍扫描器，替代 CookieUtil 中逐个谓词执行的正则链。
+ * <p>
+ * 每个判断的结果与原正则（{@code find()} 语义）完全一致：
+ * <ul>
+ * <li>iOS：{@code \(iP.+; CPU .*OS (\d+)[_\d]*.*\) AppleWebKit/}</li>
+ * <li>Mac OS X：{@code \(Macintosh;.*Mac OS X (\d+)_(\d+)[_\d]*.*\) AppleWebKit/}</li>
+ * <li>Safari：{@code Version/.* Safari/}</li>
+ * <li>Mac 内嵌浏览器：{@code ^Mozilla/[.\d]+ \(Macintosh;.*Mac OS X [_\d]+\) AppleWebKit/[.\d]+ \(KHTML, like Gecko\)$}</li>
+ * <li>Chromium：{@code Chrom(e|ium)} 与 {@code Chrom[^ /]+/(\d+)[.\d]* }</li>
+ * <li>UC 浏览器：{@code UBrowser/} 与 {@code UBrowser/(\d+)\.(\d+)\.(\d+)[.\d]* }</li>
+ * </ul>
+ * 贪婪的 {@code .*} 最终总是落在同一行内最后一个可行的位置，因此扫描时只需记住每行最后一个被
+ * {@code ") AppleWebKit/"} 确认的候选版本号，不需要回溯；除最终生成的 {@link UserAgentProfile} 外不分配对象，
+ * 耗时与 User-Agent 长度成线性关系，超长的恶意 User-Agent 也不会引发灾难性回溯。
+ * <p>
+ * 唯一与正则实现不同的是版本号超过 int 范围时：原实现 {@code Integer.valueOf} 抛出 NumberFormatException，
+ * 这里按 {@link Integer#MAX_VALUE} 处理。
+ */
+public final class UserAgentScanner {
+
+    private static final String IPHONE_PREFIX = "(iP";
+
+    private static final String CPU = "; CPU ";
+
+    private static final String OS = "OS ";
+
+    private static final String MACINTOSH = "(Macintosh;";
+
+    private static final String MAC_OS_X = "Mac OS X ";
+
+    private static final String APPLE_WEBKIT = ") AppleWebKit/";
+
+    private static final String VERSION = "Version/";
+
+    private static final String SAFARI = " Safari/";
+
+    private static final String CHROM = "Chrom";
+
+    private static final String UC_BROWSER = "UBrowser/";
+
+    private static final String MOZILLA = "Mozilla/";
+
+    private static final String MACINTOSH_WITH_SPACE = " (Macintosh;";
+
+    private static final String KHTML = " (KHTML, like Gecko)";
+
+    private static final String APPLE_WEBKIT_WITHOUT_SLASH = ") AppleWebKit";
+
+    private UserAgentScanner() {
+    }
+
+    /**
+     * 扫描 User-Agent
+     *
+     * @param userAgent User-Agent，可以为 null
+     * @return 解析结果
+     */
+    public static UserAgentProfile scan(String userAgent) {
+        if (userAgent == null || userAgent.isEmpty()) {
+            return UserAgentProfile.EMPTY;
+        }
+        final int len = userAgent.length();
+
+        // iOS 与 Mac OS X 只能在同一行内匹配，取第一个匹配成功的行
+        boolean ios = false;
+        int iosMajor = UserAgentProfile.UNKNOWN_VERSION;
+        boolean macOsX = false;
+        int macOsXMajor = UserAgentProfile.UNKNOWN_VERSION;
+        int macOsXMinor = UserAgentProfile.UNKNOWN_VERSION;
+
+        // 当前行的状态
+        int iPhonePos = -1;
+        int cpuPos = -1;
+        int iosCandidatePos = -1;
+        int iosCandidate = UserAgentProfile.UNKNOWN_VERSION;
+        int iosConfirmedPos = -1;
+        int iosConfirmed = UserAgentProfile.UNKNOWN_VERSION;
+        int macintoshPos = -1;
+        int macCandidatePos = -1;
+        int macCandidateMajor = UserAgentProfile.UNKNOWN_VERSION;
+        int macCandidateMinor = UserAgentProfile.UNKNOWN_VERSION;
+        int macConfirmedPos = -1;
+        int macConfirmedMajor = UserAgentProfile.UNKNOWN_VERSION;
+        int macConfirmedMinor = UserAgentProfile.UNKNOWN_VERSION;
+        int versionPos = -1;
+
+        boolean webKit = false;
+        boolean safari = false;
+        boolean chromiumBased = false;
+        int chromiumMajor = UserAgentProfile.UNKNOWN_VERSION;
+        int chromSkipUntil = -1;
+        boolean ucBrowser = false;
+        int ucMajor = UserAgentProfile.UNKNOWN_VERSION;
+        int ucMinor = UserAgentProfile.UNKNOWN_VERSION;
+        int ucBuild = UserAgentProfile.UNKNOWN_VERSION;
+        boolean hasLineTerminator = false;
+
+        for (int i = 0; i <= len; i++) {
+            final char c = i < len ? userAgent.charAt(i) : '\n';
+            switch (c) {
+                case '(':
+                    if (iPhonePos < 0 && userAgent.startsWith(IPHONE_PREFIX, i)) {
+                        iPhonePos = i;
+                    } else if (macintoshPos < 0 && userAgent.startsWith(MACINTOSH, i)) {
+                        macintoshPos = i;
+                    }
+                    break;
+                case ';':
+                    if (cpuPos < 0 && iPhonePos >= 0 && i >= iPhonePos + IPHONE_PREFIX.length() + 1 && userAgent.startsWith(CPU, i)) {
+                        cpuPos = i;
+                    }
+                    break;
+                case 'O':
+                    if (userAgent.startsWith(OS, i) && i + OS.length() < len && isDigit(userAgent.charAt(i + OS.length()))) {
+                        iosCandidatePos = i;
+                        iosCandidate = exactVersion(userAgent, i + OS.length());
+                    }
+                    break;
+                case 'M':
+                    if (userAgent.startsWith(MAC_OS_X, i)) {
+                        int start = i + MAC_OS_X.length();
+                        int underscore = skipDigits(userAgent, start);
+                        if (underscore > start && underscore < len - 1 && userAgent.charAt(underscore) == '_'
+                            && isDigit(userAgent.charAt(underscore + 1))) {
+                            macCandidatePos = i;
+                            macCandidateMajor = exactVersion(userAgent, start);
+                            macCandidateMinor = exactVersion(userAgent, underscore + 1);
+                        }
+                    }
+                    break;
+                case ')':
+                    if (userAgent.startsWith(APPLE_WEBKIT, i)) {
+                        webKit = true;
+                        iosConfirmedPos = iosCandidatePos;
+                        iosConfirmed = iosCandidate;
+                        macConfirmedPos = macCandidatePos;
+                        macConfirmedMajor = macCandidateMajor;
+                        macConfirmedMinor = macCandidateMinor;
+                    }
+                    break;
+                case 'A':
+                    if (!webKit && userAgent.startsWith("AppleWebKit/", i)) {
+                        webKit = true;
+                    }
+                    break;
+                case 'V':
+                    if (versionPos < 0 && userAgent.startsWith(VERSION, i)) {
+                        versionPos = i;
+                    }
+                    break;
+                case ' ':
+                    if (!safari && versionPos >= 0 && i >= versionPos + VERSION.length() && userAgent.startsWith(SAFARI, i)) {
+                        safari = true;
+                    }
+                    break;
+                case 'C':
+                    if (userAgent.startsWith(CHROM, i)) {
+                        int next = i + CHROM.length();
+                        if (!chromiumBased && (userAgent.startsWith("e", next) || userAgent.startsWith("ium", next))) {
+                            chromiumBased = true;
+                        }
+                        // 同一段 [^ /]+ 内后出现的 Chrom 不会比先出现的更容易匹配
+                        if (chromiumMajor == UserAgentProfile.UNKNOWN_VERSION && i > chromSkipUntil) {
+                            int slash = next;
+                            while (slash < len && userAgent.charAt(slash) != ' ' && userAgent.charAt(slash) != '/') {
+                                slash++;
+                            }
+                            chromSkipUntil = slash;
+                            if (slash > next && slash < len && userAgent.charAt(slash) == '/') {
+                                int digitsEnd = skipDigits(userAgent, slash + 1);
+                                if (digitsEnd > slash + 1 && isSpaceAfterVersion(userAgent, digitsEnd)) {
+                                    chromiumMajor = saturatedVersion(userAgent, slash + 1, digitsEnd);
+                                }
+                            }
+                        }
+                    }
+                    break;
+                case 'U':
+                    if (userAgent.startsWith(UC_BROWSER, i)) {
+                        ucBrowser = true;
+                        if (ucMajor == UserAgentProfile.UNKNOWN_VERSION) {
+                            int majorStart = i + UC_BROWSER.length();
+                            int majorEnd = skipDigits(userAgent, majorStart);
+                            if (majorEnd > majorStart && majorEnd < len && userAgent.charAt(majorEnd) == '.') {
+                                int minorEnd = skipDigits(userAgent, majorEnd + 1);
+                                if (minorEnd > majorEnd + 1 && minorEnd < len && userAgent.charAt(minorEnd) == '.') {
+                                    int buildEnd = skipDigits(userAgent, minorEnd + 1);
+                                    if (buildEnd > minorEnd + 1 && isSpaceAfterVersion(userAgent, buildEnd)) {
+                                        ucMajor = saturatedVersion(userAgent, majorStart, majorEnd);
+                                        ucMinor = saturatedVersion(userAgent, majorEnd + 1, minorEnd);
+                                        ucBuild = saturatedVersion(userAgent, minorEnd + 1, buildEnd);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                    break;
+                case '\n':
+                case '\r':
+                case '\u0085':
+                case '\u2028':
+                case '\u2029':
+                    if (i < len) {
+                        hasLineTerminator = true;
+                    }
+                    // 行结束：. 不匹配换行符，iOS、Mac OS X、Safari 只能在行内匹配
+                    if (!ios && iPhonePos >= 0 && cpuPos >= 0 && iosConfirmedPos >= cpuPos + CPU.length()) {
+                        ios = true;
+                        iosMajor = iosConfirmed;
+                    }
+                    if (!macOsX && macintoshPos >= 0 && macConfirmedPos >= macintoshPos + MACINTOSH.length()) {
+                        macOsX = true;
+                        macOsXMajor = macConfirmedMajor;
+                        macOsXMinor = macConfirmedMinor;
+                    }
+                    iPhonePos = -1;
+                    cpuPos = -1;
+                    iosCandidatePos = -1;
+                    iosConfirmedPos = -1;
+                    macintoshPos = -1;
+                    macCandidatePos = -1;
+                    macConfirmedPos = -1;
+                    versionPos = -1;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        boolean macEmbeddedBrowser = isMacEmbeddedBrowser(userAgent, hasLineTerminator);
+        return new UserAgentProfile(ios, iosMajor, macOsX, macOsXMajor, macOsXMinor, webKit, safari, macEmbeddedBrowser,
+            chromiumBased, chromiumMajor, ucBrowser, ucMajor, ucMinor, ucBuild);
+    }
+
+    /**
+     * 锚定首尾的 Mac 内嵌浏览器判断，从两端向中间检查
+     */
+    private static boolean isMacEmbeddedBrowser(String userAgent, boolean hasLineTerminator) {
+        int end = userAgent.length();
+        if (hasLineTerminator) {
+            // $ 可以匹配末尾的一个行结束符之前的位置，其余位置不允许出现行结束符
+            char last = userAgent.charAt(end - 1);
+            if (last == '\n' && end >= 2 && userAgent.charAt(end - 2) == '\r') {
+                end -= 2;
+            } else if (isLineTerminator(last)) {
+                end -= 1;
+            }
+            for (int i = 0; i < end; i++) {
+                if (isLineTerminator(userAgent.charAt(i))) {
+                    return false;
+                }
+            }
+        }
+        if (!userAgent.startsWith(MOZILLA)) {
+            return false;
+        }
+        int front = skipVersionChars(userAgent, MOZILLA.length(), end);
+        if (front == MOZILLA.length() || !userAgent.startsWith(MACINTOSH_WITH_SPACE, front)) {
+            return false;
+        }
+        int middleStart = front + MACINTOSH_WITH_SPACE.length();
+
+        int back = end - KHTML.length();
+        if (back < middleStart || !userAgent.startsWith(KHTML, back)) {
+            return false;
+        }
+        int webKitVersionStart = back;
+        while (webKitVersionStart > 0 && isVersionChar(userAgent.charAt(webKitVersionStart - 1))) {
+            webKitVersionStart--;
+        }
+        if (webKitVersionStart == back || webKitVersionStart < 1 || userAgent.charAt(webKitVersionStart - 1) != '/') {
+            return false;
+        }
+        int webKitPos = webKitVersionStart - 1 - APPLE_WEBKIT_WITHOUT_SLASH.length();
+        if (webKitPos < 0 || !userAgent.startsWith(APPLE_WEBKIT_WITHOUT_SLASH, webKitPos)) {
+            return false;
+        }
+        int osVersionStart = webKitPos;
+        while (osVersionStart > 0 && isOsVersionChar(userAgent.charAt(osVersionStart - 1))) {
+            osVersionStart--;
+        }
+        if (osVersionStart == webKitPos) {
+            return false;
+        }
+        int macOsXPos = osVersionStart - MAC_OS_X.length();
+        return macOsXPos >= middleStart && userAgent.startsWith(MAC_OS_X, macOsXPos);
+    }
+
+    /**
+     * 版本号之后是否是 [.\d]* 加空格
+     */
+    private static boolean isSpaceAfterVersion(String userAgent, int from) {
+        int i = skipVersionChars(userAgent, from, userAgent.length());
+        return i < userAgent.length() && userAgent.charAt(i) == ' ';
+    }
+
+    private static int skipDigits(String s, int from) {
+        int i = from;
+        while (i < s.length() && isDigit(s.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipVersionChars(String s, int from, int end) {
+        int i = from;
+        while (i < end && isVersionChar(s.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 与 {@code String.valueOf(major).equals(group)} 语义对应的版本号：带前导 0 或超过 9 位时无法与任何 int 相等
+     */
+    private static int exactVersion(String s, int from) {
+        int end = skipDigits(s, from);
+        int digits = end - from;
+        if (digits > 9 || digits > 1 && s.charAt(from) == '0') {
+            return UserAgentProfile.UNKNOWN_VERSION;
+        }
+        int value = 0;
+        for (int i = from; i < end; i++) {
+            value = value * 10 + (s.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    /**
+     * 与 {@code Integer.valueOf(group)} 语义对应的版本号，超出 int 范围时取最大值
+     */
+    private static int saturatedVersion(String s, int from, int end) {
+        long value = 0;
+        for (int i = from; i < end; i++) {
+            value = value * 10 + (s.charAt(i) - '0');
+            if (value > Integer.MAX_VALUE) {
+                return Integer.MAX_VALUE;
+            }
+        }
+        return (int) value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isVersionChar(char c) {
+        return c == '.' || isDigit(c);
+    }
+
+    private static boolean isOsVersionChar(char c) {
+        return c == '_' || isDigit(c);
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
@@ -0,0 +1,29 @@
+package wenle.github.com.helloworldweb;
+
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 使用虚拟线程处理 Tomcat 请求，需要 Java 21 及以上。
+ * <p>
+ * 通过 {@code spring.threads.virtual.enabled=true} 开启（与 Spring Boot 3.2 的配置项同名），
+ * 使用 {@code mvn -Pvirtual-threads} 构建时默认开启；默认的 Java 17 构建仍使用平台线程池。
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class VirtualThreadConfiguration {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException("spring.threads.virtual.enabled requires Java 21 or later, running on "
+                + Runtime.version());
+        }
+        return protocolHandler -> protocolHandler.setExecutor(new VirtualThreadExecutor("tomcat-handler-"));
+    }
+}
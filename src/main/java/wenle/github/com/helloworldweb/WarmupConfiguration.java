@@ -0,0 +1,26 @@
+package wenle.github.com.helloworldweb;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 启动预热的装配，{@code warmup.enabled=true} 时开启；只用于 Servlet 版本
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(WarmupProperties.class)
+@ConditionalOnProperty(prefix = "warmup", name = "enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class WarmupConfiguration {
+
+    /**
+     * ApplicationRunner 在 Spring Boot 发布 readiness 之前执行，预热结束后节点才报告可以接收流量
+     */
+    @Bean
+    public JitWarmup jitWarmup(WarmupProperties properties, ApplicationContext context) {
+        return new JitWarmup(properties, context);
+    }
+}
@@ -0,0 +1,64 @@
+package wenle.github.com.helloworldweb;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 启动预热配置，前缀 warmup
+ */
+@ConfigurationProperties(prefix = "warmup")
+public class WarmupProperties {
+
+    /**
+     * 是否在报告 readiness 之前预热
+     */
+    private boolean enabled;
+
+    /**
+     * 预热轮数，每轮执行一次所有预热操作
+     */
+    private int iterations = 5000;
+
+    /**
+     * 预热的最长时间，达到轮数或时间任一条件即结束
+     */
+    private Duration timeBudget = Duration.ofSeconds(10);
+
+    /**
+     * 预热前后各测量多少次单次调用耗时
+     */
+    private int samples = 200;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public void setIterations(int iterations) {
+        this.iterations = iterations;
+    }
+
+    public Duration getTimeBudget() {
+        return timeBudget;
+    }
+
+    public void setTimeBudget(Duration timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    public void setSamples(int samples) {
+        this.samples = samples;
+    }
+}
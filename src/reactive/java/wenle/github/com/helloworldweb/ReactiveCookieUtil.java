@@ -0,0 +1,179 @@
+package wenle.github.com.helloworldweb;
+
+import jakarta.servlet.http.Cookie;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.tomcat.util.http.CookieProcessor;
+import org.apache.tomcat.util.http.Rfc6265CookieProcessor;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * WebFlux 版本的 Cookie 工具，写出的 Set-Cookie 响应头与 {@link CookieUtil} 在 Servlet 容器中写出的逐字节一致。
+ * <p>
+ * 需要 SameSite 的 Cookie 与 {@link CookieUtil} 共用 {@link CookieUtil#encodeSetCookie} 编码和 {@link SameSitePolicyEngine} 的策略；
+ * 其他 Cookie 在 Servlet 版本中由 Tomcat 的 {@link Rfc6265CookieProcessor} 生成响应头，这里使用同一个实现。
+ * 同一个请求内的 User-Agent 判断结果保存在 exchange 属性中复用。
+ */
+public final class ReactiveCookieUtil {
+
+    /**
+     * 与 Tomcat 默认配置相同的 Cookie 响应头生成器，线程安全
+     */
+    private static final CookieProcessor COOKIE_PROCESSOR = new Rfc6265CookieProcessor();
+
+    private ReactiveCookieUtil() {
+    }
+
+    /**
+     * 获取 Cookie值，同名 Cookie 取第一个
+     *
+     * @param key     cookie 名称
+     * @param request 请求对象
+     * @return cookie 值
+     */
+    public static String getCookieValue(String key, ServerHttpRequest request) {
+        if (request == null || StringUtils.isBlank(key)) {
+            return null;
+        }
+        HttpCookie cookie = request.getCookies().getFirst(key);
+        return cookie != null && !RevocationRegistry.isRevokedValue(cookie.getValue()) ? cookie.getValue() : null;
+    }
+
+    /**
+     * 增加 cookie 键值对
+     *
+     * @param key      cookie 名
+     * @param value    cookie 值
+     * @param exchange 请求响应
+     */
+    public static void addCookie(String key, String value, ServerWebExchange exchange) {
+        addCookie(key, value, -1, null, null, false, true, null, exchange);
+    }
+
+    /**
+     * 增加 cookie 键值对
+     *
+     * @param key        cookie 名
+     * @param value      cookie 值
+     * @param maxAge     最大存活时间
+     * @param path       路径
+     * @param domainName 域名
+     * @param httpOnly   是否仅http，禁止脚本访问Cookie
+     * @param secure     是否是SSL/HTTPS
+     * @param priority   优先级
+     * @param exchange   请求响应
+     */
+    public static void addCookie(String key, String value, int maxAge, String path, String domainName,
+        final boolean httpOnly, final boolean secure, final String priority, ServerWebExchange exchange) {
+        setCookie(key, value, maxAge, path, domainName, httpOnly, secure, priority, exchange, false, "None", null, null);
+    }
+
+    /**
+     * 增加 cookie 键值对，按请求的 User-Agent 判断是否追加 SameSite
+     *
+     * @param key                  cookie 名
+     * @param value                cookie 值
+     * @param maxAgeSeconds        最大存活时间秒数
+     * @param path                 路径
+     * @param domainName           域名
+     * @param httpOnly             是否仅http，禁止脚本访问Cookie
+     * @param secure               是否是SSL/HTTPS
+     * @param exchange             请求响应
+     * @param cookieSameSiteValue  Cookie的同站属性值
+     * @param checkSameSiteRegex   检测是否同站的正则表达式
+     * @param checkUnSameSiteRegex 检测是否不同站的正则表达式
+     */
+    public static void addCookie(
+        String key,
+        String value,
+        long maxAgeSeconds,
+        String path,
+        String domainName,
+        final boolean httpOnly,
+        final boolean secure,
+        ServerWebExchange exchange,
+        String cookieSameSiteValue,
+        String checkSameSiteRegex,
+        String checkUnSameSiteRegex
+    ) {
+        setCookie(key, value, maxAgeSeconds, path, domainName, httpOnly, secure, null, exchange, true,
+            cookieSameSiteValue, checkSameSiteRegex, checkUnSameSiteRegex);
+    }
+
+    /**
+     * 移除 Cookie
+     *
+     * @param exchange 请求响应
+     * @param key      cookie 名
+     */
+    public static void removeCookie(ServerWebExchange exchange, String key) {
+        removeCookie(exchange, key, null, null);
+    }
+
+    /**
+     * 移除 Cookie
+     *
+     * @param exchange   请求响应
+     * @param key        cookie 名
+     * @param path       路径
+     * @param domainName 域名
+     */
+    public static void removeCookie(ServerWebExchange exchange, String key, String path, String domainName) {
+        addCookie(key, StringUtils.EMPTY, 0, path, domainName, true, false, null, exchange);
+    }
+
+    /**
+     * 增加 cookie 键值对
+     *
+     * @param useUserAgent 是否按请求的 User-Agent 判断 SameSite，为 false 时与 Servlet 版本不传请求的接口一致
+     */
+    private static void setCookie(
+        String key,
+        String value,
+        long maxAgeSeconds,
+        String path,
+        String domainName,
+        final boolean httpOnly,
+        final boolean secure,
+        final String priority,
+        ServerWebExchange exchange,
+        boolean useUserAgent,
+        String cookieSameSiteValue,
+        String checkSameSiteRegex,
+        String checkUnSameSiteRegex
+    ) {
+        if (exchange == null) {
+            return;
+        }
+        long start = CookieMetrics.startSetCookie();
+        try {
+            CookieUtil.checkName(key);
+            String cookiePath = StringUtils.isNotBlank(path) ? path : CookieUtil.ROOT_PATH;
+            String cookieDomain = StringUtils.isNotBlank(domainName) ? domainName : null;
+            String header;
+            if (httpOnly || StringUtils.isNotBlank(priority) || secure) {
+                SameSitePolicyEngine engine = SameSitePolicyEngine.getInstance();
+                SameSitePolicy policy = engine.resolve(cookieSameSiteValue, checkSameSiteRegex, checkUnSameSiteRegex);
+                String suffix = useUserAgent
+                    ? engine.suffixFor(exchange.getRequest().getHeaders().getFirst(HttpHeaders.USER_AGENT), policy,
+                        exchange::getAttribute, exchange.getAttributes()::put)
+                    : policy.suffixFor(null);
+                header = CookieUtil.encodeSetCookie(key, value, maxAgeSeconds, cookiePath, cookieDomain, httpOnly, secure, priority, suffix);
+            } else {
+                Cookie cookie = new Cookie(key, value);
+                cookie.setMaxAge((int) maxAgeSeconds);
+                cookie.setPath(cookiePath);
+                if (cookieDomain != null) {
+                    cookie.setDomain(cookieDomain);
+                }
+                header = COOKIE_PROCESSOR.generateHeader(cookie, null);
+            }
+            exchange.getResponse().getHeaders().add(HttpHeaders.SET_COOKIE, header);
+        } finally {
+            CookieMetrics.stopSetCookie(start);
+        }
+    }
+}
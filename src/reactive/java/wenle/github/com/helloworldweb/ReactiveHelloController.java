@@ -0,0 +1,108 @@
+package wenle.github.com.helloworldweb;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux 版本的 {@link HelloController}，接口和响应与 Servlet 版本一致
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveHelloController {
+
+    private static final MediaType TEXT_PLAIN_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    /**
+     * 输出响应头，{@code mode=request} 时输出请求头，响应体格式与 {@link HeaderEcho} 相同
+     */
+    @GetMapping("/home")
+    public Mono<Void> home(ServerWebExchange exchange, @RequestParam(name = "mode", required = false) String mode) {
+        ServerHttpResponse response = exchange.getResponse();
+        ReactiveCookieUtil.addCookie("key", "value", exchange);
+        boolean requestMode = "request".equals(mode);
+        HttpHeaders source = requestMode ? exchange.getRequest().getHeaders() : response.getHeaders();
+        byte[] title = requestMode ? HeaderEcho.REQUEST_TITLE : HeaderEcho.RESPONSE_TITLE;
+
+        int length = title.length;
+        for (Map.Entry<String, List<String>> header : source.entrySet()) {
+            if (isEchoed(header.getKey(), requestMode)) {
+                for (String value : header.getValue()) {
+                    length += header.getKey().length() + 2 + value.length() + 1;
+                }
+            }
+        }
+        DataBuffer buffer = response.bufferFactory().allocateBuffer(length);
+        buffer.write(title);
+        for (Map.Entry<String, List<String>> header : source.entrySet()) {
+            if (isEchoed(header.getKey(), requestMode)) {
+                for (String value : header.getValue()) {
+                    writeAscii(buffer, header.getKey());
+                    buffer.write((byte) ':').write((byte) ' ');
+                    writeAscii(buffer, value);
+                    buffer.write((byte) '\n');
+                }
+            }
+        }
+        // 与 Servlet 版本一样，输出的响应头不包含这里设置的 Content-Type 和 Content-Length
+        response.getHeaders().setContentType(TEXT_PLAIN_UTF8);
+        response.getHeaders().setContentLength(length);
+        return response.writeWith(Mono.just(buffer));
+    }
+
+    /**
+     * Reactor Netty 提交前响应头中就带有 transfer-encoding，Tomcat 此时还没有，跳过以保持与 Servlet 版本一致
+     */
+    private static boolean isEchoed(String name, boolean requestMode) {
+        return requestMode || !HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name);
+    }
+
+    private static void writeAscii(DataBuffer buffer, String value) {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            buffer.write(c < 0x80 ? (byte) c : (byte) '?');
+        }
+    }
+
+    /**
+     * 首页，与 Servlet 版本共用预先编码和压缩的响应
+     */
+    @GetMapping("/")
+    public Mono<Void> index(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders requestHeaders = exchange.getRequest().getHeaders();
+        HttpHeaders headers = response.getHeaders();
+        headers.add(HttpHeaders.SET_COOKIE, HelloController.INDEX_COOKIE);
+        PrecompressedResponse.Variant variant = HelloController.INDEX.select(requestHeaders.getFirst(HttpHeaders.ACCEPT_ENCODING));
+        headers.set(HttpHeaders.ETAG, variant.etag());
+        headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (PrecompressedResponse.matches(requestHeaders.getFirst(HttpHeaders.IF_NONE_MATCH), variant.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        headers.set(HttpHeaders.CONTENT_TYPE, HelloController.INDEX.getContentType());
+        if (variant.contentEncoding() != null) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, variant.contentEncoding());
+        }
+        headers.setContentLength(variant.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(variant.body())));
+    }
+
+    @GetMapping("/test")
+    public String test() {
+        return "Test success!";
+    }
+}
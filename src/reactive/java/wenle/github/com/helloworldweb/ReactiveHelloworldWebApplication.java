@@ -0,0 +1,19 @@
+package wenle.github.com.helloworldweb;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+/**
+ * 以 WebFlux + Reactor Netty 启动应用：mvn -Preactive package 后 java -jar 即使用此入口
+ */
+public final class ReactiveHelloworldWebApplication {
+
+    private ReactiveHelloworldWebApplication() {
+    }
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(HelloworldWebApplication.class)
+            .web(WebApplicationType.REACTIVE)
+            .run(args);
+    }
+}
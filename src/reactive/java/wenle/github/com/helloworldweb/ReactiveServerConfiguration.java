@@ -0,0 +1,22 @@
+package wenle.github.com.helloworldweb;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * WebFlux 版本使用 Reactor Netty。
+ * <p>
+ * Tomcat 仍在 classpath 上（Servlet 版本和 Cookie 响应头生成需要），自动配置会优先选择 Tomcat，
+ * 因此这里显式声明 Netty 的服务器工厂；server.port 等配置仍由 Spring Boot 应用到该工厂。
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveServerConfiguration {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
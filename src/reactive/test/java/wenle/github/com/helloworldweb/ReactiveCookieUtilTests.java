@@ -0,0 +1,102 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactiveCookieUtilTests {
+
+	private static final String CHROME_116 = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/116.0.0.0 Safari/537.36";
+
+	private static final String CHROME_60 = "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/60.0.3112.113 Safari/537.36";
+
+	@Test
+	void headersAreByteIdenticalToServlet() {
+		assertSameHeaders(null, (request, response) -> {
+			CookieUtil.addCookie("a", "1", response);
+			CookieUtil.addCookie("b", "2", 3600, true, true, "High", response);
+			CookieUtil.addCookie("c", "3", 60, "/app", ".example.com", true, false, response);
+			CookieUtil.addCookie("d", "a b", -1, null, null, true, true, response);
+			CookieUtil.removeCookie(null, response, "e", null, ".example.com");
+		}, exchange -> {
+			ReactiveCookieUtil.addCookie("a", "1", exchange);
+			ReactiveCookieUtil.addCookie("b", "2", 3600, null, null, true, true, "High", exchange);
+			ReactiveCookieUtil.addCookie("c", "3", 60, "/app", ".example.com", true, false, null, exchange);
+			ReactiveCookieUtil.addCookie("d", "a b", -1, null, null, true, true, null, exchange);
+			ReactiveCookieUtil.removeCookie(exchange, "e", null, ".example.com");
+		});
+	}
+
+	@Test
+	void sameSiteDecisionFollowsTheUserAgent() {
+		for (String userAgent : new String[] {CHROME_116, CHROME_60}) {
+			assertSameHeaders(userAgent, (request, response) -> {
+				CookieUtil.addCookie("a", "1", 60, null, null, true, true, request, response, "None", null, null);
+				CookieUtil.addCookie("b", "2", 60, null, null, true, true, request, response, CookieUtil.USE_SAME_SITE_ONLY_AFTER_CHROME_80, null, null);
+				CookieUtil.addCookie("c", "3", 60, null, null, false, true, request, response, "Lax", null, null);
+			}, exchange -> {
+				ReactiveCookieUtil.addCookie("a", "1", 60, null, null, true, true, exchange, "None", null, null);
+				ReactiveCookieUtil.addCookie("b", "2", 60, null, null, true, true, exchange, CookieUtil.USE_SAME_SITE_ONLY_AFTER_CHROME_80, null, null);
+				ReactiveCookieUtil.addCookie("c", "3", 60, null, null, false, true, exchange, "Lax", null, null);
+			});
+		}
+	}
+
+	@Test
+	void controllerServesTheSameEndpoints() {
+		WebTestClient client = WebTestClient.bindToController(new ReactiveHelloController()).build();
+		client.get().uri("/home").exchange()
+			.expectStatus().isOk()
+			.expectHeader().valueEquals("Set-Cookie", "key=value; Path=/; Secure; SameSite=None")
+			.expectBody(String.class).isEqualTo("headers:\nSet-Cookie: key=value; Path=/; Secure; SameSite=None\n");
+		client.get().uri("/test").exchange()
+			.expectBody(String.class).isEqualTo("Test success!");
+		client.get().uri("/").exchange()
+			.expectHeader().valueEquals("Set-Cookie", "cookiekey=cookievalue; Path=/; Secure; SameSite=Lax");
+	}
+
+	private static void assertSameHeaders(String userAgent, BiConsumer<HttpServletRequest, HttpServletResponse> servlet,
+			Consumer<MockServerWebExchange> reactive) {
+		// Expires 精确到秒，跨秒时重试
+		for (int attempt = 0; ; attempt++) {
+			long second = System.currentTimeMillis() / 1000;
+			MockHttpServletRequest request = new MockHttpServletRequest();
+			MockServerHttpRequest.BaseBuilder<?> builder = MockServerHttpRequest.get("/");
+			if (userAgent != null) {
+				request.addHeader("User-Agent", userAgent);
+				builder.header("User-Agent", userAgent);
+			}
+			// MockHttpServletResponse 会重新格式化 Set-Cookie，这里记录原始的响应头
+			List<String> expected = new ArrayList<>();
+			servlet.accept(request, new HttpServletResponseWrapper(new MockHttpServletResponse()) {
+
+				@Override
+				public void addHeader(String name, String value) {
+					expected.add(value);
+				}
+			});
+			MockServerWebExchange exchange = MockServerWebExchange.from(builder);
+			reactive.accept(exchange);
+			if (second != System.currentTimeMillis() / 1000 && attempt < 3) {
+				continue;
+			}
+			assertThat(exchange.getResponse().getHeaders().get("Set-Cookie")).isNotEmpty().isEqualTo(expected);
+			return;
+		}
+	}
+
+}
@@ -0,0 +1,160 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+
+import jakarta.servlet.http.Cookie;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AffinityFilterTests {
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@Test
+	void misroutedRequestsAreForwardedToTheOwner() throws Exception {
+		int port1 = freePort();
+		int port2 = freePort();
+		ConfigurableApplicationContext node1 = start("node-1", port1, port2);
+		try (ConfigurableApplicationContext node2 = start("node-2", port1, port2)) {
+			HttpResponse<String> issued = send(port1, null);
+			assertThat(issued.headers().firstValue(AffinityFilter.INSTANCE_HEADER)).hasValue("node-1");
+			String route = issued.headers().allValues("set-cookie").stream()
+				.filter(cookie -> cookie.startsWith("ROUTE="))
+				.findFirst().orElseThrow()
+				.replaceFirst("^ROUTE=([^;]*);.*$", "$1");
+			assertThat(route).hasSize(11);
+
+			HttpResponse<String> forwarded = send(port2, route);
+			assertThat(forwarded.statusCode()).isEqualTo(200);
+			assertThat(forwarded.headers().allValues(AffinityFilter.INSTANCE_HEADER)).containsExactly("node-1");
+			assertThat(forwarded.headers().allValues("set-cookie")).contains("key=value; Path=/; Secure; SameSite=None");
+			assertThat(forwarded.body()).contains(AffinityFilter.INSTANCE_HEADER + ": node-1").doesNotContain("ROUTE=");
+			assertThat(forwarded.headers().allValues(ServerTimingFilter.HEADER)).hasSize(1);
+
+			// 请求体边读边转发，归属实例的响应原样返回
+			HttpResponse<String> posted = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port2 + "/test"))
+				.header("Cookie", "ROUTE=" + route)
+				.POST(HttpRequest.BodyPublishers.ofByteArray(new byte[1024 * 1024]))
+				.build(), HttpResponse.BodyHandlers.ofString());
+			assertThat(posted.statusCode()).isEqualTo(405);
+			assertThat(posted.headers().allValues(AffinityFilter.INSTANCE_HEADER)).containsExactly("node-1");
+
+			// 归属实例下线后由收到请求的实例处理
+			node1.close();
+			HttpResponse<String> failover = send(port2, route);
+			assertThat(failover.statusCode()).isEqualTo(200);
+			assertThat(failover.headers().firstValue(AffinityFilter.INSTANCE_HEADER)).hasValue("node-2");
+		} finally {
+			node1.close();
+		}
+	}
+
+	@Test
+	void onlyUnsentOrIdempotentRequestsFallBackLocally() throws Exception {
+		try (ServerSocket silent = new ServerSocket(0)) {
+			AffinityProperties properties = new AffinityProperties();
+			properties.setInstanceId("node-1");
+			properties.setInstances(Map.of("node-1", "http://localhost:8081", "node-2", "http://localhost:" + silent.getLocalPort()));
+			properties.setForwardTimeout(Duration.ofMillis(200));
+			properties.setFailoverPeriod(Duration.ZERO);
+			AffinityFilter filter = new AffinityFilter(properties);
+			AffinityProperties other = new AffinityProperties();
+			other.setInstanceId("node-2");
+			other.setInstances(properties.getInstances());
+			String route = new AffinityFilter(other).newKey();
+			try {
+				// 归属实例可能已经收到请求，非幂等请求超时后不在本实例重复执行
+				MockHttpServletRequest delete = new MockHttpServletRequest("DELETE", "/home");
+				delete.setCookies(new Cookie("ROUTE", route));
+				MockHttpServletResponse timedOut = new MockHttpServletResponse();
+				MockFilterChain chain = new MockFilterChain();
+				filter.doFilter(delete, timedOut, chain);
+				assertThat(timedOut.getStatus()).isEqualTo(504);
+				assertThat(chain.getRequest()).isNull();
+
+				MockHttpServletRequest get = new MockHttpServletRequest("GET", "/home");
+				get.setCookies(new Cookie("ROUTE", route));
+				MockHttpServletResponse served = new MockHttpServletResponse();
+				filter.doFilter(get, served, new MockFilterChain());
+				assertThat(served.getStatus()).isEqualTo(200);
+				assertThat(served.getHeader(AffinityFilter.INSTANCE_HEADER)).isEqualTo("node-1");
+			} finally {
+				filter.destroy();
+			}
+		}
+	}
+
+	@Test
+	void redirectModeSendsTheClientToTheOwner() throws Exception {
+		AffinityProperties properties = new AffinityProperties();
+		properties.setInstanceId("node-1");
+		properties.setInstances(Map.of("node-1", "http://localhost:8081", "node-2", "http://localhost:8082/"));
+		properties.setMode(AffinityProperties.Mode.REDIRECT);
+		AffinityFilter filter = new AffinityFilter(properties);
+		AffinityProperties other = new AffinityProperties();
+		other.setInstanceId("node-2");
+		other.setInstances(properties.getInstances());
+		String route = new AffinityFilter(other).newKey();
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/home");
+		request.setQueryString("a=1");
+		request.setCookies(new Cookie("ROUTE", route));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		MockFilterChain chain = new MockFilterChain();
+		filter.doFilter(request, response, chain);
+		assertThat(response.getStatus()).isEqualTo(307);
+		assertThat(response.getHeader("Location")).isEqualTo("http://localhost:8082/home?a=1");
+		assertThat(chain.getRequest()).isNull();
+
+		MockHttpServletRequest own = new MockHttpServletRequest("GET", "/home");
+		own.setCookies(new Cookie("ROUTE", filter.newKey()));
+		MockHttpServletResponse served = new MockHttpServletResponse();
+		filter.doFilter(own, served, new MockFilterChain());
+		assertThat(served.getStatus()).isEqualTo(200);
+		assertThat(served.getHeader(AffinityFilter.INSTANCE_HEADER)).isEqualTo("node-1");
+		assertThat(served.getCookie("ROUTE")).isNull();
+	}
+
+	private ConfigurableApplicationContext start(String instanceId, int port1, int port2) {
+		return new SpringApplicationBuilder(HelloworldWebApplication.class)
+			.web(WebApplicationType.SERVLET)
+			.run("--server.port=" + (instanceId.equals("node-1") ? port1 : port2),
+				"--spring.jmx.enabled=false",
+				"--warmup.enabled=false",
+				"--server-timing.enabled=true",
+				"--affinity.enabled=true",
+				"--affinity.instance-id=" + instanceId,
+				"--affinity.instances.node-1=http://localhost:" + port1,
+				"--affinity.instances.node-2=http://localhost:" + port2,
+				"--affinity.forward-timeout=2s");
+	}
+
+	private HttpResponse<String> send(int port, String route) throws IOException, InterruptedException {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/home"));
+		if (route != null) {
+			builder.header("Cookie", "ROUTE=" + route);
+		}
+		return client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AffinityRingTests {
+
+	private static final int KEYS = 100_000;
+
+	@Test
+	void keysAreSpreadEvenlyAndIndependentOfConfigurationOrder() {
+		AffinityRing ring = new AffinityRing(List.of("node-1", "node-2", "node-3"), 160);
+		AffinityRing reordered = new AffinityRing(List.of("node-3", "node-1", "node-2"), 160);
+		Map<String, Integer> counts = new HashMap<>();
+		for (int i = 0; i < KEYS; i++) {
+			String node = ring.nodeFor(key(i));
+			assertThat(reordered.nodeFor(key(i))).isEqualTo(node);
+			counts.merge(node, 1, Integer::sum);
+		}
+		assertThat(counts).hasSize(3);
+		assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(KEYS * 8 / 30, KEYS * 12 / 30));
+	}
+
+	@Test
+	void addingOrRemovingANodeMovesOnlyItsShareOfKeys() {
+		AffinityRing three = new AffinityRing(List.of("node-1", "node-2", "node-3"), 160);
+		AffinityRing four = new AffinityRing(List.of("node-1", "node-2", "node-3", "node-4"), 160);
+		int moved = 0;
+		for (int i = 0; i < KEYS; i++) {
+			String before = three.nodeFor(key(i));
+			String after = four.nodeFor(key(i));
+			if (!before.equals(after)) {
+				// 只会移到新实例，移除 node-4 时这些键回到原来的实例
+				assertThat(after).isEqualTo("node-4");
+				moved++;
+			}
+		}
+		assertThat(moved).isBetween(KEYS * 2 / 10, KEYS * 3 / 10);
+	}
+
+	private static String key(int i) {
+		return "route-" + i;
+	}
+}
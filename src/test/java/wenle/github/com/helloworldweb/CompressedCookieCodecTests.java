@@ -0,0 +1,96 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import jakarta.servlet.http.Cookie;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class CompressedCookieCodecTests {
+
+	private static final String PREFERENCES = "{\"locale\":\"zh_CN\",\"language\":\"zh\",\"currency\":\"CNY\",\"timezone\":\"Asia/Shanghai\","
+		+ "\"theme\":\"dark\",\"fontSize\":\"medium\",\"layout\":\"grid\",\"pageSize\":20,\"sort\":\"desc\",\"filters\":[],"
+		+ "\"consent\":{\"necessary\":true,\"analytics\":false,\"marketing\":false,\"preferences\":true}}";
+
+	@Test
+	void compressesLargeValuesWithDictionary() {
+		byte[] dictionary = "\"locale\":\"zh_CN\",\"language\":\"zh\",\"currency\":\"CNY\",\"timezone\":\"Asia/Shanghai\",\"theme\":\"dark\"".getBytes();
+		CompressedCookieCodec plain = new CompressedCookieCodec(new byte[0], 64, 3800, 4);
+		CompressedCookieCodec tuned = new CompressedCookieCodec(dictionary, 64, 3800, 4);
+
+		String[] withoutDictionary = plain.encode("prefs", PREFERENCES);
+		String[] withDictionary = tuned.encode("prefs", PREFERENCES);
+		assertThat(withDictionary).hasSize(1);
+		assertThat(withDictionary[0]).startsWith("z1.").hasSizeLessThan(withoutDictionary[0].length());
+		assertThat(tuned.decode("prefs", withDictionary[0], index -> null)).isEqualTo(PREFERENCES);
+		// 字典不同时 zlib 头中的字典 id 不匹配
+		assertThat(plain.decode("prefs", withDictionary[0], index -> null)).isNull();
+
+		assertThat(tuned.encode("prefs", "short")).containsExactly("short");
+		assertThat(tuned.decode("prefs", "short", index -> null)).isEqualTo("short");
+		String ambiguous = "z1.not-compressed";
+		assertThat(tuned.encode("prefs", ambiguous)[0]).isNotEqualTo(ambiguous);
+		assertThat(tuned.decode("prefs", tuned.encode("prefs", ambiguous)[0], index -> null)).isEqualTo(ambiguous);
+		assertThat(tuned.decode("prefs", "z1.!!!", index -> null)).isNull();
+	}
+
+	@Test
+	void splitsIntoChunksAndDetectsMissingOrStaleChunks() {
+		CompressedCookieCodec codec = new CompressedCookieCodec(new byte[0], 64, 1000, 4);
+		String value = randomText(2400, 1);
+		String[] parts = codec.encode("big", value);
+		assertThat(parts).hasSize(3);
+		assertThat(parts[0]).startsWith("z3.").hasSize(1000);
+		assertThat(codec.decode("big", parts[0], index -> parts[index])).isEqualTo(value);
+		assertThat(codec.decode("big", parts[0], index -> index == 2 ? null : parts[index])).isNull();
+
+		String[] other = codec.encode("big", randomText(2400, 2));
+		assertThat(codec.decode("big", parts[0], index -> index == 2 ? other[2] : parts[index])).isNull();
+		assertThatIllegalArgumentException().isThrownBy(() -> codec.encode("big", randomText(4000, 3)));
+	}
+
+	@Test
+	void cookieUtilWritesChunksAndRemovesStaleOnes() {
+		CompressedCookieCodec codec = new CompressedCookieCodec(new byte[0], 64, 1000, 4);
+		String value = randomText(1500, 4);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setCookies(new Cookie("big", "z4.old"), new Cookie("big.1", "old"), new Cookie("big.2", "old"), new Cookie("big.3", "old"));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		CookieUtil.addCookie("big", value, 3600, codec, request, response);
+		Map<String, String> written = new HashMap<>();
+		for (Cookie cookie : response.getCookies()) {
+			written.put(cookie.getName(), cookie.getValue());
+		}
+		assertThat(written).containsOnlyKeys("big", "big.1", "big.2", "big.3");
+		assertThat(written.get("big")).startsWith("z2.");
+		assertThat(written.get("big.2")).isEmpty();
+		assertThat(written.get("big.3")).isEmpty();
+
+		MockHttpServletRequest next = new MockHttpServletRequest();
+		next.setCookies(new Cookie("big", written.get("big")), new Cookie("big.1", written.get("big.1")));
+		assertThat(CookieUtil.getCookieValue("big", next, codec)).isEqualTo(value);
+
+		MockHttpServletResponse removal = new MockHttpServletResponse();
+		CookieUtil.removeCookie("big", codec, next, removal);
+		assertThat(List.of(removal.getCookies())).extracting(Cookie::getName).containsExactly("big", "big.1");
+		assertThat(List.of(removal.getCookies())).extracting(Cookie::getValue).containsOnly("");
+	}
+
+	/**
+	 * 压缩率较低的随机 base64 文本
+	 */
+	private static String randomText(int length, long seed) {
+		byte[] bytes = new byte[length * 3 / 4];
+		new Random(seed).nextBytes(bytes);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+}
@@ -0,0 +1,209 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class CompressionFilterTests {
+
+	private static final String TEXT = "Set-Cookie: key=value; Path=/; Secure; SameSite=None\n".repeat(200);
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final CompressionFilter filter = new CompressionFilter(new CompressionProperties(),
+		new CompressionLevel(() -> 0.0, 6, 1, 0.5, 0.9), registry);
+
+	@Test
+	void largeWriterBodiesAreGzipped() throws Exception {
+		MockHttpServletResponse response = execute("gzip, deflate", (request, resp) -> {
+			resp.setContentType("text/plain");
+			resp.setCharacterEncoding("UTF-8");
+			resp.getWriter().write(TEXT);
+		});
+		assertThat(response.getHeader("Content-Encoding")).isEqualTo("gzip");
+		assertThat(response.getHeader("Vary")).isEqualTo("Accept-Encoding");
+		assertThat(response.getHeader("Content-Length")).isNull();
+		byte[] body = response.getContentAsByteArray();
+		assertThat(body.length).isLessThan(TEXT.length() / 10);
+		assertThat(new String(new GZIPInputStream(new ByteArrayInputStream(body)).readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(TEXT);
+		assertThat(registry.get("compression.ratio").summary().count()).isEqualTo(1);
+		assertThat(registry.get("compression.time").tag("encoding", "gzip").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void streamedAndFlushedBodiesAreDeflated() throws Exception {
+		byte[] text = TEXT.getBytes(StandardCharsets.UTF_8);
+		MockHttpServletResponse response = execute("deflate", (request, resp) -> {
+			resp.setContentType("application/json");
+			resp.setContentLength(text.length);
+			resp.setHeader("ETag", "\"v1\"");
+			ServletOutputStream out = resp.getOutputStream();
+			for (int i = 0; i < text.length; i += 100) {
+				out.write(text, i, Math.min(100, text.length - i));
+				if (i > 4096) {
+					out.flush();
+				}
+			}
+		});
+		assertThat(response.getHeader("Content-Encoding")).isEqualTo("deflate");
+		assertThat(response.getHeader("Content-Length")).isNull();
+		assertThat(response.getHeader("ETag")).isEqualTo("W/\"v1\"");
+		assertThat(new InflaterInputStream(new ByteArrayInputStream(response.getContentAsByteArray())).readAllBytes()).isEqualTo(text);
+	}
+
+	@Test
+	void smallBodiesAreWrittenAsIs() throws Exception {
+		MockHttpServletResponse response = execute("gzip", (request, resp) -> resp.getWriter().write("Test success!"));
+		assertThat(response.getHeader("Content-Encoding")).isNull();
+		assertThat(response.getContentLength()).isEqualTo(13);
+		assertThat(response.getContentAsString()).isEqualTo("Test success!");
+
+		MockHttpServletResponse declared = execute("gzip", (request, resp) -> {
+			resp.setContentLength(5);
+			resp.getOutputStream().write("hello".getBytes(StandardCharsets.US_ASCII));
+		});
+		assertThat(declared.getHeader("Content-Encoding")).isNull();
+		assertThat(declared.getContentLength()).isEqualTo(5);
+	}
+
+	@Test
+	void compressedTypesAndEncodedBodiesAreSkipped() throws Exception {
+		byte[] text = TEXT.getBytes(StandardCharsets.UTF_8);
+		MockHttpServletResponse image = execute("gzip", (request, resp) -> {
+			resp.setContentType("image/png");
+			resp.setContentLength(text.length);
+			resp.getOutputStream().write(text);
+		});
+		assertThat(image.getHeader("Content-Encoding")).isNull();
+		assertThat(image.getContentLength()).isEqualTo(text.length);
+		assertThat(image.getContentAsByteArray()).isEqualTo(text);
+
+		MockHttpServletResponse encoded = execute("gzip", (request, resp) -> {
+			resp.setHeader("Content-Encoding", "br");
+			resp.getOutputStream().write(text);
+		});
+		assertThat(encoded.getHeader("Content-Encoding")).isEqualTo("br");
+		assertThat(encoded.getContentAsByteArray()).isEqualTo(text);
+
+		MockHttpServletResponse identity = execute("identity", (request, resp) -> resp.getOutputStream().write(text));
+		assertThat(identity.getHeader("Content-Encoding")).isNull();
+
+		assertThat(registry.get("compression.skipped").tag("reason", "content-type").counter().count()).isEqualTo(1);
+		assertThat(registry.get("compression.skipped").tag("reason", "content-encoding").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void asyncBodiesAreFinishedWhenTheAsyncContextCompletes() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/home");
+		request.addHeader("Accept-Encoding", "gzip");
+		request.setAsyncSupported(true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		HttpServletResponse[] wrapped = new HttpServletResponse[1];
+		filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+
+			@Override
+			protected void service(HttpServletRequest req, HttpServletResponse resp) {
+				req.startAsync(req, resp);
+				wrapped[0] = resp;
+			}
+		}));
+		assertThat(response.getContentAsByteArray()).isEmpty();
+
+		wrapped[0].setContentType("text/plain");
+		wrapped[0].getOutputStream().write(TEXT.getBytes(StandardCharsets.UTF_8));
+		request.getAsyncContext().complete();
+		assertThat(response.getHeader("Content-Encoding")).isEqualTo("gzip");
+		assertThat(new String(new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray())).readAllBytes(),
+			StandardCharsets.UTF_8)).isEqualTo(TEXT);
+	}
+
+	@Test
+	void resetAfterCompressionStartedGoesBackToBuffering() throws Exception {
+		MockHttpServletResponse error = execute("gzip", (request, resp) -> {
+			resp.setContentType("text/plain");
+			resp.getWriter().write(TEXT);
+			resp.reset();
+			resp.getWriter().write("Not found");
+		});
+		assertThat(error.getHeader("Content-Encoding")).isNull();
+		assertThat(error.getContentLength()).isEqualTo(9);
+		assertThat(error.getContentAsString()).isEqualTo("Not found");
+
+		MockHttpServletResponse rewritten = execute("gzip", (request, resp) -> {
+			resp.setContentType("text/plain");
+			resp.getOutputStream().write(TEXT.getBytes(StandardCharsets.UTF_8));
+			resp.resetBuffer();
+			resp.getOutputStream().write("short".getBytes(StandardCharsets.US_ASCII));
+		});
+		assertThat(rewritten.getHeader("Content-Encoding")).isEqualTo("gzip");
+		assertThat(new GZIPInputStream(new ByteArrayInputStream(rewritten.getContentAsByteArray())).readAllBytes())
+			.isEqualTo("short".getBytes(StandardCharsets.US_ASCII));
+		assertThat(registry.get("compression.ratio").summary().count()).isEqualTo(1);
+	}
+
+	@Test
+	void resetAfterCommitIsRejected() throws Exception {
+		execute("gzip", (request, resp) -> {
+			resp.getOutputStream().write(TEXT.getBytes(StandardCharsets.UTF_8));
+			resp.flushBuffer();
+			assertThatIllegalStateException().isThrownBy(resp::resetBuffer);
+			assertThatIllegalStateException().isThrownBy(resp::reset);
+		});
+	}
+
+	@Test
+	void levelFollowsCpuLoad() {
+		CompressionLevel level = new CompressionLevel(() -> -1, 6, 1, 0.5, 0.9);
+		assertThat(level.current()).isEqualTo(6);
+		assertThat(level.levelFor(0.3)).isEqualTo(6);
+		assertThat(level.levelFor(0.7)).isEqualTo(4);
+		assertThat(level.levelFor(0.95)).isEqualTo(1);
+	}
+
+	@Test
+	void deflatersAreReused() {
+		DeflaterPool pool = new DeflaterPool(true, 1);
+		Deflater first = pool.acquire(6);
+		Deflater second = pool.acquire(1);
+		pool.release(first);
+		pool.release(second);
+		assertThat(pool.idleCount()).isEqualTo(1);
+		assertThat(pool.acquire(1)).isSameAs(first);
+	}
+
+	private MockHttpServletResponse execute(String acceptEncoding, Handler handler) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/home");
+		request.addHeader("Accept-Encoding", acceptEncoding);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+
+			@Override
+			protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+				handler.handle(req, resp);
+			}
+		}));
+		return response;
+	}
+
+	private interface Handler {
+
+		void handle(HttpServletRequest request, HttpServletResponse response) throws IOException;
+	}
+
+}
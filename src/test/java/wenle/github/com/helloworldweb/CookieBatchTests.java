@@ -0,0 +1,75 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class CookieBatchTests {
+
+	private static final String CHROME_60 = "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/60.0.3112.113 Safari/537.36";
+
+	@Test
+	void batchWritesTheSameHeadersAsIndividualCalls() {
+		assertSameHeaders(new MockHttpServletRequest(), (request, response) -> {
+			CookieUtil.addCookie("a", "1", response);
+			CookieUtil.addCookie("b", "2", 3600, true, true, "High", response);
+			CookieUtil.addCookie("c", "3", 60, "/app", ".example.com", true, false, response);
+			CookieUtil.addCookie("d", "4", 0, "/", null, response);
+			CookieUtil.removeCookie(request, response, "e", null, ".example.com");
+		}, (request, response) -> CookieUtil.batch(request, response)
+			.add("a", "1")
+			.add("b", "2", 3600, null, null, true, true, "High")
+			.add("c", "3", 60, "/app", ".example.com", true, false, null)
+			.add("d", "4", 0, "/", null, false, true, null)
+			.remove("e", null, ".example.com")
+			.write());
+	}
+
+	@Test
+	void sameSiteDecisionFollowsTheRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", CHROME_60);
+		assertSameHeaders(request, (req, response) -> {
+			CookieUtil.addCookie("a", "1", 60, null, null, true, true, req, response, "None", null, null);
+			CookieUtil.addCookie("b", "2", 60, null, null, true, true, req, response, "Lax", null, null);
+			CookieUtil.addCookie("c", "3", 60, null, null, false, true, req, response, "None", null, null);
+		}, (req, response) -> CookieUtil.batch(req, response)
+			.add("a", "1", 60, null, null, true, true, "None", null, null)
+			.add("b", "2", 60, null, null, true, true, "Lax", null, null)
+			.add("c", "3", 60, null, null, false, true, "None", null, null)
+			.write());
+	}
+
+	@Test
+	void invalidNamesAreRejected() {
+		CookieBatch batch = CookieUtil.batch(null, new MockHttpServletResponse());
+		assertThatIllegalArgumentException().isThrownBy(() -> batch.add("a b", "1"));
+		assertThatIllegalArgumentException().isThrownBy(() -> batch.add("", "1"));
+	}
+
+	private static void assertSameHeaders(MockHttpServletRequest request,
+			BiConsumer<MockHttpServletRequest, MockHttpServletResponse> individual,
+			BiConsumer<MockHttpServletRequest, MockHttpServletResponse> batch) {
+		// Expires 精确到秒，跨秒时重试
+		for (int attempt = 0; ; attempt++) {
+			long second = System.currentTimeMillis() / 1000;
+			MockHttpServletResponse expected = new MockHttpServletResponse();
+			individual.accept(request, expected);
+			MockHttpServletResponse actual = new MockHttpServletResponse();
+			batch.accept(request, actual);
+			if (second != System.currentTimeMillis() / 1000 && attempt < 3) {
+				continue;
+			}
+			List<String> headers = actual.getHeaders("Set-Cookie");
+			assertThat(headers).isNotEmpty().isEqualTo(expected.getHeaders("Set-Cookie"));
+			return;
+		}
+	}
+
+}
@@ -0,0 +1,160 @@
+package wenle.github.com.helloworldweb;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import jakarta.servlet.http.Cookie;
+import org.apache.tomcat.util.http.MimeHeaders;
+import org.apache.tomcat.util.http.Rfc6265CookieProcessor;
+import org.apache.tomcat.util.http.ServerCookie;
+import org.apache.tomcat.util.http.ServerCookies;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CookieIndexTests {
+
+	private static final String[] NAMES = {"a", "b", "JSESSIONID", "app_cookie_1", "$Version", "bad name", "x.y", "Path", ""};
+
+	private static final String[] VALUES = {"1", "", "DE719787", "x=y", "\"quoted\"", "\"q v\"", "a b", "1,2", "é", "\"unterminated", "a\\b"};
+
+	private static final String[] SEPARATORS = {"; ", ";", " ; ", ";;", "\t;\t", ", ", ";  "};
+
+	/**
+	 * 按 Tomcat 的方式解析 Cookie 请求头并转换为 Cookie 对象
+	 */
+	private static Cookie[] tomcatCookies(String... headers) {
+		MimeHeaders mimeHeaders = new MimeHeaders();
+		for (String header : headers) {
+			byte[] bytes = header.getBytes(StandardCharsets.ISO_8859_1);
+			mimeHeaders.addValue("Cookie").setBytes(bytes, 0, bytes.length);
+		}
+		ServerCookies serverCookies = new ServerCookies(4);
+		new Rfc6265CookieProcessor().parseCookieHeader(mimeHeaders, serverCookies);
+		List<Cookie> cookies = new ArrayList<>();
+		for (int i = 0; i < serverCookies.getCookieCount(); i++) {
+			ServerCookie serverCookie = serverCookies.getCookie(i);
+			try {
+				cookies.add(new Cookie(serverCookie.getName().toString(), serverCookie.getValue().toString()));
+			} catch (IllegalArgumentException e) {
+				// Tomcat 同样跳过非法的 Cookie
+			}
+		}
+		return cookies.isEmpty() ? null : cookies.toArray(new Cookie[0]);
+	}
+
+	private static MockHttpServletRequest request(String... headers) {
+		Cookie[] cookies = tomcatCookies(headers);
+		MockHttpServletRequest request = new MockHttpServletRequest() {
+			@Override
+			public Cookie[] getCookies() {
+				return cookies;
+			}
+		};
+		for (String header : headers) {
+			request.addHeader("Cookie", header);
+		}
+		return request;
+	}
+
+	private static String linearScan(Cookie[] cookies, String name) {
+		if (cookies == null) {
+			return null;
+		}
+		for (Cookie cookie : cookies) {
+			if (name.equals(cookie.getName())) {
+				return cookie.getValue();
+			}
+		}
+		return null;
+	}
+
+	@Test
+	void wellFormedHeaderIsIndexedWithoutFallback() {
+		MockHttpServletRequest request = request("a=1; JSESSIONID=DE719787; a=2; empty=; x=y=z;");
+		CookieIndex index = CookieIndex.of(request);
+		assertThat(index.isFallback()).isFalse();
+		assertThat(CookieIndex.of(request)).isSameAs(index);
+		assertThat(CookieUtil.getCookieValue("a", request)).isEqualTo("1");
+		assertThat(CookieUtil.getCookieValue("JSESSIONID", request)).isEqualTo("DE719787");
+		assertThat(CookieUtil.getCookieValue("empty", request)).isEmpty();
+		assertThat(CookieUtil.getCookieValue("x", request)).isEqualTo("y=z");
+		assertThat(CookieUtil.getCookieValue("missing", request)).isNull();
+		Cookie cookie = CookieUtil.getCookie("JSESSIONID", request);
+		assertThat(cookie.getName()).isEqualTo("JSESSIONID");
+		assertThat(cookie.getValue()).isEqualTo("DE719787");
+		assertThat(CookieUtil.getCookie("JSESSIONID", request)).isSameAs(cookie);
+	}
+
+	@Test
+	void splitCookieHeadersAreIndexedInOrder() {
+		MockHttpServletRequest request = request("a=1; b=2", "c=3", "a=4");
+		assertThat(CookieIndex.of(request).isFallback()).isFalse();
+		assertThat(CookieUtil.getCookieValue("a", request)).isEqualTo("1");
+		assertThat(CookieUtil.getCookieValue("c", request)).isEqualTo("3");
+	}
+
+	@Test
+	void manyCookiesAreFoundByName() {
+		StringBuilder header = new StringBuilder();
+		for (int i = 0; i < 60; i++) {
+			header.append("app_cookie_").append(i).append("=v").append(i).append("; ");
+		}
+		MockHttpServletRequest request = request(header.toString());
+		for (int i = 0; i < 60; i++) {
+			assertThat(CookieUtil.getCookieValue("app_cookie_" + i, request)).isEqualTo("v" + i);
+		}
+		assertThat(CookieUtil.getCookieValue("app_cookie_60", request)).isNull();
+	}
+
+	@Test
+	void requestWithoutCookieHeaderUsesContainerCookies() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		assertThat(CookieUtil.getCookie("a", request)).isNull();
+		assertThat(CookieUtil.getCookie(" ", request)).isNull();
+		assertThat(CookieUtil.getCookie("a", null)).isNull();
+	}
+
+	@Test
+	void matchesTomcatParsingForRandomHeaders() {
+		Random random = new Random(6265L);
+		for (int i = 0; i < 20_000; i++) {
+			List<String> headers = new ArrayList<>();
+			Set<String> names = new LinkedHashSet<>(List.of("a", "b", "JSESSIONID", "missing"));
+			int headerCount = random.nextInt(5) == 0 ? 2 : 1;
+			for (int h = 0; h < headerCount; h++) {
+				StringBuilder header = new StringBuilder();
+				int cookies = random.nextInt(5);
+				for (int c = 0; c < cookies; c++) {
+					if (c > 0) {
+						header.append(random.nextInt(4) == 0 ? SEPARATORS[random.nextInt(SEPARATORS.length)] : "; ");
+					}
+					String name = random.nextInt(3) == 0 ? NAMES[random.nextInt(NAMES.length)] : "c" + random.nextInt(4);
+					names.add(name);
+					header.append(name);
+					if (random.nextInt(10) != 0) {
+						header.append(random.nextInt(10) == 0 ? " = " : "=");
+						header.append(random.nextInt(3) == 0 ? VALUES[random.nextInt(VALUES.length)] : "v" + random.nextInt(100));
+					}
+				}
+				headers.add(header.toString());
+			}
+			MockHttpServletRequest request = request(headers.toArray(new String[0]));
+			Cookie[] expected = request.getCookies();
+			for (String name : names) {
+				if (name.isBlank()) {
+					continue;
+				}
+				String value = CookieUtil.getCookieValue(name, request);
+				assertThat(value).as("%s in %s", name, headers).isEqualTo(linearScan(expected, name));
+				Cookie cookie = CookieUtil.getCookie(name, request);
+				assertThat(cookie == null ? null : cookie.getValue()).isEqualTo(value);
+			}
+		}
+	}
+}
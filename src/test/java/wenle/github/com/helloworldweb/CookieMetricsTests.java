@@ -0,0 +1,150 @@
+package wenle.github.com.helloworldweb;
+
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CookieMetricsTests {
+
+	private static final String CHROME_60 = "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/60.0.3112.113 Safari/537.36";
+
+	private static final String IOS_12 = "Mozilla/5.0 (iPhone; CPU iPhone OS 12_4_1 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/12.1.2 Mobile/15E148 Safari/604.1";
+
+	private CookieMetrics previous;
+
+	private SimpleMeterRegistry registry;
+
+	@BeforeEach
+	void install() {
+		previous = CookieMetrics.getInstance();
+		registry = new SimpleMeterRegistry();
+		CookieMetrics.install(new CookieMetrics(registry));
+	}
+
+	@AfterEach
+	void restore() {
+		CookieMetrics.install(previous);
+	}
+
+	@Test
+	void cookieWritesAndClassificationsAreTimed() {
+		CookieUtil.addCookie("a", "1", 60, true, true, "High", new MockHttpServletResponse());
+		CookieUtil.addCookie("b", "2", new MockHttpServletResponse());
+		assertThat(registry.get("cookie.set").timer().count()).isEqualTo(2);
+	}
+
+	@Test
+	void batchAndTemplateWritesAreTimed() {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		CookieUtil.batch(new MockHttpServletRequest(), response)
+			.add("a", "1")
+			.remove("b", null, null)
+			.write();
+		CookieTemplate.builder("USER_COOKIE").httpOnly(true).build().add(null, response, "1");
+		assertThat(registry.get("cookie.set").timer().count()).isEqualTo(3);
+	}
+
+	@Test
+	void suppressionOnlyAffectsTheCurrentThread() throws Exception {
+		CookieMetrics.suppress();
+		try {
+			CookieUtil.addCookie("a", "1", new MockHttpServletResponse());
+			Thread other = new Thread(() -> CookieUtil.addCookie("b", "2", new MockHttpServletResponse()));
+			other.start();
+			other.join();
+			assertThat(registry.get("cookie.set").timer().count()).isEqualTo(1);
+		} finally {
+			CookieMetrics.unsuppress();
+		}
+		CookieUtil.addCookie("c", "3", new MockHttpServletResponse());
+		assertThat(registry.get("cookie.set").timer().count()).isEqualTo(2);
+	}
+
+	@Test
+	void userAgentClassificationOnCookieWritesIsTimed() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", CHROME_60);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		CookieUtil.addCookie("a", "1", 60, CookieUtil.ROOT_PATH, null, true, true, request, response, "None", null, null);
+		CookieUtil.addCookie("b", "2", 60, CookieUtil.ROOT_PATH, null, true, true, request, response, "None", null, null);
+		MockHttpServletRequest other = new MockHttpServletRequest();
+		other.addHeader("User-Agent", IOS_12);
+		CookieUtil.addCookie("a", "1", 60, CookieUtil.ROOT_PATH, null, true, true, other, new MockHttpServletResponse(), "None", null, null);
+		// 同一请求内的多个 Cookie 只解析一次 User-Agent
+		assertThat(registry.get("cookie.user.agent.classify").timer().count()).isEqualTo(2);
+	}
+
+	@Test
+	void sameSiteNoneOutcomesAreCountedByFamily() {
+		SameSitePolicy policy = new SameSitePolicy("None", null, null);
+		policy.suffixFor(CHROME_60);
+		policy.suffixFor(IOS_12);
+		policy.suffixFor(IOS_12);
+		assertThat(registry.get("cookie.same.site.none").tags("family", "chromium", "incompatible", "true").counter().count()).isEqualTo(1);
+		assertThat(registry.get("cookie.same.site.none").tags("family", "ios", "incompatible", "true").counter().count()).isEqualTo(2);
+		assertThat(registry.get("cookie.same.site.none").tags("family", "other", "incompatible", "false").counter().count()).isZero();
+	}
+
+	@Test
+	void setCookieBytesAreSummarizedPerResponse() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		new SetCookieMetricsFilter().doFilter(new MockHttpServletRequest(), response, new MockFilterChain() {
+
+			@Override
+			public void doFilter(jakarta.servlet.ServletRequest request, jakarta.servlet.ServletResponse res) {
+				((MockHttpServletResponse) res).addHeader("Set-Cookie", "a=1; Path=/");
+				((MockHttpServletResponse) res).addHeader("Set-Cookie", "bb=22; Path=/");
+			}
+
+		});
+		assertThat(registry.get("cookie.set.cookie.bytes").summary().count()).isEqualTo(1);
+		assertThat(registry.get("cookie.set.cookie.bytes").summary().totalAmount())
+			.isEqualTo((double) String.join("", response.getHeaders("Set-Cookie")).length());
+
+		MockHttpServletRequest warmup = new MockHttpServletRequest();
+		warmup.addHeader(JitWarmup.HEADER, JitWarmup.TOKEN);
+		new SetCookieMetricsFilter().doFilter(warmup, new MockHttpServletResponse(), new MockFilterChain());
+		assertThat(registry.get("cookie.set.cookie.bytes").summary().count()).isEqualTo(1);
+
+		// 伪造的请求头，或者令牌正确但不是来自回环地址，照常统计
+		MockHttpServletRequest forged = new MockHttpServletRequest();
+		forged.addHeader(JitWarmup.HEADER, "true");
+		new SetCookieMetricsFilter().doFilter(forged, new MockHttpServletResponse(), new MockFilterChain());
+		MockHttpServletRequest remote = new MockHttpServletRequest();
+		remote.addHeader(JitWarmup.HEADER, JitWarmup.TOKEN);
+		remote.setRemoteAddr("203.0.113.7");
+		new SetCookieMetricsFilter().doFilter(remote, new MockHttpServletResponse(), new MockFilterChain());
+		assertThat(registry.get("cookie.set.cookie.bytes").summary().count()).isEqualTo(3);
+	}
+
+	@Test
+	void compressionSavingsAreSummarizedByDirection() {
+		CompressedCookieCodec codec = new CompressedCookieCodec(new byte[0], 64, 3800, 4);
+		String value = "{\"theme\":\"dark\",\"locale\":\"zh_CN\"}".repeat(20);
+		String[] parts = codec.encode("prefs", value);
+		assertThat(codec.decode("prefs", parts[0], index -> parts[index])).isEqualTo(value);
+		double saved = value.length() - parts[0].length();
+		assertThat(registry.get("cookie.compression.saved.bytes").tags("direction", "response").summary().totalAmount()).isEqualTo(saved);
+		assertThat(registry.get("cookie.compression.saved.bytes").tags("direction", "request").summary().totalAmount()).isEqualTo(saved);
+	}
+
+	@Test
+	void disabledMetersSkipTiming() {
+		SimpleMeterRegistry denied = new SimpleMeterRegistry();
+		denied.config().meterFilter(MeterFilter.denyNameStartsWith("cookie."));
+		CookieMetrics.install(new CookieMetrics(denied));
+		assertThat(CookieMetrics.startSetCookie()).isZero();
+		assertThat(CookieMetrics.startClassify()).isZero();
+		assertThat(CookieMetrics.isSetCookieBytesEnabled()).isFalse();
+		CookieUtil.addCookie("a", "1", 60, true, true, "High", new MockHttpServletResponse());
+		assertThat(denied.getMeters()).isEmpty();
+	}
+
+}
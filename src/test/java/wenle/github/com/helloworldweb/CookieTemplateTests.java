@@ -0,0 +1,107 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class CookieTemplateTests {
+
+	private static final String CHROME_60 = "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/60.0.3112.113 Safari/537.36";
+
+	@Test
+	void templatesWriteTheSameHeadersAsAddCookie() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", CHROME_60);
+		CookieTemplate user = CookieTemplate.builder("USER_COOKIE")
+			.domain(".example.com").maxAge(3600).httpOnly(true).priority("High").sameSite("None", null, null).build();
+		CookieTemplate lang = CookieTemplate.builder("LANG").path("/app").secure(false).build();
+		CookieTemplate strict = CookieTemplate.builder("CSRF").sameSite("Strict", null, null).build();
+
+		for (int attempt = 0; ; attempt++) {
+			long second = System.currentTimeMillis() / 1000;
+			MockHttpServletResponse expected = new MockHttpServletResponse();
+			CookieUtil.addCookie("USER_COOKIE", "v", 60, null, ".example.com", true, true, request, expected, "None", null, null);
+			CookieUtil.addCookie("LANG", "zh", -1, "/app", null, false, false, expected);
+			CookieUtil.addCookie("CSRF", null, -1, null, null, false, true, request, expected, "Strict", null, null);
+			MockHttpServletResponse actual = new MockHttpServletResponse();
+			user.add(request, actual, "v", 60);
+			lang.add(request, actual, "zh");
+			strict.add(request, actual, null);
+			if (second != System.currentTimeMillis() / 1000 && attempt < 3) {
+				continue;
+			}
+			assertThat(actual.getHeaders("Set-Cookie")).hasSize(3).isEqualTo(expected.getHeaders("Set-Cookie"));
+			return;
+		}
+	}
+
+	@Test
+	void headerValueMatchesTheEncoder() {
+		long now = 1697600000123L;
+		CookieTemplate template = CookieTemplate.builder("USER_COOKIE")
+			.domain(".example.com").httpOnly(true).priority("High").sameSite("Lax", null, null).build();
+		assertThat(template.toHeaderValue(null, "", 0, now)).isEqualTo(
+			"USER_COOKIE=; Domain=.example.com; Expires=" + ExpiresFormatter.EXPIRED + "; Path=/; Secure; HttpOnly; Priority=High; SameSite=Lax");
+		// 值中出现 SameSite 时与 CookieUtil.appendSameSite 一样不再追加
+		assertThat(template.toHeaderValue(null, "a;samesite", 60, now)).isEqualTo(new SetCookieEncoder()
+			.encode(0, "USER_COOKIE", "a;samesite", null, ".example.com", 60, now, "/", true, true, "High").toString());
+	}
+
+	@Test
+	void namesAreValidatedWhenBuilt() {
+		assertThatIllegalArgumentException().isThrownBy(() -> CookieTemplate.builder("bad name").build());
+		assertThatIllegalArgumentException().isThrownBy(() -> CookieTemplate.builder("").build());
+	}
+
+	@Test
+	void registryLooksUpTemplatesByName() {
+		CookieProperties properties = new CookieProperties();
+		CookieProperties.Template template = new CookieProperties.Template();
+		template.setDomain(".example.com");
+		template.setHttpOnly(true);
+		properties.getTemplates().put("USER_COOKIE", template);
+
+		CookieTemplateRegistry registry = new CookieConfiguration().cookieTemplateRegistry(properties, new StaticObjectProvider());
+		assertThat(registry.get("USER_COOKIE").getDomain()).isEqualTo(".example.com");
+		assertThat(registry.get("LANG").isSecure()).isTrue();
+		assertThatIllegalArgumentException().isThrownBy(() -> registry.get("absent"));
+		assertThatIllegalStateException().isThrownBy(() -> new CookieTemplateRegistry(List.of(
+			CookieTemplate.builder("a").build(), CookieTemplate.builder("a").build())));
+	}
+
+	private static final class StaticObjectProvider implements org.springframework.beans.factory.ObjectProvider<CookieTemplate> {
+
+		@Override
+		public CookieTemplate getObject(Object... args) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CookieTemplate getIfAvailable() {
+			return null;
+		}
+
+		@Override
+		public CookieTemplate getIfUnique() {
+			return null;
+		}
+
+		@Override
+		public CookieTemplate getObject() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public java.util.stream.Stream<CookieTemplate> orderedStream() {
+			return java.util.stream.Stream.of(CookieTemplate.builder("LANG").build());
+		}
+
+	}
+
+}
@@ -0,0 +1,101 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CookieTokenScannerTests {
+
+	/**
+	 * 随机字符串的字符来源：token 字符、分隔符、控制字符、0x7f 附近、Latin-1 和更大的字符
+	 */
+	private static final char[][] ALPHABETS = {
+		"abcXYZ019-_.~!#$%&'*+^`|".toCharArray(),
+		CookieTokenScanner.SEPARATORS.toCharArray(),
+		{0, 1, '\n', '\r', 0x1f, 0x7e, 0x7f, 0x80, 0xa0, 0xe9, 0xff},
+		{0x100, 0x13b, 0x2028, 0x4e2d, 0xfeff, 0xffff, 0xff08, 0xff1b, 0x0128, 0x013b}
+	};
+
+	private static final boolean[] LEGACY_FLAGS = legacyFlags();
+
+	@Test
+	void matchesTheOriginalImplementation() {
+		Random random = new Random(20231018);
+		for (int n = 0; n < 200_000; n++) {
+			String value = randomValue(random, n % 50 == 0 ? 2048 : 40);
+			assertThat(CookieTokenScanner.isToken(value)).as("isToken %s", value).isEqualTo(legacyIsToken(value));
+			assertThat(CookieUtil.quote(value)).as("quote %s", value).isEqualTo(legacyQuote(value));
+		}
+	}
+
+	@Test
+	void everyCharacterIsClassifiedLikeTheOriginal() {
+		for (int c = 0; c <= Character.MAX_VALUE; c++) {
+			for (int position = 0; position < 9; position++) {
+				String value = "a".repeat(position) + (char) c + "a".repeat(8 - position);
+				assertThat(CookieTokenScanner.isToken(value)).isEqualTo(legacyIsToken(value));
+				assertThat(CookieTokenScanner.containsSeparator(value)).isEqualTo(!legacyQuote(value).equals(value));
+			}
+		}
+	}
+
+	@Test
+	void handlesShortAndEmptyValues() {
+		assertThat(CookieTokenScanner.isToken("")).isTrue();
+		assertThat(CookieUtil.quote("")).isEmpty();
+		assertThat(CookieUtil.quote(null)).isNull();
+		assertThat(CookieUtil.quote("a=b")).isEqualTo("\"a=b\"");
+		assertThat(CookieTokenScanner.isToken("USER_COOKIE")).isTrue();
+		assertThat(CookieTokenScanner.isToken("USER COOKIE")).isFalse();
+	}
+
+	private static String randomValue(Random random, int maxLength) {
+		int length = random.nextInt(maxLength + 1);
+		// 大部分字符取 token 字符，使特殊字符出现在任意位置（包括 8 字符分组的边界）
+		int special = random.nextInt(4);
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			char[] alphabet = random.nextInt(16) == 0 ? ALPHABETS[special] : ALPHABETS[0];
+			chars[i] = alphabet[random.nextInt(alphabet.length)];
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * 原 CookieUtil.isToken 实现
+	 */
+	private static boolean legacyIsToken(String value) {
+		boolean[] flags = LEGACY_FLAGS;
+		for (char c : value.toCharArray()) {
+			if (c < 0x20 || c >= 0x7f || flags[c]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 原 CookieUtil.quote 实现
+	 */
+	private static String legacyQuote(String value) {
+		boolean[] flags = LEGACY_FLAGS;
+		for (char ch : value.toCharArray()) {
+			if (ch < 127 && flags[ch]) {
+				return '"' + value + '"';
+			}
+		}
+		return value;
+	}
+
+	private static boolean[] legacyFlags() {
+		boolean[] flags = new boolean[127];
+		String special = "()<>@,;:\\\"/[]?={} \t";
+		for (int i = 0; i < special.length(); i++) {
+			flags[special.charAt(i)] = true;
+		}
+		return flags;
+	}
+
+}
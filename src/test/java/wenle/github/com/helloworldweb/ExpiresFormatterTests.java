@@ -0,0 +1,76 @@
+package wenle.github.com.helloworldweb;
+
+import java.nio.charset.StandardCharsets;
+import java.text.FieldPosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiresFormatterTests {
+
+	/**
+	 * 原 CookieUtil 中的格式化实现
+	 */
+	private static String legacyFormat(long nowMillis, int maxAge) {
+		SimpleDateFormat dateFormat = new SimpleDateFormat(CookieUtil.OLD_COOKIE_PATTERN, CookieUtil.LOCALE_US);
+		dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+		StringBuffer buf = new StringBuffer();
+		if (maxAge == 0) {
+			dateFormat.format(new Date(10_000), buf, new FieldPosition(0));
+		} else {
+			dateFormat.format(new Date(nowMillis + maxAge * 1000L), buf, new FieldPosition(0));
+		}
+		return buf.toString();
+	}
+
+	private static void assertSameBytes(long nowMillis, int maxAge) {
+		String expected = legacyFormat(nowMillis, maxAge);
+		String actual = ExpiresFormatter.format(nowMillis, maxAge);
+		assertThat(actual.getBytes(StandardCharsets.ISO_8859_1))
+			.as("now=%d maxAge=%d", nowMillis, maxAge)
+			.isEqualTo(expected.getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	@Test
+	void expiredCookieUsesFixedDate() {
+		assertSameBytes(System.currentTimeMillis(), 0);
+	}
+
+	@Test
+	void matchesLegacyFormatOnCalendarBoundaries() {
+		long[] instants = {
+			0L, 999L, 1_000L, 946_684_799_999L, 946_684_800_000L, 951_782_399_999L, 951_868_800_000L,
+			1_709_164_800_000L, 1_735_689_599_500L, 4_102_444_799_999L, 253_402_300_799_000L
+		};
+		int[] maxAges = {1, 59, 60, 3_599, 3_600, 86_400, 2_592_000, 31_536_000, Integer.MAX_VALUE};
+		for (long now : instants) {
+			for (int maxAge : maxAges) {
+				assertSameBytes(now, maxAge);
+			}
+		}
+	}
+
+	@Test
+	void matchesLegacyFormatForRandomInstants() {
+		Random random = new Random(20231018L);
+		for (int i = 0; i < 20_000; i++) {
+			long now = (long) (random.nextDouble() * 4_102_444_800_000L);
+			int maxAge = random.nextInt(100) < 80 ? random.nextInt(31_536_000) + 1 : random.nextInt(Integer.MAX_VALUE) + 1;
+			assertSameBytes(now, maxAge);
+		}
+	}
+
+	@Test
+	void cacheHitWithinSameSecondReturnsSameInstance() {
+		long now = 1_697_600_000_123L;
+		String first = ExpiresFormatter.format(now, 3600);
+		assertThat(ExpiresFormatter.format(now + 500, 3600)).isSameAs(first);
+		assertThat(ExpiresFormatter.format(now + 1_000, 3600)).isNotEqualTo(first);
+		assertThat(ExpiresFormatter.format(now, 7200)).isEqualTo(legacyFormat(now, 7200));
+	}
+}
@@ -0,0 +1,50 @@
+package wenle.github.com.helloworldweb;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HeaderEchoTests {
+
+	@Test
+	void writesEveryValueOfEveryResponseHeader() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		response.addHeader("X-Trace", "a");
+		response.addHeader("X-Trace", "b");
+		response.addHeader("Cache-Control", "no-store");
+		HeaderEcho.writeResponseHeaders(response);
+
+		String expected = "headers:\nX-Trace: a\nX-Trace: b\nCache-Control: no-store\n";
+		assertThat(response.getContentAsString()).isEqualTo(expected);
+		assertThat(response.getContentLength()).isEqualTo(expected.length());
+		assertThat(response.getContentType()).isEqualTo("text/plain;charset=UTF-8");
+	}
+
+	@Test
+	void requestModeWritesRequestHeadersAsAscii() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("X-Forwarded-For", "10.0.0.1");
+		request.addHeader("X-Forwarded-For", "10.0.0.2");
+		request.addHeader("X-Name", "café");
+		request.addHeader("X-Long", "v".repeat(3000));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		HeaderEcho.writeRequestHeaders(request, response);
+
+		String expected = "request headers:\nX-Forwarded-For: 10.0.0.1\nX-Forwarded-For: 10.0.0.2\nX-Name: caf?\nX-Long: "
+			+ "v".repeat(3000) + "\n";
+		assertThat(response.getContentAsByteArray()).isEqualTo(expected.getBytes(StandardCharsets.US_ASCII));
+		assertThat(response.getContentLength()).isEqualTo(expected.length());
+	}
+
+	@Test
+	void homeEchoesTheSetCookieHeader() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		new HelloController().home(new MockHttpServletRequest(), response, null);
+		assertThat(response.getContentAsString()).isEqualTo("headers:\nSet-Cookie: key=value; Path=/; Secure; SameSite=None\n");
+	}
+
+}
@@ -0,0 +1,81 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {"server.http2.enabled=true", "warmup.enabled=false"})
+class Http2Tests {
+
+	@LocalServerPort
+	private int port;
+
+	private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+
+	@Test
+	void setCookieIsUnchangedOverH2c() throws Exception {
+		HttpResponse<String> http1 = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()
+			.send(get("/home").build(), HttpResponse.BodyHandlers.ofString());
+		HttpResponse<String> h2c = sendOverH2c(get("/home").build());
+		assertThat(h2c.version()).isEqualTo(HttpClient.Version.HTTP_2);
+		assertThat(h2c.headers().allValues("set-cookie"))
+			.containsExactly("key=value; Path=/; Secure; SameSite=None")
+			.isEqualTo(http1.headers().allValues("set-cookie"));
+		assertThat(h2c.body()).isEqualTo(http1.body());
+	}
+
+	@Test
+	void cookieCrumbsAreFoundByName() throws Exception {
+		HttpResponse<String> response = sendOverH2c(get("/test/cookies")
+			.header("Cookie", "a=1")
+			.header("Cookie", "b=2; c=3")
+			.header("Cookie", "a=4")
+			.build());
+		assertThat(response.version()).isEqualTo(HttpClient.Version.HTTP_2);
+		assertThat(response.body()).isEqualTo("a=1 b=2 c=3");
+	}
+
+	private HttpRequest.Builder get(String path) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+	}
+
+	/**
+	 * 第一个请求通过 Upgrade: h2c 升级连接，之后的请求在 HTTP/2 连接上发送
+	 */
+	private HttpResponse<String> sendOverH2c(HttpRequest request) throws IOException, InterruptedException {
+		client.send(get("/test").build(), HttpResponse.BodyHandlers.discarding());
+		return client.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	@TestConfiguration(proxyBeanMethods = false)
+	static class CookieEchoConfiguration {
+
+		@Bean
+		ServletRegistrationBean<HttpServlet> cookieEchoServlet() {
+			return new ServletRegistrationBean<>(new HttpServlet() {
+
+				@Override
+				protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+					response.getWriter().write("a=" + CookieUtil.getCookieValue("a", request)
+						+ " b=" + CookieUtil.getCookieValue("b", request)
+						+ " c=" + CookieUtil.getCookieValue("c", request));
+				}
+			}, "/test/cookies");
+		}
+	}
+
+}
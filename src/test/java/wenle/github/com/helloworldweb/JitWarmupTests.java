@@ -0,0 +1,63 @@
+package wenle.github.com.helloworldweb;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+	properties = {"warmup.enabled=true", "warmup.iterations=50", "warmup.samples=10"})
+class JitWarmupTests {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private JitWarmup warmup;
+
+	@Test
+	void warmsUpCookiePathsAndEveryEndpoint() throws Exception {
+		JitWarmup.Report report = warmup.warmUp();
+		assertThat(report.iterations()).isEqualTo(50);
+		assertThat(report.probes()).extracting(JitWarmup.Probe::name)
+			.containsExactly("cookie", "GET /", "GET /home", "GET /home?mode=request", "GET /test");
+		assertThat(report.probes()).allSatisfy(probe -> {
+			assertThat(probe.before().mean()).isPositive();
+			assertThat(probe.after().mean()).isPositive();
+		});
+	}
+
+	@Test
+	void warmUpTrafficIsNotCountedInCookieMetrics() throws Exception {
+		CookieMetrics previous = CookieMetrics.getInstance();
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		CookieMetrics metrics = new CookieMetrics(registry);
+		CookieMetrics.install(metrics);
+		try {
+			warmup.warmUp();
+			assertThat(CookieMetrics.getInstance()).isSameAs(metrics);
+			assertThat(registry.get("cookie.set").timer().count()).isZero();
+			assertThat(registry.get("cookie.set.cookie.bytes").summary().count()).isZero();
+			assertThat(registry.get("cookie.same.site.none").counters()).allSatisfy(counter -> assertThat(counter.count()).isZero());
+		} finally {
+			CookieMetrics.install(previous);
+		}
+	}
+
+	@Test
+	void readinessIsReportedAfterWarmUp() throws Exception {
+		HttpResponse<String> response = HttpClient.newHttpClient().send(
+			HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health/readiness")).build(),
+			HttpResponse.BodyHandlers.ofString());
+		assertThat(response.statusCode()).isEqualTo(200);
+		assertThat(response.body()).contains("\"UP\"");
+	}
+}
@@ -0,0 +1,151 @@
+package wenle.github.com.helloworldweb;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import jakarta.servlet.http.Cookie;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class OffHeapSessionStoreTests {
+
+	@TempDir
+	Path dir;
+
+	private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+
+	@Test
+	void sessionsExpireWithCookieMaxAge() throws Exception {
+		try (OffHeapSessionStore store = new OffHeapSessionStore(null, 4, 64, 256, Duration.ofMinutes(30), clock)) {
+			assertThat(store.put("a", bytes("cart=1"))).isTrue();
+			clock.advance(Duration.ofMinutes(20));
+			assertThat(store.put("b", bytes("cart=2"))).isTrue();
+			assertThat(store.get("a")).isEqualTo(bytes("cart=1"));
+			assertThat(store.get("missing")).isNull();
+			assertThat(store.get("bad id")).isNull();
+
+			clock.advance(Duration.ofMinutes(10));
+			assertThat(store.get("a")).isNull();
+			assertThat(store.contains("b")).isTrue();
+			assertThat(store.purge()).isEqualTo(1);
+			assertThat(store.size()).isEqualTo(1);
+			assertThatIllegalArgumentException().isThrownBy(() -> store.put("c", new byte[256]));
+		}
+	}
+
+	@Test
+	void sessionsSurviveRestartFromMappedFile() throws Exception {
+		Path file = dir.resolve("sessions.bin");
+		try (OffHeapSessionStore store = new OffHeapSessionStore(file, 4, 64, 256, Duration.ofMinutes(30), clock)) {
+			for (int i = 0; i < 100; i++) {
+				if (i == 50) {
+					clock.advance(Duration.ofMinutes(20));
+				}
+				store.put(id(i), bytes("data-" + i));
+			}
+		}
+
+		// 破坏一个会话的数据，模拟写入中途退出
+		byte[] content = Files.readAllBytes(file);
+		int offset = indexOf(content, bytes(id(70) + "data-70"));
+		content[offset + id(70).length()] ^= 1;
+		Files.write(file, content);
+
+		clock.advance(Duration.ofMinutes(15));
+		try (OffHeapSessionStore store = new OffHeapSessionStore(file, 4, 64, 256, Duration.ofMinutes(30), clock)) {
+			assertThat(store.size()).isEqualTo(49);
+			assertThat(store.get(id(10))).isNull();
+			assertThat(store.get(id(70))).isNull();
+			for (int i = 50; i < 100; i++) {
+				if (i != 70) {
+					assertThat(store.get(id(i))).isEqualTo(bytes("data-" + i));
+				}
+			}
+		}
+
+		try (OffHeapSessionStore store = new OffHeapSessionStore(file, 8, 64, 256, Duration.ofMinutes(30), clock)) {
+			assertThat(store.size()).isZero();
+		}
+	}
+
+	@Test
+	void probingSurvivesRemovalsAndFullSegments() throws Exception {
+		Random random = new Random(42);
+		Map<String, byte[]> expected = new HashMap<>();
+		try (OffHeapSessionStore store = new OffHeapSessionStore(null, 1, 64, 128, Duration.ofMinutes(30), clock)) {
+			for (int n = 0; n < 20_000; n++) {
+				String id = id(random.nextInt(200));
+				if (random.nextInt(3) == 0) {
+					assertThat(store.remove(id)).isEqualTo(expected.remove(id) != null);
+				} else {
+					byte[] data = bytes("v" + n);
+					boolean stored = store.put(id, data);
+					assertThat(stored).isEqualTo(expected.containsKey(id) || expected.size() < 56);
+					if (stored) {
+						expected.put(id, data);
+					}
+				}
+			}
+			assertThat(store.size()).isEqualTo(expected.size());
+			for (int i = 0; i < 200; i++) {
+				assertThat(store.get(id(i))).isEqualTo(expected.get(id(i)));
+			}
+		}
+	}
+
+	@Test
+	void cookieUtilIssuesSessionIds() throws Exception {
+		try (OffHeapSessionStore store = new OffHeapSessionStore(null, 4, 64, 256, Duration.ofMinutes(30), clock)) {
+			MockHttpServletRequest request = new MockHttpServletRequest();
+			request.setCookies(new Cookie("SID", "chosen-by-client"));
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			String id = CookieUtil.addSession("SID", bytes("cart=1"), store, request, response);
+			assertThat(id).hasSize(22).isNotEqualTo("chosen-by-client");
+			assertThat(response.getCookie("SID").getValue()).isEqualTo(id);
+			assertThat(response.getCookie("SID").isHttpOnly()).isTrue();
+
+			MockHttpServletRequest next = new MockHttpServletRequest();
+			next.setCookies(new Cookie("SID", id));
+			assertThat(CookieUtil.getSession("SID", next, store)).isEqualTo(bytes("cart=1"));
+			assertThat(CookieUtil.addSession("SID", bytes("cart=2"), store, next, new MockHttpServletResponse())).isEqualTo(id);
+			assertThat(store.get(id)).isEqualTo(bytes("cart=2"));
+
+			CookieUtil.removeSession("SID", store, next, new MockHttpServletResponse());
+			assertThat(CookieUtil.getSession("SID", next, store)).isNull();
+			assertThat(store.size()).isZero();
+		}
+	}
+
+	private static String id(int i) {
+		return String.format("session-%03d", i);
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private static int indexOf(byte[] content, byte[] target) {
+		outer:
+		for (int i = 0; i <= content.length - target.length; i++) {
+			for (int j = 0; j < target.length; j++) {
+				if (content[i + j] != target[j]) {
+					continue outer;
+				}
+			}
+			return i;
+		}
+		throw new AssertionError("not found");
+	}
+}
@@ -0,0 +1,91 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrecompressedResponseTests {
+
+	private static final String BODY = "<html><body>" + "<p>Hello, HTML!</p>".repeat(20) + "</body></html>";
+
+	private final PrecompressedResponse index = new PrecompressedResponse(BODY, "text/html", StandardCharsets.UTF_8);
+
+	@Test
+	void negotiatesAcceptEncoding() throws IOException {
+		MockHttpServletResponse gzip = get("gzip, deflate, br", null);
+		assertThat(gzip.getHeader("Content-Encoding")).isEqualTo("gzip");
+		assertThat(gzip.getContentLength()).isEqualTo(gzip.getContentAsByteArray().length);
+		assertThat(new GZIPInputStream(new ByteArrayInputStream(gzip.getContentAsByteArray())).readAllBytes())
+			.isEqualTo(BODY.getBytes(StandardCharsets.UTF_8));
+
+		MockHttpServletResponse deflate = get("gzip;q=0, deflate", null);
+		assertThat(deflate.getHeader("Content-Encoding")).isEqualTo("deflate");
+		assertThat(new InflaterInputStream(new ByteArrayInputStream(deflate.getContentAsByteArray())).readAllBytes())
+			.isEqualTo(BODY.getBytes(StandardCharsets.UTF_8));
+
+		MockHttpServletResponse identity = get(null, null);
+		assertThat(identity.getHeader("Content-Encoding")).isNull();
+		assertThat(identity.getContentAsString()).isEqualTo(BODY);
+		assertThat(identity.getContentLength()).isEqualTo(BODY.length());
+		assertThat(identity.getHeader("Vary")).isEqualTo("Accept-Encoding");
+
+		assertThat(get("*;q=0.5", null).getHeader("Content-Encoding")).isEqualTo("gzip");
+		assertThat(get("identity", null).getHeader("Content-Encoding")).isNull();
+		assertThat(get("*, gzip;q=0, deflate;q=0", null).getHeader("Content-Encoding")).isNull();
+	}
+
+	@Test
+	void eachVariantHasItsOwnStrongEtag() {
+		String identity = get(null, null).getHeader("ETag");
+		String gzip = get("gzip", null).getHeader("ETag");
+		assertThat(identity).startsWith("\"").endsWith("\"");
+		assertThat(gzip).isNotEqualTo(identity).endsWith("-gzip\"");
+	}
+
+	@Test
+	void matchingIfNoneMatchReturnsHeaderOnly304() {
+		String etag = get("gzip", null).getHeader("ETag");
+		MockHttpServletResponse notModified = get("gzip", "\"other\", W/" + etag);
+		assertThat(notModified.getStatus()).isEqualTo(304);
+		assertThat(notModified.getContentAsByteArray()).isEmpty();
+		assertThat(notModified.getHeader("ETag")).isEqualTo(etag);
+		assertThat(get("gzip", "*").getStatus()).isEqualTo(304);
+
+		// 不同编码的 ETag 不命中，返回完整响应
+		MockHttpServletResponse full = get(null, etag);
+		assertThat(full.getStatus()).isEqualTo(200);
+		assertThat(full.getContentAsByteArray()).isNotEmpty();
+	}
+
+	@Test
+	void smallBodiesAreNotCompressed() {
+		PrecompressedResponse small = new PrecompressedResponse("ok", "text/plain", StandardCharsets.UTF_8);
+		assertThat(small.select("gzip").contentEncoding()).isNull();
+	}
+
+	private MockHttpServletResponse get(String acceptEncoding, String ifNoneMatch) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		if (acceptEncoding != null) {
+			request.addHeader("Accept-Encoding", acceptEncoding);
+		}
+		if (ifNoneMatch != null) {
+			request.addHeader("If-None-Match", ifNoneMatch);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		try {
+			index.writeTo(request, response);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return response;
+	}
+
+}
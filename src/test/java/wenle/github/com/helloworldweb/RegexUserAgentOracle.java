@@ -0,0 +1,113 @@
+package wenle.github.com.helloworldweb;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 原 CookieUtil 基于正则的 User-Agent 判断实现，作为 {@link UserAgentScanner} 差分测试的参照。
+ * 版本号超出 int 范围时原实现抛出 NumberFormatException，这里按 {@link Integer#MAX_VALUE} 处理。
+ */
+final class RegexUserAgentOracle {
+
+	private static final Pattern isIosVersionPattern = Pattern.compile("\\(iP.+; CPU .*OS (\\d+)[_\\d]*.*\\) AppleWebKit/");
+	private static final Pattern isMacosxVersionPattern = Pattern.compile("\\(Macintosh;.*Mac OS X (\\d+)_(\\d+)[_\\d]*.*\\) AppleWebKit/");
+	private static final Pattern isSafariPattern = Pattern.compile("Version/.* Safari/");
+	private static final Pattern isMacEmbeddedBrowserPattern = Pattern.compile("^Mozilla/[.\\d]+ \\(Macintosh;.*Mac OS X [_\\d]+\\) AppleWebKit/[.\\d]+ \\(KHTML, like Gecko\\)$");
+	private static final Pattern isChromiumBasedPattern = Pattern.compile("Chrom(e|ium)");
+	private static final Pattern isChromiumVersionAtLeastPattern = Pattern.compile("Chrom[^ /]+/(\\d+)[.\\d]* ");
+	private static final Pattern isUcBrowserVersionAtLeastPattern = Pattern.compile("UBrowser/(\\d+)\\.(\\d+)\\.(\\d+)[.\\d]* ");
+
+	private RegexUserAgentOracle() {
+	}
+
+	static boolean isSameSiteNoneIncompatible(String useragent) {
+		if (StringUtils.isBlank(useragent)) {
+			return false;
+		}
+		return hasWebKitSameSiteBug(useragent) || dropsUnrecognizedSameSiteCookies(useragent);
+	}
+
+	static boolean hasWebKitSameSiteBug(String useragent) {
+		if (StringUtils.isBlank(useragent)) {
+			return false;
+		}
+		return isIosVersion(12, useragent) || isMacosxVersion(10, 14, useragent) && (isSafari(useragent) || isMacEmbeddedBrowser(useragent));
+	}
+
+	static boolean dropsUnrecognizedSameSiteCookies(String useragent) {
+		if (isUcBrowser(useragent)) {
+			return !isUcBrowserVersionAtLeast(12, 13, 2, useragent);
+		}
+		return isChromiumBased(useragent) && isChromiumVersionAtLeast(51, useragent) && !isChromiumVersionAtLeast(67, useragent);
+	}
+
+	static boolean isIosVersion(int major, String useragent) {
+		if (StringUtils.isBlank(useragent)) {
+			return false;
+		}
+		Matcher m = isIosVersionPattern.matcher(useragent);
+		return m.find() && String.valueOf(major).equals(m.group(1));
+	}
+
+	static boolean isMacosxVersion(int major, int minor, String useragent) {
+		if (StringUtils.isBlank(useragent)) {
+			return false;
+		}
+		Matcher m = isMacosxVersionPattern.matcher(useragent);
+		return m.find() && String.valueOf(major).equals(m.group(1)) && String.valueOf(minor).equals(m.group(2));
+	}
+
+	static boolean isSafari(String useragent) {
+		return !StringUtils.isBlank(useragent) && isSafariPattern.matcher(useragent).find();
+	}
+
+	static boolean isMacEmbeddedBrowser(String useragent) {
+		return !StringUtils.isBlank(useragent) && isMacEmbeddedBrowserPattern.matcher(useragent).find();
+	}
+
+	static boolean isChromiumBased(String useragent) {
+		return !StringUtils.isBlank(useragent) && isChromiumBasedPattern.matcher(useragent).find();
+	}
+
+	static boolean isUcBrowser(String useragent) {
+		return !StringUtils.isBlank(useragent) && useragent.contains("UBrowser/");
+	}
+
+	static boolean isUcBrowserVersionAtLeast(int major, int minor, int build, String useragent) {
+		if (StringUtils.isBlank(useragent)) {
+			return false;
+		}
+		Matcher m = isUcBrowserVersionAtLeastPattern.matcher(useragent);
+		if (!m.find()) {
+			return false;
+		}
+		int majorVersion = parse(m.group(1));
+		int minorVersion = parse(m.group(2));
+		int buildVersion = parse(m.group(3));
+		if (majorVersion != major) {
+			return majorVersion > major;
+		} else if (minorVersion != minor) {
+			return minorVersion > minor;
+		} else {
+			return buildVersion >= build;
+		}
+	}
+
+	static boolean isChromiumVersionAtLeast(int major, String useragent) {
+		if (StringUtils.isBlank(useragent)) {
+			return false;
+		}
+		Matcher m = isChromiumVersionAtLeastPattern.matcher(useragent);
+		return m.find() && parse(m.group(1)) >= major;
+	}
+
+	private static int parse(String digits) {
+		try {
+			return Integer.parseInt(digits);
+		} catch (NumberFormatException e) {
+			return Integer.MAX_VALUE;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package wenle.github.com.helloworldweb;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RevocationRegistryTests {
+
+	@TempDir
+	Path dir;
+
+	private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+
+	@Test
+	void revokedCookiesAreReadAsMissing() {
+		RevocationRegistry registry = new RevocationRegistry(16, null, clock);
+		RevocationRegistry.install(registry);
+		try {
+			MockHttpServletRequest request = new MockHttpServletRequest();
+			request.addHeader("Cookie", "SESSION=s1.k1.abc.def; theme=dark");
+			assertThat(CookieUtil.getCookieValue("SESSION", request)).isEqualTo("s1.k1.abc.def");
+			registry.revoke("s1.k1.abc.def", Duration.ofHours(1));
+			assertThat(CookieUtil.getCookieValue("SESSION", request)).isNull();
+			assertThat(CookieUtil.getCookie("SESSION", request)).isNull();
+			assertThat(CookieUtil.getCookieValue("theme", request)).isEqualTo("dark");
+		} finally {
+			registry.close();
+		}
+		assertThat(RevocationRegistry.getInstance()).isNull();
+	}
+
+	@Test
+	void revocationsExpireAndArePurged() {
+		RevocationRegistry registry = new RevocationRegistry(16, null, clock);
+		registry.revoke("a", Duration.ofMinutes(10));
+		registry.revoke("b", Duration.ofMinutes(30));
+		registry.revoke("c", Duration.ZERO);
+		assertThat(registry.isRevoked("a")).isTrue();
+		assertThat(registry.isRevoked("c")).isFalse();
+		clock.advance(Duration.ofMinutes(10));
+		assertThat(registry.isRevoked("a")).isFalse();
+		assertThat(registry.isRevoked("b")).isTrue();
+		assertThat(registry.size()).isEqualTo(2);
+		registry.purge();
+		assertThat(registry.size()).isEqualTo(1);
+		clock.advance(Duration.ofMinutes(20));
+		registry.purge();
+		assertThat(registry.size()).isZero();
+		assertThat(registry.isRevoked("b")).isFalse();
+	}
+
+	@Test
+	void snapshotsRestoreUnexpiredRevocations() throws Exception {
+		Path file = dir.resolve("revocations.bin");
+		RevocationRegistry registry = new RevocationRegistry(16, file, clock);
+		for (int i = 0; i < 100; i++) {
+			registry.revoke("session-" + i, Duration.ofMinutes(i < 50 ? 5 : 60));
+		}
+		registry.close();
+		assertThat(Files.list(dir)).containsExactly(file);
+
+		clock.advance(Duration.ofMinutes(10));
+		RevocationRegistry restored = new RevocationRegistry(16, file, clock);
+		restored.load();
+		assertThat(restored.size()).isEqualTo(50);
+		assertThat(restored.isRevoked("session-10")).isFalse();
+		assertThat(restored.isRevoked("session-60")).isTrue();
+
+		Files.write(file, new byte[] {1, 2, 3});
+		RevocationRegistry corrupt = new RevocationRegistry(16, file, clock);
+		corrupt.load();
+		assertThat(corrupt.size()).isZero();
+	}
+
+	@Test
+	void bloomFilterHasNoFalseNegativesAndFewFalsePositives() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.add("s1.k1.tn38ny.dXNlcj00Mg." + i);
+		}
+		int falsePositives = 0;
+		for (int i = 0; i < 10_000; i++) {
+			assertThat(filter.mightContain("s1.k1.tn38ny.dXNlcj00Mg." + i)).isTrue();
+			if (filter.mightContain("s1.k1.tn38ny.dXNlcj00Mg.x" + i)) {
+				falsePositives++;
+			}
+		}
+		assertThat(falsePositives).isLessThan(100);
+	}
+}
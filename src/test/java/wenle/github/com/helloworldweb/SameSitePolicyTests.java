@@ -0,0 +1,76 @@
+package wenle.github.com.helloworldweb;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SameSitePolicyTests {
+
+	private static final String CHROME_116 = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/116.0.0.0 Safari/537.36";
+
+	private static final String CHROME_75 = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/75.0.3770.100 Safari/537.36";
+
+	private static final String CHROME_60 = "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/60.0.3112.113 Safari/537.36";
+
+	private static final String IOS_12 = "Mozilla/5.0 (iPhone; CPU iPhone OS 12_4_1 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/12.1.2 Mobile/15E148 Safari/604.1";
+
+	@Test
+	void noneIsOmittedForIncompatibleBrowsers() {
+		SameSitePolicy policy = new SameSitePolicy("None", null, null);
+		assertThat(policy.suffixFor(CHROME_116)).isEqualTo("; SameSite=None");
+		assertThat(policy.suffixFor(CHROME_60)).isEmpty();
+		assertThat(policy.suffixFor(IOS_12)).isEmpty();
+		assertThat(policy.suffixFor(null)).isEqualTo("; SameSite=None");
+	}
+
+	@Test
+	void laxIsSentToEveryBrowser() {
+		SameSitePolicy policy = new SameSitePolicy("lax", null, null);
+		assertThat(policy.suffixFor(CHROME_60)).isEqualTo("; SameSite=Lax");
+		assertThat(policy.suffixFor(IOS_12)).isEqualTo("; SameSite=Lax");
+	}
+
+	@Test
+	void chrome80ModeOnlyTargetsChromium80AndLater() {
+		SameSitePolicy policy = new SameSitePolicy(CookieUtil.USE_SAME_SITE_ONLY_AFTER_CHROME_80, null, null);
+		assertThat(policy.suffixFor(CHROME_116)).isEqualTo("; SameSite=None");
+		assertThat(policy.suffixFor(CHROME_75)).isEmpty();
+		assertThat(policy.suffixFor(IOS_12)).isEmpty();
+		assertThat(policy.suffixFor("")).isEmpty();
+	}
+
+	@Test
+	void regexRulesSelectUserAgents() {
+		SameSitePolicy policy = new SameSitePolicy("None", "Chrome/", "Edg/");
+		assertThat(policy.suffixFor(CHROME_116)).isEqualTo("; SameSite=None");
+		assertThat(policy.suffixFor(CHROME_116 + " Edg/116.0.1938.69")).isEmpty();
+		assertThat(policy.suffixFor("Mozilla/5.0 (Windows NT 10.0; Win64; x64; rv:109.0) Gecko/20100101 Firefox/117.0")).isEmpty();
+	}
+
+	@Test
+	void engineReusesDecisionWithinRequestAndFallsBackToDefaults() {
+		SameSitePolicyEngine engine = new SameSitePolicyEngine(new SameSitePolicy("Lax", null, "bot"));
+		assertThat(engine.resolve(null, null, null)).isSameAs(engine.getDefaultPolicy());
+		assertThat(engine.resolve("Lax", "", " ")).isSameAs(engine.getDefaultPolicy());
+		SameSitePolicy strict = engine.resolve("Strict", null, null);
+		assertThat(strict).isSameAs(engine.resolve("Strict", null, null));
+		assertThat(strict.getCheckUnSameSiteRegex()).isEqualTo("bot");
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", CHROME_116);
+		assertThat(engine.suffixFor(request, engine.getDefaultPolicy())).isEqualTo("; SameSite=Lax");
+		request.removeHeader("User-Agent");
+		request.addHeader("User-Agent", "Googlebot");
+		assertThat(engine.suffixFor(request, engine.getDefaultPolicy())).isEqualTo("; SameSite=Lax");
+		assertThat(engine.suffixFor(request, strict)).isEmpty();
+	}
+
+	@Test
+	void appendSameSiteKeepsExistingAttribute() {
+		String header = "USER_COOKIE=DE719787; Path=/; SameSite=Strict";
+		assertThat(CookieUtil.appendSameSite(null, header, "None", null, null)).isSameAs(header);
+		assertThat(CookieUtil.appendSameSite(null, "USER_COOKIE=DE719787; Path=/", null, null, null))
+			.isEqualTo("USER_COOKIE=DE719787; Path=/; SameSite=None");
+	}
+}
@@ -0,0 +1,120 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ServerTimingFilterTests {
+
+	@AfterEach
+	void reset() {
+		ServerTiming.setConfigured(false);
+	}
+
+	@Test
+	void stagesAreReportedBeforeTheResponseIsCommitted() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setCookies(new Cookie("a", "1"));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		new ServerTimingFilter(true, null).doFilter(request, response, new HomeChain());
+
+		assertThat(response.isCommitted()).isTrue();
+		assertThat(response.getHeader(ServerTimingFilter.HEADER))
+			.matches("cookie;dur=\\d+\\.\\d{3};desc=\"cookie lookup x2\", "
+				+ "set-cookie;dur=\\d+\\.\\d{3};desc=\"set-cookie construction\", "
+				+ "body;dur=\\d+\\.\\d{3};desc=\"body writing\", total;dur=\\d+\\.\\d{3}");
+		assertThat(response.getContentAsString()).isEqualTo("1");
+	}
+
+	@Test
+	void headerIsWrittenBeforeTheFirstByteWhenContentLengthIsKnown() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		new ServerTimingFilter(true, null).doFilter(new MockHttpServletRequest(), response, new MockFilterChain() {
+
+			@Override
+			public void doFilter(ServletRequest req, ServletResponse res) throws java.io.IOException {
+				res.setContentLength(2);
+				res.getOutputStream().write(new byte[] {'o', 'k'});
+				// 模拟容器写满 Content-Length 后提交响应
+				((MockHttpServletResponse) ((jakarta.servlet.ServletResponseWrapper) res).getResponse()).setCommitted(true);
+			}
+
+		});
+		// 响应头在写响应体之前发出，不报告无法测量的 body 阶段
+		assertThat(response.getHeader(ServerTimingFilter.HEADER)).startsWith("total;dur=").doesNotContain("body");
+	}
+
+	@Test
+	void disabledRequestsAreNotTimed() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		new ServerTimingFilter(false, "secret").doFilter(new MockHttpServletRequest(), response, new HomeChain());
+		assertThat(response.getHeader(ServerTimingFilter.HEADER)).isNull();
+		assertThat(ServerTiming.start()).isZero();
+
+		new ServerTimingFilter(false, null);
+		assertThat(ServerTiming.start()).isZero();
+	}
+
+	@Test
+	void signedHeaderEnablesTiming() throws Exception {
+		ServerTimingFilter filter = new ServerTimingFilter(false, "secret");
+		long expires = System.currentTimeMillis() / 1000L + 60;
+		String token = expires + "." + new String(filter.sign(String.valueOf(expires)), StandardCharsets.US_ASCII);
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader(ServerTimingFilter.TOKEN_HEADER, token);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new HomeChain());
+		assertThat(response.getHeader(ServerTimingFilter.HEADER)).contains("set-cookie;dur=").contains("total;dur=");
+
+		assertThat(filter.verify(token, expires + 1)).isFalse();
+		assertThat(filter.verify(token + "x", expires)).isFalse();
+		assertThat(filter.verify("x." + token, expires)).isFalse();
+		assertThat(new ServerTimingFilter(false, "other").verify(token, expires)).isFalse();
+
+		// 过期时间太远的签名即使签名正确也不接受
+		long farFuture = expires + ServerTimingFilter.DEFAULT_MAX_TOKEN_TTL.toSeconds();
+		String longLived = farFuture + "." + new String(filter.sign(String.valueOf(farFuture)), StandardCharsets.US_ASCII);
+		assertThat(filter.verify(longLived, expires - 60)).isFalse();
+		assertThat(filter.verify(longLived, farFuture - ServerTimingFilter.DEFAULT_MAX_TOKEN_TTL.toSeconds())).isTrue();
+		assertThatIllegalArgumentException().isThrownBy(() -> new ServerTimingProperties().setMaxTokenTtl(Duration.ZERO));
+	}
+
+	/**
+	 * 与 HelloController.home 相同的处理：读 Cookie、写 Cookie、写响应体并 flush
+	 */
+	private static final class HomeChain extends MockFilterChain {
+
+		@Override
+		public void doFilter(ServletRequest req, ServletResponse res) {
+			HttpServletRequest request = (HttpServletRequest) req;
+			HttpServletResponse response = (HttpServletResponse) res;
+			String value = CookieUtil.getCookieValue("a", request);
+			CookieUtil.getCookie("b", request);
+			CookieUtil.addCookie("key", "value", response);
+			try {
+				PrintWriter writer = response.getWriter();
+				writer.write(value == null ? "" : value);
+				writer.flush();
+			} catch (java.io.IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+	}
+
+}
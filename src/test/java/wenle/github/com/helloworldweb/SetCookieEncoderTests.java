@@ -0,0 +1,83 @@
+package wenle.github.com.helloworldweb;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SetCookieEncoderTests {
+
+	private static final long NOW = 1697600000123L;
+
+	@Test
+	void encodesVersion0Cookies() {
+		SetCookieEncoder encoder = new SetCookieEncoder();
+		assertThat(encoder.encode(0, "USER_COOKIE", "a b;c", null, ".example.com", 3600, NOW, "/", true, true, "High")
+			.appendSameSite("; SameSite=None").toString())
+			.isEqualTo("USER_COOKIE=a b;c; Domain=.example.com; Expires=" + ExpiresFormatter.format(NOW, 3600)
+				+ "; Path=/; Secure; HttpOnly; Priority=High; SameSite=None");
+		assertThat(encoder.encode(0, "k", null, "ignored", null, -1, NOW, null, false, false, " ").toString())
+			.isEqualTo("k=");
+		assertThat(encoder.encode(0, "k", "v", null, null, 0, NOW, "/", false, false, null).toString())
+			.isEqualTo("k=v; Expires=" + ExpiresFormatter.EXPIRED + "; Path=/");
+	}
+
+	@Test
+	void encodesVersion1Cookies() {
+		SetCookieEncoder encoder = new SetCookieEncoder();
+		assertThat(encoder.encode(1, "k", "a b", "note", "example.com", 120, NOW, "/app", true, false, null).toString())
+			.isEqualTo("k=\"a b\"; Version=1; Comment=note; Domain=example.com; Max-Age=120; Path=\"/app\"; Secure");
+		assertThat(encoder.encode(1, "k", "token", null, null, -1, NOW, null, false, true, null).toString())
+			.isEqualTo("k=token; Version=1; Discard; HttpOnly");
+	}
+
+	@Test
+	void existingSameSiteIsKept() {
+		SetCookieEncoder encoder = new SetCookieEncoder();
+		assertThat(encoder.encode(0, "k", "v", null, null, -1, NOW, "/", false, false, "SAMESITE").containsSameSite()).isTrue();
+		assertThat(encoder.appendSameSite("; SameSite=Lax").toString()).isEqualTo("k=v; Path=/; Priority=SAMESITE");
+		assertThat(encoder.encode(0, "samesite", "v", null, null, -1, NOW, null, false, false, null).containsSameSite()).isFalse();
+		assertThat(encoder.encode(0, "k", "v", null, null, -1, NOW, null, false, false, null).appendSameSite("").toString())
+			.isEqualTo("k=v");
+	}
+
+	@Test
+	void growsForLargeCookies() {
+		String value = "x".repeat(20_000);
+		SetCookieEncoder encoder = new SetCookieEncoder();
+		assertThat(encoder.encode(0, "k", value, null, null, -1, NOW, "/", false, false, null).toString())
+			.isEqualTo("k=" + value + "; Path=/");
+		assertThat(encoder.encode(0, "k", "v", null, null, -1, NOW, null, false, false, null).toString()).isEqualTo("k=v");
+	}
+
+	@Test
+	void steadyStateEncodingDoesNotAllocate() {
+		assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+		SetCookieEncoder encoder = SetCookieEncoder.acquire();
+		// 预热，填充 Expires 缓存
+		int checksum = encodeMany(encoder, 20_000);
+		long threadId = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(threadId);
+		checksum += encodeMany(encoder, 100_000);
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+		assertThat(checksum).isPositive();
+		// 只允许 MXBean 调用自身的少量分配，远小于每个 Cookie 一个对象
+		assertThat(allocated).isLessThan(16 * 1024);
+	}
+
+	private static int encodeMany(SetCookieEncoder encoder, int count) {
+		int checksum = 0;
+		for (int i = 0; i < count; i++) {
+			checksum += encoder.encode(0, "USER_COOKIE", "DE719787A1B2C3", null, ".example.com", 3600, NOW, "/", true, true, "High")
+				.appendSameSite("; SameSite=None")
+				.length();
+			checksum += encoder.encode(1, "k", "a b", "note", null, 120, NOW, "/", false, false, null).length();
+		}
+		return checksum;
+	}
+
+}
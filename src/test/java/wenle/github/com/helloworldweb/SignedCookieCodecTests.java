@@ -0,0 +1,116 @@
+package wenle.github.com.helloworldweb;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class SignedCookieCodecTests {
+
+	private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+	private static final CookieKeyRing K1 = new CookieKeyRing("k1", Map.of("k1", secret(1)));
+
+	@Test
+	void signedAndEncryptedCookiesRoundTrip() {
+		for (boolean encrypt : new boolean[] {false, true}) {
+			SignedCookieCodec<String> codec = codec(K1, encrypt, NOW);
+			String value = codec.encode("SESSION", "user=42;roles=admin,用户");
+			assertThat(value).startsWith(encrypt ? SignedCookieCodec.ENCRYPTED : SignedCookieCodec.SIGNED)
+				.matches("[A-Za-z0-9._-]+");
+			assertThat(value.contains("dXNlcj0")).isEqualTo(!encrypt);
+			SignedCookieCodec.SignedCookie<String> cookie = codec.decode("SESSION", value);
+			assertThat(cookie.value()).isEqualTo("user=42;roles=admin,用户");
+			assertThat(cookie.issuedAt()).isEqualTo(NOW);
+			assertThat(cookie.keyId()).isEqualTo("k1");
+		}
+	}
+
+	@Test
+	void tamperedRenamedAndMalformedCookiesAreRejected() {
+		for (boolean encrypt : new boolean[] {false, true}) {
+			SignedCookieCodec<String> codec = codec(K1, encrypt, NOW);
+			String value = codec.encode("SESSION", "user=42");
+			assertThat(codec.decode("OTHER", value)).isNull();
+			for (int i = 0; i < value.length(); i++) {
+				char[] chars = value.toCharArray();
+				chars[i] = chars[i] == 'A' ? 'B' : 'A';
+				assertThat(codec.decode("SESSION", new String(chars))).as("%s at %d", value, i).isNull();
+			}
+			assertThat(codec.decode("SESSION", value.substring(0, value.length() - 1))).isNull();
+			assertThat(codec.decode("SESSION", null)).isNull();
+			assertThat(codec.decode("SESSION", "s1.k1")).isNull();
+			assertThat(codec.decode("SESSION", "e1.k1.0.")).isNull();
+			assertThat(codec.decode("SESSION", "plain")).isNull();
+		}
+	}
+
+	@Test
+	void expiredAndFutureCookiesAreRejected() {
+		String value = codec(K1, false, NOW).encode("SESSION", "v");
+		assertThat(codec(K1, false, NOW.plusSeconds(3599)).decode("SESSION", value)).isNotNull();
+		assertThat(codec(K1, false, NOW.plusSeconds(3600)).decode("SESSION", value)).isNull();
+		assertThat(codec(K1, false, NOW.minusSeconds(60)).decode("SESSION", value)).isNotNull();
+		assertThat(codec(K1, false, NOW.minusSeconds(61)).decode("SESSION", value)).isNull();
+	}
+
+	@Test
+	void rotatedKeysStillVerifyUntilRemoved() {
+		Map<String, byte[]> secrets = new LinkedHashMap<>();
+		secrets.put("k1", secret(1));
+		secrets.put("k2", secret(2));
+		SignedCookieCodec<String> old = codec(K1, true, NOW);
+		SignedCookieCodec<String> rotated = codec(new CookieKeyRing("k2", secrets), true, NOW);
+		String oldValue = old.encode("SESSION", "v");
+		SignedCookieCodec.SignedCookie<String> cookie = rotated.decode("SESSION", oldValue);
+		assertThat(cookie.keyId()).isEqualTo("k1");
+		assertThat(rotated.needsReissue(cookie)).isTrue();
+		assertThat(rotated.needsReissue(rotated.decode("SESSION", rotated.encode("SESSION", "v")))).isFalse();
+		assertThat(codec(new CookieKeyRing("k2", Map.of("k2", secret(2))), true, NOW).decode("SESSION", oldValue)).isNull();
+		assertThat(rotated.decode("SESSION", oldValue.replace(".k1.", ".k2."))).isNull();
+	}
+
+	@Test
+	void invalidKeysAreRejectedAtStartup() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new CookieKeyRing("k1", Map.of("k1", new byte[16])));
+		assertThatIllegalArgumentException().isThrownBy(() -> new CookieKeyRing("k.1", Map.of("k.1", secret(1))));
+		assertThatIllegalArgumentException().isThrownBy(() -> new CookieKeyRing("k2", Map.of("k1", secret(1))));
+		assertThatIllegalArgumentException().isThrownBy(() -> codec(K1, false, NOW).encode("SESSION", "x".repeat(4000)));
+	}
+
+	@Test
+	void cookieUtilReadsAndWritesTypedPayloads() {
+		SignedCookieCodec<String> codec = new SignedCookieCodec<>(K1, CookiePayloadSerializer.UTF8, Duration.ofHours(1), true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		CookieUtil.addCookie("SESSION", "user=42", codec, new MockHttpServletRequest(), response);
+		String header = response.getHeader("Set-Cookie");
+		assertThat(header).startsWith("SESSION=e1.k1.").contains("HttpOnly", "Secure");
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Cookie", "a=1; " + header.substring(0, header.indexOf(';')));
+		assertThat(CookieUtil.getCookieValue("SESSION", request, codec)).isEqualTo("user=42");
+		MockHttpServletRequest forged = new MockHttpServletRequest();
+		forged.addHeader("Cookie", "SESSION=s1.k1.0.dXNlcj00Mg.AAAAAAAAAAAAAAAAAAAAAA");
+		assertThat(CookieUtil.getCookieValue("SESSION", forged, codec)).isNull();
+	}
+
+	private static SignedCookieCodec<String> codec(CookieKeyRing keyRing, boolean encrypt, Instant now) {
+		return new SignedCookieCodec<>(keyRing, CookiePayloadSerializer.UTF8, Duration.ofHours(1), encrypt, Clock.fixed(now, ZoneOffset.UTC));
+	}
+
+	private static byte[] secret(int seed) {
+		byte[] secret = new byte[32];
+		Arrays.fill(secret, (byte) seed);
+		return secret;
+	}
+}
@@ -0,0 +1,52 @@
+package wenle.github.com.helloworldweb;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserAgentDecisionCacheTests {
+
+	private static final String IOS_12 = "Mozilla/5.0 (iPhone; CPU iPhone OS 12_4_1 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/12.1.2 Mobile/15E148 Safari/604.1";
+
+	private static final String CHROME_116 = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/116.0.0.0 Safari/537.36";
+
+	private static final String CHROME_60 = "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/60.0.3112.113 Safari/537.36";
+
+	@Test
+	void cachedProfileMatchesDirectScan() {
+		UserAgentDecisionCache cache = new UserAgentDecisionCache(UserAgentDecisionCache.DEFAULT_MAXIMUM_WEIGHT, 1024);
+		for (String userAgent : new String[] {IOS_12, CHROME_116, CHROME_60}) {
+			UserAgentProfile expected = UserAgentScanner.scan(userAgent);
+			assertThat(cache.get(userAgent).getSameSiteCompatibility()).isSameAs(expected.getSameSiteCompatibility());
+			assertThat(cache.get(userAgent)).hasToString(expected.toString());
+		}
+		assertThat(cache.get(IOS_12).isSameSiteNoneIncompatible()).isTrue();
+		assertThat(cache.get(CHROME_60).isSameSiteNoneIncompatible()).isTrue();
+		assertThat(cache.get(CHROME_116).isSameSiteNoneIncompatible()).isFalse();
+		assertThat(cache.get(CHROME_116).getSameSiteCompatibility().isChromium80AtLeast()).isTrue();
+	}
+
+	@Test
+	void countsHitsMissesAndBypasses() {
+		UserAgentDecisionCache cache = new UserAgentDecisionCache(UserAgentDecisionCache.DEFAULT_MAXIMUM_WEIGHT, 200);
+		cache.get(CHROME_116);
+		cache.get(CHROME_116);
+		cache.get(CHROME_116);
+		cache.get(CHROME_116 + " " + "x".repeat(200));
+		assertThat(cache.missCount()).isEqualTo(1);
+		assertThat(cache.hitCount()).isEqualTo(2);
+		assertThat(cache.bypassCount()).isEqualTo(1);
+		assertThat(cache.estimatedSize()).isEqualTo(1);
+	}
+
+	@Test
+	void weightBoundEvictsEntries() {
+		UserAgentDecisionCache cache = new UserAgentDecisionCache(64 * 1024, 1024);
+		for (int i = 0; i < 5_000; i++) {
+			cache.get(CHROME_116 + " Build/" + i);
+		}
+		cache.unwrap().cleanUp();
+		assertThat(cache.evictionCount()).isPositive();
+		assertThat(cache.estimatedSize()).isLessThan(5_000);
+	}
+}
@@ -0,0 +1,138 @@
+package wenle.github.com.helloworldweb;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class UserAgentScannerTests {
+
+	/**
+	 * 随机拼接 User-Agent 时使用的片段，覆盖各正则的字面量、版本号和行结束符
+	 */
+	private static final String[] FRAGMENTS = {
+		"Mozilla/", "5.0", " ", "(", ")", ";", "/", ".", "_", "0", "1", "2", "10", "12", "14", "012", "4_1", "13_3", "10_14", "10_14_6",
+		"(iPhone", "(iPad", "(iP", "; CPU ", "CPU iPhone ", "OS ", "OS 12", "OS 12_4_1", " like ", "Mac OS X ", "Mac OS X 10_14",
+		"(Macintosh;", " (Macintosh; Intel ", ") AppleWebKit/", "AppleWebKit/605.1.15", ") AppleWebKit", " (KHTML, like Gecko)",
+		"Version/", "Version/12.1", " Safari/", "Safari/604.1", "Chrome", "Chromium", "Chrom", "Chrome/", "Chrome/66.0.3359.181 ",
+		"Chrome/80 ", "Chrome/51.", "HeadlessChrome/", "UBrowser/", "UBrowser/12.13.2 ", "UBrowser/12.13.1.1005 ", "UCBrowser/",
+		"Mobile", "\n", "\r", "\r\n", "\u0085", "\u2028", "\u2029", "\t", "x", "99999999999"
+	};
+
+	private static List<String> realUserAgents() throws IOException {
+		List<String> userAgents = new ArrayList<>();
+		for (String line : Files.readAllLines(Path.of("src/jmh/resources/user-agents.txt"), StandardCharsets.UTF_8)) {
+			if (!line.isBlank() && !line.startsWith("#")) {
+				userAgents.add(line);
+			}
+		}
+		return userAgents;
+	}
+
+	private static List<String> corpus() throws IOException {
+		List<String> real = realUserAgents();
+		List<String> corpus = new ArrayList<>(real);
+		Random random = new Random(42L);
+		for (int i = 0; i < 100_000; i++) {
+			StringBuilder sb = new StringBuilder();
+			if (random.nextInt(4) == 0) {
+				// 在真实 User-Agent 中插入随机片段
+				sb.append(real.get(random.nextInt(real.size())));
+				int inserts = 1 + random.nextInt(3);
+				for (int j = 0; j < inserts; j++) {
+					sb.insert(random.nextInt(sb.length() + 1), FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+				}
+			} else {
+				int fragments = 1 + random.nextInt(16);
+				for (int j = 0; j < fragments; j++) {
+					sb.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+				}
+			}
+			corpus.add(sb.toString());
+		}
+		corpus.add("");
+		corpus.add("   ");
+		corpus.add("Mozilla/5.0 (Macintosh; Intel Mac OS X 10_14_6) AppleWebKit/605.1.15 (KHTML, like Gecko)\n");
+		corpus.add("Mozilla/5.0 (Macintosh; Intel Mac OS X 10_14_6) AppleWebKit/605.1.15 (KHTML, like Gecko)\r\n");
+		corpus.add("Mozilla/5.0 (Macintosh; Intel Mac OS X 10_14_6) AppleWebKit/605.1.15 (KHTML, like Gecko)\n\n");
+		return corpus;
+	}
+
+	@Test
+	void matchesRegexImplementationOverCorpus() throws IOException {
+		int ios12 = 0;
+		int incompatible = 0;
+		for (String userAgent : corpus()) {
+			UserAgentProfile profile = UserAgentScanner.scan(userAgent);
+			String description = profile + " <- [" + userAgent + "]";
+			assertThat(profile.isIosVersion(12)).as(description).isEqualTo(RegexUserAgentOracle.isIosVersion(12, userAgent));
+			assertThat(profile.isIosVersion(13)).as(description).isEqualTo(RegexUserAgentOracle.isIosVersion(13, userAgent));
+			assertThat(profile.isIosVersion(4)).as(description).isEqualTo(RegexUserAgentOracle.isIosVersion(4, userAgent));
+			assertThat(profile.isMacosxVersion(10, 14)).as(description).isEqualTo(RegexUserAgentOracle.isMacosxVersion(10, 14, userAgent));
+			assertThat(profile.isMacosxVersion(13, 3)).as(description).isEqualTo(RegexUserAgentOracle.isMacosxVersion(13, 3, userAgent));
+			assertThat(profile.isSafari()).as(description).isEqualTo(RegexUserAgentOracle.isSafari(userAgent));
+			assertThat(profile.isMacEmbeddedBrowser()).as(description).isEqualTo(RegexUserAgentOracle.isMacEmbeddedBrowser(userAgent));
+			assertThat(profile.isChromiumBased()).as(description).isEqualTo(RegexUserAgentOracle.isChromiumBased(userAgent));
+			for (int major : new int[] {0, 51, 66, 67, 80, Integer.MAX_VALUE}) {
+				assertThat(profile.isChromiumVersionAtLeast(major)).as(description)
+					.isEqualTo(RegexUserAgentOracle.isChromiumVersionAtLeast(major, userAgent));
+			}
+			assertThat(profile.isUcBrowser()).as(description).isEqualTo(RegexUserAgentOracle.isUcBrowser(userAgent));
+			assertThat(profile.isUcBrowserVersionAtLeast(12, 13, 2)).as(description)
+				.isEqualTo(RegexUserAgentOracle.isUcBrowserVersionAtLeast(12, 13, 2, userAgent));
+			assertThat(profile.hasWebKitSameSiteBug()).as(description).isEqualTo(RegexUserAgentOracle.hasWebKitSameSiteBug(userAgent));
+			assertThat(profile.dropsUnrecognizedSameSiteCookies()).as(description)
+				.isEqualTo(RegexUserAgentOracle.dropsUnrecognizedSameSiteCookies(userAgent));
+			assertThat(CookieUtil.isSameSiteNoneIncompatible(userAgent)).as(description)
+				.isEqualTo(RegexUserAgentOracle.isSameSiteNoneIncompatible(userAgent));
+			ios12 += profile.isIosVersion(12) ? 1 : 0;
+			incompatible += profile.isSameSiteNoneIncompatible() ? 1 : 0;
+		}
+		// 语料需要覆盖到正反两种结果
+		assertThat(ios12).isGreaterThan(100);
+		assertThat(incompatible).isGreaterThan(1_000);
+	}
+
+	@Test
+	void classifiesRealUserAgents() {
+		UserAgentProfile ios = UserAgentScanner.scan("Mozilla/5.0 (iPhone; CPU iPhone OS 12_4_1 like Mac OS X) AppleWebKit/605.1.15 "
+			+ "(KHTML, like Gecko) Version/12.1.2 Mobile/15E148 Safari/604.1");
+		assertThat(ios.getOsFamily()).isEqualTo(UserAgentProfile.OsFamily.IOS);
+		assertThat(ios.getIosMajor()).isEqualTo(12);
+		assertThat(ios.getEngine()).isEqualTo(UserAgentProfile.Engine.WEBKIT);
+		assertThat(ios.isSafari()).isTrue();
+
+		UserAgentProfile uc = UserAgentScanner.scan("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) "
+			+ "Chrome/78.0.3904.108 UBrowser/12.13.2.1005 Safari/537.36");
+		assertThat(uc.getEngine()).isEqualTo(UserAgentProfile.Engine.CHROMIUM);
+		assertThat(uc.getChromiumMajor()).isEqualTo(78);
+		assertThat(new int[] {uc.getUcMajor(), uc.getUcMinor(), uc.getUcBuild()}).containsExactly(12, 13, 2);
+		assertThat(uc.isSameSiteNoneIncompatible()).isFalse();
+	}
+
+	@Test
+	void pathologicalUserAgentsScanInLinearTime() {
+		String[] pathological = {
+			"(iP" + "; CPU OS 1".repeat(200_000),
+			"(Macintosh;" + "Mac OS X 1_1 ".repeat(200_000),
+			"Chrom" + "e".repeat(2_000_000),
+			"ChromChrom".repeat(200_000) + "/",
+			"Version/" + " Safari".repeat(300_000),
+			"Mozilla/1 (Macintosh;" + " ".repeat(2_000_000) + "Mac OS X 1) AppleWebKit/1 (KHTML, like Gecko)x"
+		};
+		assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+			for (String userAgent : pathological) {
+				UserAgentScanner.scan(userAgent);
+			}
+		});
+	}
+}